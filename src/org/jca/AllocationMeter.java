@@ -0,0 +1,52 @@
+package org.jca;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Reads the number of heap bytes allocated by the current thread, on JVMs that support it (HotSpot-derived JVMs do,
+ * via {@code com.sun.management.ThreadMXBean}).
+ * 
+ * @author ksdj (coder-hat)
+ */
+public final class AllocationMeter
+{
+    /**
+     * The JVM's thread MXBean, when it supports per-thread allocation counting; otherwise null.
+     */
+    private static final com.sun.management.ThreadMXBean THREAD_BEAN;
+    static {
+        com.sun.management.ThreadMXBean bean = null;
+        try {
+            ThreadMXBean platformBean = ManagementFactory.getThreadMXBean();
+            if (platformBean instanceof com.sun.management.ThreadMXBean) {
+                bean = (com.sun.management.ThreadMXBean) platformBean;
+                if (!bean.isThreadAllocatedMemorySupported()) {
+                    bean = null;
+                } else if (!bean.isThreadAllocatedMemoryEnabled()) {
+                    bean.setThreadAllocatedMemoryEnabled(true);
+                }
+            }
+        } catch (LinkageError | UnsupportedOperationException | SecurityException ex) {
+            bean = null;
+        }
+        THREAD_BEAN = bean;
+    }
+
+    private AllocationMeter() {
+    }
+
+    /**
+     * @return Whether {@link #currentThreadAllocatedBytes()} returns real values on this JVM.
+     */
+    public static boolean isSupported() {
+        return THREAD_BEAN != null;
+    }
+
+    /**
+     * @return The total number of heap bytes allocated by the current thread so far, or -1 if not supported.
+     */
+    public static long currentThreadAllocatedBytes() {
+        return (THREAD_BEAN != null) ? THREAD_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1L;
+    }
+}
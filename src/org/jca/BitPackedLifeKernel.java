@@ -0,0 +1,179 @@
+package org.jca;
+
+/**
+ * Bit-parallel (SWAR) Game of Life kernel for {@link ConwayLifeEngine}: the grid is held 1 bit per cell, 64 cells per
+ * long, and each long word of the next generation is computed with a fixed sequence of shifts and bitwise adder logic,
+ * so every instruction works on 64 cells at once.
+ * <p>
+ * Packed layout: each row occupies {@link #getRowWords(int) rowWords} consecutive longs; cell x of row y is bit
+ * (x % 64) of long [y * rowWords + x / 64]. Bits beyond the last column of a row are always 0.
+ * <p>
+ * For each word, the eight neighbor bit-planes are the rows above, at and below, each shifted one column west and east
+ * (carrying bits across word boundaries, and wrapping at the grid edge on a torus). They are summed by a tree of full
+ * and half adders into a ones bit and four twos-carry bits; a cell has 2 or 3 live neighbors exactly when one twos-carry
+ * is set, and the rules then reduce to: next = exactlyOneTwo &amp; (ones | current).
+ *
+ * @author ksdj (coder-hat)
+ */
+final class BitPackedLifeKernel
+{
+    private BitPackedLifeKernel() {
+    }
+
+    /**
+     * @return The number of longs per packed row of a grid with the specified number of columns.
+     */
+    static int getRowWords(int colCount) {
+        return (colCount + 63) >>> 6;
+    }
+
+    /**
+     * Packs rows [yFirst, yEnd) of a cell state buffer (state ordinals 0 or 1) into packed words.
+     */
+    static void pack(byte[] cells, long[] packed, int colCount, int yFirst, int yEnd) {
+        final int rowWords = getRowWords(colCount);
+        for (int y = yFirst; y < yEnd; ++y) {
+            int iCell = y * colCount;
+            int iWord = y * rowWords;
+            for (int x = 0; x < colCount; x += 64, ++iWord) {
+                final int xEnd = Math.min(x + 64, colCount);
+                long word = 0L;
+                for (int b = 0; b < xEnd - x; ++b) {
+                    word |= (long) cells[iCell++] << b;
+                }
+                packed[iWord] = word;
+            }
+        }
+    }
+
+    /**
+     * Computes rows [yFirst, yEnd) of the next generation of the packed grid cur into next. Rows outside the range
+     * are read from cur (as neighbors) but not written.
+     */
+    static void stepRows(long[] cur, long[] next, int colCount, int rowCount, boolean isTorus, int yFirst, int yEnd) {
+        final int rowWords = getRowWords(colCount);
+        for (int y = yFirst; y < yEnd; ++y) {
+            final int up = getRowOffset(y - 1, rowCount, rowWords, isTorus);
+            final int mid = y * rowWords;
+            final int down = getRowOffset(y + 1, rowCount, rowWords, isTorus);
+            stepRow(cur, up, mid, down, next, mid, colCount, isTorus, 0, rowWords);
+        }
+    }
+
+    /**
+     * Computes one tile of the next generation of the packed grid cur into next: rows [yFirst, yEnd), words [wFirst,
+     * wEnd) of each row. The tile's halo (the row above and below it, and the word either side of it) is read from
+     * cur, which is never written, so tiles can be computed in any order, or concurrently.
+     */
+    static void stepTile(long[] cur, long[] next, int colCount, int rowCount, boolean isTorus, int yFirst, int yEnd,
+            int wFirst, int wEnd) {
+        final int rowWords = getRowWords(colCount);
+        for (int y = yFirst; y < yEnd; ++y) {
+            final int up = getRowOffset(y - 1, rowCount, rowWords, isTorus);
+            final int mid = y * rowWords;
+            final int down = getRowOffset(y + 1, rowCount, rowWords, isTorus);
+            stepRow(cur, up, mid, down, next, mid, colCount, isTorus, wFirst, wEnd);
+        }
+    }
+
+    /**
+     * Computes one packed row of the next generation.
+     *
+     * @param cur
+     *            The packed source rows.
+     * @param up
+     *            The offset in cur of the row above, or -1 for an all-dead row.
+     * @param mid
+     *            The offset in cur of the row itself.
+     * @param down
+     *            The offset in cur of the row below, or -1 for an all-dead row.
+     * @param next
+     *            Receives the next generation's row.
+     * @param out
+     *            The offset in next to write the row at.
+     * @param wFirst
+     *            The first word of the row to compute.
+     * @param wEnd
+     *            The word after the last word of the row to compute.
+     */
+    static void stepRow(long[] cur, int up, int mid, int down, long[] next, int out, int colCount, boolean isTorus,
+            int wFirst, int wEnd) {
+        final int rowWords = getRowWords(colCount);
+        final int lastBit = (colCount - 1) & 63;
+        final long lastWordMask = (lastBit == 63) ? -1L : (1L << (lastBit + 1)) - 1;
+        for (int w = wFirst; w < wEnd; ++w) {
+            final long u = word(cur, up, w);
+            final long c = cur[mid + w];
+            final long d = word(cur, down, w);
+
+            final long uw = west(cur, up, w, u, rowWords, lastBit, isTorus);
+            final long ue = east(cur, up, w, u, rowWords, lastBit, isTorus);
+            final long cw = west(cur, mid, w, c, rowWords, lastBit, isTorus);
+            final long ce = east(cur, mid, w, c, rowWords, lastBit, isTorus);
+            final long dw = west(cur, down, w, d, rowWords, lastBit, isTorus);
+            final long de = east(cur, down, w, d, rowWords, lastBit, isTorus);
+
+            // Full adders over the rows above and below, half adder over the row's own west and east neighbors.
+            final long uxor = uw ^ u;
+            final long uSum = uxor ^ ue;
+            final long uCarry = (uw & u) | (ue & uxor);
+            final long dxor = dw ^ d;
+            final long dSum = dxor ^ de;
+            final long dCarry = (dw & d) | (de & dxor);
+            final long cSum = cw ^ ce;
+            final long cCarry = cw & ce;
+
+            // Sum the three ones bits: ones is the neighbor count's low bit, onesCarry another twos bit.
+            final long sxor = uSum ^ dSum;
+            final long ones = sxor ^ cSum;
+            final long onesCarry = (uSum & dSum) | (cSum & sxor);
+
+            // Exactly one of the four twos bits is set <=> the count is 2 or 3.
+            final long exactlyOneTwo = (uCarry ^ dCarry ^ cCarry ^ onesCarry)
+                    & ~((uCarry & dCarry) | (cCarry & onesCarry));
+            long result = exactlyOneTwo & (ones | c);
+            if (w == rowWords - 1) result &= lastWordMask;
+            next[out + w] = result;
+        }
+    }
+
+    /**
+     * @return The packed offset of row y, wrapped on a torus, or -1 if y is off a non-torus grid.
+     */
+    static int getRowOffset(int y, int rowCount, int rowWords, boolean isTorus) {
+        if (y < 0 || y >= rowCount) {
+            if (!isTorus) return -1;
+            y = (y < 0) ? y + rowCount : y - rowCount;
+        }
+        return y * rowWords;
+    }
+
+    private static long word(long[] rows, int row, int w) {
+        return (row < 0) ? 0L : rows[row + w];
+    }
+
+    /**
+     * @return The row word whose bit x holds the cell at column x - 1.
+     */
+    private static long west(long[] rows, int row, int w, long word, int rowWords, int lastBit, boolean isTorus) {
+        if (row < 0) return 0L;
+        final long carry;
+        if (w > 0) {
+            carry = rows[row + w - 1] >>> 63;
+        } else {
+            carry = isTorus ? (rows[row + rowWords - 1] >>> lastBit) & 1L : 0L;
+        }
+        return (word << 1) | carry;
+    }
+
+    /**
+     * @return The row word whose bit x holds the cell at column x + 1.
+     */
+    private static long east(long[] rows, int row, int w, long word, int rowWords, int lastBit, boolean isTorus) {
+        if (row < 0) return 0L;
+        if (w < rowWords - 1) {
+            return (word >>> 1) | (rows[row + w + 1] << 63);
+        }
+        return (word >>> 1) | (isTorus ? (rows[row] & 1L) << lastBit : 0L);
+    }
+}
@@ -1,6 +1,9 @@
 package org.jca;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 import org.jca.RectangularGridGeometry.Direction;
 
@@ -25,16 +28,95 @@ import org.jca.RectangularGridGeometry.Direction;
  *
  * @author ksdj (coder-hat)
  */
-public class ConwayLifeEngine {
+public class ConwayLifeEngine implements ISimulationEngine {
     
     /**
      * The possible states a grid cell can be in.
      */
     public static enum CellState { DEAD, LIVE }
+    
+    /**
+     * The implementations of {@link ConwayLifeEngine#doSimulationStep() doSimulationStep}, all of which produce
+     * identical results:
+     * <ul>
+     * <li>SCALAR computes each cell's next state from its eight neighbors, one cell at a time.</li>
+     * <li>BIT_PARALLEL keeps a bit-packed copy of the grid, and computes 64 cells at a time with a
+     * {@link BitPackedLifeKernel}; only the cells that change are then written to the cell buffer.</li>
+     * <li>TILED does the same work as BIT_PARALLEL, but tile by tile ({@link #TILE_ROWS} rows by {@link #TILE_COLS}
+     * columns, in parallel), finishing each tile's cells before moving on, so that the tile's packed words and cell
+     * bytes stay cache-resident between the kernel and the cell buffer update. Intended for grids too wide for a few
+     * rows of cells to stay in cache (thousands of columns and up).</li>
+     * <li>PADDED keeps a copy of the grid with a one-cell ghost border, refreshed once per generation (from the
+     * opposite edge on a torus; always dead otherwise), so every cell's neighbors are at fixed offsets, and the inner
+     * loop has no bounds checks, wrapping or table lookups.</li>
+     * </ul>
+     */
+    public static enum StepKernel { SCALAR, BIT_PARALLEL, TILED, PADDED }
+
+    /**
+     * Cached copy of {@link CellState#values()}, indexed by the ordinal values stored in {@link cells}.
+     */
+    private static final CellState[] CELL_STATES = CellState.values();
+
+    private static final byte DEAD = (byte) CellState.DEAD.ordinal();
+    private static final byte LIVE = (byte) CellState.LIVE.ordinal();
+    
+    /**
+     * The height, in rows, of the tiles the {@link StepKernel#TILED} kernel steps.
+     */
+    public static final int TILE_ROWS = 64;
+    
+    /**
+     * The width, in columns, of the tiles the {@link StepKernel#TILED} kernel steps: a whole number of packed words,
+     * so that tiles never share a word. A tile's cell bytes (32KB) and packed words then fit comfortably in L2.
+     */
+    public static final int TILE_COLS = 512;
+    
+    private static final int TILE_WORDS = TILE_COLS / 64;
+    
+    /**
+     * The largest {@link #setTemporalBlockDepth(int) temporal block depth}.
+     */
+    public static final int MAX_TEMPORAL_BLOCK_DEPTH = 64;
+    
+    /**
+     * The approximate size, in bytes, of the two packed row buffers a temporal block band is stepped in; chosen so that
+     * they stay in L2.
+     */
+    private static final int TEMPORAL_BAND_BYTES = 1 << 18;
+    
+    /**
+     * The fraction of cells that {@link #reset()} makes {@link CellState#LIVE}.
+     */
+    public static final double DEFAULT_LIVE_DENSITY = 0.30;
+    
+    /**
+     * The number of binary fraction bits {@link #reset(long, double)} approximates the live density with.
+     */
+    private static final int DENSITY_PRECISION = 16;
+    
+    /**
+     * The approximate number of cells in each band of rows that {@link #reset(long, double)} fills in parallel.
+     */
+    private static final int RESET_BAND_CELLS = 1 << 16;
+    
+    /**
+     * The default number of recent generations' grid hashes kept for cycle detection.
+     */
+    public static final int DEFAULT_CYCLE_HISTORY_LENGTH = 64;
 
     private RectangularGridGeometry grid;
     
-    private CellState[] cells;
+    /**
+     * The {@link CellState} ordinal of each grid cell, indexed by linear cell index.
+     */
+    private byte[] cells;
+    
+    /**
+     * Scratch buffer that receives the next generation during {@link #doSimulationStep()}, then is swapped with
+     * {@link cells}.
+     */
+    private byte[] nextCells;
     
     /**
      * The number of cells in the {@link cells} array currently in {@link CellState#LIVE}.<br>
@@ -43,38 +125,385 @@ public class ConwayLifeEngine {
      */
     private int liveCount;
     
+    /**
+     * The number of {@link #doSimulationStep() simulation steps} taken since the grid was last seeded.
+     */
+    private long generation;
+    
+    /**
+     * Zobrist-style hash of the grid: the XOR of {@link #zobristKey(int) zobristKey(iCell)} over every live iCell.<br>
+     * <i>Warning!</i><br>
+     * Like {@link liveCount}, any code that changes the state of any cell in {@link cells} is responsible for
+     * updating this field's value.
+     */
+    private long gridHash;
+    
+    /**
+     * Ring buffer of the {@link gridHash} values of recent generations. The most recent entry (at index
+     * historyNext - 1) is the current generation's, the one before that the previous generation's, and so on.
+     */
+    private long[] hashHistory = new long[DEFAULT_CYCLE_HISTORY_LENGTH];
+    private int historyNext;
+    private int historyCount;
+    
+    /**
+     * The period of the cycle the grid has entered (1 for a still life), or 0 if no cycle has been detected.
+     */
+    private int cyclePeriod;
+    
+    /**
+     * The first generation of the detected cycle, or -1 if no cycle has been detected.
+     */
+    private long cycleStartGeneration = -1;
+    
+    /**
+     * Ring buffer of the {@link gridHash} values at the ends of recent temporal blocks, and their generations, laid out
+     * like {@link hashHistory} (see {@link #recordBlockHash()}).
+     */
+    private long[] blockHashHistory = new long[DEFAULT_CYCLE_HISTORY_LENGTH];
+    private long[] blockGenerationHistory = new long[DEFAULT_CYCLE_HISTORY_LENGTH];
+    private int blockHistoryNext;
+    private int blockHistoryCount;
+    
+    /**
+     * The generation at which a temporal block ended on the grid an earlier block ended on, so the grid is cycling, or
+     * -1. From there {@link #doSimulationSteps(long)} steps one generation at a time until {@link #recordHash()} finds
+     * the period, for at most one cycle history length: a period longer than that cannot be found by single steps.
+     */
+    private long cycleSuspectedGeneration = -1;
+    
+    /**
+     * Receives per-step metrics, or null if metrics are not being collected.
+     */
+    private IStepMetricsListener metricsListener;
+    
+    /**
+     * The pool this engine's buffers came from, or null if the engine allocated its own.
+     */
+    private final GridBufferPool pool;
+    
+    /**
+     * The {@link GridBufferPool#getNeighborTable(RectangularGridGeometry) neighbor table} of {@link grid}, or null if
+     * adjacent cells are computed from the geometry as needed.
+     */
+    private int[] neighbors;
+    
+    /**
+     * The kernel {@link #doSimulationStep()} uses. SCALAR by default, since it is the only kernel that calls the
+     * overridable {@link #getNextState(int)} and {@link #getAdjacentLiveCount(int)}.
+     */
+    private StepKernel stepKernel = StepKernel.SCALAR;
+    
+    /**
+     * The bit-packed copy of {@link cells} used by the {@link StepKernel#BIT_PARALLEL} and {@link StepKernel#TILED}
+     * kernels (see {@link BitPackedLifeKernel}), and its scratch next-generation buffer. Allocated on first use.
+     */
+    private long[] packed;
+    private long[] nextPacked;
+    
+    /**
+     * Per-tile results of a {@link StepKernel#TILED} step: births and deaths (as {@link #patchTile} returns them) at
+     * [2 * iTile], and the tile's hash change at [2 * iTile + 1]. Allocated on first use.
+     */
+    private long[] tileResults;
+    
+    /**
+     * The number of generations {@link #doSimulationSteps(long)} advances per pass over the grid; 1 disables temporal
+     * blocking.
+     */
+    private int temporalBlockDepth = 1;
+    
+    /**
+     * Each stepping thread's pair of packed band buffers for temporal blocking, grown as needed.
+     */
+    private final ThreadLocal<long[][]> bandBuffers = ThreadLocal.withInitial(() -> new long[2][0]);
+    
+    /**
+     * Whether {@link packed} matches {@link cells}. Cleared by any change to cells other than a bit-parallel step.
+     */
+    private boolean isPackedValid;
+    
+    /**
+     * The ghost-bordered copy of {@link cells} used by the {@link StepKernel#PADDED} kernel: (colCount + 2) x
+     * (rowCount + 2) cell state ordinals, with cell (x, y) at [(y + 1) * (colCount + 2) + x + 1]. And its scratch
+     * next-generation buffer. Allocated on first use.
+     */
+    private byte[] padded;
+    private byte[] nextPadded;
+    
+    /**
+     * Whether the interior of {@link padded} matches {@link cells}. Cleared by any change to cells other than a padded
+     * step.
+     */
+    private boolean isPaddedValid;
+    
     
     public ConwayLifeEngine(int colCount, int rowCount, boolean isTorus) {
+        pool = null;
         grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
-        cells = new CellState[grid.getCellCount()];
+        cells = new byte[grid.getCellCount()];
+        nextCells = new byte[grid.getCellCount()];
         reset();
     }
+    
+    /**
+     * Constructs an engine whose geometry, cell buffers and neighbor table come from the specified pool.<br>
+     * Unlike the other constructor, this leaves every cell {@link CellState#DEAD}, since a pooled engine is usually
+     * seeded (e.g. with {@link #reset(long, double)}) straight away.
+     * 
+     * @param pool
+     *            The pool to take buffers from, and to return them to on {@link #reinitialize(int, int, boolean)} or
+     *            {@link #release()}.
+     * @param colCount
+     *            The number of columns in the grid.
+     * @param rowCount
+     *            The number of rows in the grid.
+     * @param isTorus
+     *            Whether or not the grid is a torus.
+     */
+    public ConwayLifeEngine(GridBufferPool pool, int colCount, int rowCount, boolean isTorus) {
+        this.pool = pool;
+        acquireBuffers(colCount, rowCount, isTorus);
+        clear();
+    }
+    
+    /**
+     * Re-initializes this engine in place for a grid of the specified geometry, with every cell
+     * {@link CellState#DEAD} and the generation counter at 0. The metrics listener and cycle history length are kept.
+     * <p>
+     * If the geometry differs from the current one, the current buffers are returned to the pool (if the engine has
+     * one) and buffers for the new geometry taken from it; otherwise the current buffers are simply cleared.
+     * 
+     * @param colCount
+     *            The number of columns in the grid.
+     * @param rowCount
+     *            The number of rows in the grid.
+     * @param isTorus
+     *            Whether or not the grid is a torus.
+     */
+    public void reinitialize(int colCount, int rowCount, boolean isTorus) {
+        if (cells == null || grid.getColCount() != colCount || grid.getRowCount() != rowCount
+                || grid.isTorus() != isTorus) {
+            releaseBuffers();
+            acquireBuffers(colCount, rowCount, isTorus);
+        }
+        clear();
+    }
+    
+    /**
+     * Returns this engine's buffers to its pool (if it has one). The engine must be
+     * {@link #reinitialize(int, int, boolean) reinitialized} before it is used again.
+     */
+    public void release() {
+        releaseBuffers();
+    }
+    
+    private void acquireBuffers(int colCount, int rowCount, boolean isTorus) {
+        if (pool != null) {
+            grid = pool.getGeometry(colCount, rowCount, isTorus);
+            cells = pool.acquireCells(grid);
+            nextCells = pool.acquireCells(grid);
+            neighbors = pool.getNeighborTable(grid);
+        } else {
+            grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+            cells = new byte[grid.getCellCount()];
+            nextCells = new byte[grid.getCellCount()];
+            neighbors = null;
+        }
+        packed = null;
+        nextPacked = null;
+        padded = null;
+        nextPadded = null;
+        isPackedValid = false;
+        isPaddedValid = false;
+    }
+    
+    private void releaseBuffers() {
+        if (pool != null && cells != null) {
+            pool.releaseCells(grid, cells);
+            pool.releaseCells(grid, nextCells);
+        }
+        cells = null;
+        nextCells = null;
+    }
+    
+    /**
+     * Sets every cell {@link CellState#DEAD}, and the generation counter to 0.
+     */
+    private void clear() {
+        isPackedValid = false;
+        isPaddedValid = false;
+        Arrays.fill(cells, DEAD);
+        liveCount = 0;
+        gridHash = 0L;
+        generation = 0;
+        clearHashHistory();
+    }
 
     
+    @Override
     public RectangularGridGeometry getGrid() {
         return grid;
     }
     
     
     /**
-     * Resets the cells of the grid so that about 30% of the total are in {@link CellState#LIVE}.
+     * Resets the cells of the grid so that about 30% of the total are in {@link CellState#LIVE}, using a randomly
+     * chosen seed.
      */
     public void reset() {
-        final double liveThreshold = 0.30; // must be < this threshold to be LIVE
-        liveCount = 0;
-        Random rand = new Random();
-        for (int iCell = 0; iCell < cells.length; ++iCell) {
-            cells[iCell] = rand.nextDouble() < liveThreshold ? CellState.LIVE : CellState.DEAD;
-            if (cells[iCell] == CellState.LIVE) ++liveCount;
+        reset(new SplittableRandom().nextLong(), DEFAULT_LIVE_DENSITY);
+    }
+    
+    /**
+     * Resets the cells of the grid so that about 30% of the total are in {@link CellState#LIVE}, using the specified
+     * seed.
+     * 
+     * @param seed
+     *            The random number generator seed.
+     * @see #reset(long, double)
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, DEFAULT_LIVE_DENSITY);
+    }
+    
+    /**
+     * Resets the cells of the grid so that each is independently {@link CellState#LIVE} with the specified
+     * probability. The same seed, density and grid geometry always produce the same grid.
+     * <p>
+     * The grid is filled in parallel, in bands of {@link #RESET_BAND_CELLS about} the same number of cells (whole
+     * rows), each band drawing from its own {@link SplittableRandom} split from the seed in band order, so the result
+     * does not depend upon the number of threads.<br>
+     * Each random long supplies the states of 64 cells: the density is approximated by a 16-bit binary fraction, and
+     * each of the fraction's bits, from least to most significant, ORs (1 bit) or ANDs (0 bit) a further random long
+     * into the 64 cell bits, making each bit live with exactly the fraction's probability. A density of 0.5 thus costs
+     * one random long per 64 cells, and any density at most 16.
+     * 
+     * @param seed
+     *            The random number generator seed.
+     * @param density
+     *            The probability, from 0.0 to 1.0, that any given cell is live.
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        final int densityBits = toDensityBits(density);
+        final int colCount = grid.getColCount();
+        final int bandRows = getResetBandRows(colCount);
+        final int bandCount = (grid.getRowCount() + bandRows - 1) / bandRows;
+        final SplittableRandom seedRandom = new SplittableRandom(seed);
+        final SplittableRandom[] bandRandoms = new SplittableRandom[bandCount];
+        for (int iBand = 0; iBand < bandCount; ++iBand) {
+            bandRandoms[iBand] = seedRandom.split();
+        }
+        final long[] bandHashes = new long[bandCount];
+        isPackedValid = false;
+        isPaddedValid = false;
+        liveCount = IntStream.range(0, bandCount).parallel().map(iBand -> {
+            final int iFirst = iBand * bandRows * colCount;
+            final int iEnd = Math.min(iFirst + bandRows * colCount, cells.length);
+            final int bandLiveCount = fillRandomBand(bandRandoms[iBand], densityBits, iFirst, iEnd);
+            bandHashes[iBand] = computeHash(iFirst, iEnd);
+            return bandLiveCount;
+        }).sum();
+        gridHash = 0L;
+        for (long bandHash : bandHashes) {
+            gridHash ^= bandHash;
         }
+        generation = 0;
+        clearHashHistory();
+    }
+    
+    /**
+     * @return The number of rows in each band {@link #reset(long, double)} fills from its own random number generator,
+     *         for a grid with the specified number of columns.
+     */
+    static int getResetBandRows(int colCount) {
+        return Math.max(1, RESET_BAND_CELLS / Math.max(1, colCount));
+    }
+    
+    /**
+     * @return The live density, which must be in [0, 1], as a binary fraction of {@value #DENSITY_PRECISION} bits.
+     */
+    static int toDensityBits(double density) {
+        return (int) Math.round(density * (1 << DENSITY_PRECISION));
+    }
+    
+    /**
+     * Generates 64 random cell states (1 = live) at once, each live with probability densityBits / 2^16: starting from
+     * a word of fair coin flips, each further bit of the density (least significant first) ORs (for a 1 bit) or ANDs
+     * (for a 0 bit) in another random word.
+     * 
+     * @param densityBits
+     *            The density, from {@link #toDensityBits(double)}.
+     */
+    static long randomWord(SplittableRandom random, int densityBits) {
+        if (densityBits == 0) return 0L;
+        if (densityBits == (1 << DENSITY_PRECISION)) return -1L;
+        final int lowBit = Integer.numberOfTrailingZeros(densityBits);
+        long word = random.nextLong();
+        for (int iBit = lowBit + 1; iBit < DENSITY_PRECISION; ++iBit) {
+            word = ((densityBits >>> iBit) & 1) != 0 ? (word | random.nextLong()) : (word & random.nextLong());
+        }
+        return word;
+    }
+    
+    /**
+     * Fills cells [iFirst, iEnd) with random states, 64 cells per generated word.
+     * 
+     * @return The number of live cells in the band.
+     */
+    private int fillRandomBand(SplittableRandom random, int densityBits, int iFirst, int iEnd) {
+        int bandLiveCount = 0;
+        for (int iWord = iFirst; iWord < iEnd; iWord += 64) {
+            long word = randomWord(random, densityBits);
+            final int wordEnd = Math.min(iWord + 64, iEnd);
+            if (wordEnd - iWord < 64) word &= (1L << (wordEnd - iWord)) - 1;
+            bandLiveCount += Long.bitCount(word);
+            for (int iCell = iWord; iCell < wordEnd; ++iCell) {
+                cells[iCell] = ((word & 1L) != 0) ? LIVE : DEAD;
+                word >>>= 1;
+            }
+        }
+        return bandLiveCount;
     }
     
     public void setGridState(CellState[] newCells) {
-        liveCount = 0;
+        generation = 0;
         for (int iCell=0; iCell < cells.length; ++iCell) {
-            cells[iCell] = newCells[iCell];
-            if (cells[iCell] == CellState.LIVE) ++liveCount;
+            cells[iCell] = (byte) newCells[iCell].ordinal();
+        }
+        onCellStatesModified();
+    }
+    
+    /**
+     * Gets the engine's cell buffer: one {@link CellState} ordinal per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, and is intended for bulk, read-only consumers such as an
+     * {@link IGridPaletteProvider}. It is replaced on every {@link #doSimulationStep()}, so callers must re-fetch it
+     * rather than hold onto it.
+     * 
+     * @return The current generation's cell state ordinals.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return cells;
+    }
+    
+    /**
+     * Recomputes the state derived from {@link cells} ({@link liveCount} and {@link gridHash}), and restarts cycle
+     * detection.<br>
+     * Code that writes directly into the {@link #getCellStates() cell buffer}, such as {@link LifePatternIO}, must
+     * call this once it is done.
+     */
+    void onCellStatesModified() {
+        isPackedValid = false;
+        isPaddedValid = false;
+        liveCount = 0;
+        for (int iCell = 0; iCell < cells.length; ++iCell) {
+            if (cells[iCell] == LIVE) ++liveCount;
         }
+        gridHash = computeHash(0, cells.length);
+        clearHashHistory();
     }
     
     /**
@@ -85,7 +514,7 @@ public class ConwayLifeEngine {
      * @return The {@link CellState} of iCell.
      */
     public CellState getState(int iCell) {
-        return cells[iCell];
+        return CELL_STATES[cells[iCell]];
     }
     
     /**
@@ -97,21 +526,650 @@ public class ConwayLifeEngine {
      *            The state value to set for iCell.
      */
     public void setState(int iCell, CellState newState) {
-        CellState oldState = cells[iCell];
-        cells[iCell] = newState;
-        if (oldState != newState) {
+        byte oldState = cells[iCell];
+        cells[iCell] = (byte) newState.ordinal();
+        if (oldState != cells[iCell]) {
+            isPackedValid = false;
+            isPaddedValid = false;
             liveCount = liveCount + ((newState == CellState.LIVE) ? 1 : -1);
+            gridHash ^= zobristKey(iCell);
+            clearHashHistory();
         }
     }
     
+    @Override
     public void doSimulationStep() {
-        CellState[] nextCells = new CellState[grid.getCellCount()];
-        liveCount = 0;
-        for (int iCell=0; iCell < cells.length; ++iCell) {
-            nextCells[iCell] = getNextState(iCell);
-            if (nextCells[iCell] == CellState.LIVE) ++liveCount;
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final long birthsAndDeaths;
+        if (stepKernel == StepKernel.SCALAR) {
+            birthsAndDeaths = computeNextCellsScalar();
+        } else if (stepKernel == StepKernel.PADDED) {
+            birthsAndDeaths = computeNextCellsPadded();
+        } else {
+            birthsAndDeaths = computeNextCellsBitParallel();
+        }
+        final int births = (int) (birthsAndDeaths >>> 32);
+        final int deaths = (int) birthsAndDeaths;
+        byte[] swap = cells;
+        cells = nextCells;
+        nextCells = swap;
+        liveCount += births - deaths;
+        ++generation;
+        recordHash();
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, births + deaths, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+    
+    /**
+     * Advances the simulation by the specified number of steps. With a {@link #setTemporalBlockDepth(int) temporal
+     * block depth} above 1 (and a kernel other than {@link StepKernel#SCALAR}), up to that many generations are computed
+     * per pass over the grid; see {@link #doTemporalBlock(int)}.
+     * 
+     * @param stepCount
+     *            The number of steps to take.
+     */
+    @Override
+    public void doSimulationSteps(long stepCount) {
+        if (temporalBlockDepth == 1 || stepKernel == StepKernel.SCALAR) {
+            ISimulationEngine.super.doSimulationSteps(stepCount);
+            return;
+        }
+        for (long remaining = stepCount; remaining > 0; ) {
+            // Once blocks have shown the grid is cycling, single steps find the exact period.
+            if (cycleSuspectedGeneration >= 0
+                    && (cyclePeriod != 0 || generation - cycleSuspectedGeneration >= hashHistory.length)) {
+                cycleSuspectedGeneration = -1;
+            }
+            final int depth = (cycleSuspectedGeneration >= 0) ? 1
+                    : (int) Math.min(remaining, temporalBlockDepth);
+            if (depth == 1) {
+                doSimulationStep();
+            } else {
+                doTemporalBlock(depth);
+            }
+            remaining -= depth;
+        }
+    }
+    
+    /**
+     * Advances the simulation by depth generations in a single pass over the grid.<br>
+     * The grid is split into bands of whole rows. Each band, plus a halo of depth rows above and below it, is copied
+     * into a thread-local pair of packed buffers small enough to stay in cache, and stepped there depth times; each
+     * step leaves one fewer halo row valid at each edge, so after depth steps exactly the band's own rows are correct,
+     * and are written to {@link nextPacked}. The halo rows are computed redundantly by neighboring bands, which costs
+     * 2 * depth extra rows per band, but the grid itself is read and written once per pass instead of once per
+     * generation. Bands are independent, so they are stepped in parallel, and each band's cells are patched as soon as
+     * it is done.
+     * <p>
+     * The intermediate generations are never materialized as cells, so their grid hashes are unknown: unless a cycle
+     * had already been detected, the cycle history is restarted at the generation reached, which is then checked
+     * against the ends of earlier blocks (see {@link #recordBlockHash()}). When a metrics
+     * listener is set, each band also counts its own rows' births and deaths at every generation, so the listener still
+     * sees one step per generation; the pass's duration and allocation are divided evenly among them.
+     * 
+     * @param depth
+     *            The number of generations to advance, at least 2.
+     */
+    private void doTemporalBlock(int depth) {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final int rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        ensurePacked();
+        isPaddedValid = false;
+        final int bandRows = Math.min(rowCount,
+                Math.max(depth, TEMPORAL_BAND_BYTES / (16 * rowWords) - 2 * depth));
+        final int bandCount = (rowCount + bandRows - 1) / bandRows;
+        if (tileResults == null || tileResults.length != 2 * bandCount) {
+            tileResults = new long[2 * bandCount];
         }
+        final long[] results = tileResults;
+        // Births at [2 * (iBand * depth + iStep)], deaths at the next index.
+        final long[] stepCounts = (listener != null) ? new long[2 * bandCount * depth] : null;
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> {
+            final int yFirst = iBand * bandRows;
+            final int yEnd = Math.min(yFirst + bandRows, rowCount);
+            stepBand(yFirst, yEnd, depth, stepCounts, 2 * iBand * depth);
+            results[2 * iBand] = patchTile(yFirst, yEnd, 0, rowWords, results, 2 * iBand + 1);
+        });
+        int births = 0;
+        int deaths = 0;
+        long hash = gridHash;
+        for (int iBand = 0; iBand < bandCount; ++iBand) {
+            births += (int) (results[2 * iBand] >>> 32);
+            deaths += (int) results[2 * iBand];
+            hash ^= results[2 * iBand + 1];
+        }
+        gridHash = hash;
+        long[] swapPacked = packed;
+        packed = nextPacked;
+        nextPacked = swapPacked;
+        byte[] swap = cells;
         cells = nextCells;
+        nextCells = swap;
+        if (listener != null) {
+            final long stepNanos = (System.nanoTime() - startNanos) / depth;
+            final long allocated = (startAllocated < 0) ? -1L
+                    : (AllocationMeter.currentThreadAllocatedBytes() - startAllocated) / depth;
+            long stepLiveCount = liveCount;
+            for (int iStep = 0; iStep < depth; ++iStep) {
+                long stepBirths = 0;
+                long stepDeaths = 0;
+                for (int iBand = 0; iBand < bandCount; ++iBand) {
+                    stepBirths += stepCounts[2 * (iBand * depth + iStep)];
+                    stepDeaths += stepCounts[2 * (iBand * depth + iStep) + 1];
+                }
+                stepLiveCount += stepBirths - stepDeaths;
+                listener.onStep(generation + iStep + 1, stepBirths, stepDeaths, stepLiveCount,
+                        stepBirths + stepDeaths, stepNanos, allocated);
+            }
+        }
+        liveCount += births - deaths;
+        generation += depth;
+        if (cyclePeriod == 0) recordBlockHash();
+    }
+    
+    /**
+     * Restarts the per-generation cycle history at the end of a temporal block, and checks the block's final grid hash
+     * against those of earlier blocks ended at most {@link #getTemporalBlockDepth() depth} times the
+     * {@link #setCycleHistoryLength(int) cycle history length} generations ago. A period p only recurs at block ends
+     * every lcm(p, depth) generations, which is at most that far apart for any p the history can hold. A match means
+     * the grid is cycling, with a period that divides the generations between the two blocks, so
+     * {@link #cycleSuspectedGeneration} is set: single steps from here then repeat this generation's hash within one
+     * period, and {@link #recordHash()} reports the exact period.
+     */
+    private void recordBlockHash() {
+        historyNext = 0;
+        historyCount = 0;
+        recordHash();
+        final int capacity = blockHashHistory.length;
+        final long lookback = (long) temporalBlockDepth * hashHistory.length;
+        int iEntry = blockHistoryNext;
+        for (int iBlock = 0; iBlock < blockHistoryCount; ++iBlock) {
+            iEntry = (iEntry == 0) ? capacity - 1 : iEntry - 1;
+            if (generation - blockGenerationHistory[iEntry] > lookback) break;
+            if (blockHashHistory[iEntry] == gridHash) {
+                cycleSuspectedGeneration = generation;
+                break;
+            }
+        }
+        blockHashHistory[blockHistoryNext] = gridHash;
+        blockGenerationHistory[blockHistoryNext] = generation;
+        blockHistoryNext = (blockHistoryNext + 1 == capacity) ? 0 : blockHistoryNext + 1;
+        if (blockHistoryCount < capacity) ++blockHistoryCount;
+    }
+    
+    /**
+     * Computes rows [yFirst, yEnd) of {@link nextPacked} as the generation depth steps after {@link packed}, in the
+     * current thread's {@link bandBuffers} (see {@link #doTemporalBlock(int)}).
+     * 
+     * @param stepCounts
+     *            If not null, receives the band's births and deaths at each step: step iStep's at [iCounts + 2 * iStep]
+     *            and the next index.
+     */
+    private void stepBand(int yFirst, int yEnd, int depth, long[] stepCounts, int iCounts) {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final boolean isTorus = grid.isTorus();
+        final int rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        // Local row r holds grid row yFirst - depth + r.
+        final int localRows = (yEnd - yFirst) + 2 * depth;
+        long[][] buffers = bandBuffers.get();
+        if (buffers[0].length < localRows * rowWords) {
+            buffers[0] = new long[localRows * rowWords];
+            buffers[1] = new long[localRows * rowWords];
+        }
+        long[] cur = buffers[0];
+        long[] next = buffers[1];
+        for (int r = 0; r < localRows; ++r) {
+            int y = yFirst - depth + r;
+            if (isTorus) {
+                y = Math.floorMod(y, rowCount);
+            } else if (y < 0 || y >= rowCount) {
+                // Rows off a bounded grid are always dead: zero them in both buffers, and never step them.
+                Arrays.fill(cur, r * rowWords, (r + 1) * rowWords, 0L);
+                Arrays.fill(next, r * rowWords, (r + 1) * rowWords, 0L);
+                continue;
+            }
+            System.arraycopy(packed, y * rowWords, cur, r * rowWords, rowWords);
+        }
+        final int rGridFirst = isTorus ? 0 : depth - yFirst;
+        final int rGridEnd = isTorus ? localRows : rowCount - yFirst + depth;
+        for (int iStep = 1; iStep <= depth; ++iStep) {
+            final int rEnd = Math.min(localRows - iStep, rGridEnd);
+            for (int r = Math.max(iStep, rGridFirst); r < rEnd; ++r) {
+                final int mid = r * rowWords;
+                BitPackedLifeKernel.stepRow(cur, mid - rowWords, mid, mid + rowWords, next, mid, colCount, isTorus, 0,
+                        rowWords);
+            }
+            if (stepCounts != null) {
+                long births = 0;
+                long deaths = 0;
+                for (int i = depth * rowWords; i < (depth + yEnd - yFirst) * rowWords; ++i) {
+                    births += Long.bitCount(next[i] & ~cur[i]);
+                    deaths += Long.bitCount(cur[i] & ~next[i]);
+                }
+                stepCounts[iCounts + 2 * (iStep - 1)] = births;
+                stepCounts[iCounts + 2 * (iStep - 1) + 1] = deaths;
+            }
+            long[] swap = cur;
+            cur = next;
+            next = swap;
+        }
+        System.arraycopy(cur, depth * rowWords, nextPacked, yFirst * rowWords, (yEnd - yFirst) * rowWords);
+    }
+    
+    /**
+     * @return The number of generations {@link #doSimulationSteps(long)} advances per pass over the grid.
+     */
+    public int getTemporalBlockDepth() {
+        return temporalBlockDepth;
+    }
+    
+    /**
+     * Sets the number of generations {@link #doSimulationSteps(long)} advances per pass over the grid (temporal
+     * blocking). Deeper blocks read and write the grid less often, at the cost of recomputing more halo rows; depths
+     * of 4 to 16 suit grids much larger than the last-level cache. {@link #doSimulationStep()} is unaffected, as is
+     * the {@link StepKernel#SCALAR} kernel.
+     * 
+     * @param temporalBlockDepth
+     *            The depth, from 1 (no temporal blocking, the default) to {@value #MAX_TEMPORAL_BLOCK_DEPTH}.
+     */
+    public void setTemporalBlockDepth(int temporalBlockDepth) {
+        if (temporalBlockDepth < 1 || temporalBlockDepth > MAX_TEMPORAL_BLOCK_DEPTH) {
+            throw new IllegalArgumentException("temporalBlockDepth must be in [1, " + MAX_TEMPORAL_BLOCK_DEPTH + "]");
+        }
+        this.temporalBlockDepth = temporalBlockDepth;
+    }
+    
+    /**
+     * Computes the next generation into {@link nextCells} one cell at a time, and updates {@link gridHash}.
+     * 
+     * @return The step's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long computeNextCellsScalar() {
+        int births = 0;
+        int deaths = 0;
+        long hash = gridHash;
+        for (int iCell=0; iCell < cells.length; ++iCell) {
+            nextCells[iCell] = (byte) getNextState(iCell).ordinal();
+            if (nextCells[iCell] != cells[iCell]) {
+                hash ^= zobristKey(iCell);
+                if (nextCells[iCell] == LIVE) ++births; else ++deaths;
+            }
+        }
+        gridHash = hash;
+        isPackedValid = false;
+        isPaddedValid = false;
+        return ((long) births << 32) | deaths;
+    }
+    
+    /**
+     * Computes the next generation into {@link nextCells} from the ghost-bordered {@link padded} copy of the grid, and
+     * updates {@link gridHash}.<br>
+     * Each row is computed in two simple loops: the first sums each cell's eight neighbors at fixed offsets and applies
+     * the rules (live next exactly when (neighbors | current) == 3), writing {@link nextPadded}; the second copies the
+     * row to nextCells, accounting for the cells that changed.
+     * 
+     * @return The step's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long computeNextCellsPadded() {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final int width = colCount + 2;
+        if (!isPaddedValid) {
+            if (padded == null) {
+                padded = new byte[width * (rowCount + 2)];
+                nextPadded = new byte[width * (rowCount + 2)];
+            }
+            for (int y = 0; y < rowCount; ++y) {
+                System.arraycopy(cells, y * colCount, padded, (y + 1) * width + 1, colCount);
+            }
+            isPaddedValid = true;
+        }
+        if (grid.isTorus()) refreshGhostBorder(padded, colCount, rowCount);
+        // Otherwise the border is never written, so stays dead.
+        final byte[] cur = padded;
+        final byte[] next = nextPadded;
+        int births = 0;
+        int deaths = 0;
+        long hash = gridHash;
+        for (int y = 0; y < rowCount; ++y) {
+            final int rowStart = (y + 1) * width + 1;
+            final int rowEnd = rowStart + colCount;
+            for (int i = rowStart; i < rowEnd; ++i) {
+                final int sum = cur[i - width - 1] + cur[i - width] + cur[i - width + 1]
+                        + cur[i - 1] + cur[i + 1]
+                        + cur[i + width - 1] + cur[i + width] + cur[i + width + 1];
+                next[i] = ((sum | cur[i]) == 3) ? LIVE : DEAD;
+            }
+            for (int i = rowStart, iCell = y * colCount; i < rowEnd; ++i, ++iCell) {
+                final byte state = next[i];
+                nextCells[iCell] = state;
+                if (state != cur[i]) {
+                    hash ^= zobristKey(iCell);
+                    if (state == LIVE) ++births; else ++deaths;
+                }
+            }
+        }
+        gridHash = hash;
+        padded = next;
+        nextPadded = cur;
+        isPackedValid = false;
+        return ((long) births << 32) | deaths;
+    }
+    
+    /**
+     * Copies a torus grid's edges into the ghost border of its padded copy: each ghost row from the opposite real row,
+     * then each ghost column (including the corners) from the opposite real column.
+     */
+    static void refreshGhostBorder(byte[] padded, int colCount, int rowCount) {
+        final int width = colCount + 2;
+        System.arraycopy(padded, rowCount * width, padded, 0, width);
+        System.arraycopy(padded, width, padded, (rowCount + 1) * width, width);
+        for (int iRow = 0; iRow < (rowCount + 2) * width; iRow += width) {
+            padded[iRow] = padded[iRow + colCount];
+            padded[iRow + colCount + 1] = padded[iRow + 1];
+        }
+    }
+    
+    /**
+     * Computes the next generation into {@link nextPacked} with the {@link BitPackedLifeKernel}, then brings
+     * {@link nextCells} up to date by copying {@link cells} and writing just the cells whose bits changed, updating
+     * {@link gridHash} as it goes.
+     * <p>
+     * The BIT_PARALLEL kernel does this for the whole grid as a single tile. The TILED kernel does it one
+     * {@link #TILE_ROWS} by {@link #TILE_COLS} tile at a time, in parallel: each tile's packed words are computed
+     * (reading their halo of neighboring rows and words from {@link packed}, which no tile writes), and the tile's cells
+     * then copied and patched while both are still in cache. The tiles' births, deaths and hash changes are then summed.
+     * 
+     * @return The step's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long computeNextCellsBitParallel() {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final boolean isTorus = grid.isTorus();
+        final int rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        ensurePacked();
+        isPaddedValid = false;
+        final boolean isTiled = (stepKernel == StepKernel.TILED);
+        final int tileRows = isTiled ? TILE_ROWS : rowCount;
+        final int tileWords = isTiled ? TILE_WORDS : rowWords;
+        final int tileCols = (rowWords + tileWords - 1) / tileWords;
+        final int tileCount = ((rowCount + tileRows - 1) / tileRows) * tileCols;
+        if (tileResults == null || tileResults.length != 2 * tileCount) {
+            tileResults = new long[2 * tileCount];
+        }
+        final long[] results = tileResults;
+        final IntConsumer stepTile = iTile -> {
+            final int yFirst = (iTile / tileCols) * tileRows;
+            final int yEnd = Math.min(yFirst + tileRows, rowCount);
+            final int wFirst = (iTile % tileCols) * tileWords;
+            final int wEnd = Math.min(wFirst + tileWords, rowWords);
+            BitPackedLifeKernel.stepTile(packed, nextPacked, colCount, rowCount, isTorus, yFirst, yEnd, wFirst, wEnd);
+            results[2 * iTile] = patchTile(yFirst, yEnd, wFirst, wEnd, results, 2 * iTile + 1);
+        };
+        if (tileCount == 1) {
+            stepTile.accept(0);
+        } else {
+            IntStream.range(0, tileCount).parallel().forEach(stepTile);
+        }
+        int births = 0;
+        int deaths = 0;
+        long hash = gridHash;
+        for (int iTile = 0; iTile < tileCount; ++iTile) {
+            births += (int) (results[2 * iTile] >>> 32);
+            deaths += (int) results[2 * iTile];
+            hash ^= results[2 * iTile + 1];
+        }
+        gridHash = hash;
+        long[] swap = packed;
+        packed = nextPacked;
+        nextPacked = swap;
+        return ((long) births << 32) | deaths;
+    }
+    
+    /**
+     * Brings rows [yFirst, yEnd), words [wFirst, wEnd) of {@link nextCells} up to date with {@link nextPacked}: copies
+     * the tile's cells from {@link cells}, then writes just the cells whose bits changed.<br>
+     * Touches nothing outside the tile, so distinct tiles may be patched concurrently.
+     * 
+     * @param hashChange
+     *            Receives, at [iHashChange], the XOR of the {@link #zobristKey(int) keys} of the tile's changed cells.
+     * @return The tile's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long patchTile(int yFirst, int yEnd, int wFirst, int wEnd, long[] hashChange, int iHashChange) {
+        final int colCount = grid.getColCount();
+        final int rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        final int xFirst = wFirst << 6;
+        final int xEnd = Math.min(wEnd << 6, colCount);
+        int births = 0;
+        int deaths = 0;
+        long hash = 0L;
+        for (int y = yFirst; y < yEnd; ++y) {
+            final int iRow = y * colCount;
+            System.arraycopy(cells, iRow + xFirst, nextCells, iRow + xFirst, xEnd - xFirst);
+            for (int w = wFirst, iWord = y * rowWords + wFirst; w < wEnd; ++w, ++iWord) {
+                final long next = nextPacked[iWord];
+                long changed = packed[iWord] ^ next;
+                while (changed != 0) {
+                    final int b = Long.numberOfTrailingZeros(changed);
+                    final int iCell = iRow + (w << 6) + b;
+                    if (((next >>> b) & 1L) != 0) {
+                        nextCells[iCell] = LIVE;
+                        ++births;
+                    } else {
+                        nextCells[iCell] = DEAD;
+                        ++deaths;
+                    }
+                    hash ^= zobristKey(iCell);
+                    changed &= changed - 1;
+                }
+            }
+        }
+        hashChange[iHashChange] = hash;
+        return ((long) births << 32) | deaths;
+    }
+    
+    /**
+     * Packs {@link cells} into {@link packed} (allocating the packed buffers on first use), unless it is already valid.
+     */
+    private void ensurePacked() {
+        if (isPackedValid) return;
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final int rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        if (packed == null) {
+            packed = new long[rowWords * rowCount];
+            nextPacked = new long[rowWords * rowCount];
+        }
+        BitPackedLifeKernel.pack(cells, packed, colCount, 0, rowCount);
+        isPackedValid = true;
+    }
+    
+    /**
+     * @return The implementation {@link #doSimulationStep()} uses.
+     */
+    public StepKernel getStepKernel() {
+        return stepKernel;
+    }
+    
+    /**
+     * Selects the implementation {@link #doSimulationStep()} uses. All kernels produce identical results, so the
+     * kernel may be changed at any time. The default is {@link StepKernel#SCALAR}; the others step the grid without
+     * calling {@link #getNextState(int)} or {@link #getAdjacentLiveCount(int)}, so a subclass that overrides those
+     * should keep it.
+     * 
+     * @param stepKernel
+     *            The kernel to use.
+     */
+    public void setStepKernel(StepKernel stepKernel) {
+        this.stepKernel = stepKernel;
+        isPackedValid = false;
+        isPaddedValid = false;
+    }
+    
+    /**
+     * Sets (or with null, clears) the listener that receives metrics for each subsequent simulation step.
+     * 
+     * @param metricsListener
+     *            The listener, e.g. a {@link StepMetricsRecorder}, or null.
+     */
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+    
+    /**
+     * Steps the simulation until a cycle is detected (see {@link #getCyclePeriod()}), or the specified number of
+     * steps has been taken.
+     * 
+     * @param maxSteps
+     *            The maximum number of steps to take.
+     * @return The number of steps taken.
+     */
+    public long runUntilCycle(long maxSteps) {
+        long steps = 0;
+        while (cyclePeriod == 0 && steps < maxSteps) {
+            doSimulationStep();
+            ++steps;
+        }
+        return steps;
+    }
+    
+    /**
+     * Gets the grid hash: a 64-bit Zobrist-style hash of the set of live cells, kept up to date incrementally as cells
+     * change. Equal grids always have equal hashes; unequal grids have equal hashes with probability about 2^-64.
+     * 
+     * @return The current generation's grid hash.
+     */
+    public long getGridHash() {
+        return gridHash;
+    }
+    
+    /**
+     * Gets the period of the cycle the grid has entered: 1 for a still life (including an empty grid), 2 or more for an
+     * oscillating grid, or 0 if no cycle has been detected.<br>
+     * A cycle is detected on the first generation whose {@link #getGridHash() grid hash} matches that of one of the
+     * preceding {@link #setCycleHistoryLength(int) cycle history length} generations, so only periods up to that
+     * length are detected. Manually changing cell states restarts detection.
+     * 
+     * @return The detected cycle's period, or 0.
+     */
+    public int getCyclePeriod() {
+        return cyclePeriod;
+    }
+    
+    /**
+     * @return The first generation of the detected cycle (the generation whose grid recurs), or -1 if no cycle has been
+     *         detected. With temporal blocking, the cycle is found after the end of a block, so this may be later than
+     *         the generation the grid first entered the cycle.
+     */
+    public long getCycleStartGeneration() {
+        return cycleStartGeneration;
+    }
+    
+    /**
+     * Sets the number of recent generations' grid hashes kept for cycle detection, which is also the longest
+     * detectable cycle period. Restarts cycle detection.
+     * 
+     * @param historyLength
+     *            The number of generations to keep hashes for.
+     */
+    public void setCycleHistoryLength(int historyLength) {
+        if (historyLength < 1) throw new IllegalArgumentException("historyLength must be positive");
+        hashHistory = new long[historyLength];
+        blockHashHistory = new long[historyLength];
+        blockGenerationHistory = new long[historyLength];
+        clearHashHistory();
+    }
+    
+    /**
+     * Computes the Zobrist key of the specified cell: a fixed, pseudo-random 64-bit value derived from the cell's
+     * index by the SplitMix64 finalizer, so no per-cell key table needs to be stored.
+     * 
+     * @param iCell
+     *            The linear index of the cell.
+     * @return The cell's key.
+     */
+    static long zobristKey(int iCell) {
+        long z = (iCell + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+    
+    /**
+     * @return The XOR of the Zobrist keys of the live cells in [iFirst, iEnd).
+     */
+    private long computeHash(int iFirst, int iEnd) {
+        long hash = 0L;
+        for (int iCell = iFirst; iCell < iEnd; ++iCell) {
+            if (cells[iCell] == LIVE) hash ^= zobristKey(iCell);
+        }
+        return hash;
+    }
+    
+    /**
+     * Forgets all recorded grid hashes and any detected cycle, then records the current generation's hash.
+     */
+    private void clearHashHistory() {
+        historyNext = 0;
+        historyCount = 0;
+        blockHistoryNext = 0;
+        blockHistoryCount = 0;
+        cycleSuspectedGeneration = -1;
+        cyclePeriod = 0;
+        cycleStartGeneration = -1;
+        recordHash();
+    }
+    
+    /**
+     * Checks the current {@link gridHash} against the recorded history for a cycle (unless one has already been
+     * detected), then records it.
+     */
+    private void recordHash() {
+        final int capacity = hashHistory.length;
+        if (cyclePeriod == 0) {
+            int iEntry = historyNext;
+            for (int period = 1; period <= historyCount; ++period) {
+                iEntry = (iEntry == 0) ? capacity - 1 : iEntry - 1;
+                if (hashHistory[iEntry] == gridHash) {
+                    cyclePeriod = period;
+                    cycleStartGeneration = generation - period;
+                    break;
+                }
+            }
+        }
+        hashHistory[historyNext] = gridHash;
+        historyNext = (historyNext + 1 == capacity) ? 0 : historyNext + 1;
+        if (historyCount < capacity) ++historyCount;
+    }
+    
+    /**
+     * @return The number of {@link #doSimulationStep() simulation steps} taken since the grid was last seeded.
+     */
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Sets the generation counter, for code (such as {@link GridSnapshot}) that restores a previously saved grid.
+     * 
+     * @param generation
+     *            The generation number of the current cell states.
+     */
+    void setGeneration(long generation) {
+        this.generation = generation;
     }
     
     /**
@@ -128,7 +1186,8 @@ public class ConwayLifeEngine {
     
     /**
      * Determines the next state for the specified cell based on the cell's current state and the state of its eight,
-     * adjacent cells.
+     * adjacent cells.<br>
+     * Only called under {@link StepKernel#SCALAR}.
      * 
      * @param iCell
      *            The linear index of the cell to compute the next state of.
@@ -137,7 +1196,7 @@ public class ConwayLifeEngine {
      */
     protected CellState getNextState(int iCell) {
         final int adjLiveCount = getAdjacentLiveCount(iCell);
-        if (cells[iCell] == CellState.LIVE) {
+        if (cells[iCell] == LIVE) {
             return adjLiveCount == 2 || adjLiveCount == 3 ? CellState.LIVE : CellState.DEAD;
         } else {
             return adjLiveCount == 3 ? CellState.LIVE : CellState.DEAD;
@@ -152,7 +1211,8 @@ public class ConwayLifeEngine {
     }
     
     /**
-     * Determines the number of adjacent, live cells adjacent to the specified cell.
+     * Determines the number of adjacent, live cells adjacent to the specified cell.<br>
+     * Only called under {@link StepKernel#SCALAR}.
      * 
      * @param iCell
      *            The linear index of the cell to count live, adjacent cells for.
@@ -161,8 +1221,16 @@ public class ConwayLifeEngine {
      */
     protected int getAdjacentLiveCount(int iCell) {
         int adjLiveCount = 0;
+        if (neighbors != null) {
+            final int iFirst = iCell * GridBufferPool.NEIGHBOR_COUNT;
+            for (int iEntry = iFirst; iEntry < iFirst + GridBufferPool.NEIGHBOR_COUNT; ++iEntry) {
+                final int iAdj = neighbors[iEntry];
+                if (iAdj >= 0 && cells[iAdj] == LIVE) adjLiveCount++;
+            }
+            return adjLiveCount;
+        }
         for (int iAdj : grid.getAdjacentIndices(iCell, Direction.values())) {
-            if (cells[iAdj] == CellState.LIVE) adjLiveCount++;
+            if (iAdj != RectangularGridGeometry.OFF_GRID_INDEX && cells[iAdj] == LIVE) adjLiveCount++;
         }
         return adjLiveCount;
     }
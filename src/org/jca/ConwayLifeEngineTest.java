@@ -1,8 +1,10 @@
 package org.jca;
 
 import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.not;
 import static org.junit.Assert.*;
 
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -104,6 +106,214 @@ public class ConwayLifeEngineTest {
         }
     }
 
+    @Test
+    public void testResetIsReproducible() {
+        ConwayLifeEngine a = new ConwayLifeEngine(300, 250, true);
+        ConwayLifeEngine b = new ConwayLifeEngine(300, 250, true);
+        a.reset(42L, 0.3);
+        b.reset(42L, 0.3);
+        assertArrayEquals("same seed", a.getCellStates(), b.getCellStates());
+        assertThat("live count", a.getLiveCount(), equalTo(b.getLiveCount()));
+        assertThat("generation", a.getGeneration(), equalTo(0L));
+        b.reset(43L, 0.3);
+        assertFalse("different seed", Arrays.equals(a.getCellStates(), b.getCellStates()));
+    }
+
+    @Test
+    public void testResetDensity() {
+        ConwayLifeEngine engine = new ConwayLifeEngine(400, 250, false);
+        final double[] densities = { 0.0, 0.05, 0.3, 0.5, 0.9, 1.0 };
+        for (double density : densities) {
+            engine.reset(7L, density);
+            int counted = 0;
+            for (byte state : engine.getCellStates()) {
+                if (state == CellState.LIVE.ordinal()) ++counted;
+            }
+            assertThat("live count, density=" + density, engine.getLiveCount(), equalTo(counted));
+            final double actual = (double) counted / engine.getGrid().getCellCount();
+            assertEquals("density=" + density, density, actual, 0.01);
+        }
+    }
+
+    @Test
+    public void testGridHashIsIncremental() {
+        ConwayLifeEngine engine = new ConwayLifeEngine(20, 15, true);
+        engine.reset(11L, 0.4);
+        ConwayLifeEngine check = new ConwayLifeEngine(20, 15, true);
+        for (int iStep = 0; iStep < 10; ++iStep) {
+            engine.doSimulationStep();
+            System.arraycopy(engine.getCellStates(), 0, check.getCellStates(), 0, engine.getGrid().getCellCount());
+            check.onCellStatesModified();
+            assertThat("iStep=" + iStep, engine.getGridHash(), equalTo(check.getGridHash()));
+        }
+        engine.setState(0, engine.getState(0) == CellState.LIVE ? CellState.DEAD : CellState.LIVE);
+        assertThat("after setState", engine.getGridHash(), not(equalTo(check.getGridHash())));
+    }
+
+    @Test
+    public void testCycleDetection() {
+        assertThat("initial period", blinkerEngine.getCyclePeriod(), equalTo(0));
+        assertThat("steps to detect blinker", blinkerEngine.runUntilCycle(100), equalTo(2L));
+        assertThat("blinker period", blinkerEngine.getCyclePeriod(), equalTo(2));
+        assertThat("blinker cycle start", blinkerEngine.getCycleStartGeneration(), equalTo(0L));
+
+        // A block (still life) next to a lone cell, which dies in generation 1.
+        ConwayLifeEngine engine = new ConwayLifeEngine(8, 8, true);
+        final int[] live = { 9, 10, 17, 18, 45 };
+        CellState[] seed = new CellState[64];
+        Arrays.fill(seed, CellState.DEAD);
+        for (int iCell : live) seed[iCell] = CellState.LIVE;
+        engine.setGridState(seed);
+        assertThat("steps to detect block", engine.runUntilCycle(100), equalTo(2L));
+        assertThat("block period", engine.getCyclePeriod(), equalTo(1));
+        assertThat("block cycle start", engine.getCycleStartGeneration(), equalTo(1L));
+    }
+
+    @Test
+    public void testStepKernelsAgree() {
+        // Column counts either side of the 64-cell word size, on both torus and bounded grids.
+        final int[][] sizes = { { 1, 5 }, { 3, 3 }, { 63, 9 }, { 64, 7 }, { 65, 12 }, { 130, 33 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                ConwayLifeEngine scalar = new ConwayLifeEngine(size[0], size[1], isTorus);
+                ConwayLifeEngine bitParallel = new ConwayLifeEngine(size[0], size[1], isTorus);
+                ConwayLifeEngine padded = new ConwayLifeEngine(size[0], size[1], isTorus);
+                scalar.setStepKernel(ConwayLifeEngine.StepKernel.SCALAR);
+                bitParallel.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+                padded.setStepKernel(ConwayLifeEngine.StepKernel.PADDED);
+                scalar.reset(size[0] * 1000L + size[1], 0.35);
+                bitParallel.reset(size[0] * 1000L + size[1], 0.35);
+                padded.reset(size[0] * 1000L + size[1], 0.35);
+                final String grid = scalar.getGrid().toString();
+                for (int iStep = 0; iStep < 40; ++iStep) {
+                    if (iStep == 20) {
+                        // Editing the cells must be seen by the bit-parallel and padded kernels' copies.
+                        scalar.setState(0, CellState.LIVE);
+                        bitParallel.setState(0, CellState.LIVE);
+                        padded.setState(0, CellState.LIVE);
+                    }
+                    scalar.doSimulationStep();
+                    bitParallel.doSimulationStep();
+                    padded.doSimulationStep();
+                    assertArrayEquals(grid + " iStep=" + iStep, scalar.getCellStates(), bitParallel.getCellStates());
+                    assertThat(grid + " live count", bitParallel.getLiveCount(), equalTo(scalar.getLiveCount()));
+                    assertThat(grid + " hash", bitParallel.getGridHash(), equalTo(scalar.getGridHash()));
+                    assertArrayEquals(grid + " padded iStep=" + iStep, scalar.getCellStates(), padded.getCellStates());
+                    assertThat(grid + " padded live count", padded.getLiveCount(), equalTo(scalar.getLiveCount()));
+                    assertThat(grid + " padded hash", padded.getGridHash(), equalTo(scalar.getGridHash()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTiledKernelAgrees() {
+        // Sizes spanning several tiles, with partial tiles at the right and bottom edges.
+        final int[][] sizes = { { 100, 20 }, { 513, 65 }, { 1100, 150 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                ConwayLifeEngine scalar = new ConwayLifeEngine(size[0], size[1], isTorus);
+                ConwayLifeEngine tiled = new ConwayLifeEngine(size[0], size[1], isTorus);
+                scalar.setStepKernel(ConwayLifeEngine.StepKernel.SCALAR);
+                tiled.setStepKernel(ConwayLifeEngine.StepKernel.TILED);
+                scalar.reset(size[0] * 1000L + size[1], 0.35);
+                tiled.reset(size[0] * 1000L + size[1], 0.35);
+                final String grid = scalar.getGrid().toString();
+                for (int iStep = 0; iStep < 25; ++iStep) {
+                    scalar.doSimulationStep();
+                    tiled.doSimulationStep();
+                    assertArrayEquals(grid + " iStep=" + iStep, scalar.getCellStates(), tiled.getCellStates());
+                    assertThat(grid + " live count", tiled.getLiveCount(), equalTo(scalar.getLiveCount()));
+                    assertThat(grid + " hash", tiled.getGridHash(), equalTo(scalar.getGridHash()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTemporalBlockingAgrees() {
+        // Grids shorter than the block depth, one band, and several bands (each band holds about 500 rows of 2000).
+        final int[][] sizes = { { 3, 3 }, { 70, 5 }, { 130, 40 }, { 2000, 1100 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                ConwayLifeEngine stepped = new ConwayLifeEngine(size[0], size[1], isTorus);
+                ConwayLifeEngine blocked = new ConwayLifeEngine(size[0], size[1], isTorus);
+                blocked.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+                blocked.setTemporalBlockDepth(5);
+                stepped.reset(size[0] * 1000L + size[1], 0.35);
+                blocked.reset(size[0] * 1000L + size[1], 0.35);
+                StepMetricsRecorder steppedMetrics = new StepMetricsRecorder();
+                StepMetricsRecorder blockedMetrics = new StepMetricsRecorder();
+                stepped.setMetricsListener(steppedMetrics);
+                blocked.setMetricsListener(blockedMetrics);
+                final String grid = stepped.getGrid().toString();
+                for (int iCall = 0; iCall < 3; ++iCall) {
+                    // 12 steps: two full blocks, then a partial one.
+                    stepped.doSimulationSteps(12);
+                    blocked.doSimulationSteps(12);
+                    assertThat(grid + " generation", blocked.getGeneration(), equalTo(stepped.getGeneration()));
+                    assertArrayEquals(grid + " iCall=" + iCall, stepped.getCellStates(), blocked.getCellStates());
+                    assertThat(grid + " live count", blocked.getLiveCount(), equalTo(stepped.getLiveCount()));
+                    assertThat(grid + " hash", blocked.getGridHash(), equalTo(stepped.getGridHash()));
+                    // Metrics are still reported per generation.
+                    assertThat(grid + " metrics steps", blockedMetrics.getStepCount(),
+                            equalTo(steppedMetrics.getStepCount()));
+                    assertThat(grid + " total births", blockedMetrics.getTotalBirths(),
+                            equalTo(steppedMetrics.getTotalBirths()));
+                    assertThat(grid + " last births", blockedMetrics.getLastBirths(),
+                            equalTo(steppedMetrics.getLastBirths()));
+                    assertThat(grid + " metrics live count", blockedMetrics.getLiveCount(),
+                            equalTo(steppedMetrics.getLiveCount()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testTemporalBlockingDetectsCycles() {
+        // A block (still life) and a blinker (period 2), each alone on a grid.
+        final int[][] patterns = { { 5, 5, 6, 5, 5, 6, 6, 6 }, { 5, 4, 5, 5, 5, 6 } };
+        final int[] periods = { 1, 2 };
+        for (int iPattern = 0; iPattern < patterns.length; ++iPattern) {
+            ConwayLifeEngine engine = new ConwayLifeEngine(40, 30, true);
+            engine.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+            engine.setTemporalBlockDepth(8);
+            CellState[] cells = new CellState[engine.getGrid().getCellCount()];
+            Arrays.fill(cells, CellState.DEAD);
+            for (int i = 0; i < patterns[iPattern].length; i += 2) {
+                cells[engine.getGrid().getI(patterns[iPattern][i], patterns[iPattern][i + 1])] = CellState.LIVE;
+            }
+            engine.setGridState(cells);
+            engine.doSimulationSteps(100);
+            assertThat("generation", engine.getGeneration(), equalTo(100L));
+            assertThat("period", engine.getCyclePeriod(), equalTo(periods[iPattern]));
+            assertTrue("cycle start", engine.getCycleStartGeneration() >= 0);
+        }
+    }
+
+    @Test
+    public void testTemporalBlockingDetectsLongCycles() {
+        // A pentadecathlon (period 15) only recurs at block ends every lcm(15, 8) = 120 generations.
+        ConwayLifeEngine blocked = new ConwayLifeEngine(40, 30, true);
+        blocked.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+        blocked.setTemporalBlockDepth(8);
+        ConwayLifeEngine stepped = new ConwayLifeEngine(40, 30, true);
+        stepped.setTemporalBlockDepth(1);
+        CellState[] cells = new CellState[blocked.getGrid().getCellCount()];
+        Arrays.fill(cells, CellState.DEAD);
+        for (int x = 15; x < 25; ++x) {
+            cells[blocked.getGrid().getI(x, 15)] = CellState.LIVE;
+        }
+        blocked.setGridState(cells);
+        stepped.setGridState(cells);
+        blocked.doSimulationSteps(1000);
+        stepped.doSimulationSteps(1000);
+        assertThat("stepped period", stepped.getCyclePeriod(), equalTo(15));
+        assertThat("blocked period", blocked.getCyclePeriod(), equalTo(15));
+        assertTrue("cycle start", blocked.getCycleStartGeneration() >= stepped.getCycleStartGeneration());
+        assertArrayEquals("cells", stepped.getCellStates(), blocked.getCellStates());
+    }
+
     private boolean sameGridState(ConwayLifeEngine lifeEngine, CellState[] expectGridState) {
         for (int iCell = 0; iCell < lifeEngine.getGrid().getCellCount(); ++iCell) {
             if (lifeEngine.getState(iCell) != expectGridState[iCell]) return false;
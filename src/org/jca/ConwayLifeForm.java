@@ -4,42 +4,62 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
+import javax.swing.JSlider;
+import javax.swing.event.ChangeEvent;
+import javax.swing.event.ChangeListener;
 
 
 /**
- * Provides cell {@link Color} values based on {@link ConwayLifeEngine} {@link ConfwayLifeEngine#CellState CellState}
- * values.
+ * Provides a cell color palette for {@link ConwayLifeEngine} {@link ConwayLifeEngine#CellState CellState} values,
+ * indexed by state ordinal.
  * 
  * @author ksdj (coder-hat)
  */
-final class LifeGridColorist implements IGridColorProvider
+final class LifeGridColorist implements IGridPaletteProvider
 {
-    private static Map<ConwayLifeEngine.CellState, Color> cellColors;
+    private static final int[] cellPalette = new int[ConwayLifeEngine.CellState.values().length];
     static {
-        cellColors = new HashMap<>();
-        cellColors.put(ConwayLifeEngine.CellState.DEAD, Color.white);
-        cellColors.put(ConwayLifeEngine.CellState.LIVE, Color.green);
+        cellPalette[ConwayLifeEngine.CellState.DEAD.ordinal()] = Color.white.getRGB();
+        cellPalette[ConwayLifeEngine.CellState.LIVE.ordinal()] = Color.green.getRGB();
     }
     
     private ConwayLifeEngine simEngine;
+    
+    /**
+     * Recorded cell states to show instead of the engine's current ones, or null to show the engine's.
+     */
+    private volatile byte[] replayStates;
 
     public LifeGridColorist(ConwayLifeEngine simEngine) {
         this.simEngine = simEngine;
     }
     
+    /**
+     * @param replayStates
+     *            Recorded cell states to show instead of the engine's current ones, or null to show the engine's.
+     */
+    public void setReplayStates(byte[] replayStates) {
+        this.replayStates = replayStates;
+    }
+    
+    @Override
+    public int[] getPalette() {
+        return cellPalette;
+    }
+
     @Override
-    public Color getCellColor(int iCell) {
-        return cellColors.get(simEngine.getState(iCell));
+    public byte[] getCellStates() {
+        final byte[] replay = replayStates;
+        return (replay != null) ? replay : simEngine.getCellStates();
     }
 
     @Override
@@ -60,11 +80,49 @@ public class ConwayLifeForm extends JFrame
     
     private SimulationRunner simEngineRunner;
     
+    /**
+     * The number of frames between keyframes in the timeline recording.
+     */
+    private static final int RECORDING_KEYFRAME_INTERVAL = 50;
+    
+    /**
+     * The size at which the timeline recording stops, so a long run cannot fill the temp directory. The timeline then
+     * keeps the generations recorded so far, until the next RESET starts a new recording.
+     */
+    private static final long MAX_RECORDING_BYTES = 64L * 1024 * 1024;
+    
+    private Path recordingPath;
+    
+    /**
+     * Guards {@link recorder}, which the runner's background thread appends to while the event dispatch thread starts
+     * and stops the recording. {@link player} is only used on the event dispatch thread.
+     */
+    private final Object recorderLock = new Object();
+    private SimulationRecorder recorder;
+    private SimulationPlayer player;
+    
+    /**
+     * Receives recorded cell states while the timeline slider is scrubbed back from the current generation.
+     */
+    private byte[] replayCells;
+    
+    /**
+     * Set while the timeline slider's range and value are changed programmatically, so those changes are not treated
+     * as scrubbing.
+     */
+    private boolean isUpdatingTimeline;
+    
     private JLabel lblStatus;
     private String fmtStatus;
+    private String fmtCycleStatus;
+    private String fmtReplayStatus;
     
+    private LifeGridColorist colorist;
     private RectangularGridDisplayPanel pnlGrid;
     
+    private JSlider sldTimeline;
+    
+    private JPanel pnlControls;
     private JPanel pnlButtons;
     
     private JButton btnStep;
@@ -76,7 +134,10 @@ public class ConwayLifeForm extends JFrame
     public ConwayLifeForm(ConwayLifeEngine simEngine) {
         this.simEngine = simEngine;
         
-        fmtStatus = "Live Cells Count: %1$s";
+        fmtStatus = "Generation: %1$s  Live Cells Count: %2$s";
+        fmtCycleStatus = "  Cycle: period %1$s since generation %2$s";
+        fmtReplayStatus = "Generation: %1$s  (replay)";
+        replayCells = new byte[simEngine.getGrid().getCellCount()];
         
         lblStatus = new JLabel();
         // Create padding around label text.
@@ -86,7 +147,11 @@ public class ConwayLifeForm extends JFrame
         lblStatus.setBorder(BorderFactory.createEmptyBorder(5, 3, 3, 3));
         lblStatus.setText(makeStatusText());
 
-        pnlGrid = new RectangularGridDisplayPanel(this.simEngine.getGrid(), new LifeGridColorist(simEngine));
+        colorist = new LifeGridColorist(simEngine);
+        pnlGrid = new RectangularGridDisplayPanel(this.simEngine.getGrid(), colorist);
+        
+        sldTimeline = new JSlider(0, 0, 0);
+        sldTimeline.addChangeListener(new TimelineScrubAction());
         
         btnStep = new JButton("STEP");
         btnStep.addActionListener(new StepSimulatorAction());
@@ -105,16 +170,131 @@ public class ConwayLifeForm extends JFrame
         pnlButtons.add(btnStart);        
         pnlButtons.add(btnStop);        
         pnlButtons.add(btnReset);
+        
+        pnlControls = new JPanel(new BorderLayout());
+        pnlControls.add(sldTimeline, BorderLayout.NORTH);
+        pnlControls.add(pnlButtons, BorderLayout.SOUTH);
 
         this.add(lblStatus, BorderLayout.NORTH);
         this.add(pnlGrid, BorderLayout.CENTER);
-        this.add(pnlButtons, BorderLayout.SOUTH);
+        this.add(pnlControls, BorderLayout.SOUTH);
         
         this.setTitle("Conway's Game of Life");
+        
+        startRecording();
     }
     
     private String makeStatusText(){
-        return String.format(fmtStatus, simEngine.getLiveCount());
+        String status = String.format(fmtStatus, simEngine.getGeneration(), simEngine.getLiveCount());
+        if (simEngine.getCyclePeriod() != 0) {
+            status += String.format(fmtCycleStatus, simEngine.getCyclePeriod(), simEngine.getCycleStartGeneration());
+        }
+        return status;
+    }
+    
+    /**
+     * Starts a new timeline recording of the engine's generations, beginning with the current one.<br>
+     * If the recording cannot be created, the timeline slider is disabled.
+     */
+    private void startRecording() {
+        stopRecording();
+        try {
+            if (recordingPath == null) {
+                recordingPath = Files.createTempFile("jca-life-", ".rec");
+                recordingPath.toFile().deleteOnExit();
+            }
+            synchronized (recorderLock) {
+                recorder = new SimulationRecorder(recordingPath, simEngine.getGrid(), RECORDING_KEYFRAME_INTERVAL);
+                recorder.record(simEngine.getGeneration(), simEngine.getCellStates());
+            }
+            player = new SimulationPlayer(recordingPath);
+            sldTimeline.setEnabled(true);
+        }
+        catch (IOException ex) {
+            System.err.println("Timeline recording disabled: " + ex);
+            stopRecording();
+        }
+        updateTimeline();
+    }
+    
+    private void stopRecording() {
+        synchronized (recorderLock) {
+            try {
+                if (recorder != null) recorder.close();
+                if (player != null) player.close();
+            }
+            catch (IOException ex) {
+                System.err.println("Timeline recording did not close cleanly: " + ex);
+            }
+            recorder = null;
+        }
+        player = null;
+        sldTimeline.setEnabled(false);
+    }
+    
+    /**
+     * Appends the engine's current generation to the timeline recording (if any), and stops the recording once it
+     * reaches {@link MAX_RECORDING_BYTES}.<br>
+     * Called from whichever thread just stepped the engine.
+     */
+    private void recordGeneration() {
+        synchronized (recorderLock) {
+            if (recorder == null) return;
+            try {
+                recorder.record(simEngine.getGeneration(), simEngine.getCellStates());
+                if (recorder.getByteCount() >= MAX_RECORDING_BYTES) {
+                    System.err.println("Timeline recording stopped at generation " + simEngine.getGeneration()
+                            + ": the recording reached its size limit");
+                    recorder.close();
+                    recorder = null;
+                }
+            }
+            catch (IOException ex) {
+                System.err.println("Timeline recording stopped: " + ex);
+                recorder = null;
+            }
+        }
+    }
+    
+    /**
+     * Extends the timeline slider's range to the latest recorded generation, moves the slider there, and returns the
+     * grid display to the engine's live cell states.
+     */
+    private void updateTimeline() {
+        colorist.setReplayStates(null);
+        if (player == null) return;
+        try {
+            player.refresh();
+            isUpdatingTimeline = true;
+            sldTimeline.setMinimum((int) player.getFirstGeneration());
+            sldTimeline.setMaximum((int) player.getLastGeneration());
+            sldTimeline.setValue(sldTimeline.getMaximum());
+        }
+        catch (IOException ex) {
+            System.err.println("Timeline recording disabled: " + ex);
+            stopRecording();
+        }
+        finally {
+            isUpdatingTimeline = false;
+        }
+    }
+    
+    /**
+     * Shows the running simulation's latest generation.
+     */
+    private void showRunnerProgress() {
+        updateTimeline();
+        pnlGrid.repaint();
+        lblStatus.setText(makeStatusText());
+    }
+    
+    private void onRunnerDone() {
+        btnStep.setEnabled(true);
+        btnStart.setEnabled(true);
+        btnStop.setEnabled(false);
+        btnReset.setEnabled(true);
+        sldTimeline.setEnabled(player != null);
+        updateTimeline();
     }
     
     //----- Inner classes
@@ -123,6 +303,8 @@ public class ConwayLifeForm extends JFrame
     {
         @Override public void actionPerformed(ActionEvent e) {
             simEngine.doSimulationStep();
+            recordGeneration();
+            updateTimeline();
             lblStatus.setText(makeStatusText());
             pnlGrid.repaint();
         }
@@ -132,13 +314,16 @@ public class ConwayLifeForm extends JFrame
     {
         @Override public void actionPerformed(ActionEvent e) {
             try {
-                simEngineRunner = new SimulationRunner();
+                simEngineRunner = new SimulationRunner(simEngine, 15, ConwayLifeForm.this::recordGeneration,
+                        ConwayLifeForm.this::showRunnerProgress, ConwayLifeForm.this::onRunnerDone);
                 simEngineRunner.execute();
                 
+                updateTimeline();
                 btnStep.setEnabled(false);
                 btnStart.setEnabled(false);
                 btnStop.setEnabled(true);
                 btnReset.setEnabled(false);
+                sldTimeline.setEnabled(false);
             }
             catch (Exception ex) {
                 btnStep.setEnabled(true);
@@ -162,47 +347,37 @@ public class ConwayLifeForm extends JFrame
     {
         @Override public void actionPerformed(ActionEvent e) {
             simEngine.reset();
+            startRecording();
             lblStatus.setText(makeStatusText());
             pnlGrid.repaint();
         }
     }
     
-    private class SimulationRunner extends SwingWorker<Void, ConwayLifeEngine>
+    /**
+     * Shows the recorded generation selected on the timeline slider, or the engine's current generation when the
+     * slider is at its right-hand end.
+     */
+    private class TimelineScrubAction implements ChangeListener
     {
-        public SimulationRunner() {
-        }
-
-        @Override protected Void doInBackground() throws Exception {
-            if (simEngine != null) {
-                while (!isCancelled()) {
-                    simEngine.doSimulationStep();
-                    publish(simEngine);
-                    try {
-                        Thread.sleep(15); // milliseconds
-                    }
-                    catch (InterruptedException e) {
-                        // TODO Auto-generated catch block
-                        // e.printStackTrace();
-                    }
+        @Override public void stateChanged(ChangeEvent e) {
+            if (isUpdatingTimeline || player == null) return;
+            final int generation = sldTimeline.getValue();
+            if (generation >= sldTimeline.getMaximum()) {
+                colorist.setReplayStates(null);
+                lblStatus.setText(makeStatusText());
+            } else {
+                try {
+                    long shownGeneration = player.seek(generation, replayCells);
+                    colorist.setReplayStates(replayCells);
+                    lblStatus.setText(String.format(fmtReplayStatus, shownGeneration));
                 }
-            }
-            return null;
-        }
-        
-        @Override protected void process(List<ConwayLifeEngine> engineRefs) {
-            for (ConwayLifeEngine ae : engineRefs) {
-                synchronized (ae) {
-                    pnlGrid.repaint();
-                    lblStatus.setText(makeStatusText());
+                catch (IOException ex) {
+                    System.err.println("Timeline recording disabled: " + ex);
+                    stopRecording();
+                    colorist.setReplayStates(null);
                 }
             }
-        }
-        
-        @Override protected void done() {
-            btnStep.setEnabled(true);
-            btnStart.setEnabled(true);
-            btnStop.setEnabled(false);
-            btnReset.setEnabled(true);
+            pnlGrid.repaint();
         }
     }
 
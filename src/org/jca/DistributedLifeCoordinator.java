@@ -0,0 +1,354 @@
+package org.jca;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs a Game of Life grid (with the same rules, random initial states and results as {@link ConwayLifeEngine})
+ * partitioned across several {@link DistributedLifeWorker}s, typically in separate JVMs, so the grid may be larger
+ * than one machine's memory.
+ * <p>
+ * The grid is split into strips of whole rows, one per worker, in the order the workers connect. The workers
+ * exchange one-row halos with each other directly (see {@link DistributedLifeWorker}); the coordinator only sends
+ * commands, and aggregates each generation's births, deaths and live count from the workers' replies.<br>
+ * Usage: construct the coordinator (which starts listening), start the workers (pointed at {@link #getPort()}), then
+ * {@link #awaitWorkers()}. The coordinator can then be driven like any other {@link ISimulationEngine}; its IO
+ * failures are reported as {@link UncheckedIOException}s. {@link #close()} shuts the workers down.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class DistributedLifeCoordinator implements ISimulationEngine, Closeable
+{
+    // Control protocol: each command is a byte, followed by its arguments; each worker replies in kind.
+    static final byte READY = 1;
+    static final byte RESET = 2;
+    static final byte SET_CELLS = 3;
+    static final byte STEP = 4;
+    static final byte GATHER = 5;
+    static final byte SHUTDOWN = 6;
+
+    /**
+     * The most steps requested by one STEP command. Workers reply to a STEP command with 8 bytes per step, and the
+     * coordinator reads the replies one worker at a time, so a batch's replies must fit in a socket buffer: a worker
+     * blocked writing its replies would stop exchanging halos, and stall the worker whose replies are being read.
+     */
+    private static final int STEP_BATCH = 1024;
+
+    private final RectangularGridGeometry grid;
+
+    private final int workerCount;
+
+    private final ServerSocket server;
+
+    private final List<Socket> sockets = new ArrayList<>();
+    private final List<DataInputStream> ins = new ArrayList<>();
+    private final List<DataOutputStream> outs = new ArrayList<>();
+
+    /**
+     * The first row of each worker's strip, with the row count at [workerCount].
+     */
+    private final int[] stripFirstRows;
+
+    private long liveCount;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * Starts listening, on an ephemeral port of all local addresses, for the specified number of workers.
+     *
+     * @throws IllegalArgumentException
+     *             If there are more workers than rows.
+     */
+    public DistributedLifeCoordinator(int colCount, int rowCount, boolean isTorus, int workerCount) throws IOException {
+        if (workerCount < 1 || workerCount > rowCount) {
+            throw new IllegalArgumentException("workerCount must be in [1, rowCount]");
+        }
+        grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        this.workerCount = workerCount;
+        stripFirstRows = new int[workerCount + 1];
+        for (int iWorker = 0; iWorker <= workerCount; ++iWorker) {
+            stripFirstRows[iWorker] = (int) ((long) iWorker * rowCount / workerCount);
+        }
+        server = new ServerSocket(0);
+    }
+
+    /**
+     * @return The port workers connect to.
+     */
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Waits for all the workers to connect, assigns them their strips and halo neighbors, and waits for them to link up
+     * with each other. The grid starts all dead.
+     */
+    public void awaitWorkers() throws IOException {
+        final String[] haloHosts = new String[workerCount];
+        final int[] haloPorts = new int[workerCount];
+        for (int iWorker = 0; iWorker < workerCount; ++iWorker) {
+            final Socket socket = server.accept();
+            socket.setTcpNoDelay(true);
+            sockets.add(socket);
+            ins.add(new DataInputStream(new BufferedInputStream(socket.getInputStream())));
+            outs.add(new DataOutputStream(new BufferedOutputStream(socket.getOutputStream())));
+            haloHosts[iWorker] = socket.getInetAddress().getHostAddress();
+            haloPorts[iWorker] = ins.get(iWorker).readInt();
+        }
+        for (int iWorker = 0; iWorker < workerCount; ++iWorker) {
+            final int iUp = (iWorker + workerCount - 1) % workerCount;
+            final boolean hasUp = grid.isTorus() || iWorker > 0;
+            final boolean hasDown = grid.isTorus() || iWorker < workerCount - 1;
+            final DataOutputStream out = outs.get(iWorker);
+            out.writeInt(grid.getColCount());
+            out.writeInt(grid.getRowCount());
+            out.writeBoolean(grid.isTorus());
+            out.writeInt(stripFirstRows[iWorker]);
+            out.writeInt(stripFirstRows[iWorker + 1]);
+            out.writeBoolean(hasUp);
+            out.writeUTF(haloHosts[iUp]);
+            out.writeInt(haloPorts[iUp]);
+            out.writeBoolean(hasDown);
+            out.flush();
+        }
+        for (DataInputStream in : ins) {
+            if (in.readByte() != READY) throw new IOException("Worker failed to start");
+        }
+        liveCount = 0;
+        generation = 0;
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of live cells, summed over the workers.
+     */
+    public long getLiveCount() {
+        return liveCount;
+    }
+
+    @Override
+    public void doSimulationStep() {
+        doSimulationSteps(1);
+    }
+
+    /**
+     * Has every worker take the specified number of steps, with a command round trip per {@link #STEP_BATCH} steps,
+     * and reports each generation to the metrics listener (with the round trip's duration divided evenly among
+     * them).
+     */
+    @Override
+    public void doSimulationSteps(long stepCount) {
+        final IStepMetricsListener listener = metricsListener;
+        try {
+            for (long stepsLeft = stepCount; stepsLeft > 0; ) {
+                final int batch = (int) Math.min(stepsLeft, STEP_BATCH);
+                final long startNanos = System.nanoTime();
+                for (DataOutputStream out : outs) {
+                    out.writeByte(STEP);
+                    out.writeInt(batch);
+                    out.flush();
+                }
+                final long[] births = new long[batch];
+                final long[] deaths = new long[batch];
+                for (DataInputStream in : ins) {
+                    for (int iStep = 0; iStep < batch; ++iStep) {
+                        births[iStep] += in.readInt();
+                        deaths[iStep] += in.readInt();
+                    }
+                }
+                final long stepNanos = (System.nanoTime() - startNanos) / batch;
+                for (int iStep = 0; iStep < batch; ++iStep) {
+                    liveCount += births[iStep] - deaths[iStep];
+                    ++generation;
+                    if (listener != null) {
+                        listener.onStep(generation, births[iStep], deaths[iStep], liveCount,
+                                births[iStep] + deaths[iStep], stepNanos, -1L);
+                    }
+                }
+                stepsLeft -= batch;
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resets the grid with a random initial state of {@link ConwayLifeEngine#DEFAULT_LIVE_DENSITY} live cells.
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, ConwayLifeEngine.DEFAULT_LIVE_DENSITY);
+    }
+
+    /**
+     * Resets the grid with a random initial state identical to that of {@link ConwayLifeEngine#reset(long, double)}
+     * for the same seed, density and geometry. Each worker generates its own strip.
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        try {
+            for (DataOutputStream out : outs) {
+                out.writeByte(RESET);
+                out.writeLong(seed);
+                out.writeDouble(density);
+                out.flush();
+            }
+            liveCount = 0;
+            for (DataInputStream in : ins) {
+                liveCount += in.readLong();
+            }
+            generation = 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Resets the grid to the specified cell state ordinals (as {@link ConwayLifeEngine#getCellStates()} returns
+     * them), and the generation to 0.
+     */
+    public void setCellStates(byte[] states) {
+        if (states.length != grid.getCellCount()) {
+            throw new IllegalArgumentException("Expected " + grid.getCellCount() + " cell states");
+        }
+        try {
+            for (int iWorker = 0; iWorker < workerCount; ++iWorker) {
+                final DataOutputStream out = outs.get(iWorker);
+                out.writeByte(SET_CELLS);
+                final int iFirst = stripFirstRows[iWorker] * grid.getColCount();
+                out.write(states, iFirst, stripFirstRows[iWorker + 1] * grid.getColCount() - iFirst);
+                out.flush();
+            }
+            liveCount = 0;
+            for (DataInputStream in : ins) {
+                liveCount += in.readLong();
+            }
+            generation = 0;
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gathers a copy of the whole grid's cell state ordinals from the workers. Only grids of up to
+     * {@link Integer#MAX_VALUE} cells can be gathered.
+     *
+     * @throws ArithmeticException
+     *             If the grid has too many cells.
+     */
+    @Override
+    public byte[] getCellStates() {
+        final byte[] states = new byte[grid.getCellCount()];
+        try {
+            for (DataOutputStream out : outs) {
+                out.writeByte(GATHER);
+                out.flush();
+            }
+            for (int iWorker = 0; iWorker < workerCount; ++iWorker) {
+                final int iFirst = stripFirstRows[iWorker] * grid.getColCount();
+                ins.get(iWorker).readFully(states, iFirst, stripFirstRows[iWorker + 1] * grid.getColCount() - iFirst);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return states;
+    }
+
+    /**
+     * As {@link #getCellStates()}: the cells are held by the workers, so every copy is a fresh snapshot.
+     */
+    @Override
+    public byte[] copyCellStates() {
+        return getCellStates();
+    }
+
+    /**
+     * Sets (or with null, clears) the listener that receives metrics for each subsequent generation. The workers'
+     * allocation is not measured, so allocated bytes are reported as -1.
+     */
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Tells the workers to shut down, and closes the connections to them.
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataOutputStream out : outs) {
+            try {
+                out.writeByte(SHUTDOWN);
+                out.flush();
+            }
+            catch (IOException e) {
+                // The worker has already gone.
+            }
+        }
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+        server.close();
+    }
+
+    /**
+     * Runs a distributed grid with each worker in its own, locally started JVM, and reports the throughput.
+     * <p>
+     * Usage: DistributedLifeCoordinator [cols rows [workers [steps [seed]]]]
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        final int colCount = (args.length > 1) ? Integer.parseInt(args[0]) : 4096;
+        final int rowCount = (args.length > 1) ? Integer.parseInt(args[1]) : 4096;
+        final int workerCount = (args.length > 2) ? Integer.parseInt(args[2]) : 4;
+        final long steps = (args.length > 3) ? Long.parseLong(args[3]) : 100;
+        final long seed = (args.length > 4) ? Long.parseLong(args[4]) : 1L;
+
+        final List<Process> workers = new ArrayList<>();
+        try (DistributedLifeCoordinator coordinator = new DistributedLifeCoordinator(colCount, rowCount, true,
+                workerCount)) {
+            final String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+            for (int iWorker = 0; iWorker < workerCount; ++iWorker) {
+                workers.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                        DistributedLifeWorker.class.getName(), InetAddress.getLoopbackAddress().getHostAddress(),
+                        Integer.toString(coordinator.getPort())).inheritIO().start());
+            }
+            coordinator.awaitWorkers();
+            coordinator.reset(seed);
+            final long startNanos = System.nanoTime();
+            coordinator.doSimulationSteps(steps);
+            final double seconds = (System.nanoTime() - startNanos) / 1e9;
+            System.out.println(String.format("grid=%1$dx%2$d workers=%3$d generation=%4$d live=%5$d seconds=%6$.3f "
+                    + "steps/s=%7$.1f", colCount, rowCount, workerCount, coordinator.getGeneration(),
+                    coordinator.getLiveCount(), seconds, steps / seconds));
+        }
+        for (Process worker : workers) {
+            worker.waitFor();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class DistributedLifeCoordinatorTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testMatchesSingleProcessEngine() throws Exception {
+        // One worker (halos to itself on a torus), strips of unequal height, and one-row strips.
+        final int[][] runs = { { 70, 20, 1 }, { 70, 20, 3 }, { 130, 5, 5 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] run : runs) {
+                final String name = String.format("%1$dx%2$d torus=%3$s workers=%4$d", run[0], run[1], isTorus, run[2]);
+                ConwayLifeEngine engine = new ConwayLifeEngine(run[0], run[1], isTorus);
+                engine.reset(17L);
+                List<Thread> workers = new ArrayList<>();
+                try (DistributedLifeCoordinator coordinator = new DistributedLifeCoordinator(run[0], run[1], isTorus,
+                        run[2])) {
+                    for (int iWorker = 0; iWorker < run[2]; ++iWorker) {
+                        Thread worker = new Thread(new DistributedLifeWorker(
+                                InetAddress.getLoopbackAddress().getHostAddress(), coordinator.getPort()));
+                        worker.start();
+                        workers.add(worker);
+                    }
+                    coordinator.awaitWorkers();
+                    coordinator.reset(17L);
+                    assertArrayEquals(name + " reset", engine.getCellStates(), coordinator.getCellStates());
+                    assertThat(name + " reset live count", coordinator.getLiveCount(),
+                            equalTo((long) engine.getLiveCount()));
+                    for (int iBatch = 0; iBatch < 3; ++iBatch) {
+                        engine.doSimulationSteps(9);
+                        coordinator.doSimulationSteps(9);
+                        assertThat(name + " generation", coordinator.getGeneration(), equalTo(engine.getGeneration()));
+                        assertArrayEquals(name + " iBatch=" + iBatch, engine.getCellStates(),
+                                coordinator.getCellStates());
+                        assertThat(name + " live count", coordinator.getLiveCount(),
+                                equalTo((long) engine.getLiveCount()));
+                    }
+                }
+                for (Thread worker : workers) {
+                    worker.join(5000);
+                    assertThat(name + " worker stopped", worker.isAlive(), equalTo(false));
+                }
+            }
+        }
+    }
+}
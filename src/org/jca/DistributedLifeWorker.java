@@ -0,0 +1,356 @@
+package org.jca;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * One worker of a distributed Game of Life run (see {@link DistributedLifeCoordinator}): holds a strip of whole rows
+ * of the grid, bit-packed as for {@link BitPackedLifeKernel}, and steps it on the coordinator's command.
+ * <p>
+ * Each generation, the worker exchanges one-row halos with the workers holding the strips above and below its own:
+ * it sends its first row up and its last row down, and receives their last and first rows respectively. The halo
+ * channels are non-blocking: the worker starts its sends and receives, computes its interior rows (which need no
+ * halo) while they are in flight, and only then waits on a {@link Selector} for the exchange to finish and computes
+ * its two edge rows.
+ * <p>
+ * Usage: DistributedLifeWorker coordinatorHost coordinatorPort
+ *
+ * @author ksdj (coder-hat)
+ */
+public class DistributedLifeWorker implements Runnable
+{
+    private final String coordinatorHost;
+    private final int coordinatorPort;
+
+    private int colCount;
+    private int rowCount;
+    private boolean isTorus;
+    private int rowWords;
+
+    /**
+     * The worker's rows of the grid: [yFirst, yEnd).
+     */
+    private int yFirst;
+    private int yEnd;
+
+    /**
+     * The strip's packed rows, with a halo row either side: local row 0 is the row above the strip, rows 1 to
+     * stripRows the strip itself, and row stripRows + 1 the row below it. And the scratch next-generation buffer.
+     */
+    private long[] cur;
+    private long[] next;
+
+    /**
+     * The halo channels to the workers above and below, or null where the grid has no row there (the top and bottom of
+     * a bounded grid). On a one-worker torus both connect the worker to itself.
+     */
+    private SocketChannel upChannel;
+    private SocketChannel downChannel;
+    private Selector selector;
+
+    private ByteBuffer upOut;
+    private ByteBuffer upIn;
+    private ByteBuffer downOut;
+    private ByteBuffer downIn;
+
+    public DistributedLifeWorker(String coordinatorHost, int coordinatorPort) {
+        this.coordinatorHost = coordinatorHost;
+        this.coordinatorPort = coordinatorPort;
+    }
+
+    /**
+     * Connects to the coordinator, sets up the halo channels, then carries out the coordinator's commands until told
+     * to shut down (or the coordinator disconnects).
+     */
+    @Override
+    public void run() {
+        try {
+            serve();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Distributed Life worker failed", e);
+        }
+    }
+
+    private void serve() throws IOException {
+        try (Socket control = new Socket(coordinatorHost, coordinatorPort);
+                ServerSocketChannel haloServer = ServerSocketChannel.open()) {
+            control.setTcpNoDelay(true);
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(control.getInputStream()));
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(control.getOutputStream()));
+            haloServer.bind(new InetSocketAddress(control.getLocalAddress(), 0));
+            out.writeInt(((InetSocketAddress) haloServer.getLocalAddress()).getPort());
+            out.flush();
+
+            setUp(in, haloServer);
+            out.writeByte(DistributedLifeCoordinator.READY);
+            out.flush();
+
+            while (true) {
+                final byte command;
+                try {
+                    command = in.readByte();
+                }
+                catch (EOFException e) {
+                    return;
+                }
+                switch (command) {
+                case DistributedLifeCoordinator.RESET:
+                    out.writeLong(reset(in.readLong(), in.readDouble()));
+                    break;
+                case DistributedLifeCoordinator.SET_CELLS:
+                    out.writeLong(setCells(in));
+                    break;
+                case DistributedLifeCoordinator.STEP:
+                    final int stepCount = in.readInt();
+                    for (int iStep = 0; iStep < stepCount; ++iStep) {
+                        final long birthsAndDeaths = step();
+                        out.writeInt((int) (birthsAndDeaths >>> 32));
+                        out.writeInt((int) birthsAndDeaths);
+                    }
+                    break;
+                case DistributedLifeCoordinator.GATHER:
+                    writeCells(out);
+                    break;
+                case DistributedLifeCoordinator.SHUTDOWN:
+                    return;
+                default:
+                    throw new IOException("Unknown command " + command);
+                }
+                out.flush();
+            }
+        }
+        finally {
+            closeHaloChannels();
+        }
+    }
+
+    /**
+     * Reads the worker's geometry and strip from the coordinator, then connects to the worker above (whose halo server
+     * is already listening, so the connection completes without waiting for it to accept) and accepts the connection
+     * from the worker below.
+     */
+    private void setUp(DataInputStream in, ServerSocketChannel haloServer) throws IOException {
+        colCount = in.readInt();
+        rowCount = in.readInt();
+        isTorus = in.readBoolean();
+        yFirst = in.readInt();
+        yEnd = in.readInt();
+        final boolean hasUp = in.readBoolean();
+        final String upHost = in.readUTF();
+        final int upPort = in.readInt();
+        final boolean hasDown = in.readBoolean();
+
+        rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        cur = new long[(yEnd - yFirst + 2) * rowWords];
+        next = new long[cur.length];
+
+        selector = Selector.open();
+        if (hasUp) {
+            upChannel = SocketChannel.open(new InetSocketAddress(upHost, upPort));
+            upOut = ByteBuffer.allocateDirect(8 * rowWords);
+            upIn = ByteBuffer.allocateDirect(8 * rowWords);
+            register(upChannel);
+        }
+        if (hasDown) {
+            downChannel = haloServer.accept();
+            downOut = ByteBuffer.allocateDirect(8 * rowWords);
+            downIn = ByteBuffer.allocateDirect(8 * rowWords);
+            register(downChannel);
+        }
+    }
+
+    private void register(SocketChannel channel) throws IOException {
+        channel.socket().setTcpNoDelay(true);
+        channel.configureBlocking(false);
+        channel.register(selector, 0);
+    }
+
+    private void closeHaloChannels() {
+        for (Closeable closeable : new Closeable[] { upChannel, downChannel, selector }) {
+            if (closeable == null) continue;
+            try {
+                closeable.close();
+            }
+            catch (IOException e) {
+                // Shutting down: nothing more to do with the channel.
+            }
+        }
+    }
+
+    /**
+     * Fills the strip exactly as {@link ConwayLifeEngine#reset(long, double)} fills those rows of the whole grid:
+     * the grid's reset bands each have their own generator, split in turn from the seed, so the worker splits off the
+     * generators of the bands up to its last, and replays those bands overlapping its strip.
+     *
+     * @return The strip's live count.
+     */
+    private long reset(long seed, double density) {
+        final int densityBits = ConwayLifeEngine.toDensityBits(density);
+        final int bandRows = ConwayLifeEngine.getResetBandRows(colCount);
+        final long cellCount = (long) colCount * rowCount;
+        final long stripFirst = (long) yFirst * colCount;
+        final long stripEnd = (long) yEnd * colCount;
+        Arrays.fill(cur, 0L);
+        final SplittableRandom seedRandom = new SplittableRandom(seed);
+        for (int iBand = 0; (long) iBand * bandRows < yEnd; ++iBand) {
+            final SplittableRandom random = seedRandom.split();
+            final long iFirst = (long) iBand * bandRows * colCount;
+            final long iEnd = Math.min(iFirst + (long) bandRows * colCount, cellCount);
+            if (iEnd <= stripFirst) continue;
+            for (long iWord = iFirst; iWord < Math.min(iEnd, stripEnd); iWord += 64) {
+                long word = ConwayLifeEngine.randomWord(random, densityBits);
+                final long wordEnd = Math.min(iWord + 64, iEnd);
+                for (long iCell = iWord; iCell < wordEnd; ++iCell, word >>>= 1) {
+                    if ((word & 1L) != 0 && iCell >= stripFirst && iCell < stripEnd) setLive(iCell);
+                }
+            }
+        }
+        return countLive();
+    }
+
+    /**
+     * Reads the strip's cell state ordinals, one byte per cell.
+     *
+     * @return The strip's live count.
+     */
+    private long setCells(DataInputStream in) throws IOException {
+        Arrays.fill(cur, 0L);
+        final long stripFirst = (long) yFirst * colCount;
+        final long stripEnd = (long) yEnd * colCount;
+        for (long iCell = stripFirst; iCell < stripEnd; ++iCell) {
+            if (in.readByte() != 0) setLive(iCell);
+        }
+        return countLive();
+    }
+
+    private void writeCells(DataOutputStream out) throws IOException {
+        for (int y = yFirst; y < yEnd; ++y) {
+            final int row = (y - yFirst + 1) * rowWords;
+            for (int x = 0; x < colCount; ++x) {
+                out.writeByte((int) (cur[row + (x >>> 6)] >>> (x & 63)) & 1);
+            }
+        }
+    }
+
+    private void setLive(long iCell) {
+        final int y = (int) (iCell / colCount);
+        final int x = (int) (iCell % colCount);
+        cur[(y - yFirst + 1) * rowWords + (x >>> 6)] |= 1L << (x & 63);
+    }
+
+    private long countLive() {
+        long liveCount = 0;
+        for (int i = rowWords; i < cur.length - rowWords; ++i) {
+            liveCount += Long.bitCount(cur[i]);
+        }
+        return liveCount;
+    }
+
+    /**
+     * Advances the strip one generation, exchanging halos with the neighboring workers.
+     *
+     * @return The strip's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long step() throws IOException {
+        final int stripRows = yEnd - yFirst;
+        final int lastRow = stripRows * rowWords;
+        if (upChannel != null) startExchange(upOut, upIn, rowWords);
+        if (downChannel != null) startExchange(downOut, downIn, lastRow);
+        pumpHalos(false);
+
+        // Interior rows need only the strip itself.
+        for (int r = 2; r < stripRows; ++r) {
+            stepRow(r, true, true);
+        }
+
+        pumpHalos(true);
+        if (upChannel != null) {
+            upIn.flip();
+            upIn.asLongBuffer().get(cur, 0, rowWords);
+        }
+        if (downChannel != null) {
+            downIn.flip();
+            downIn.asLongBuffer().get(cur, lastRow + rowWords, rowWords);
+        }
+        stepRow(1, upChannel != null, stripRows > 1 || downChannel != null);
+        if (stripRows > 1) stepRow(stripRows, true, downChannel != null);
+
+        int births = 0;
+        int deaths = 0;
+        for (int i = rowWords; i <= lastRow + rowWords - 1; ++i) {
+            births += Long.bitCount(next[i] & ~cur[i]);
+            deaths += Long.bitCount(cur[i] & ~next[i]);
+        }
+        long[] swap = cur;
+        cur = next;
+        next = swap;
+        return ((long) births << 32) | deaths;
+    }
+
+    /**
+     * Computes local row r of the next generation; a missing row above or below is dead.
+     */
+    private void stepRow(int r, boolean hasUp, boolean hasDown) {
+        final int mid = r * rowWords;
+        BitPackedLifeKernel.stepRow(cur, hasUp ? mid - rowWords : -1, mid, hasDown ? mid + rowWords : -1, next, mid,
+                colCount, isTorus, 0, rowWords);
+    }
+
+    /**
+     * Loads the packed row at offset row of {@link cur} into the outgoing buffer, and readies the incoming buffer.
+     */
+    private void startExchange(ByteBuffer outgoing, ByteBuffer incoming, int row) {
+        outgoing.clear();
+        outgoing.asLongBuffer().put(cur, row, rowWords);
+        incoming.clear();
+    }
+
+    /**
+     * Moves halo bytes on whichever channels are ready. Unless waiting, makes one non-blocking pass; otherwise keeps
+     * going, blocking in the selector, until every halo has been sent and received.
+     */
+    private void pumpHalos(boolean isWaiting) throws IOException {
+        while (true) {
+            boolean isPending = false;
+            for (SelectionKey key : selector.keys()) {
+                final SocketChannel channel = (SocketChannel) key.channel();
+                final ByteBuffer outgoing = (channel == upChannel) ? upOut : downOut;
+                final ByteBuffer incoming = (channel == upChannel) ? upIn : downIn;
+                if (outgoing.hasRemaining()) channel.write(outgoing);
+                if (incoming.hasRemaining() && channel.read(incoming) < 0) {
+                    throw new EOFException("Halo channel closed");
+                }
+                final int ops = (outgoing.hasRemaining() ? SelectionKey.OP_WRITE : 0)
+                        | (incoming.hasRemaining() ? SelectionKey.OP_READ : 0);
+                key.interestOps(ops);
+                isPending |= (ops != 0);
+            }
+            if (!isPending || !isWaiting) return;
+            selector.select();
+            selector.selectedKeys().clear();
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: DistributedLifeWorker coordinatorHost coordinatorPort");
+            System.exit(1);
+        }
+        new DistributedLifeWorker(args[0], Integer.parseInt(args[1])).run();
+    }
+}
@@ -0,0 +1,357 @@
+package org.jca;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A one-dimensional elementary cellular automaton engine, for any of Wolfram's rules 0 to 255 (e.g. Rule 30, Rule
+ * 110): each cell's next state is bit (4 left + 2 center + right) of the rule number, where left and right are the
+ * cells either side of it in the row.
+ * <p>
+ * The row is held 1 bit per cell in a long[] bitset (cell x is bit x % 64 of word x / 64), and each word of the next
+ * row is computed at once from three bit-planes: the word itself (centers), and the word shifted one cell each way
+ * (lefts and rights, carrying bits across word boundaries and wrapping around the row on a torus). The rule is
+ * evaluated over the planes as a boolean expression: simplified forms for common rules (30, 90, 110, 184), and
+ * otherwise a three-level multiplexer on the left, center and right planes whose leaves are constant masks taken from
+ * the rule's bits. Very wide rows are stepped in parallel ranges of words.
+ * <p>
+ * The engine's {@link #getGrid() grid} is a space-time diagram: each of its columns is a cell, and its rows are the
+ * most recent generations, oldest at the top, which {@link #getCellStates()} renders (as
+ * {@link ConwayLifeEngine.CellState} ordinals) for the {@link RectangularGridDisplayPanel} or recorders. The grid's
+ * torus flag is whether the row wraps around.<br>
+ * For runs too long to keep, {@link #setRowChannel(WritableByteChannel)} streams every new row, as its packed
+ * little-endian words, to a channel such as a file.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class ElementaryCaEngine implements ISimulationEngine
+{
+    private static final byte DEAD = (byte) ConwayLifeEngine.CellState.DEAD.ordinal();
+    private static final byte LIVE = (byte) ConwayLifeEngine.CellState.LIVE.ordinal();
+
+    /**
+     * The number of words in each range of words that a step of a wide row processes in parallel.
+     */
+    private static final int BAND_WORDS = 1 << 12;
+
+    /**
+     * The size of the buffer rows are batched in before being written to the {@link #setRowChannel row channel}.
+     */
+    private static final int ROW_BUFFER_BYTES = 1 << 20;
+
+    private final RectangularGridGeometry grid;
+
+    private final int rule;
+
+    /**
+     * The number of longs per packed row, and the mask of the bits of the last word that hold cells.
+     */
+    private final int rowWords;
+    private final long lastWordMask;
+
+    /**
+     * The most recent generations' packed rows: generation g is in slot g % slots.
+     */
+    private final long[][] history;
+
+    /**
+     * The space-time diagram {@link #getCellStates()} returns, and the generation it was rendered for (-1 if none).
+     */
+    private final byte[] diagram;
+    private long diagramGeneration = -1;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    private WritableByteChannel rowChannel;
+    private ByteBuffer rowBuffer;
+
+    /**
+     * Constructs an engine whose row is all dead.
+     *
+     * @param colCount
+     *            The number of cells in the row.
+     * @param historyRows
+     *            The number of generations shown in the space-time diagram.
+     * @param isTorus
+     *            Whether the row wraps around.
+     * @param rule
+     *            The Wolfram rule number, 0 to 255.
+     */
+    public ElementaryCaEngine(int colCount, int historyRows, boolean isTorus, int rule) {
+        if (rule < 0 || rule > 255) throw new IllegalArgumentException("rule must be in [0, 255]");
+        grid = new RectangularGridGeometry(colCount, historyRows, isTorus);
+        this.rule = rule;
+        rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        final int lastBit = (colCount - 1) & 63;
+        lastWordMask = (lastBit == 63) ? -1L : (1L << (lastBit + 1)) - 1;
+        history = new long[Math.max(2, historyRows)][rowWords];
+        diagram = new byte[grid.getCellCount()];
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    public int getRule() {
+        return rule;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The current generation's packed row; the engine's own storage, overwritten by later steps.
+     */
+    public long[] getRow() {
+        return history[(int) (generation % history.length)];
+    }
+
+    /**
+     * @return The number of live cells in the current generation.
+     */
+    public int getLiveCount() {
+        int liveCount = 0;
+        for (long word : getRow()) {
+            liveCount += Long.bitCount(word);
+        }
+        return liveCount;
+    }
+
+    public boolean isLive(int xCell) {
+        return ((getRow()[xCell >>> 6] >>> (xCell & 63)) & 1L) != 0;
+    }
+
+    /**
+     * Sets a cell of the current generation.
+     */
+    public void setLive(int xCell, boolean isLive) {
+        final long[] row = getRow();
+        if (isLive) {
+            row[xCell >>> 6] |= 1L << (xCell & 63);
+        } else {
+            row[xCell >>> 6] &= ~(1L << (xCell & 63));
+        }
+        diagramGeneration = -1;
+    }
+
+    /**
+     * Resets the engine to generation 0, with a single live cell in the middle of the row: the classic start for
+     * Rule 30 and its space-time diagrams.
+     */
+    public void resetSingleCell() {
+        resetHistory();
+        setLive(grid.getColCount() / 2, true);
+    }
+
+    /**
+     * Resets the engine to generation 0, with a random row of {@link ConwayLifeEngine#DEFAULT_LIVE_DENSITY} live
+     * cells.
+     */
+    @Override
+    public void reset(long seed) {
+        resetHistory();
+        final int densityBits = ConwayLifeEngine.toDensityBits(ConwayLifeEngine.DEFAULT_LIVE_DENSITY);
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long[] row = getRow();
+        for (int w = 0; w < rowWords; ++w) {
+            row[w] = ConwayLifeEngine.randomWord(random, densityBits);
+        }
+        row[rowWords - 1] &= lastWordMask;
+    }
+
+    private void resetHistory() {
+        for (long[] row : history) {
+            Arrays.fill(row, 0L);
+        }
+        generation = 0;
+        diagramGeneration = -1;
+    }
+
+    /**
+     * Streams every subsequent generation's row to a channel, as rowWords little-endian longs (bits beyond the last
+     * cell are 0), batching rows in memory; or stops streaming, if channel is null. Call {@link #flushRows()} to write
+     * out the batch before closing the channel.
+     */
+    public void setRowChannel(WritableByteChannel channel) {
+        flushRows();
+        rowChannel = channel;
+        if (channel != null && rowBuffer == null) {
+            rowBuffer = ByteBuffer.allocateDirect(Math.max(ROW_BUFFER_BYTES, 8 * rowWords))
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+    }
+
+    /**
+     * Writes any rows batched for the {@link #setRowChannel row channel}.
+     *
+     * @throws UncheckedIOException
+     *             If the channel cannot be written.
+     */
+    public void flushRows() {
+        if (rowChannel == null || rowBuffer.position() == 0) return;
+        rowBuffer.flip();
+        try {
+            while (rowBuffer.hasRemaining()) {
+                rowChannel.write(rowBuffer);
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        finally {
+            rowBuffer.clear();
+        }
+    }
+
+    /**
+     * Advances 64 generations, collecting the middle cell of each new row: with Rule 30 from
+     * {@link #resetSingleCell()}, Wolfram's pseudo-random bit sequence.
+     *
+     * @return The middle cells, the first in bit 0.
+     */
+    public long nextMiddleBits() {
+        final int xMiddle = grid.getColCount() / 2;
+        long bits = 0;
+        for (int b = 0; b < 64; ++b) {
+            doSimulationStep();
+            if (isLive(xMiddle)) bits |= 1L << b;
+        }
+        return bits;
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final long[] cur = getRow();
+        final long[] next = history[(int) ((generation + 1) % history.length)];
+        if (rowWords <= BAND_WORDS) {
+            stepWords(cur, next, 0, rowWords);
+        } else {
+            final int bandCount = (rowWords + BAND_WORDS - 1) / BAND_WORDS;
+            IntStream.range(0, bandCount).parallel().forEach(iBand -> stepWords(cur, next, iBand * BAND_WORDS,
+                    Math.min((iBand + 1) * BAND_WORDS, rowWords)));
+        }
+        ++generation;
+        if (rowChannel != null) writeRow(next);
+        if (listener != null) {
+            long births = 0;
+            long deaths = 0;
+            long liveCount = 0;
+            for (int w = 0; w < rowWords; ++w) {
+                births += Long.bitCount(next[w] & ~cur[w]);
+                deaths += Long.bitCount(cur[w] & ~next[w]);
+                liveCount += Long.bitCount(next[w]);
+            }
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, births + deaths, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    /**
+     * Computes words [wFirst, wEnd) of the next row.
+     */
+    private void stepWords(long[] cur, long[] next, int wFirst, int wEnd) {
+        final int lastBit = (grid.getColCount() - 1) & 63;
+        final boolean isTorus = grid.isTorus();
+        final int wLast = rowWords - 1;
+        // The cells beyond each end of the row: the other end on a torus, dead otherwise.
+        final long beforeFirst = isTorus ? (cur[wLast] >>> lastBit) & 1L : 0L;
+        final long afterLast = isTorus ? cur[0] & 1L : 0L;
+        for (int w = wFirst; w < wEnd; ++w) {
+            final long c = cur[w];
+            final long l = (c << 1) | ((w > 0) ? cur[w - 1] >>> 63 : beforeFirst);
+            final long r = (c >>> 1) | ((w < wLast) ? cur[w + 1] << 63 : afterLast << lastBit);
+            next[w] = applyRule(l, c, r);
+        }
+        if (wEnd == rowWords) next[wLast] &= lastWordMask;
+    }
+
+    /**
+     * @return The rule applied to 64 cells at once, given their left, center and right bit-planes.
+     */
+    private long applyRule(long l, long c, long r) {
+        switch (rule) {
+        case 30:
+            return l ^ (c | r);
+        case 90:
+            return l ^ r;
+        case 110:
+            return (c ^ r) | (c & ~l);
+        case 184:
+            return (l & ~c) | (c & r);
+        default:
+            return mux(l, mux(c, mux(r, ruleMask(7), ruleMask(6)), mux(r, ruleMask(5), ruleMask(4))),
+                    mux(c, mux(r, ruleMask(3), ruleMask(2)), mux(r, ruleMask(1), ruleMask(0))));
+        }
+    }
+
+    /**
+     * @return All ones if bit iPattern of the rule is set, otherwise 0.
+     */
+    private long ruleMask(int iPattern) {
+        return -(long) ((rule >>> iPattern) & 1);
+    }
+
+    /**
+     * @return The bits of ifSet where select is set, and of ifClear where it is not.
+     */
+    private static long mux(long select, long ifSet, long ifClear) {
+        return (select & ifSet) | (~select & ifClear);
+    }
+
+    private void writeRow(long[] row) {
+        if (rowBuffer.remaining() < 8 * rowWords) flushRows();
+        for (long word : row) {
+            rowBuffer.putLong(word);
+        }
+    }
+
+    /**
+     * Gets the space-time diagram: the most recent {@link RectangularGridGeometry#getRowCount() rowCount} generations,
+     * oldest at the top (or, early on, generation 0 at the top and dead rows below the current generation), as
+     * {@link ConwayLifeEngine.CellState} ordinals.<br>
+     * The diagram is rendered when first requested after a step; the returned array is the engine's own storage,
+     * overwritten by the next rendering.
+     */
+    @Override
+    public byte[] getCellStates() {
+        if (diagramGeneration != generation) {
+            final int colCount = grid.getColCount();
+            final int rowCount = grid.getRowCount();
+            final long gFirst = Math.max(0, generation - rowCount + 1);
+            for (int y = 0; y < rowCount; ++y) {
+                final long g = gFirst + y;
+                if (g > generation) {
+                    Arrays.fill(diagram, y * colCount, (y + 1) * colCount, DEAD);
+                    continue;
+                }
+                final long[] row = history[(int) (g % history.length)];
+                for (int x = 0; x < colCount; ++x) {
+                    diagram[y * colCount + x] = (((row[x >>> 6] >>> (x & 63)) & 1L) != 0) ? LIVE : DEAD;
+                }
+            }
+            diagramGeneration = generation;
+        }
+        return diagram;
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
@@ -0,0 +1,128 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class ElementaryCaEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testEveryRuleAgreesWithScalar() {
+        final int[] widths = { 1, 5, 64, 65, 130 };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int width : widths) {
+                for (int rule = 0; rule <= 255; ++rule) {
+                    ElementaryCaEngine engine = new ElementaryCaEngine(width, 4, isTorus, rule);
+                    engine.reset(rule * 1000L + width);
+                    assertStepsAgree(engine, 5);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWideRowAgreesWithScalar() {
+        // More words than one parallel range.
+        for (int rule : new int[] { 30, 45 }) {
+            ElementaryCaEngine engine = new ElementaryCaEngine(300_001, 2, true, rule);
+            engine.reset(rule);
+            assertStepsAgree(engine, 3);
+        }
+    }
+
+    private static void assertStepsAgree(ElementaryCaEngine engine, int stepCount) {
+        final int width = engine.getGrid().getColCount();
+        final boolean isTorus = engine.getGrid().isTorus();
+        for (int iStep = 0; iStep < stepCount; ++iStep) {
+            final boolean[] expected = new boolean[width];
+            for (int x = 0; x < width; ++x) {
+                final int l = (x > 0) ? bit(engine, x - 1) : (isTorus ? bit(engine, width - 1) : 0);
+                final int c = bit(engine, x);
+                final int r = (x < width - 1) ? bit(engine, x + 1) : (isTorus ? bit(engine, 0) : 0);
+                expected[x] = ((engine.getRule() >>> (4 * l + 2 * c + r)) & 1) != 0;
+            }
+            engine.doSimulationStep();
+            for (int x = 0; x < width; ++x) {
+                assertThat("rule " + engine.getRule() + " width " + width + " torus " + isTorus + " step " + iStep
+                        + " x " + x, engine.isLive(x), equalTo(expected[x]));
+            }
+            final long[] row = engine.getRow();
+            assertThat("bits beyond the row", row[row.length - 1] >>> 1 >>> ((width - 1) & 63), equalTo(0L));
+        }
+    }
+
+    private static int bit(ElementaryCaEngine engine, int x) {
+        return engine.isLive(x) ? 1 : 0;
+    }
+
+    @Test
+    public void testRule30MiddleBits() {
+        // Wolfram's Rule 30 center column (OEIS A051023), from generation 1.
+        final int[] expected = { 1, 0, 1, 1, 1, 0, 0, 1, 1, 0, 0, 0, 1, 0, 1, 1, 0, 0, 1, 0, 0, 1, 1, 1 };
+        ElementaryCaEngine engine = new ElementaryCaEngine(257, 1, false, 30);
+        engine.resetSingleCell();
+        final long bits = engine.nextMiddleBits();
+        for (int b = 0; b < expected.length; ++b) {
+            assertThat("bit " + b, (int) ((bits >>> b) & 1), equalTo(expected[b]));
+        }
+        assertThat(engine.getGeneration(), equalTo(64L));
+    }
+
+    @Test
+    public void testSpaceTimeDiagramAndRowStream() {
+        ElementaryCaEngine engine = new ElementaryCaEngine(9, 3, false, 90);
+        engine.resetSingleCell();
+        ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+        engine.setRowChannel(Channels.newChannel(streamed));
+        // Rule 90 from one cell draws Pascal's triangle mod 2 (the Sierpinski triangle).
+        assertThat(render(engine), equalTo("....#....|.........|.........|"));
+        engine.doSimulationStep();
+        assertThat(render(engine), equalTo("....#....|...#.#...|.........|"));
+        engine.doSimulationSteps(2);
+        assertThat(render(engine), equalTo("...#.#...|..#...#..|.#.#.#.#.|"));
+        engine.flushRows();
+        final ByteBuffer rows = ByteBuffer.wrap(streamed.toByteArray()).order(ByteOrder.LITTLE_ENDIAN);
+        assertThat(rows.remaining(), equalTo(3 * 8));
+        assertThat(rows.getLong(), equalTo(0b000101000L));
+        assertThat(rows.getLong(), equalTo(0b001000100L));
+        assertThat(rows.getLong(), equalTo(0b010101010L));
+    }
+
+    private static String render(ElementaryCaEngine engine) {
+        final byte[] cells = engine.getCellStates();
+        final int width = engine.getGrid().getColCount();
+        StringBuilder text = new StringBuilder();
+        for (int iCell = 0; iCell < cells.length; ++iCell) {
+            text.append(cells[iCell] != 0 ? '#' : '.');
+            if (iCell % width == width - 1) text.append('|');
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,97 @@
+package org.jca;
+
+/**
+ * The summary of one completed {@link EnsembleRunSpec ensemble run}, as delivered to an {@link IEnsembleResultSink}.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class EnsembleRunResult
+{
+    /**
+     * Column names matching the values written by {@link #appendCsv(StringBuilder)}.
+     */
+    public static final String CSV_HEADER =
+            "run_id,cols,rows,torus,seed,density,steps,final_live_count,stabilization_generation,period,elapsed_nanos";
+
+    private final EnsembleRunSpec spec;
+    private final long steps;
+    private final int finalLiveCount;
+    private final long stabilizationGeneration;
+    private final int period;
+    private final long elapsedNanos;
+
+    public EnsembleRunResult(EnsembleRunSpec spec, long steps, int finalLiveCount, long stabilizationGeneration,
+            int period, long elapsedNanos) {
+        this.spec = spec;
+        this.steps = steps;
+        this.finalLiveCount = finalLiveCount;
+        this.stabilizationGeneration = stabilizationGeneration;
+        this.period = period;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public EnsembleRunSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * @return The number of steps the run took.
+     */
+    public long getSteps() {
+        return steps;
+    }
+
+    /**
+     * @return The number of live cells when the run stopped.
+     */
+    public int getFinalLiveCount() {
+        return finalLiveCount;
+    }
+
+    /**
+     * @return The first generation of the cycle the run settled into, or -1 if it had not stabilized by
+     *         {@link EnsembleRunSpec#getMaxSteps()}.
+     */
+    public long getStabilizationGeneration() {
+        return stabilizationGeneration;
+    }
+
+    /**
+     * @return The period of the cycle the run settled into (1 for a still life), or 0 if it had not stabilized.
+     */
+    public int getPeriod() {
+        return period;
+    }
+
+    public boolean isStabilized() {
+        return period > 0;
+    }
+
+    /**
+     * @return The wall-clock time the run took, including seeding, in nanoseconds.
+     */
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    /**
+     * Appends this result as a CSV row (without line terminator), in {@link #CSV_HEADER} column order.
+     *
+     * @param sb
+     *            The builder to append to.
+     * @return sb
+     */
+    public StringBuilder appendCsv(StringBuilder sb) {
+        final RectangularGridGeometry grid = spec.getGrid();
+        return sb.append(spec.getRunId()).append(',').append(grid.getColCount()).append(',').append(grid.getRowCount())
+            .append(',').append(grid.isTorus()).append(',').append(spec.getSeed()).append(',').append(spec.getDensity())
+            .append(',').append(steps).append(',').append(finalLiveCount).append(',').append(stabilizationGeneration)
+            .append(',').append(period).append(',').append(elapsedNanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{EnsembleRunResult RunId=%1$d Steps=%2$d FinalLiveCount=%3$d StabilizationGeneration=%4$d Period=%5$d}",
+                spec.getRunId(), steps, finalLiveCount, stabilizationGeneration, period);
+    }
+}
@@ -0,0 +1,70 @@
+package org.jca;
+
+/**
+ * Describes one independent {@link ConwayLifeEngine} run of an ensemble: the grid to run on, how to seed it, and how
+ * long to let it run before giving up on stabilization. See {@link EnsembleRunner}.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class EnsembleRunSpec
+{
+    private final long runId;
+    private final RectangularGridGeometry grid;
+    private final long seed;
+    private final double density;
+    private final long maxSteps;
+
+    /**
+     * @param runId
+     *            Identifies the run in its {@link EnsembleRunResult}. Results arrive in completion order, not spec
+     *            order, so this is how they are matched back up.
+     * @param colCount
+     *            The number of grid columns.
+     * @param rowCount
+     *            The number of grid rows.
+     * @param isTorus
+     *            Whether the grid wraps around.
+     * @param seed
+     *            The seed passed to {@link ConwayLifeEngine#reset(long, double)}.
+     * @param density
+     *            The initial live cell density passed to {@link ConwayLifeEngine#reset(long, double)}.
+     * @param maxSteps
+     *            The number of steps after which the run stops even if no cycle has been detected.
+     */
+    public EnsembleRunSpec(long runId, int colCount, int rowCount, boolean isTorus, long seed, double density,
+            long maxSteps) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        if (maxSteps < 0) throw new IllegalArgumentException("maxSteps must not be negative");
+        this.runId = runId;
+        this.grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        this.seed = seed;
+        this.density = density;
+        this.maxSteps = maxSteps;
+    }
+
+    public long getRunId() {
+        return runId;
+    }
+
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getDensity() {
+        return density;
+    }
+
+    public long getMaxSteps() {
+        return maxSteps;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{EnsembleRunSpec RunId=%1$d Grid=%2$dx%3$d IsTorus=%4$s Seed=%5$d Density=%6$s MaxSteps=%7$d}",
+                runId, grid.getColCount(), grid.getRowCount(), grid.isTorus(), seed, density, maxSteps);
+    }
+}
@@ -0,0 +1,192 @@
+package org.jca;
+
+import java.io.PrintWriter;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Runs an ensemble of independent {@link ConwayLifeEngine} simulations, as described by a stream of
+ * {@link EnsembleRunSpec run specs}, across all available cores, streaming a summary of each run to an
+ * {@link IEnsembleResultSink} as it completes. Each run is seeded with {@link ConwayLifeEngine#reset(long, double)}
+ * and stepped with {@link ConwayLifeEngine#runUntilCycle(long)}.
+ * <p>
+ * The runner starts one worker per unit of parallelism in a dedicated {@link ForkJoinPool}, and each worker pulls the
+ * next spec from the stream only when it finishes its previous run. So however long the stream, no more than
+ * parallelism specs and engines are in memory at once, and a worker whose next spec has the same grid geometry as its
+ * last one simply re-seeds that engine. When the geometry changes, the worker
+ * {@link ConwayLifeEngine#reinitialize(int, int, boolean) reinitializes} its engine in place, with buffers and
+ * neighbor tables from the runner's {@link GridBufferPool}, which outlives individual calls to
+ * {@link #run(Stream, IEnsembleResultSink)}.<br>
+ * Because the ForkJoinPool is a work-stealing pool sized to the parallelism, the parallel seeding inside each engine's reset
+ * forks into the same pool rather than the common pool, so a large grid's reset can use cores that would otherwise sit
+ * idle at the tail of an ensemble, without oversubscribing the machine.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class EnsembleRunner
+{
+    private final int parallelism;
+    private final GridBufferPool bufferPool = new GridBufferPool();
+
+    /**
+     * Creates a runner that uses all available processors.
+     */
+    public EnsembleRunner() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism
+     *            The number of runs to execute at once.
+     */
+    public EnsembleRunner(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism must be positive");
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Executes every run in the specified stream, and returns when all have completed.<br>
+     * If a run fails, workers stop taking new specs, and the failure is rethrown once the runs in progress finish.
+     *
+     * @param specs
+     *            The runs to execute. The stream is consumed lazily, one spec at a time.
+     * @param sink
+     *            Receives each run's summary, in completion order.
+     * @return The number of runs completed.
+     */
+    public long run(Stream<EnsembleRunSpec> specs, IEnsembleResultSink sink) {
+        final Ensemble ensemble = new Ensemble(specs.iterator(), sink);
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.invoke(new RecursiveAction() {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected void compute() {
+                    final Worker[] workers = new Worker[parallelism];
+                    for (int iWorker = 0; iWorker < workers.length; ++iWorker) {
+                        workers[iWorker] = new Worker(ensemble, bufferPool);
+                    }
+                    invokeAll(workers);
+                }
+            });
+        } finally {
+            pool.shutdown();
+            specs.close();
+        }
+        return ensemble.completedCount;
+    }
+
+    /**
+     * Executes a single run on the specified engine, which must have the spec's grid geometry.
+     */
+    static EnsembleRunResult runOne(EnsembleRunSpec spec, ConwayLifeEngine engine) {
+        final long startNanos = System.nanoTime();
+        engine.reset(spec.getSeed(), spec.getDensity());
+        final long steps = engine.runUntilCycle(spec.getMaxSteps());
+        return new EnsembleRunResult(spec, steps, engine.getLiveCount(), engine.getCycleStartGeneration(),
+                engine.getCyclePeriod(), System.nanoTime() - startNanos);
+    }
+
+    /**
+     * The state shared by the workers of one {@link #run(Stream, IEnsembleResultSink)} call.
+     */
+    private static class Ensemble
+    {
+        private final Iterator<EnsembleRunSpec> specs;
+        private final IEnsembleResultSink sink;
+        private volatile boolean failed;
+        private long completedCount;
+
+        Ensemble(Iterator<EnsembleRunSpec> specs, IEnsembleResultSink sink) {
+            this.specs = specs;
+            this.sink = sink;
+        }
+
+        /**
+         * @return The next spec to run, or null if there are no more, or a run has failed.
+         */
+        synchronized EnsembleRunSpec nextSpec() {
+            return (!failed && specs.hasNext()) ? specs.next() : null;
+        }
+
+        synchronized void complete(EnsembleRunResult result) {
+            sink.accept(result);
+            ++completedCount;
+        }
+    }
+
+    /**
+     * Executes specs one after another until the ensemble runs out, reusing its engine while the geometry allows.
+     */
+    private static class Worker extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final Ensemble ensemble;
+        private final GridBufferPool bufferPool;
+
+        Worker(Ensemble ensemble, GridBufferPool bufferPool) {
+            this.ensemble = ensemble;
+            this.bufferPool = bufferPool;
+        }
+
+        @Override
+        protected void compute() {
+            ConwayLifeEngine engine = null;
+            try {
+                EnsembleRunSpec spec;
+                while ((spec = ensemble.nextSpec()) != null) {
+                    final RectangularGridGeometry grid = spec.getGrid();
+                    if (engine == null) {
+                        engine = new ConwayLifeEngine(bufferPool, grid.getColCount(), grid.getRowCount(), grid.isTorus());
+                        engine.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+                    } else {
+                        engine.reinitialize(grid.getColCount(), grid.getRowCount(), grid.isTorus());
+                    }
+                    ensemble.complete(runOne(spec, engine));
+                }
+            } catch (RuntimeException | Error ex) {
+                ensemble.failed = true;
+                throw ex;
+            } finally {
+                if (engine != null) engine.release();
+            }
+        }
+    }
+
+    /**
+     * Runs a sample sweep and writes its results as CSV to standard output.
+     * <p>
+     * Usage: EnsembleRunner [runs [gridSize [maxSteps]]]<br>
+     * Run n uses seed n, on a square torus of the specified size, with densities cycling from 0.10 to 0.50.
+     */
+    public static void main(String[] args) {
+        final long runs = (args.length > 0) ? Long.parseLong(args[0]) : 1000;
+        final int gridSize = (args.length > 1) ? Integer.parseInt(args[1]) : 64;
+        final long maxSteps = (args.length > 2) ? Long.parseLong(args[2]) : 5000;
+
+        final PrintWriter out = new PrintWriter(System.out);
+        out.println(EnsembleRunResult.CSV_HEADER);
+        final StringBuilder line = new StringBuilder();
+        final long startNanos = System.nanoTime();
+        EnsembleRunner runner = new EnsembleRunner();
+        long completed = runner.run(
+                LongStream.range(0, runs).mapToObj(
+                        n -> new EnsembleRunSpec(n, gridSize, gridSize, true, n, (1 + n % 5) / 10.0, maxSteps)),
+                result -> {
+                    line.setLength(0);
+                    out.println(result.appendCsv(line));
+                });
+        out.flush();
+        System.err.println(String.format("%1$d runs on %2$d threads in %3$.2f s", completed, runner.getParallelism(),
+                (System.nanoTime() - startNanos) / 1e9));
+    }
+}
@@ -0,0 +1,84 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class EnsembleRunnerTest
+{
+    private static final int RUNS = 24;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    /**
+     * Mixes two geometries, so workers both reuse and replace their engines.
+     */
+    private static Stream<EnsembleRunSpec> buildSpecs() {
+        return LongStream.range(0, RUNS).mapToObj(
+                n -> new EnsembleRunSpec(n, (n % 3 == 0) ? 12 : 16, 16, true, 1000 + n, 0.35, 2000));
+    }
+
+    @Test
+    public void testRunMatchesSequentialRuns() {
+        Map<Long, EnsembleRunResult> results = new TreeMap<>();
+        long completed = new EnsembleRunner(4).run(buildSpecs(), result -> {
+            assertNull("duplicate run", results.put(result.getSpec().getRunId(), result));
+        });
+        assertThat("completed", completed, equalTo((long) RUNS));
+        assertThat("results", results.size(), equalTo(RUNS));
+
+        buildSpecs().forEach(spec -> {
+            RectangularGridGeometry grid = spec.getGrid();
+            EnsembleRunResult expect = EnsembleRunner.runOne(spec,
+                    new ConwayLifeEngine(grid.getColCount(), grid.getRowCount(), grid.isTorus()));
+            EnsembleRunResult actual = results.get(spec.getRunId());
+            String msg = "run " + spec.getRunId();
+            assertThat(msg + " steps", actual.getSteps(), equalTo(expect.getSteps()));
+            assertThat(msg + " live", actual.getFinalLiveCount(), equalTo(expect.getFinalLiveCount()));
+            assertThat(msg + " stabilized at", actual.getStabilizationGeneration(),
+                    equalTo(expect.getStabilizationGeneration()));
+            assertThat(msg + " period", actual.getPeriod(), equalTo(expect.getPeriod()));
+        });
+    }
+
+    @Test
+    public void testFailingRunStopsEnsemble() {
+        final long[] accepted = new long[1];
+        try {
+            new EnsembleRunner(2).run(buildSpecs(), result -> {
+                if (++accepted[0] == 3) throw new IllegalStateException("sink failure");
+            });
+            fail("expected the sink failure to propagate");
+        } catch (IllegalStateException ex) {
+            // A failure on a pool thread is rethrown as a copy, with the original as its cause.
+            Throwable original = ex;
+            while (original.getCause() != null) original = original.getCause();
+            assertThat(original.getMessage(), equalTo("sink failure"));
+        }
+        assertTrue("stopped early: " + accepted[0], accepted[0] < RUNS);
+    }
+}
@@ -0,0 +1,169 @@
+package org.jca;
+
+import java.util.Arrays;
+
+/**
+ * A 1D discrete Fourier transform of a fixed length, for {@link Fft2D}.
+ * <p>
+ * Power-of-two lengths use an iterative radix-2 Cooley-Tukey transform with precomputed twiddle factors and
+ * bit-reversal permutation. Other lengths use Bluestein's algorithm: the transform is re-expressed as a circular
+ * convolution with a "chirp" e^(pi i j^2 / n), which is computed with power-of-two transforms of at least 2n - 1
+ * points; the chirp and its transform are precomputed. Either way a transform costs O(n log n).
+ * <p>
+ * The forward transform is X[k] = sum over j of x[j] e^(-2 pi i jk / n); the inverse includes the 1/n scaling.<br>
+ * A transform object may be shared by threads: Bluestein scratch buffers are per thread.
+ *
+ * @author ksdj (coder-hat)
+ */
+final class Fft
+{
+    private final int n;
+
+    /**
+     * For a power-of-two length: cos and sin of 2 pi k / n, for k in [0, n / 2), and the bit-reversal permutation.
+     */
+    private final double[] cos;
+    private final double[] sin;
+    private final int[] bitReverse;
+
+    /**
+     * For other lengths: the power-of-two transform of the convolution, the chirp w[j] = e^(-pi i j^2 / n), the
+     * transform of the conjugate chirp wrapped to the convolution length, and each thread's convolution buffers.
+     */
+    private final Fft convolution;
+    private final double[] chirpRe;
+    private final double[] chirpIm;
+    private final double[] chirpFftRe;
+    private final double[] chirpFftIm;
+    private final ThreadLocal<double[][]> scratch;
+
+    Fft(int n) {
+        if (n < 1) throw new IllegalArgumentException("n must be positive");
+        this.n = n;
+        if (Integer.bitCount(n) == 1) {
+            cos = new double[n / 2];
+            sin = new double[n / 2];
+            for (int k = 0; k < n / 2; ++k) {
+                cos[k] = Math.cos(2 * Math.PI * k / n);
+                sin[k] = Math.sin(2 * Math.PI * k / n);
+            }
+            bitReverse = new int[n];
+            final int bits = Integer.numberOfTrailingZeros(n);
+            for (int i = 0; i < n; ++i) {
+                bitReverse[i] = (bits == 0) ? 0 : Integer.reverse(i) >>> (32 - bits);
+            }
+            convolution = null;
+            chirpRe = chirpIm = chirpFftRe = chirpFftIm = null;
+            scratch = null;
+        } else {
+            cos = sin = null;
+            bitReverse = null;
+            final int m = Integer.highestOneBit(2 * n - 1) << 1;
+            convolution = new Fft(m);
+            chirpRe = new double[n];
+            chirpIm = new double[n];
+            chirpFftRe = new double[m];
+            chirpFftIm = new double[m];
+            for (int j = 0; j < n; ++j) {
+                // j^2 mod 2n keeps the angle small, and so accurate, for long transforms.
+                final double angle = Math.PI * (((long) j * j) % (2L * n)) / n;
+                chirpRe[j] = Math.cos(angle);
+                chirpIm[j] = -Math.sin(angle);
+                chirpFftRe[j] = chirpRe[j];
+                chirpFftIm[j] = -chirpIm[j];
+                if (j > 0) {
+                    chirpFftRe[m - j] = chirpRe[j];
+                    chirpFftIm[m - j] = -chirpIm[j];
+                }
+            }
+            convolution.transform(chirpFftRe, chirpFftIm, false);
+            scratch = ThreadLocal.withInitial(() -> new double[][] { new double[m], new double[m] });
+        }
+    }
+
+    int getLength() {
+        return n;
+    }
+
+    /**
+     * Transforms re[0, n) + i im[0, n) in place.
+     *
+     * @param isInverse
+     *            Whether to compute the inverse transform (including the 1/n scaling).
+     */
+    void transform(double[] re, double[] im, boolean isInverse) {
+        if (isInverse) {
+            // inverse(x) = conj(forward(conj(x))) / n
+            for (int j = 0; j < n; ++j) {
+                im[j] = -im[j];
+            }
+        }
+        if (convolution == null) {
+            transformRadix2(re, im);
+        } else {
+            transformBluestein(re, im);
+        }
+        if (isInverse) {
+            final double scale = 1.0 / n;
+            for (int j = 0; j < n; ++j) {
+                re[j] *= scale;
+                im[j] *= -scale;
+            }
+        }
+    }
+
+    private void transformRadix2(double[] re, double[] im) {
+        for (int i = 0; i < n; ++i) {
+            final int j = bitReverse[i];
+            if (i < j) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        for (int len = 2; len <= n; len <<= 1) {
+            final int half = len >>> 1;
+            final int step = n / len;
+            for (int i = 0; i < n; i += len) {
+                for (int k = 0; k < half; ++k) {
+                    final double wr = cos[k * step];
+                    final double wi = -sin[k * step];
+                    final int a = i + k;
+                    final int b = a + half;
+                    final double tr = re[b] * wr - im[b] * wi;
+                    final double ti = re[b] * wi + im[b] * wr;
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * X[k] = w[k] * sum over j of (x[j] w[j]) conj(w[k - j]), since jk = (j^2 + k^2 - (k - j)^2) / 2.
+     */
+    private void transformBluestein(double[] re, double[] im) {
+        final double[][] buffers = scratch.get();
+        final double[] aRe = buffers[0];
+        final double[] aIm = buffers[1];
+        final int m = aRe.length;
+        for (int j = 0; j < n; ++j) {
+            aRe[j] = re[j] * chirpRe[j] - im[j] * chirpIm[j];
+            aIm[j] = re[j] * chirpIm[j] + im[j] * chirpRe[j];
+        }
+        Arrays.fill(aRe, n, m, 0.0);
+        Arrays.fill(aIm, n, m, 0.0);
+        convolution.transform(aRe, aIm, false);
+        for (int k = 0; k < m; ++k) {
+            final double r = aRe[k] * chirpFftRe[k] - aIm[k] * chirpFftIm[k];
+            aIm[k] = aRe[k] * chirpFftIm[k] + aIm[k] * chirpFftRe[k];
+            aRe[k] = r;
+        }
+        convolution.transform(aRe, aIm, true);
+        for (int k = 0; k < n; ++k) {
+            re[k] = aRe[k] * chirpRe[k] - aIm[k] * chirpIm[k];
+            im[k] = aRe[k] * chirpIm[k] + aIm[k] * chirpRe[k];
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.jca;
+
+import java.util.stream.IntStream;
+
+/**
+ * A 2D discrete Fourier transform of a fixed size, computed as {@link Fft 1D transforms} of every row and then of
+ * every column, each pass in parallel. Each thread copies a row or column into its own contiguous scratch buffers,
+ * transforms it there, and copies it back, so columns are transformed without strided access.
+ * <p>
+ * Arrays are indexed [y * width + x], like grid cells.
+ *
+ * @author ksdj (coder-hat)
+ */
+final class Fft2D
+{
+    private final int width;
+    private final int height;
+    private final Fft rowFft;
+    private final Fft colFft;
+
+    /**
+     * Each thread's real and imaginary scratch buffers, long enough for a row or a column.
+     */
+    private final ThreadLocal<double[][]> lineBuffers;
+
+    Fft2D(int width, int height) {
+        this.width = width;
+        this.height = height;
+        rowFft = new Fft(width);
+        colFft = (height == width) ? rowFft : new Fft(height);
+        final int lineLength = Math.max(width, height);
+        lineBuffers = ThreadLocal.withInitial(() -> new double[][] { new double[lineLength], new double[lineLength] });
+    }
+
+    int getWidth() {
+        return width;
+    }
+
+    int getHeight() {
+        return height;
+    }
+
+    /**
+     * Transforms re + i im in place.
+     *
+     * @param isInverse
+     *            Whether to compute the inverse transform (including the 1/(width * height) scaling).
+     */
+    void transform(double[] re, double[] im, boolean isInverse) {
+        IntStream.range(0, height).parallel().forEach(y -> {
+            final double[][] line = lineBuffers.get();
+            System.arraycopy(re, y * width, line[0], 0, width);
+            System.arraycopy(im, y * width, line[1], 0, width);
+            rowFft.transform(line[0], line[1], isInverse);
+            System.arraycopy(line[0], 0, re, y * width, width);
+            System.arraycopy(line[1], 0, im, y * width, width);
+        });
+        IntStream.range(0, width).parallel().forEach(x -> {
+            final double[][] line = lineBuffers.get();
+            for (int y = 0, i = x; y < height; ++y, i += width) {
+                line[0][y] = re[i];
+                line[1][y] = im[i];
+            }
+            colFft.transform(line[0], line[1], isInverse);
+            for (int y = 0, i = x; y < height; ++y, i += width) {
+                re[i] = line[0][y];
+                im[i] = line[1][y];
+            }
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package org.jca;
+
+import java.util.SplittableRandom;
+
+/**
+ * An engine for the "Generations" family of multi-state Life-like rules, such as Brian's Brain (B2/S/C3) and Star
+ * Wars (B2/S345/C4).
+ * <p>
+ * A Generations rule is written B<i>b</i>/S<i>s</i>/C<i>c</i>: cells have c states, 0 (dead), 1 (live) and 2 to c -
+ * 1 (dying). A dead cell with a count of live neighbors listed in b is born (becomes 1); a live cell with a count listed
+ * in s stays live, and otherwise starts dying (becomes 2, or 0 when c is 2); and a dying cell ages by one state each
+ * generation, until it wraps around to dead. Only live cells count as neighbors, so dying cells are refractory. With
+ * c = 2 the rule is an ordinary Life-like rule (B3/S23/C2 is Conway's Life).
+ *
+ * @author ksdj (coder-hat)
+ */
+public class GenerationsEngine extends TransitionTableEngine
+{
+    /**
+     * The largest supported state count.
+     */
+    public static final int MAX_STATE_COUNT = 127;
+
+    /**
+     * Brian's Brain, the best known Generations rule.
+     */
+    public static final String BRIANS_BRAIN = "B2/S/C3";
+
+    private final String rule;
+
+    /**
+     * @param rule
+     *            The rule, in the B/S/C notation described {@link GenerationsEngine above}.
+     * @throws IllegalArgumentException
+     *             If the rule is malformed.
+     */
+    public GenerationsEngine(int colCount, int rowCount, boolean isTorus, String rule) {
+        this(colCount, rowCount, isTorus, rule, parseRule(rule));
+    }
+
+    private GenerationsEngine(int colCount, int rowCount, boolean isTorus, String rule, int[] parsed) {
+        super(colCount, rowCount, isTorus, parsed[2], compile(parsed[0], parsed[1], parsed[2]));
+        this.rule = rule.trim().toUpperCase();
+    }
+
+    /**
+     * @return The rule's birth count mask, survival count mask and state count.
+     */
+    private static int[] parseRule(String rule) {
+        final String[] parts = rule.trim().toUpperCase().split("/", -1);
+        if (parts.length != 3 || !parts[0].startsWith("B") || !parts[1].startsWith("S") || !parts[2].startsWith("C")) {
+            throw new IllegalArgumentException("Expected a rule like B2/S/C3: " + rule);
+        }
+        final int stateCount;
+        try {
+            stateCount = Integer.parseInt(parts[2].substring(1));
+        }
+        catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed state count in rule: " + rule, e);
+        }
+        if (stateCount < 2 || stateCount > MAX_STATE_COUNT) {
+            throw new IllegalArgumentException("State count must be in [2, " + MAX_STATE_COUNT + "]: " + rule);
+        }
+        return new int[] { parseCounts(parts[0].substring(1), rule), parseCounts(parts[1].substring(1), rule),
+                stateCount };
+    }
+
+    private static int parseCounts(String counts, String rule) {
+        int mask = 0;
+        for (char c : counts.toCharArray()) {
+            if (c < '0' || c > '8') throw new IllegalArgumentException("Counts must be digits 0 to 8: " + rule);
+            mask |= 1 << (c - '0');
+        }
+        return mask;
+    }
+
+    /**
+     * @return The transition table of the rule, as {@link TransitionTableEngine} describes.
+     */
+    private static byte[] compile(int birthMask, int survivalMask, int stateCount) {
+        final byte[] transitions = new byte[stateCount * 9];
+        for (int count = 0; count <= 8; ++count) {
+            transitions[count] = (byte) (((birthMask >>> count) & 1) != 0 ? 1 : 0);
+            transitions[9 + count] = (byte) (((survivalMask >>> count) & 1) != 0 ? 1 : (2 % stateCount));
+            for (int state = 2; state < stateCount; ++state) {
+                transitions[state * 9 + count] = (byte) ((state + 1) % stateCount);
+            }
+        }
+        return transitions;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Resets the grid with a random initial state of {@link ConwayLifeEngine#DEFAULT_LIVE_DENSITY} live cells.
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, ConwayLifeEngine.DEFAULT_LIVE_DENSITY);
+    }
+
+    /**
+     * Resets the grid with a random initial state of live and dead cells, and the generation to 0.
+     *
+     * @param density
+     *            The fraction of cells to make live, in [0, 1].
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        final int densityBits = ConwayLifeEngine.toDensityBits(density);
+        final SplittableRandom random = new SplittableRandom(seed);
+        final byte[] states = new byte[cells.length];
+        for (int iWord = 0; iWord < states.length; iWord += 64) {
+            long word = ConwayLifeEngine.randomWord(random, densityBits);
+            for (int iCell = iWord; iCell < Math.min(iWord + 64, states.length); ++iCell, word >>>= 1) {
+                states[iCell] = (byte) (word & 1L);
+            }
+        }
+        setCellStates(states);
+    }
+}
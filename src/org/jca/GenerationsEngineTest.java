@@ -0,0 +1,88 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class GenerationsEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testTwoStateRuleAgreesWithConwayLifeEngine() {
+        for (boolean isTorus : new boolean[] { true, false }) {
+            ConwayLifeEngine life = new ConwayLifeEngine(90, 140, isTorus);
+            GenerationsEngine generations = new GenerationsEngine(90, 140, isTorus, "B3/S23/C2");
+            life.reset(31L);
+            generations.setCellStates(life.copyCellStates());
+            for (int iStep = 0; iStep < 20; ++iStep) {
+                life.doSimulationStep();
+                generations.doSimulationStep();
+                assertArrayEquals("torus=" + isTorus + " iStep=" + iStep, life.getCellStates(),
+                        generations.getCellStates());
+                assertThat("live count", generations.getLiveCount(), equalTo(life.getLiveCount()));
+            }
+        }
+    }
+
+    @Test
+    public void testBriansBrainAgreesWithBruteForce() {
+        // Includes a single row and column, whose neighbors wrap onto themselves on a torus.
+        final int[][] sizes = { { 1, 1 }, { 5, 1 }, { 1, 7 }, { 33, 70 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                GenerationsEngine engine = new GenerationsEngine(size[0], size[1], isTorus, "b2/s/c3");
+                engine.reset(size[0] * 100L + size[1], 0.3);
+                final RectangularGridGeometry grid = engine.getGrid();
+                for (int iStep = 0; iStep < 15; ++iStep) {
+                    final byte[] cells = engine.copyCellStates();
+                    final byte[] expected = new byte[cells.length];
+                    for (int iCell = 0; iCell < cells.length; ++iCell) {
+                        int count = 0;
+                        for (RectangularGridGeometry.Direction d : RectangularGridGeometry.Direction.values()) {
+                            final int iAdj = grid.getAdjacentI(iCell, d);
+                            if (iAdj != RectangularGridGeometry.OFF_GRID_INDEX && cells[iAdj] == 1) ++count;
+                        }
+                        expected[iCell] = (byte) ((cells[iCell] == 0) ? (count == 2 ? 1 : 0) : (cells[iCell] + 1) % 3);
+                    }
+                    engine.doSimulationStep();
+                    assertArrayEquals(grid + " iStep=" + iStep, expected, engine.getCellStates());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMalformedRules() {
+        for (String bad : new String[] { "B3/S23", "B9/S23/C3", "B3/S23/C1", "B3/S23/Cx", "S23/B3/C3" }) {
+            try {
+                new GenerationsEngine(4, 4, true, bad);
+                throw new AssertionError("Expected IllegalArgumentException for " + bad);
+            }
+            catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+}
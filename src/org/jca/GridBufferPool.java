@@ -0,0 +1,194 @@
+package org.jca;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jca.RectangularGridGeometry.Direction;
+
+/**
+ * A pool of grid resources, keyed by grid geometry (column count, row count, torus flag), for code that creates and
+ * discards many engines, such as parameter sweeps run by an {@link EnsembleRunner}.
+ * <p>
+ * For each geometry the pool keeps:
+ * <ul>
+ * <li>One shared {@link RectangularGridGeometry} object.</li>
+ * <li>One shared, read-only neighbor table: for each cell, the linear indices of its 8 adjacent cells in
+ * {@link Direction} ordinal order (off-grid neighbors of a non-torus grid are
+ * {@link RectangularGridGeometry#OFF_GRID_INDEX OFF_GRID_INDEX}). The table is built on first request, and saves
+ * engines recomputing adjacency (with its divisions and modulo wrapping) for every cell on every step.</li>
+ * <li>A free list of cell buffers, from which {@link #acquireCells(RectangularGridGeometry)} hands out a buffer and to
+ * which {@link #releaseCells(RectangularGridGeometry, byte[])} returns it.</li>
+ * </ul>
+ * Engines built with a pool (e.g. {@link ConwayLifeEngine#ConwayLifeEngine(GridBufferPool, int, int, boolean)}) take
+ * their buffers and neighbor table from it, can be {@link ConwayLifeEngine#reinitialize(int, int, boolean)
+ * reinitialized} in place for another geometry, and give their buffers back when released.
+ * <p>
+ * A neighbor table costs 32 bytes per cell, against 1 per cell buffer, so tables are only built for grids of up to
+ * {@link #MAX_NEIGHBOR_TABLE_CELLS} cells; engines on larger grids compute adjacency as they go.
+ * <p>
+ * All methods are thread-safe.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class GridBufferPool
+{
+    /**
+     * The largest grid, in cells, that {@link #getNeighborTable(RectangularGridGeometry)} builds a table for.
+     */
+    public static final int MAX_NEIGHBOR_TABLE_CELLS = 1 << 22;
+
+    /**
+     * The number of entries per cell in a neighbor table.
+     */
+    public static final int NEIGHBOR_COUNT = Direction.values().length;
+
+    public static final int DEFAULT_MAX_IDLE_BUFFERS = 16;
+
+    private final int maxIdleBuffers;
+    private final ConcurrentHashMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    public GridBufferPool() {
+        this(DEFAULT_MAX_IDLE_BUFFERS);
+    }
+
+    /**
+     * @param maxIdleBuffers
+     *            The most released buffers kept per geometry. Buffers released beyond that are left to the garbage
+     *            collector.
+     */
+    public GridBufferPool(int maxIdleBuffers) {
+        if (maxIdleBuffers < 0) throw new IllegalArgumentException("maxIdleBuffers must not be negative");
+        this.maxIdleBuffers = maxIdleBuffers;
+    }
+
+    /**
+     * Gets the pool's shared geometry object for the specified dimensions and torus flag.
+     *
+     * @param colCount
+     *            The number of columns in the grid.
+     * @param rowCount
+     *            The number of rows in the grid.
+     * @param isTorus
+     *            Whether or not the grid is a torus.
+     * @return The shared geometry.
+     */
+    public RectangularGridGeometry getGeometry(int colCount, int rowCount, boolean isTorus) {
+        return getEntry(colCount, rowCount, isTorus).grid;
+    }
+
+    /**
+     * Gets the shared neighbor table for the specified geometry, building it on first request.<br>
+     * Entry [{@link #NEIGHBOR_COUNT} * iCell + direction ordinal] is the linear index of iCell's neighbor in that
+     * direction. The table is shared, and must not be modified.
+     *
+     * @param grid
+     *            The grid geometry.
+     * @return The neighbor table, or null if the grid has more than {@link #MAX_NEIGHBOR_TABLE_CELLS} cells.
+     */
+    public int[] getNeighborTable(RectangularGridGeometry grid) {
+        if (grid.getCellCount() > MAX_NEIGHBOR_TABLE_CELLS) return null;
+        // The pooled geometry builds its table once, and every engine of this geometry shares it.
+        return getEntry(grid).grid.getNeighborTable();
+    }
+
+    /**
+     * Takes a cell buffer for the specified geometry from the pool, or allocates one if the pool has none idle.
+     *
+     * @param grid
+     *            The grid geometry.
+     * @return A buffer of {@link RectangularGridGeometry#getCellCount()} bytes. Its contents are undefined.
+     */
+    public byte[] acquireCells(RectangularGridGeometry grid) {
+        final Entry entry = getEntry(grid);
+        synchronized (entry) {
+            final byte[] cells = entry.idle.pollFirst();
+            if (cells != null) return cells;
+        }
+        return new byte[grid.getCellCount()];
+    }
+
+    /**
+     * Returns a cell buffer obtained from {@link #acquireCells(RectangularGridGeometry)} to the pool. The caller must
+     * not use the buffer afterwards.
+     *
+     * @param grid
+     *            The geometry the buffer was acquired for.
+     * @param cells
+     *            The buffer.
+     */
+    public void releaseCells(RectangularGridGeometry grid, byte[] cells) {
+        if (cells.length != grid.getCellCount()) {
+            throw new IllegalArgumentException("buffer size does not match " + grid);
+        }
+        final Entry entry = getEntry(grid);
+        synchronized (entry) {
+            if (entry.idle.size() < maxIdleBuffers) entry.idle.addFirst(cells);
+        }
+    }
+
+    /**
+     * @return The number of released buffers currently held for the specified geometry.
+     */
+    public int getIdleCount(RectangularGridGeometry grid) {
+        final Entry entry = getEntry(grid);
+        synchronized (entry) {
+            return entry.idle.size();
+        }
+    }
+
+    /**
+     * Discards all pooled buffers and neighbor tables.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    private Entry getEntry(RectangularGridGeometry grid) {
+        return getEntry(grid.getColCount(), grid.getRowCount(), grid.isTorus());
+    }
+
+    private Entry getEntry(int colCount, int rowCount, boolean isTorus) {
+        final Key key = new Key(colCount, rowCount, isTorus);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entry = entries.computeIfAbsent(key,
+                    k -> new Entry(new RectangularGridGeometry(colCount, rowCount, isTorus)));
+        }
+        return entry;
+    }
+
+    private static final class Key
+    {
+        private final int colCount;
+        private final int rowCount;
+        private final boolean isTorus;
+
+        Key(int colCount, int rowCount, boolean isTorus) {
+            this.colCount = colCount;
+            this.rowCount = rowCount;
+            this.isTorus = isTorus;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) return false;
+            final Key other = (Key) obj;
+            return colCount == other.colCount && rowCount == other.rowCount && isTorus == other.isTorus;
+        }
+
+        @Override
+        public int hashCode() {
+            return (colCount * 31 + rowCount) * 2 + (isTorus ? 1 : 0);
+        }
+    }
+
+    private static final class Entry
+    {
+        final RectangularGridGeometry grid;
+        final ArrayDeque<byte[]> idle = new ArrayDeque<>();
+
+        Entry(RectangularGridGeometry grid) {
+            this.grid = grid;
+        }
+    }
+}
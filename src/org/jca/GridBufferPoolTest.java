@@ -0,0 +1,113 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+import org.jca.RectangularGridGeometry.Direction;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class GridBufferPoolTest
+{
+    private GridBufferPool pool;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        pool = new GridBufferPool(2);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testNeighborTableMatchesGeometry() {
+        for (boolean isTorus : new boolean[] { true, false }) {
+            RectangularGridGeometry grid = pool.getGeometry(5, 4, isTorus);
+            assertThat("shared geometry", pool.getGeometry(5, 4, isTorus), sameInstance(grid));
+            int[] neighbors = pool.getNeighborTable(grid);
+            assertThat("shared table", pool.getNeighborTable(grid), sameInstance(neighbors));
+            for (int iCell = 0; iCell < grid.getCellCount(); ++iCell) {
+                for (Direction d : Direction.values()) {
+                    assertThat(grid + " cell " + iCell + " " + d,
+                            neighbors[iCell * GridBufferPool.NEIGHBOR_COUNT + d.ordinal()],
+                            equalTo(grid.getAdjacentI(iCell, d)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testReleasedBuffersAreReused() {
+        RectangularGridGeometry grid = pool.getGeometry(8, 8, true);
+        byte[] a = pool.acquireCells(grid);
+        byte[] b = pool.acquireCells(grid);
+        byte[] c = pool.acquireCells(grid);
+        pool.releaseCells(grid, a);
+        pool.releaseCells(grid, b);
+        pool.releaseCells(grid, c);
+        assertThat("idle count capped", pool.getIdleCount(grid), equalTo(2));
+        assertThat("most recently released first", pool.acquireCells(grid), sameInstance(b));
+        assertThat("other geometry", pool.getIdleCount(pool.getGeometry(8, 8, false)), equalTo(0));
+    }
+
+    @Test
+    public void testPooledLifeEngineMatchesUnpooled() {
+        ConwayLifeEngine expect = new ConwayLifeEngine(21, 17, true);
+        expect.reset(7L, 0.4);
+        ConwayLifeEngine actual = new ConwayLifeEngine(pool, 9, 9, false);
+        actual.reinitialize(21, 17, true);
+        assertThat("idle after reinitialize", pool.getIdleCount(pool.getGeometry(9, 9, false)), equalTo(2));
+        assertThat("cleared", actual.getLiveCount(), equalTo(0));
+        actual.reset(7L, 0.4);
+        for (int iStep = 0; iStep < 20; ++iStep) {
+            expect.doSimulationStep();
+            actual.doSimulationStep();
+        }
+        assertArrayEquals("cells", expect.getCellStates(), actual.getCellStates());
+        assertThat("live count", actual.getLiveCount(), equalTo(expect.getLiveCount()));
+        assertThat("hash", actual.getGridHash(), equalTo(expect.getGridHash()));
+
+        actual.release();
+        assertThat("idle after release", pool.getIdleCount(pool.getGeometry(21, 17, true)), equalTo(2));
+    }
+
+    @Test
+    public void testPooledLifeEngineOnBoundedGrid() {
+        // A blinker against the top edge of a non-torus grid: the off-grid neighbors count as dead.
+        ConwayLifeEngine engine = new ConwayLifeEngine(pool, 5, 5, false);
+        engine.setState(1, ConwayLifeEngine.CellState.LIVE);
+        engine.setState(2, ConwayLifeEngine.CellState.LIVE);
+        engine.setState(3, ConwayLifeEngine.CellState.LIVE);
+        engine.doSimulationStep();
+        assertThat("live count", engine.getLiveCount(), equalTo(2));
+        assertThat("above edge", engine.getState(2), equalTo(ConwayLifeEngine.CellState.LIVE));
+        assertThat("below", engine.getState(7), equalTo(ConwayLifeEngine.CellState.LIVE));
+    }
+
+    @Test
+    public void testPooledAntEngineMatchesUnpooled() {
+        LangtonAntEngine expect = new LangtonAntEngine(11, 9, true, Direction.LEFT);
+        LangtonAntEngine actual = new LangtonAntEngine(pool, 4, 4, true, Direction.ABOVE);
+        actual.reinitialize(11, 9, true, Direction.LEFT);
+        for (int iStep = 0; iStep < 500; ++iStep) {
+            expect.doSimulationStep();
+            actual.doSimulationStep();
+        }
+        assertArrayEquals("cells", expect.getCellStates(), actual.getCellStates());
+        assertThat("ant location", actual.getAntLocation(), equalTo(expect.getAntLocation()));
+        assertThat("ant facing", actual.getAntFacing(), equalTo(expect.getAntFacing()));
+    }
+}
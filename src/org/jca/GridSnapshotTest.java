@@ -0,0 +1,90 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.jca.RectangularGridGeometry.Direction;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class GridSnapshotTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testLifeRoundTrip() throws IOException {
+        // 13x11 = 143 cells: not a multiple of 64, so the last packed word is partial.
+        ConwayLifeEngine expect = new ConwayLifeEngine(13, 11, true);
+        for (int iStep = 0; iStep < 3; ++iStep) {
+            expect.doSimulationStep();
+        }
+        Path path = tempFolder.newFile("life.snap").toPath();
+        GridSnapshot.write(expect, path);
+
+        ConwayLifeEngine actual = GridSnapshot.readLifeEngine(path);
+        assertThat("grid", actual.getGrid().toString(), equalTo(expect.getGrid().toString()));
+        assertThat("generation", actual.getGeneration(), equalTo(3L));
+        assertThat("live count", actual.getLiveCount(), equalTo(expect.getLiveCount()));
+        assertArrayEquals("cells", expect.getCellStates(), actual.getCellStates());
+
+        expect.doSimulationStep();
+        actual.doSimulationStep();
+        assertArrayEquals("cells after step", expect.getCellStates(), actual.getCellStates());
+    }
+
+    @Test
+    public void testAntRoundTrip() throws IOException {
+        LangtonAntEngine expect = new LangtonAntEngine(9, 7, true, Direction.LEFT);
+        for (int iStep = 0; iStep < 37; ++iStep) {
+            expect.doSimulationStep();
+        }
+        Path path = tempFolder.newFile("ant.snap").toPath();
+        GridSnapshot.write(expect, path);
+
+        LangtonAntEngine actual = new LangtonAntEngine(9, 7, true, Direction.LEFT);
+        GridSnapshot.read(path, actual);
+        assertThat("generation", actual.getGeneration(), equalTo(37L));
+        assertThat("ant location", actual.getAntLocation(), equalTo(expect.getAntLocation()));
+        assertThat("ant facing", actual.getAntFacing(), equalTo(expect.getAntFacing()));
+        assertArrayEquals("cells", expect.getCellStates(), actual.getCellStates());
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsGeometryMismatch() throws IOException {
+        Path path = tempFolder.newFile("life.snap").toPath();
+        GridSnapshot.write(new ConwayLifeEngine(8, 8, true), path);
+        GridSnapshot.read(path, new ConwayLifeEngine(8, 8, false));
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRejectsEngineKindMismatch() throws IOException {
+        Path path = tempFolder.newFile("ant.snap").toPath();
+        GridSnapshot.write(new LangtonAntEngine(8, 8, true, Direction.ABOVE), path);
+        GridSnapshot.readLifeEngine(path);
+    }
+}
@@ -0,0 +1,59 @@
+package org.jca;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+/**
+ * Runs any registered {@link ISimulationEngine} without a display, and reports its throughput: a quick way to compare
+ * engines, or backends of one engine, on the same grid.
+ * <p>
+ * Usage: HeadlessRunner engine [cols rows [steps [seed [metrics.csv]]]]<br>
+ * The engine is one of {@link SimulationEngines#getNames()}. The grid is a torus. With a metrics file, per-step metrics
+ * are collected by a {@link StepMetricsRecorder} and written as CSV.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class HeadlessRunner
+{
+    /**
+     * Steps between drains of the metrics recorder; well under its ring buffer capacity.
+     */
+    private static final int METRICS_DRAIN_STEPS = StepMetricsRecorder.DEFAULT_CAPACITY / 4;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: HeadlessRunner engine [cols rows [steps [seed [metrics.csv]]]]");
+            System.err.println("Engines: " + SimulationEngines.getNames());
+            System.exit(1);
+        }
+        final String name = args[0];
+        final int colCount = (args.length > 2) ? Integer.parseInt(args[1]) : 256;
+        final int rowCount = (args.length > 2) ? Integer.parseInt(args[2]) : 256;
+        final long steps = (args.length > 3) ? Long.parseLong(args[3]) : 1000;
+        final long seed = (args.length > 4) ? Long.parseLong(args[4]) : 1L;
+
+        ISimulationEngine engine = SimulationEngines.create(name, colCount, rowCount, true);
+        engine.reset(seed);
+        StepMetricsCsvSink sink = null;
+        if (args.length > 5) {
+            StepMetricsRecorder recorder = new StepMetricsRecorder();
+            engine.setMetricsListener(recorder);
+            sink = new StepMetricsCsvSink(recorder, Files.newBufferedWriter(Paths.get(args[5]), StandardCharsets.UTF_8));
+        }
+
+        final long startNanos = System.nanoTime();
+        for (long stepsLeft = steps; stepsLeft > 0; stepsLeft -= METRICS_DRAIN_STEPS) {
+            engine.doSimulationSteps(Math.min(stepsLeft, METRICS_DRAIN_STEPS));
+            if (sink != null) sink.drain();
+        }
+        final double seconds = (System.nanoTime() - startNanos) / 1e9;
+        if (sink != null) sink.close();
+
+        final RectangularGridGeometry grid = engine.getGrid();
+        System.out.println(String.format("engine=%1$s grid=%2$dx%3$d generation=%4$d seconds=%5$.3f steps/s=%6$.1f cells/s=%7$.3e",
+                name, grid.getColCount(), grid.getRowCount(), engine.getGeneration(), seconds, steps / seconds,
+                steps * (double) grid.getCellCountLong() / seconds));
+    }
+}
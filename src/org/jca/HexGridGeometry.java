@@ -0,0 +1,79 @@
+package org.jca;
+
+/**
+ * A grid of pointy-topped hexagonal cells, each with 6 neighbors, in "odd-r" offset coordinates: cells are laid out in
+ * columns and rows, and the odd rows are shifted right by half a cell.
+ * <pre>
+ *  (0,0) (1,0) (2,0)
+ *     (0,1) (1,1) (2,1)
+ *  (0,2) (1,2) (2,2)
+ * </pre>
+ * A cell's neighbors are listed clockwise from the one above and to its right: {@link #ABOVE_RIGHT},
+ * {@link #RIGHT}, {@link #BELOW_RIGHT}, {@link #BELOW_LEFT}, {@link #LEFT}, {@link #ABOVE_LEFT}.<br>
+ * The row shift must alternate across the wrapped edge of a torus, so a hexagonal torus must have an even number of
+ * rows.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class HexGridGeometry extends LatticeGridGeometry
+{
+    public static final int ABOVE_RIGHT = 0;
+    public static final int RIGHT = 1;
+    public static final int BELOW_RIGHT = 2;
+    public static final int BELOW_LEFT = 3;
+    public static final int LEFT = 4;
+    public static final int ABOVE_LEFT = 5;
+
+    /**
+     * The (dx, dy) offsets of the neighbors of a cell in an even row, and in an odd row.
+     */
+    private static final int[] EVEN_ROW_OFFSETS = { 0, -1, 1, 0, 0, 1, -1, 1, -1, 0, -1, -1 };
+    private static final int[] ODD_ROW_OFFSETS = { 1, -1, 1, 0, 1, 1, 0, 1, -1, 0, 0, -1 };
+
+    /**
+     * The height of a cell 1 unit wide, and the distance between the centers of adjacent rows.
+     */
+    private static final double CELL_HEIGHT = 2.0 / Math.sqrt(3.0);
+    private static final double ROW_PITCH = 0.75 * CELL_HEIGHT;
+
+    /**
+     * @throws IllegalArgumentException
+     *             If the grid is a torus with an odd number of rows.
+     */
+    public HexGridGeometry(int colCount, int rowCount, boolean isTorus) {
+        super(colCount, rowCount, isTorus);
+        if (isTorus && (rowCount % 2) != 0) {
+            throw new IllegalArgumentException("A hexagonal torus needs an even row count, not " + rowCount);
+        }
+    }
+
+    @Override
+    public int getNeighborCount() {
+        return 6;
+    }
+
+    @Override
+    protected int[] getNeighborOffsets(int xCell, int yCell) {
+        return ((yCell & 1) == 0) ? EVEN_ROW_OFFSETS : ODD_ROW_OFFSETS;
+    }
+
+    @Override
+    public int getCellVertexCount() {
+        return 6;
+    }
+
+    /**
+     * Gets the hexagon's vertices, clockwise from its top point.
+     */
+    @Override
+    public void getCellOutline(int iCell, double[] xs, double[] ys) {
+        final int yCell = getY(iCell);
+        final double xCenter = getX(iCell) + 0.5 + 0.5 * (yCell & 1);
+        final double yCenter = 0.5 * CELL_HEIGHT + yCell * ROW_PITCH;
+        for (int iVertex = 0; iVertex < 6; ++iVertex) {
+            final double angle = Math.toRadians(-90 + 60 * iVertex);
+            xs[iVertex] = xCenter + 0.5 * CELL_HEIGHT * Math.cos(angle);
+            ys[iVertex] = yCenter + 0.5 * CELL_HEIGHT * Math.sin(angle);
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package org.jca;
+
+/**
+ * Receives the summary of each run completed by an {@link EnsembleRunner}.
+ *
+ * @author ksdj (coder-hat)
+ */
+public interface IEnsembleResultSink
+{
+    /**
+     * Called once per completed run, in completion order. The runner never calls a sink from two threads at once, so
+     * implementations need not be thread-safe, but they should be quick: workers queue behind a slow sink.
+     *
+     * @param result
+     *            The run's summary.
+     */
+    void accept(EnsembleRunResult result);
+}
@@ -0,0 +1,72 @@
+package org.jca;
+
+/**
+ * The operations common to every grid topology: {@link RectangularGridGeometry}, {@link HexGridGeometry} and
+ * {@link TriangularGridGeometry}.
+ * <p>
+ * Every geometry lays its cells out in columns and rows (in its own offset coordinates), with the same linear cell
+ * indices as a {@link RectangularGridGeometry} of the same dimensions, so engines over any geometry can keep one state
+ * per cell in a flat buffer. What differs is each cell's neighbors, which a geometry supplies as a precomputed
+ * {@link #getNeighborTable() neighbor table}, so engines never convert coordinates while stepping, and its shape,
+ * which the {@link LatticeGridDisplayPanel} draws from {@link #getCellOutline(int, double[], double[])}.
+ * <p>
+ * As with {@link RectangularGridGeometry}, a torus wraps neighbors around the grid's edges, and otherwise neighbors off
+ * the grid are {@link RectangularGridGeometry#OFF_GRID_INDEX OFF_GRID_INDEX}.
+ *
+ * @author ksdj (coder-hat)
+ */
+public interface IGridGeometry
+{
+    int getColCount();
+
+    int getRowCount();
+
+    boolean isTorus();
+
+    /**
+     * @return The number of cells in the grid.
+     */
+    int getCellCount();
+
+    /**
+     * @return The linear index of the cell at column xCell, row yCell (wrapped on a torus), or
+     *         {@link RectangularGridGeometry#OFF_GRID_INDEX OFF_GRID_INDEX} if that is off a bounded grid.
+     */
+    int getI(int xCell, int yCell);
+
+    int getX(int iCell);
+
+    int getY(int iCell);
+
+    /**
+     * @return The number of neighbors every cell has (some of which may be off a bounded grid).
+     */
+    int getNeighborCount();
+
+    /**
+     * Gets the neighbor table: the linear indices of cell iCell's neighbors are at
+     * [iCell * {@link #getNeighborCount()}, (iCell + 1) * {@link #getNeighborCount()}), with
+     * {@link RectangularGridGeometry#OFF_GRID_INDEX OFF_GRID_INDEX} for neighbors off a bounded grid. On a torus
+     * smaller than a neighborhood, a cell may appear more than once (or be its own neighbor).<br>
+     * The table is computed once, when first requested, and shared: callers must not modify it.
+     *
+     * @throws IllegalStateException
+     *             If the grid has too many cells for the table to fit in an int array.
+     */
+    int[] getNeighborTable();
+
+    /**
+     * @return The number of vertices in each cell's {@link #getCellOutline(int, double[], double[]) outline}.
+     */
+    int getCellVertexCount();
+
+    /**
+     * Gets the outline of a cell, in a plane where cells are 1 unit wide and the grid's top left corner is at (0, 0).
+     *
+     * @param xs
+     *            Receives the x coordinates of the outline's {@link #getCellVertexCount()} vertices.
+     * @param ys
+     *            Receives the y coordinates of the outline's vertices.
+     */
+    void getCellOutline(int iCell, double[] xs, double[] ys);
+}
@@ -0,0 +1,54 @@
+package org.jca;
+
+import java.awt.Color;
+
+/**
+ * Bulk alternative to {@link IGridColorProvider}: rather than producing a {@link Color} object per cell, an
+ * IGridPaletteProvider exposes an engine's cell states as a buffer of ordinals plus an ARGB palette indexed by those
+ * ordinals, so a renderer can map an entire row of cells to pixel values in a single, tight loop.
+ * <p>
+ * Colorists that draw something on top of the cell states (e.g. Langton's ant) report those cells via
+ * {@link #getMarkerCells()}, and the renderer paints them in the {@link #getMarkerArgb()} color after the rows.
+ * <p>
+ * Code that still expects an {@link IGridColorProvider} can wrap an IGridPaletteProvider in a
+ * {@link PaletteColorProvider}.
+ * 
+ * @author ksdj (coder-hat)
+ */
+public interface IGridPaletteProvider {
+    
+    /**
+     * Marker cells value for colorists that do not draw any markers.
+     */
+    public static final int[] NO_MARKERS = {};
+    
+    /**
+     * @return The ARGB color values for each cell state, indexed by the state's ordinal.
+     */
+    public int[] getPalette();
+    
+    /**
+     * Gets the cell state ordinals of the grid being colored, indexed by linear cell index.<br>
+     * Engines may replace this buffer as they step, so renderers must call this method on every repaint.
+     * 
+     * @return The current cell state ordinals.
+     */
+    public byte[] getCellStates();
+    
+    public Color getBackgroundColor();
+    
+    /**
+     * @return The linear indices of cells to be drawn in the {@link #getMarkerArgb() marker color} instead of their
+     *         state color.
+     */
+    public default int[] getMarkerCells() {
+        return NO_MARKERS;
+    }
+    
+    /**
+     * @return The ARGB color value used to draw the {@link #getMarkerCells() marker cells}.
+     */
+    public default int getMarkerArgb() {
+        return 0;
+    }
+}
@@ -0,0 +1,77 @@
+package org.jca;
+
+/**
+ * The operations common to every simulation engine, so that the forms' {@link SimulationRunner}, headless runners,
+ * benchmarks and persistence ({@link SimulationRecorder}) can drive any engine, and an engine can be chosen by name
+ * from {@link SimulationEngines}.
+ * <p>
+ * An engine's cells are presented as a buffer of per-cell state ordinals over a {@link RectangularGridGeometry}; what
+ * the ordinals mean is up to the engine (and its form's palette). Engines over other lattices (see
+ * {@link IGridGeometry}) present the rectangular layout of the lattice's cells.<br>
+ * Engines are not thread-safe: stepping, resetting and reading cell states must happen on one thread at a time.
+ *
+ * @author ksdj (coder-hat)
+ */
+public interface ISimulationEngine
+{
+    /**
+     * @return The geometry of the engine's grid.
+     */
+    RectangularGridGeometry getGrid();
+
+    /**
+     * @return The number of simulation steps taken since the engine was last reset or seeded.
+     */
+    long getGeneration();
+
+    /**
+     * Advances the simulation by one step.
+     */
+    void doSimulationStep();
+
+    /**
+     * Advances the simulation by the specified number of steps. Engines that can step several generations more
+     * cheaply than one at a time override this.
+     *
+     * @param stepCount
+     *            The number of steps to take.
+     */
+    default void doSimulationSteps(long stepCount) {
+        for (long iStep = 0; iStep < stepCount; ++iStep) {
+            doSimulationStep();
+        }
+    }
+
+    /**
+     * Resets the engine to generation 0, with an initial state derived from the specified seed. The same seed and
+     * geometry always produce the same initial state; engines whose initial state is not random ignore the seed.
+     *
+     * @param seed
+     *            The random number generator seed.
+     */
+    void reset(long seed);
+
+    /**
+     * Gets the current generation's cell state ordinals, one per grid cell, indexed by linear cell index.<br>
+     * The returned array may be the engine's own storage, replaced or overwritten by the next step, so callers must
+     * treat it as read-only, and re-fetch it after stepping. Use {@link #copyCellStates()} for a snapshot.
+     *
+     * @return The cell state ordinals.
+     */
+    byte[] getCellStates();
+
+    /**
+     * @return A copy of the current generation's cell state ordinals, unaffected by later steps.
+     */
+    default byte[] copyCellStates() {
+        return getCellStates().clone();
+    }
+
+    /**
+     * Sets (or with null, clears) the listener that receives metrics for each subsequent simulation step.
+     *
+     * @param metricsListener
+     *            The listener, e.g. a {@link StepMetricsRecorder}, or null.
+     */
+    void setMetricsListener(IStepMetricsListener metricsListener);
+}
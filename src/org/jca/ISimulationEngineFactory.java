@@ -0,0 +1,24 @@
+package org.jca;
+
+/**
+ * Creates {@link ISimulationEngine} instances of one kind, for {@link SimulationEngines} to hand out by name.
+ *
+ * @author ksdj (coder-hat)
+ */
+@FunctionalInterface
+public interface ISimulationEngineFactory
+{
+    /**
+     * Creates an engine for a grid of the specified geometry. Engines whose world has a fixed geometry (such as
+     * {@link PiltonWorldEngine}) ignore the requested one; check the created engine's {@link ISimulationEngine#getGrid()}.
+     *
+     * @param colCount
+     *            The number of columns in the grid.
+     * @param rowCount
+     *            The number of rows in the grid.
+     * @param isTorus
+     *            Whether or not the grid is a torus.
+     * @return A new engine.
+     */
+    ISimulationEngine create(int colCount, int rowCount, boolean isTorus);
+}
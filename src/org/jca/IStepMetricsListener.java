@@ -0,0 +1,36 @@
+package org.jca;
+
+/**
+ * Receives per-step instrumentation from a simulation engine, once per {@code doSimulationStep()}, on the thread that
+ * performed the step.
+ * <p>
+ * All values are passed as primitives so that reporting allocates nothing; implementations should likewise keep
+ * {@link #onStep} cheap, since it runs inside the engine's step loop. {@link StepMetricsRecorder} is the standard
+ * implementation.
+ * 
+ * @author ksdj (coder-hat)
+ */
+public interface IStepMetricsListener {
+    
+    /**
+     * Reports the outcome of one simulation step.
+     * 
+     * @param generation
+     *            The generation number the step produced.
+     * @param births
+     *            The number of cells that became live (or occupied) during the step.
+     * @param deaths
+     *            The number of cells that stopped being live (or occupied) during the step.
+     * @param liveCount
+     *            The number of live (or occupied) cells after the step.
+     * @param changedCount
+     *            The number of cells whose state changed during the step.
+     * @param stepNanos
+     *            The wall-clock duration of the step, in nanoseconds.
+     * @param allocatedBytes
+     *            The number of heap bytes the stepping thread allocated during the step, or -1 if the JVM does not
+     *            support measuring it (see {@link AllocationMeter}).
+     */
+    public void onStep(long generation, long births, long deaths, long liveCount, long changedCount, long stepNanos,
+            long allocatedBytes);
+}
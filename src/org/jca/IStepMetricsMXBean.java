@@ -0,0 +1,42 @@
+package org.jca;
+
+/**
+ * JMX management interface of a {@link StepMetricsRecorder}, exposing the most recent step's metrics and running
+ * totals, so engine throughput and dynamics can be watched (e.g. with JConsole or VisualVM) during production runs.
+ * 
+ * @author ksdj (coder-hat)
+ */
+public interface IStepMetricsMXBean {
+    
+    public long getStepCount();
+    
+    public long getGeneration();
+    
+    public long getLiveCount();
+    
+    public long getLastBirths();
+    
+    public long getLastDeaths();
+    
+    public long getLastChangedCount();
+    
+    public long getLastStepNanos();
+    
+    public long getTotalBirths();
+    
+    public long getTotalDeaths();
+    
+    public long getTotalChangedCount();
+    
+    public long getTotalStepNanos();
+    
+    /**
+     * @return The total heap bytes allocated by the stepping thread(s), or -1 if not supported by the JVM.
+     */
+    public long getTotalAllocatedBytes();
+    
+    /**
+     * @return The mean number of steps per second of step time, over all recorded steps.
+     */
+    public double getStepsPerSecond();
+}
@@ -1,5 +1,7 @@
 package org.jca;
 
+import java.util.Arrays;
+
 /**
  * This engine's ant behavior uses the rules originated by Chris Langton in 1986.<br>
  * The following summary is from <a href="https://en.wikipedia.org/wiki/Langton%27s_ant">Wikipedia's Langton Ant</a> entry:
@@ -10,13 +12,24 @@ package org.jca;
  * 
  * @author coder-hat
  */
-public class LangtonAntEngine
+public class LangtonAntEngine implements ISimulationEngine
 {
     public enum CellState { WHITE, BLACK }
     
+    /**
+     * Cached copy of {@link CellState#values()}, indexed by the ordinal values stored in {@link cells}.
+     */
+    private static final CellState[] CELL_STATES = CellState.values();
+    
+    private static final byte WHITE = (byte) CellState.WHITE.ordinal();
+    private static final byte BLACK = (byte) CellState.BLACK.ordinal();
+    
     private RectangularGridGeometry grid;
     
-    private CellState[] cells;
+    /**
+     * The {@link CellState} ordinal of each grid cell, indexed by linear cell index.
+     */
+    private byte[] cells;
     
     /**
      * Linear index of the ant's current grid location. 
@@ -30,29 +43,159 @@ public class LangtonAntEngine
     
     private RectangularGridGeometry.Direction initialFacing;
     
+    /**
+     * The number of {@link #doSimulationStep() simulation steps} taken since the last {@link #reset()}.
+     */
+    private long generation;
+    
+    /**
+     * The number of cells currently in {@link CellState#BLACK}.
+     */
+    private int blackCount;
+    
+    /**
+     * Receives per-step metrics, or null if metrics are not being collected.
+     */
+    private IStepMetricsListener metricsListener;
+    
+    /**
+     * The pool this engine's cell buffer came from, or null if the engine allocated its own.
+     */
+    private final GridBufferPool pool;
+    
+    /**
+     * The {@link GridBufferPool#getNeighborTable(RectangularGridGeometry) neighbor table} of {@link grid}, or null if
+     * the ant's next location is computed from the geometry.
+     */
+    private int[] neighbors;
+    
     
     // TODO 2018-2-24 isTorus -vs- noTorus behavior neither determined nor implemented yet.
     
     public LangtonAntEngine(int gridWidth, int gridHeight, boolean isTorus, RectangularGridGeometry.Direction initialFacing) {
+        pool = null;
         grid = new RectangularGridGeometry(gridWidth, gridHeight, isTorus);
-        cells = new CellState[grid.getCellCount()];
+        cells = new byte[grid.getCellCount()];
+        this.initialFacing = initialFacing;
+        reset();
+    }
+    
+    /**
+     * Constructs an engine whose geometry, cell buffer and neighbor table come from the specified pool.
+     * 
+     * @param pool
+     *            The pool to take the cell buffer from, and to return it to on
+     *            {@link #reinitialize(int, int, boolean, RectangularGridGeometry.Direction) reinitialize} or
+     *            {@link #release()}.
+     */
+    public LangtonAntEngine(GridBufferPool pool, int gridWidth, int gridHeight, boolean isTorus,
+            RectangularGridGeometry.Direction initialFacing) {
+        this.pool = pool;
+        acquireBuffers(gridWidth, gridHeight, isTorus);
         this.initialFacing = initialFacing;
         reset();
     }
     
+    /**
+     * Re-initializes this engine in place for a grid of the specified geometry and initial ant facing, then
+     * {@link #reset() resets} it. If the geometry differs from the current one, the current cell buffer is returned to
+     * the pool (if the engine has one) and a buffer for the new geometry taken from it.
+     */
+    public void reinitialize(int gridWidth, int gridHeight, boolean isTorus,
+            RectangularGridGeometry.Direction initialFacing) {
+        if (cells == null || grid.getColCount() != gridWidth || grid.getRowCount() != gridHeight
+                || grid.isTorus() != isTorus) {
+            releaseBuffers();
+            acquireBuffers(gridWidth, gridHeight, isTorus);
+        }
+        this.initialFacing = initialFacing;
+        reset();
+    }
+    
+    /**
+     * Returns this engine's cell buffer to its pool (if it has one). The engine must be
+     * {@link #reinitialize(int, int, boolean, RectangularGridGeometry.Direction) reinitialized} before it is used
+     * again.
+     */
+    public void release() {
+        releaseBuffers();
+    }
+    
+    private void acquireBuffers(int gridWidth, int gridHeight, boolean isTorus) {
+        if (pool != null) {
+            grid = pool.getGeometry(gridWidth, gridHeight, isTorus);
+            cells = pool.acquireCells(grid);
+            neighbors = pool.getNeighborTable(grid);
+        } else {
+            grid = new RectangularGridGeometry(gridWidth, gridHeight, isTorus);
+            cells = new byte[grid.getCellCount()];
+            neighbors = null;
+        }
+    }
+    
+    private void releaseBuffers() {
+        if (pool != null && cells != null) {
+            pool.releaseCells(grid, cells);
+        }
+        cells = null;
+    }
+    
     
+    @Override
     public void doSimulationStep() {
-        antFacing = cells[iAnt]  == CellState.WHITE ? antFacing.rotateRight90() : antFacing.rotateLeft90();
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final boolean wasWhite = cells[iAnt] == WHITE;
+        antFacing = wasWhite ? antFacing.rotateRight90() : antFacing.rotateLeft90();
         flipCellState(iAnt);
-        iAnt = grid.getAdjacentI(iAnt, antFacing);
+        iAnt = (neighbors != null) ? neighbors[iAnt * GridBufferPool.NEIGHBOR_COUNT + antFacing.ordinal()]
+                : grid.getAdjacentI(iAnt, antFacing);
+        ++generation;
+        if (listener != null) {
+            // A single step allocates nothing, so the (comparatively costly) allocation counter is not read.
+            listener.onStep(generation, wasWhite ? 1 : 0, wasWhite ? 0 : 1, blackCount, 1, System.nanoTime() - startNanos,
+                    0L);
+        }
     }
     
+    /**
+     * Sets (or with null, clears) the listener that receives metrics for each subsequent simulation step.<br>
+     * The ant engine reports {@link CellState#BLACK} cells as live, so each step is one birth or one death.
+     * 
+     * @param metricsListener
+     *            The listener, e.g. a {@link StepMetricsRecorder}, or null.
+     */
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+    
+    /**
+     * @return The number of cells currently in {@link CellState#BLACK}.
+     */
+    public int getBlackCount() {
+        return blackCount;
+    }
+    
+    @Override
     public RectangularGridGeometry getGrid() {
         return grid;
     }
     
     public CellState getState(int iCell) {
-        return cells[iCell];
+        return CELL_STATES[cells[iCell]];
+    }
+    
+    /**
+     * Gets the engine's cell buffer: one {@link CellState} ordinal per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, intended for bulk, read-only consumers such as an
+     * {@link IGridPaletteProvider}.
+     * 
+     * @return The current cell state ordinals.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return cells;
     }
     
     public int getAntLocation() {
@@ -63,19 +206,62 @@ public class LangtonAntEngine
         return antFacing;
     }
     
-    public void reset() {
-        for (int iCell = 0; iCell < cells.length; ++iCell) {
-            cells[iCell] = CellState.WHITE;
+    public RectangularGridGeometry.Direction getInitialFacing() {
+        return initialFacing;
+    }
+    
+    /**
+     * @return The number of {@link #doSimulationStep() simulation steps} taken since the last {@link #reset()}.
+     */
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+    
+    /**
+     * Restores the ant and generation counter (and recounts the {@link CellState#BLACK} cells), for code (such as
+     * {@link GridSnapshot}) that restores a previously saved grid.
+     * 
+     * @param iAnt
+     *            The linear index of the ant's location.
+     * @param antFacing
+     *            The direction the ant is facing.
+     * @param generation
+     *            The generation number of the current cell states.
+     */
+    void restoreAnt(int iAnt, RectangularGridGeometry.Direction antFacing, long generation) {
+        this.iAnt = iAnt;
+        this.antFacing = antFacing;
+        this.generation = generation;
+        blackCount = 0;
+        for (byte state : cells) {
+            if (state == BLACK) ++blackCount;
         }
+    }
+    
+    /**
+     * Resets the engine as {@link #reset()} does. The ant's initial state is not random, so the seed is ignored.
+     */
+    @Override
+    public void reset(long seed) {
+        reset();
+    }
+    
+    public void reset() {
+        Arrays.fill(cells, WHITE);
         iAnt = grid.getCenterI();
-        antFacing = initialFacing;    
+        antFacing = initialFacing;
+        generation = 0;
+        blackCount = 0;
     }
     
     private void flipCellState(int iCell) {
-        if (cells[iCell] == CellState.WHITE) {
-            cells[iCell] = CellState.BLACK;
+        if (cells[iCell] == WHITE) {
+            cells[iCell] = BLACK;
+            ++blackCount;
         } else {
-            cells[iCell] = CellState.WHITE;
+            cells[iCell] = WHITE;
+            --blackCount;
         }
     }
 }
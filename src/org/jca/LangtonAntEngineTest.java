@@ -57,4 +57,19 @@ public class LangtonAntEngineTest
         }
     }
 
+    @Test
+    public void testOffHeapEngineAgrees() {
+        // 16-byte segments, so the ant crosses segment boundaries constantly.
+        LangtonAntEngine onHeap = new LangtonAntEngine(37, 29, true, Direction.LEFT);
+        OffHeapLangtonAntEngine offHeap = new OffHeapLangtonAntEngine(37, 29, true, Direction.LEFT, 16);
+        for (int iStep = 0; iStep < 5000; ++iStep) {
+            onHeap.doSimulationStep();
+            offHeap.doSimulationStep();
+        }
+        assertThat("ant location", offHeap.getAntLocation(), equalTo((long) onHeap.getAntLocation()));
+        assertThat("ant facing", offHeap.getAntFacing(), equalTo(onHeap.getAntFacing()));
+        assertThat("black count", offHeap.getBlackCount(), equalTo((long) onHeap.getBlackCount()));
+        assertArrayEquals("cells", onHeap.getCellStates(), offHeap.getCellStates());
+    }
+
 }
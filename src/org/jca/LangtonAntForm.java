@@ -4,46 +4,59 @@ import java.awt.BorderLayout;
 import java.awt.Color;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
-import javax.swing.SwingWorker;
 
 
 /**
- * Provides cell {@link Color} values based on {@link LangtonAntEngine} {@link LangtonAntEngine#CellState CellState}
- * values.
+ * Provides a cell color palette for {@link LangtonAntEngine} {@link LangtonAntEngine#CellState CellState} values,
+ * indexed by state ordinal, with the ant's location drawn as a marker cell.
  * 
  * @author ksdj (coder-hat)
- */final class AntGridColorist implements IGridColorProvider
+ */
+final class AntGridColorist implements IGridPaletteProvider
 {
-    private static Map<LangtonAntEngine.CellState, Color> cellColors;
+    private static final int[] cellPalette = new int[LangtonAntEngine.CellState.values().length];
     static {
-        cellColors = new HashMap<>();
-        cellColors.put(LangtonAntEngine.CellState.WHITE, Color.white);
-        cellColors.put(LangtonAntEngine.CellState.BLACK, Color.black);
+        cellPalette[LangtonAntEngine.CellState.WHITE.ordinal()] = Color.white.getRGB();
+        cellPalette[LangtonAntEngine.CellState.BLACK.ordinal()] = Color.black.getRGB();
     }
-    private static Color antColor = Color.orange;
+    private static int antArgb = Color.orange.getRGB();
     
     private LangtonAntEngine antEngine;
+    
+    /**
+     * Reusable, single-element marker array holding the ant's location.
+     */
+    private int[] antCells = new int[1];
 
     public AntGridColorist(LangtonAntEngine antEngine) {
         this.antEngine = antEngine;
     }
     
     @Override
-    public Color getCellColor(int iCell) {
-        if (iCell == antEngine.getAntLocation()) {
-            return antColor;
-        } else {
-            return cellColors.get(antEngine.getState(iCell));
-        }
+    public int[] getPalette() {
+        return cellPalette;
+    }
+
+    @Override
+    public byte[] getCellStates() {
+        return antEngine.getCellStates();
+    }
+    
+    @Override
+    public int[] getMarkerCells() {
+        antCells[0] = antEngine.getAntLocation();
+        return antCells;
+    }
+    
+    @Override
+    public int getMarkerArgb() {
+        return antArgb;
     }
 
     @Override
@@ -124,6 +137,18 @@ public class LangtonAntForm extends JFrame
         return String.format(fmtStatus, iAnt, xAnt, yAnt, antEngine.getAntFacing());
     }
     
+    private void showRunnerProgress() {
+        pnlGrid.repaint();
+        lblStatus.setText(makeStatusText());
+    }
+    
+    private void onRunnerDone() {
+        btnStep.setEnabled(true);
+        btnStart.setEnabled(true);
+        btnStop.setEnabled(false);
+        btnReset.setEnabled(true);
+    }
+    
     //----- Inner classes
     
     private class StepSimulatorAction implements ActionListener
@@ -139,7 +164,8 @@ public class LangtonAntForm extends JFrame
     {
         @Override public void actionPerformed(ActionEvent e) {
             try {
-                antEngineRunner = new SimulationRunner();
+                antEngineRunner = new SimulationRunner(antEngine, 60, null, LangtonAntForm.this::showRunnerProgress,
+                        LangtonAntForm.this::onRunnerDone);
                 antEngineRunner.execute();
                 
                 btnStep.setEnabled(false);
@@ -173,44 +199,5 @@ public class LangtonAntForm extends JFrame
             pnlGrid.repaint();
         }
     }
-    
-    private class SimulationRunner extends SwingWorker<Void, LangtonAntEngine>
-    {
-        public SimulationRunner() {
-        }
-
-        @Override protected Void doInBackground() throws Exception {
-            if (antEngine != null) {
-                while (!isCancelled()) {
-                    antEngine.doSimulationStep();
-                    publish(antEngine);
-                    try {
-                        Thread.sleep(60); // milliseconds
-                    }
-                    catch (InterruptedException e) {
-                        // TODO Auto-generated catch block
-                        // e.printStackTrace();
-                    }
-                }
-            }
-            return null;
-        }
-        
-        @Override protected void process(List<LangtonAntEngine> engineRefs) {
-            for (LangtonAntEngine ae : engineRefs) {
-                synchronized (ae) {
-                    pnlGrid.repaint();
-                    lblStatus.setText(makeStatusText());
-                }
-            }
-        }
-        
-        @Override protected void done() {
-            btnStep.setEnabled(true);
-            btnStart.setEnabled(true);
-            btnStop.setEnabled(false);
-            btnReset.setEnabled(true);
-        }
-    }
 
 }
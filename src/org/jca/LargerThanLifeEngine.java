@@ -0,0 +1,277 @@
+package org.jca;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.jca.ConwayLifeEngine.CellState;
+
+/**
+ * A Larger than Life engine: Life-like, two-state cellular automata whose neighborhood is every cell within range r
+ * (see {@link LargerThanLifeRule}), with the same edge behavior as {@link RectangularGridGeometry}: on a torus each
+ * neighborhood offset wraps around the grid, and on a bounded grid off-grid cells count as dead.
+ * <p>
+ * Neighborhood live counts are computed with sliding-window sums, so a step costs O(1) per cell whatever the range,
+ * rather than O(r^2):
+ * <ol>
+ * <li>A row's <i>row sums</i> are, for each column x, the live count of the row's cells in columns x - r to x + r.
+ * Each is the previous one plus the cell entering the window, minus the cell leaving it. The row is first copied into
+ * an extended buffer, r cells wider on each side (wrapped on a torus, dead otherwise), so this needs no edge
+ * checks.</li>
+ * <li>The <i>column sums</i> for row y, the sums of the row sums of rows y - r to y + r, are the neighborhood live
+ * counts. Moving down a row adds the row sums of the row entering the window, and subtracts those of the row leaving
+ * it, which are kept in a ring of the window's 2r + 1 row sums.</li>
+ * </ol>
+ * The grid is stepped in parallel bands of rows, each band filling its own window before it starts.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class LargerThanLifeEngine implements ISimulationEngine
+{
+    private static final byte DEAD = (byte) CellState.DEAD.ordinal();
+    private static final byte LIVE = (byte) CellState.LIVE.ordinal();
+
+    /**
+     * The fraction of cells that {@link #reset(long)} makes {@link CellState#LIVE}.
+     */
+    public static final double DEFAULT_LIVE_DENSITY = 0.50;
+
+    /**
+     * The number of rows in each band of rows that a step processes in parallel.
+     */
+    private static final int BAND_ROWS = 64;
+
+    private final RectangularGridGeometry grid;
+
+    private final LargerThanLifeRule rule;
+
+    /**
+     * The {@link CellState} ordinal of each grid cell, indexed by linear cell index.
+     */
+    private byte[] cells;
+
+    /**
+     * Scratch buffer that receives the next generation during {@link #doSimulationStep()}, then is swapped with
+     * {@link cells}.
+     */
+    private byte[] nextCells;
+
+    private int liveCount;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * Each stepping thread's ring of 2r + 1 row sums, followed by its column sums.
+     */
+    private final ThreadLocal<int[][]> sumBuffers;
+
+    /**
+     * Each stepping thread's extended row buffer, colCount + 2r cells wide.
+     */
+    private final ThreadLocal<byte[]> extendedRows;
+
+    public LargerThanLifeEngine(int colCount, int rowCount, boolean isTorus, LargerThanLifeRule rule) {
+        grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        this.rule = rule;
+        cells = new byte[grid.getCellCount()];
+        nextCells = new byte[grid.getCellCount()];
+        sumBuffers = ThreadLocal.withInitial(() -> new int[2 * rule.getRange() + 2][colCount]);
+        extendedRows = ThreadLocal.withInitial(() -> new byte[colCount + 2 * rule.getRange()]);
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    public LargerThanLifeRule getRule() {
+        return rule;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of cells currently in {@link CellState#LIVE}.
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public CellState getState(int iCell) {
+        return (cells[iCell] == LIVE) ? CellState.LIVE : CellState.DEAD;
+    }
+
+    public void setState(int iCell, CellState newState) {
+        final byte state = (byte) newState.ordinal();
+        if (cells[iCell] != state) {
+            cells[iCell] = state;
+            liveCount += (state == LIVE) ? 1 : -1;
+        }
+    }
+
+    /**
+     * Gets the engine's cell buffer: one {@link CellState} ordinal per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, replaced by the next step.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return cells;
+    }
+
+    /**
+     * Resets the grid with a random initial state of {@link #DEFAULT_LIVE_DENSITY} live cells.
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, DEFAULT_LIVE_DENSITY);
+    }
+
+    /**
+     * Resets the grid with a random initial state, and the generation to 0.
+     *
+     * @param density
+     *            The fraction of cells to make live, in [0, 1].
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        final int densityBits = ConwayLifeEngine.toDensityBits(density);
+        final SplittableRandom random = new SplittableRandom(seed);
+        liveCount = 0;
+        for (int iWord = 0; iWord < cells.length; iWord += 64) {
+            long word = ConwayLifeEngine.randomWord(random, densityBits);
+            for (int iCell = iWord; iCell < Math.min(iWord + 64, cells.length); ++iCell, word >>>= 1) {
+                cells[iCell] = ((word & 1L) != 0) ? LIVE : DEAD;
+                liveCount += cells[iCell];
+            }
+        }
+        generation = 0;
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int rowCount = grid.getRowCount();
+        final int bandCount = (rowCount + BAND_ROWS - 1) / BAND_ROWS;
+        final long[] bandResults = new long[bandCount];
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> bandResults[iBand] = stepBand(iBand * BAND_ROWS,
+                Math.min((iBand + 1) * BAND_ROWS, rowCount)));
+        int births = 0;
+        int deaths = 0;
+        for (long bandResult : bandResults) {
+            births += (int) (bandResult >>> 32);
+            deaths += (int) bandResult;
+        }
+        byte[] swap = cells;
+        cells = nextCells;
+        nextCells = swap;
+        liveCount += births - deaths;
+        ++generation;
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, births + deaths, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    /**
+     * Computes rows [yFirst, yEnd) of the next generation into {@link nextCells}.
+     *
+     * @return The band's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long stepBand(int yFirst, int yEnd) {
+        final int colCount = grid.getColCount();
+        final int range = rule.getRange();
+        final int span = 2 * range + 1;
+        final byte[] extendedRow = extendedRows.get();
+        // rowSums[(y - yFirst + range) % span] holds the row sums of row y, for the rows of the current window.
+        final int[][] rowSums = sumBuffers.get();
+        final int[] colSums = rowSums[span];
+        Arrays.fill(colSums, 0);
+        for (int dy = -range; dy <= range; ++dy) {
+            final int[] sums = rowSums[dy + range];
+            computeRowSums(yFirst + dy, extendedRow, sums);
+            for (int x = 0; x < colCount; ++x) {
+                colSums[x] += sums[x];
+            }
+        }
+        int births = 0;
+        int deaths = 0;
+        for (int y = yFirst; y < yEnd; ++y) {
+            if (y > yFirst) {
+                // Slide the window down: row y + range replaces row y - range - 1 in the ring.
+                final int[] sums = rowSums[(y - yFirst - 1) % span];
+                for (int x = 0; x < colCount; ++x) {
+                    colSums[x] -= sums[x];
+                }
+                computeRowSums(y + range, extendedRow, sums);
+                for (int x = 0; x < colCount; ++x) {
+                    colSums[x] += sums[x];
+                }
+            }
+            final int iRow = y * colCount;
+            for (int x = 0; x < colCount; ++x) {
+                final boolean isLive = cells[iRow + x] == LIVE;
+                final int count = rule.isCenterCounted() ? colSums[x] : colSums[x] - cells[iRow + x];
+                final boolean isLiveNext = rule.isLiveNext(isLive, count);
+                nextCells[iRow + x] = isLiveNext ? LIVE : DEAD;
+                if (isLiveNext != isLive) {
+                    if (isLiveNext) ++births; else ++deaths;
+                }
+            }
+        }
+        return ((long) births << 32) | deaths;
+    }
+
+    /**
+     * Computes the row sums of grid row y (wrapped on a torus; an off-grid row of a bounded grid has all-zero sums).
+     *
+     * @param extendedRow
+     *            Scratch buffer of colCount + 2 * range cells.
+     * @param sums
+     *            Receives the row sums.
+     */
+    private void computeRowSums(int y, byte[] extendedRow, int[] sums) {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final int range = rule.getRange();
+        if (y < 0 || y >= rowCount) {
+            if (!grid.isTorus()) {
+                Arrays.fill(sums, 0);
+                return;
+            }
+            y = RectangularGridGeometry.wrappedModulo(y, rowCount);
+        }
+        final int iRow = y * colCount;
+        for (int ix = 0; ix < extendedRow.length; ++ix) {
+            final int x = ix - range;
+            if (x >= 0 && x < colCount) {
+                extendedRow[ix] = cells[iRow + x];
+            } else {
+                extendedRow[ix] = grid.isTorus() ? cells[iRow + RectangularGridGeometry.wrappedModulo(x, colCount)]
+                        : DEAD;
+            }
+        }
+        int sum = 0;
+        for (int ix = 0; ix < 2 * range + 1; ++ix) {
+            sum += extendedRow[ix];
+        }
+        sums[0] = sum;
+        for (int x = 1; x < colCount; ++x) {
+            sum += extendedRow[x + 2 * range] - extendedRow[x - 1];
+            sums[x] = sum;
+        }
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
@@ -0,0 +1,110 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LargerThanLifeEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRuleParse() {
+        final String bosco = "R5,C0,M1,S34..58,B34..45,NM";
+        assertThat(LargerThanLifeRule.BOSCO.toString(), equalTo(bosco));
+        assertThat(LargerThanLifeRule.parse("r5,m1,s34..58,b34..45").toString(), equalTo(bosco));
+        for (String bad : new String[] { "R5,M1,S34..58", "R0,M1,S1..2,B1..2", "R5,C3,M1,S1..2,B1..2",
+                "R5,M1,S1..2,B1..2,NN", "R5,M2,S1..2,B1..2", "R5,M1,S12,B1..2" }) {
+            try {
+                LargerThanLifeRule.parse(bad);
+                throw new AssertionError("Expected IllegalArgumentException for " + bad);
+            }
+            catch (IllegalArgumentException e) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    public void testConwayRuleAgreesWithConwayLifeEngine() {
+        for (boolean isTorus : new boolean[] { true, false }) {
+            ConwayLifeEngine life = new ConwayLifeEngine(70, 90, isTorus);
+            LargerThanLifeEngine ltl = new LargerThanLifeEngine(70, 90, isTorus, LargerThanLifeRule.CONWAY_LIFE);
+            life.reset(17L);
+            System.arraycopy(life.getCellStates(), 0, ltl.getCellStates(), 0, life.getGrid().getCellCount());
+            for (int iStep = 0; iStep < 20; ++iStep) {
+                life.doSimulationStep();
+                ltl.doSimulationStep();
+                assertArrayEquals("torus=" + isTorus + " iStep=" + iStep, life.getCellStates(), ltl.getCellStates());
+            }
+        }
+    }
+
+    @Test
+    public void testAgreesWithBruteForce() {
+        // Includes grids narrower and shorter than the neighborhood, and more rows than one step band.
+        final int[][] sizes = { { 7, 5 }, { 40, 30 }, { 33, 140 } };
+        final LargerThanLifeRule rule = LargerThanLifeRule.parse("R4,C0,M0,S15..30,B18..24,NM");
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                LargerThanLifeEngine engine = new LargerThanLifeEngine(size[0], size[1], isTorus, rule);
+                engine.reset(size[0] * 1000L + size[1], 0.45);
+                final RectangularGridGeometry grid = engine.getGrid();
+                for (int iStep = 0; iStep < 10; ++iStep) {
+                    final byte[] expected = stepBruteForce(grid, rule, engine.getCellStates());
+                    engine.doSimulationStep();
+                    assertArrayEquals(grid + " iStep=" + iStep, expected, engine.getCellStates());
+                    int liveCount = 0;
+                    for (byte state : expected) {
+                        liveCount += state;
+                    }
+                    assertThat(grid + " live count", engine.getLiveCount(), equalTo(liveCount));
+                }
+            }
+        }
+    }
+
+    /**
+     * Steps the cells by counting every neighborhood cell through {@link RectangularGridGeometry#getI(int, int)}.
+     */
+    private static byte[] stepBruteForce(RectangularGridGeometry grid, LargerThanLifeRule rule, byte[] cells) {
+        final int range = rule.getRange();
+        final byte[] next = new byte[cells.length];
+        for (int y = 0; y < grid.getRowCount(); ++y) {
+            for (int x = 0; x < grid.getColCount(); ++x) {
+                int count = 0;
+                for (int dy = -range; dy <= range; ++dy) {
+                    for (int dx = -range; dx <= range; ++dx) {
+                        if (dx == 0 && dy == 0 && !rule.isCenterCounted()) continue;
+                        final int iCell = grid.getI(x + dx, y + dy);
+                        if (iCell != RectangularGridGeometry.OFF_GRID_INDEX) count += cells[iCell];
+                    }
+                }
+                final int iCell = grid.getI(x, y);
+                next[iCell] = (byte) (rule.isLiveNext(cells[iCell] != 0, count) ? 1 : 0);
+            }
+        }
+        return next;
+    }
+}
@@ -0,0 +1,156 @@
+package org.jca;
+
+/**
+ * A Larger than Life rule (after Kellie Evans): a two-state, totalistic rule over the square (Moore) neighborhood of
+ * range r, i.e. the (2r + 1) x (2r + 1) cells centered on a cell. A dead cell is born when its neighborhood's live count
+ * lies in the birth interval, and a live cell survives when the count lies in the survival interval.
+ * <p>
+ * Rules are written in the notation Golly uses: <code>Rr,C0,Mm,Sa..b,Bc..d,NM</code>, where m is 1 if the cell
+ * itself is counted in its neighborhood and 0 if not. For example, Conway's Life is
+ * <code>R1,C0,M0,S2..3,B3..3,NM</code>. Only two states (C0 or C2) and the Moore neighborhood (NM) are supported.
+ *
+ * @author ksdj (coder-hat)
+ */
+public final class LargerThanLifeRule
+{
+    /**
+     * The largest supported range.
+     */
+    public static final int MAX_RANGE = 100;
+
+    /**
+     * Bosco's Rule, whose gliders ("bugs") made Larger than Life known.
+     */
+    public static final LargerThanLifeRule BOSCO = parse("R5,C0,M1,S34..58,B34..45,NM");
+
+    /**
+     * Conway's Life, as a Larger than Life rule.
+     */
+    public static final LargerThanLifeRule CONWAY_LIFE = parse("R1,C0,M0,S2..3,B3..3,NM");
+
+    private final int range;
+    private final boolean isCenterCounted;
+    private final int survivalMin;
+    private final int survivalMax;
+    private final int birthMin;
+    private final int birthMax;
+
+    /**
+     * @param range
+     *            The neighborhood range r, from 1 to {@value #MAX_RANGE}.
+     * @param isCenterCounted
+     *            Whether a cell counts itself in its neighborhood's live count.
+     * @param survivalMin
+     *            The lowest live count at which a live cell survives.
+     * @param survivalMax
+     *            The highest live count at which a live cell survives.
+     * @param birthMin
+     *            The lowest live count at which a dead cell is born.
+     * @param birthMax
+     *            The highest live count at which a dead cell is born.
+     */
+    public LargerThanLifeRule(int range, boolean isCenterCounted, int survivalMin, int survivalMax, int birthMin,
+            int birthMax) {
+        if (range < 1 || range > MAX_RANGE) throw new IllegalArgumentException("range must be in [1, " + MAX_RANGE + "]");
+        this.range = range;
+        this.isCenterCounted = isCenterCounted;
+        this.survivalMin = survivalMin;
+        this.survivalMax = survivalMax;
+        this.birthMin = birthMin;
+        this.birthMax = birthMax;
+    }
+
+    /**
+     * Parses a rule in the notation described {@link LargerThanLifeRule above}; the C and N terms are optional.
+     *
+     * @throws IllegalArgumentException
+     *             If the rule is malformed or unsupported.
+     */
+    public static LargerThanLifeRule parse(String rule) {
+        Integer range = null;
+        Boolean isCenterCounted = null;
+        int[] survival = null;
+        int[] birth = null;
+        for (String term : rule.trim().toUpperCase().split(",")) {
+            if (term.isEmpty()) throw new IllegalArgumentException("Empty term in rule: " + rule);
+            final String value = term.substring(1);
+            try {
+                switch (term.charAt(0)) {
+                case 'R':
+                    range = Integer.parseInt(value);
+                    break;
+                case 'C':
+                    final int stateCount = Integer.parseInt(value);
+                    if (stateCount != 0 && stateCount != 2) {
+                        throw new IllegalArgumentException("Only two-state rules are supported: " + rule);
+                    }
+                    break;
+                case 'M':
+                    isCenterCounted = parseFlag(value, rule);
+                    break;
+                case 'S':
+                    survival = parseInterval(value, rule);
+                    break;
+                case 'B':
+                    birth = parseInterval(value, rule);
+                    break;
+                case 'N':
+                    if (!value.equals("M")) {
+                        throw new IllegalArgumentException("Only the Moore neighborhood (NM) is supported: " + rule);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown term " + term + " in rule: " + rule);
+                }
+            }
+            catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed term " + term + " in rule: " + rule, e);
+            }
+        }
+        if (range == null || isCenterCounted == null || survival == null || birth == null) {
+            throw new IllegalArgumentException("Rule needs R, M, S and B terms: " + rule);
+        }
+        return new LargerThanLifeRule(range, isCenterCounted, survival[0], survival[1], birth[0], birth[1]);
+    }
+
+    private static boolean parseFlag(String value, String rule) {
+        if (value.equals("0")) return false;
+        if (value.equals("1")) return true;
+        throw new IllegalArgumentException("M must be 0 or 1: " + rule);
+    }
+
+    private static int[] parseInterval(String value, String rule) {
+        final int iDots = value.indexOf("..");
+        if (iDots < 0) throw new IllegalArgumentException("Expected an interval a..b: " + rule);
+        return new int[] { Integer.parseInt(value.substring(0, iDots)), Integer.parseInt(value.substring(iDots + 2)) };
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    public boolean isCenterCounted() {
+        return isCenterCounted;
+    }
+
+    /**
+     * @param isLive
+     *            Whether the cell is currently live.
+     * @param liveCount
+     *            The live count of the cell's neighborhood (including the cell itself if {@link #isCenterCounted()}).
+     * @return Whether the cell is live in the next generation.
+     */
+    public boolean isLiveNext(boolean isLive, int liveCount) {
+        return isLive ? (liveCount >= survivalMin && liveCount <= survivalMax)
+                : (liveCount >= birthMin && liveCount <= birthMax);
+    }
+
+    /**
+     * @return The rule in the notation {@link #parse(String)} accepts.
+     */
+    @Override
+    public String toString() {
+        return String.format("R%1$d,C0,M%2$d,S%3$d..%4$d,B%5$d..%6$d,NM", range, isCenterCounted ? 1 : 0, survivalMin,
+                survivalMax, birthMin, birthMax);
+    }
+}
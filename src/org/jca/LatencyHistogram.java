@@ -0,0 +1,147 @@
+package org.jca;
+
+import java.util.Arrays;
+
+/**
+ * A fixed-footprint histogram of non-negative long values (typically durations in nanoseconds), in the style of
+ * HdrHistogram: values are counted in log-linear buckets, each power of two being split into
+ * {@link #SUB_BUCKET_COUNT} equal sub-buckets, so any recorded value can be recovered to within about 3% of its true
+ * value across the whole range of long.
+ * <p>
+ * All storage is allocated up front; {@link #record(long)} does no allocation and no locking, which makes it cheap
+ * enough to call several times per simulation step. A histogram is meant to be written by one thread; reading it from
+ * another thread while it is being written gives approximate results.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class LatencyHistogram
+{
+    private static final int SUB_BUCKET_BITS = 5;
+
+    /**
+     * The number of sub-buckets each power of two is split into.
+     */
+    public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    /**
+     * Values below SUB_BUCKET_COUNT are counted exactly; each higher power of two (up to 2^63) gets
+     * SUB_BUCKET_COUNT buckets of its own.
+     */
+    private static final int BUCKET_COUNT = (Long.SIZE - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final long[] counts = new long[BUCKET_COUNT];
+    private long totalCount;
+    private long totalValue;
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue = Long.MIN_VALUE;
+
+    /**
+     * Counts one occurrence of the specified value.
+     *
+     * @param value
+     *            The value to record. Negative values (e.g. from a clock that stepped backwards) are recorded as 0.
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        ++counts[getBucketIndex(value)];
+        ++totalCount;
+        totalValue += value;
+        if (value < minValue) minValue = value;
+        if (value > maxValue) maxValue = value;
+    }
+
+    /**
+     * Discards all recorded values.
+     */
+    public void reset() {
+        Arrays.fill(counts, 0L);
+        totalCount = 0;
+        totalValue = 0;
+        minValue = Long.MAX_VALUE;
+        maxValue = Long.MIN_VALUE;
+    }
+
+    /**
+     * @return The number of values recorded.
+     */
+    public long getCount() {
+        return totalCount;
+    }
+
+    /**
+     * @return The sum of the values recorded.
+     */
+    public long getTotal() {
+        return totalValue;
+    }
+
+    /**
+     * @return The smallest value recorded, or 0 if none.
+     */
+    public long getMin() {
+        return (totalCount == 0) ? 0L : minValue;
+    }
+
+    /**
+     * @return The largest value recorded, or 0 if none.
+     */
+    public long getMax() {
+        return (totalCount == 0) ? 0L : maxValue;
+    }
+
+    /**
+     * @return The exact mean of the values recorded, or 0 if none.
+     */
+    public double getMean() {
+        return (totalCount == 0) ? 0.0 : (double) totalValue / totalCount;
+    }
+
+    /**
+     * Gets the value at or below which the specified percentage of recorded values fall.
+     *
+     * @param percentile
+     *            The percentile, from 0 to 100.
+     * @return The highest value equivalent (to within the histogram's precision) to the value at the percentile, or 0
+     *         if no values have been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (percentile < 0.0 || percentile > 100.0) throw new IllegalArgumentException("percentile out of range");
+        if (totalCount == 0) return 0L;
+        final long rank = Math.max(1L, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long cumulative = 0;
+        for (int iBucket = 0; iBucket < counts.length; ++iBucket) {
+            cumulative += counts[iBucket];
+            if (cumulative >= rank) {
+                return Math.max(minValue, Math.min(maxValue, getBucketHighestValue(iBucket)));
+            }
+        }
+        return maxValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("{LatencyHistogram Count=%1$d Min=%2$d Mean=%3$.1f P50=%4$d P99=%5$d Max=%6$d}",
+                getCount(), getMin(), getMean(), getValueAtPercentile(50.0), getValueAtPercentile(99.0), getMax());
+    }
+
+    static int getBucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        final int exponent = (Long.SIZE - 1) - Long.numberOfLeadingZeros(value); // >= SUB_BUCKET_BITS
+        final int shift = exponent - SUB_BUCKET_BITS;
+        final int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return ((shift + 1) << SUB_BUCKET_BITS) + subBucket;
+    }
+
+    static long getBucketLowestValue(int iBucket) {
+        if (iBucket < SUB_BUCKET_COUNT) return iBucket;
+        final int shift = (iBucket >>> SUB_BUCKET_BITS) - 1;
+        final long mantissa = (iBucket & (SUB_BUCKET_COUNT - 1)) + SUB_BUCKET_COUNT;
+        return mantissa << shift;
+    }
+
+    static long getBucketHighestValue(int iBucket) {
+        if (iBucket < SUB_BUCKET_COUNT) return iBucket;
+        final int shift = (iBucket >>> SUB_BUCKET_BITS) - 1;
+        return getBucketLowestValue(iBucket) + ((1L << shift) - 1);
+    }
+}
@@ -0,0 +1,65 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LatencyHistogramTest
+{
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testBucketBoundsContainValue() {
+        final long[] values = { 0, 1, 31, 32, 33, 63, 64, 65, 1000, 123456789L, 1L << 40, Long.MAX_VALUE };
+        for (long value : values) {
+            final int iBucket = LatencyHistogram.getBucketIndex(value);
+            final long low = LatencyHistogram.getBucketLowestValue(iBucket);
+            final long high = LatencyHistogram.getBucketHighestValue(iBucket);
+            assertTrue("value " + value + " in [" + low + "," + high + "]", low <= value && value <= high);
+            assertTrue("precision at " + value, (high - low) <= Math.max(0L, low / LatencyHistogram.SUB_BUCKET_COUNT));
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 1000; ++value) {
+            histogram.record(value * 1000);
+        }
+        assertThat("count", histogram.getCount(), equalTo(1000L));
+        assertThat("min", histogram.getMin(), equalTo(1000L));
+        assertThat("max", histogram.getMax(), equalTo(1000000L));
+        assertThat("mean", histogram.getMean(), equalTo(500500.0));
+        assertThat("p100", histogram.getValueAtPercentile(100.0), equalTo(1000000L));
+        assertWithin("p50", 500000L, histogram.getValueAtPercentile(50.0));
+        assertWithin("p99", 990000L, histogram.getValueAtPercentile(99.0));
+
+        histogram.reset();
+        assertThat("count after reset", histogram.getCount(), equalTo(0L));
+        assertThat("p50 after reset", histogram.getValueAtPercentile(50.0), equalTo(0L));
+    }
+
+    private static void assertWithin(String msg, long expect, long actual) {
+        assertTrue(msg + " expect=" + expect + " actual=" + actual,
+                Math.abs(actual - expect) <= expect / LatencyHistogram.SUB_BUCKET_COUNT);
+    }
+}
@@ -0,0 +1,94 @@
+package org.jca;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Polygon;
+
+import javax.swing.JPanel;
+
+/**
+ * Draws the cells of any {@link IGridGeometry} lattice (hexagons, triangles or squares) as filled polygons, colored by
+ * an {@link IGridPaletteProvider}.<br>
+ * Each cell's polygon is computed once, from the geometry's {@link IGridGeometry#getCellOutline(int, double[], double[])
+ * cell outline}, so repainting does no coordinate arithmetic.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class LatticeGridDisplayPanel extends JPanel
+{
+    /**
+     * Default serialization value created by Eclipse
+     */
+    private static final long serialVersionUID = 1L;
+
+    private final int pxCellSepSize = 1;
+    private final int pxCellSize = 12;
+
+    private final IGridGeometry lattice;
+
+    private final IGridPaletteProvider paletteColorist;
+
+    /**
+     * The outline of each cell, in pixels, indexed by linear cell index.
+     */
+    private final Polygon[] cellPolygons;
+
+    /**
+     * The palette's colors, indexed by cell state ordinal.
+     */
+    private final Color[] paletteColors;
+
+    public LatticeGridDisplayPanel(IGridGeometry lattice, IGridPaletteProvider paletteColorist) {
+        this.lattice = lattice;
+        this.paletteColorist = paletteColorist;
+
+        final int[] palette = paletteColorist.getPalette();
+        paletteColors = new Color[palette.length];
+        for (int iState = 0; iState < palette.length; ++iState) {
+            paletteColors[iState] = new Color(palette[iState]);
+        }
+
+        final int vertexCount = lattice.getCellVertexCount();
+        final double[] xs = new double[vertexCount];
+        final double[] ys = new double[vertexCount];
+        final int[] pxs = new int[vertexCount];
+        final int[] pys = new int[vertexCount];
+        cellPolygons = new Polygon[lattice.getCellCount()];
+        int pxTotalWide = 0;
+        int pxTotalHigh = 0;
+        for (int iCell = 0; iCell < cellPolygons.length; ++iCell) {
+            lattice.getCellOutline(iCell, xs, ys);
+            for (int iVertex = 0; iVertex < vertexCount; ++iVertex) {
+                pxs[iVertex] = pxCellSepSize + (int) Math.round(xs[iVertex] * pxCellSize);
+                pys[iVertex] = pxCellSepSize + (int) Math.round(ys[iVertex] * pxCellSize);
+                pxTotalWide = Math.max(pxTotalWide, pxs[iVertex] + pxCellSepSize);
+                pxTotalHigh = Math.max(pxTotalHigh, pys[iVertex] + pxCellSepSize);
+            }
+            cellPolygons[iCell] = new Polygon(pxs, pys, vertexCount);
+        }
+        setPreferredSize(new Dimension(pxTotalWide, pxTotalHigh));
+
+        setBackground(paletteColorist.getBackgroundColor());
+    }
+
+    public IGridGeometry getLattice() {
+        return lattice;
+    }
+
+    /**
+     * Fills each cell's polygon in its state's color, then outlines it in the background color to separate the cells.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        final byte[] states = paletteColorist.getCellStates();
+        final Color background = getBackground();
+        for (int iCell = 0; iCell < cellPolygons.length; ++iCell) {
+            g.setColor(paletteColors[states[iCell]]);
+            g.fillPolygon(cellPolygons[iCell]);
+            g.setColor(background);
+            g.drawPolygon(cellPolygons[iCell]);
+        }
+    }
+}
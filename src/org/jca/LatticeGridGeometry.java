@@ -0,0 +1,113 @@
+package org.jca;
+
+/**
+ * The common basis of the non-rectangular {@link IGridGeometry} implementations: the dimensions, torus flag and
+ * coordinate arithmetic (the same as {@link RectangularGridGeometry}'s), and the lazily computed neighbor table, whose
+ * entries each subclass supplies from the offsets of a cell's neighbors.
+ *
+ * @author ksdj (coder-hat)
+ */
+abstract class LatticeGridGeometry implements IGridGeometry
+{
+    private final int colCount;
+    private final int rowCount;
+    private final boolean isTorus;
+
+    /**
+     * The {@link #getNeighborTable() neighbor table}, or null until it is first requested.
+     */
+    private volatile int[] neighborTable;
+
+    /**
+     * @throws IllegalArgumentException
+     *             If the grid has no cells, or more than {@link Integer#MAX_VALUE}.
+     */
+    protected LatticeGridGeometry(int colCount, int rowCount, boolean isTorus) {
+        if (colCount < 1 || rowCount < 1 || (long) colCount * rowCount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported grid size " + colCount + "x" + rowCount);
+        }
+        this.colCount = colCount;
+        this.rowCount = rowCount;
+        this.isTorus = isTorus;
+    }
+
+    @Override
+    public int getColCount() {
+        return colCount;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public boolean isTorus() {
+        return isTorus;
+    }
+
+    @Override
+    public int getCellCount() {
+        return colCount * rowCount;
+    }
+
+    @Override
+    public int getI(int xCell, int yCell) {
+        if (xCell < 0 || xCell >= colCount || yCell < 0 || yCell >= rowCount) {
+            if (!isTorus) return RectangularGridGeometry.OFF_GRID_INDEX;
+            xCell = RectangularGridGeometry.wrappedModulo(xCell, colCount);
+            yCell = RectangularGridGeometry.wrappedModulo(yCell, rowCount);
+        }
+        return yCell * colCount + xCell;
+    }
+
+    @Override
+    public int getX(int iCell) {
+        return iCell % colCount;
+    }
+
+    @Override
+    public int getY(int iCell) {
+        return iCell / colCount;
+    }
+
+    @Override
+    public int[] getNeighborTable() {
+        int[] table = neighborTable;
+        if (table == null) {
+            synchronized (this) {
+                table = neighborTable;
+                if (table == null) {
+                    final int neighborCount = getNeighborCount();
+                    if (getCellCount() > Integer.MAX_VALUE / neighborCount) {
+                        throw new IllegalStateException("Too many cells for a neighbor table: " + this);
+                    }
+                    table = new int[getCellCount() * neighborCount];
+                    for (int iCell = 0; iCell < getCellCount(); ++iCell) {
+                        final int xCell = getX(iCell);
+                        final int yCell = getY(iCell);
+                        final int[] offsets = getNeighborOffsets(xCell, yCell);
+                        for (int iNeighbor = 0; iNeighbor < neighborCount; ++iNeighbor) {
+                            table[iCell * neighborCount + iNeighbor] = getI(xCell + offsets[2 * iNeighbor],
+                                    yCell + offsets[2 * iNeighbor + 1]);
+                        }
+                    }
+                    neighborTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @return The (dx, dy) column and row offsets of the neighbors of the cell at column xCell, row yCell, as
+     *         {@link #getNeighborCount()} pairs.
+     */
+    protected abstract int[] getNeighborOffsets(int xCell, int yCell);
+
+    @Override
+    public String toString() {
+        return String.format("{%1$s ColCount=%2$s RowCount=%3$s IsTorus=%4$s}", this.getClass().getSimpleName(),
+                colCount, rowCount, isTorus);
+    }
+}
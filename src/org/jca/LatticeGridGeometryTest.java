@@ -0,0 +1,108 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.Arrays;
+
+import org.jca.RectangularGridGeometry.Direction;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LatticeGridGeometryTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRectangularNeighborTable() {
+        for (boolean isTorus : new boolean[] { true, false }) {
+            RectangularGridGeometry grid = new RectangularGridGeometry(5, 4, isTorus);
+            final int[] table = grid.getNeighborTable();
+            for (int iCell = 0; iCell < grid.getCellCount(); ++iCell) {
+                for (Direction d : Direction.values()) {
+                    assertThat(grid + " iCell=" + iCell + " " + d, table[iCell * 8 + d.ordinal()],
+                            equalTo(grid.getAdjacentI(iCell, d)));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testHexNeighbors() {
+        HexGridGeometry hex = new HexGridGeometry(5, 4, false);
+        final int[] table = hex.getNeighborTable();
+        // Even row 2, column 2: the rows above and below are shifted right, so its upper and lower neighbors are in
+        // columns 1 and 2.
+        assertThat(neighborsOf(hex, 2, 2), equalTo(new int[] { hex.getI(2, 1), hex.getI(3, 2), hex.getI(2, 3),
+                hex.getI(1, 3), hex.getI(1, 2), hex.getI(1, 1) }));
+        // Odd row 1, column 2: its upper and lower neighbors are in columns 2 and 3.
+        assertThat(neighborsOf(hex, 2, 1), equalTo(new int[] { hex.getI(3, 0), hex.getI(3, 1), hex.getI(3, 2),
+                hex.getI(2, 2), hex.getI(1, 1), hex.getI(2, 0) }));
+        // Top left corner: only its right and lower right neighbors are on the grid.
+        assertThat(Arrays.copyOfRange(table, 0, 6), equalTo(new int[] { -1, 1, 5, -1, -1, -1 }));
+    }
+
+    @Test
+    public void testTriangularNeighbors() {
+        TriangularGridGeometry tri = new TriangularGridGeometry(8, 4, false, TriangularGridGeometry.Neighborhood.EDGES);
+        // (2, 2) points up, so it shares its base with the cell below; (3, 2) points down, and shares with the cell
+        // above.
+        assertThat(neighborsOf(tri, 2, 2), equalTo(new int[] { tri.getI(1, 2), tri.getI(3, 2), tri.getI(2, 3) }));
+        assertThat(neighborsOf(tri, 3, 2), equalTo(new int[] { tri.getI(2, 2), tri.getI(4, 2), tri.getI(3, 1) }));
+        try {
+            new TriangularGridGeometry(7, 4, true, TriangularGridGeometry.Neighborhood.EDGES);
+            throw new AssertionError("Expected IllegalArgumentException for an odd torus");
+        }
+        catch (IllegalArgumentException e) {
+            // Expected.
+        }
+    }
+
+    @Test
+    public void testNeighborsAreSymmetric() {
+        final IGridGeometry[] lattices = { new HexGridGeometry(7, 6, true), new HexGridGeometry(7, 5, false),
+                new TriangularGridGeometry(10, 6, true, TriangularGridGeometry.Neighborhood.EDGES),
+                new TriangularGridGeometry(10, 6, true, TriangularGridGeometry.Neighborhood.VERTICES),
+                new TriangularGridGeometry(9, 5, false, TriangularGridGeometry.Neighborhood.VERTICES),
+                new RectangularGridGeometry(6, 5, true) };
+        for (IGridGeometry lattice : lattices) {
+            final int[] table = lattice.getNeighborTable();
+            final int neighborCount = lattice.getNeighborCount();
+            for (int iCell = 0; iCell < lattice.getCellCount(); ++iCell) {
+                for (int k = 0; k < neighborCount; ++k) {
+                    final int iNeighbor = table[iCell * neighborCount + k];
+                    if (iNeighbor == RectangularGridGeometry.OFF_GRID_INDEX) continue;
+                    final int[] back = Arrays.copyOfRange(table, iNeighbor * neighborCount,
+                            (iNeighbor + 1) * neighborCount);
+                    final int iSelf = iCell;
+                    assertThat(lattice + " " + iCell + "<->" + iNeighbor, Arrays.stream(back).anyMatch(i -> i == iSelf),
+                            equalTo(true));
+                }
+            }
+        }
+    }
+
+    private static int[] neighborsOf(IGridGeometry lattice, int xCell, int yCell) {
+        final int n = lattice.getNeighborCount();
+        final int iCell = lattice.getI(xCell, yCell);
+        return Arrays.copyOfRange(lattice.getNeighborTable(), iCell * n, (iCell + 1) * n);
+    }
+}
@@ -0,0 +1,255 @@
+package org.jca;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.jca.ConwayLifeEngine.CellState;
+
+/**
+ * A Life-like (two-state, outer totalistic) engine over any {@link IGridGeometry} lattice, such as
+ * {@link HexGridGeometry} or {@link TriangularGridGeometry}.
+ * <p>
+ * The rule is given in B/S notation, listing the live neighbor counts at which a dead cell is born and a live cell
+ * survives: for example "B3/S23" is Conway's Life on a {@link RectangularGridGeometry}, and "B2/S34" a well-known
+ * hexagonal rule. Counts may be 0 to the lattice's {@link IGridGeometry#getNeighborCount() neighbor count}; counts of
+ * 10 or more are written in parentheses, e.g. "B4(10)/S".
+ * <p>
+ * Each step reads neighbors straight from the lattice's precomputed neighbor table, in parallel bands of cells, with no
+ * per-cell coordinate arithmetic. The engine's {@link #getGrid() grid} is the rectangular layout of the lattice's
+ * cells, which is what recorders and runners need; {@link #getLattice()} gives the lattice itself.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class LatticeLifeEngine implements ISimulationEngine
+{
+    private static final byte DEAD = (byte) CellState.DEAD.ordinal();
+    private static final byte LIVE = (byte) CellState.LIVE.ordinal();
+
+    /**
+     * The number of cells in each band of cells that a step processes in parallel.
+     */
+    private static final int BAND_CELLS = 1 << 14;
+
+    private final IGridGeometry lattice;
+
+    private final RectangularGridGeometry grid;
+
+    private final String rule;
+
+    /**
+     * Bit n is set when a dead cell with n live neighbors is born, and when a live cell with n live neighbors survives.
+     */
+    private final int birthMask;
+    private final int survivalMask;
+
+    /**
+     * The {@link CellState} ordinal of each cell, indexed by linear cell index.
+     */
+    private byte[] cells;
+
+    /**
+     * Scratch buffer that receives the next generation during {@link #doSimulationStep()}, then is swapped with
+     * {@link cells}.
+     */
+    private byte[] nextCells;
+
+    private int liveCount;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * @param rule
+     *            The rule, in B/S notation.
+     * @throws IllegalArgumentException
+     *             If the rule is malformed, or has counts greater than the lattice's neighbor count.
+     */
+    public LatticeLifeEngine(IGridGeometry lattice, String rule) {
+        this.lattice = lattice;
+        grid = new RectangularGridGeometry(lattice.getColCount(), lattice.getRowCount(), lattice.isTorus());
+        final String[] parts = rule.trim().toUpperCase().split("/");
+        if (parts.length != 2 || !parts[0].startsWith("B") || !parts[1].startsWith("S")) {
+            throw new IllegalArgumentException("Expected a rule like B3/S23: " + rule);
+        }
+        birthMask = parseCounts(parts[0].substring(1), rule, lattice.getNeighborCount());
+        survivalMask = parseCounts(parts[1].substring(1), rule, lattice.getNeighborCount());
+        this.rule = "B" + parts[0].substring(1) + "/S" + parts[1].substring(1);
+        cells = new byte[lattice.getCellCount()];
+        nextCells = new byte[lattice.getCellCount()];
+    }
+
+    /**
+     * @return The mask with bit n set for each count n listed in counts.
+     */
+    static int parseCounts(String counts, String rule, int maxCount) {
+        int mask = 0;
+        for (int iChar = 0; iChar < counts.length(); ++iChar) {
+            int count;
+            if (counts.charAt(iChar) == '(') {
+                final int iClose = counts.indexOf(')', iChar);
+                if (iClose < 0) throw new IllegalArgumentException("Unclosed count in rule: " + rule);
+                try {
+                    count = Integer.parseInt(counts.substring(iChar + 1, iClose));
+                }
+                catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("Malformed count in rule: " + rule, e);
+                }
+                iChar = iClose;
+            } else {
+                count = Character.digit(counts.charAt(iChar), 10);
+            }
+            if (count < 0 || count > maxCount) {
+                throw new IllegalArgumentException("Counts must be in [0, " + maxCount + "]: " + rule);
+            }
+            mask |= 1 << count;
+        }
+        return mask;
+    }
+
+    /**
+     * @return The rectangular layout of the {@link #getLattice() lattice}'s cells.
+     */
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    public IGridGeometry getLattice() {
+        return lattice;
+    }
+
+    public String getRule() {
+        return rule;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of cells currently in {@link CellState#LIVE}.
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public CellState getState(int iCell) {
+        return (cells[iCell] == LIVE) ? CellState.LIVE : CellState.DEAD;
+    }
+
+    public void setState(int iCell, CellState newState) {
+        final byte state = (byte) newState.ordinal();
+        if (cells[iCell] != state) {
+            cells[iCell] = state;
+            liveCount += (state == LIVE) ? 1 : -1;
+        }
+    }
+
+    /**
+     * Gets the engine's cell buffer: one {@link CellState} ordinal per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, replaced by the next step.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return cells;
+    }
+
+    /**
+     * Resets the grid with a random initial state of {@link ConwayLifeEngine#DEFAULT_LIVE_DENSITY} live cells.
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, ConwayLifeEngine.DEFAULT_LIVE_DENSITY);
+    }
+
+    /**
+     * Resets the grid with a random initial state, and the generation to 0.
+     *
+     * @param density
+     *            The fraction of cells to make live, in [0, 1].
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        final int densityBits = ConwayLifeEngine.toDensityBits(density);
+        final SplittableRandom random = new SplittableRandom(seed);
+        liveCount = 0;
+        for (int iWord = 0; iWord < cells.length; iWord += 64) {
+            long word = ConwayLifeEngine.randomWord(random, densityBits);
+            for (int iCell = iWord; iCell < Math.min(iWord + 64, cells.length); ++iCell, word >>>= 1) {
+                cells[iCell] = ((word & 1L) != 0) ? LIVE : DEAD;
+                liveCount += cells[iCell];
+            }
+        }
+        generation = 0;
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int cellCount = cells.length;
+        final int bandCount = (cellCount + BAND_CELLS - 1) / BAND_CELLS;
+        final long[] bandResults = new long[bandCount];
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> bandResults[iBand] = stepBand(iBand * BAND_CELLS,
+                Math.min((iBand + 1) * BAND_CELLS, cellCount)));
+        int births = 0;
+        int deaths = 0;
+        for (long bandResult : bandResults) {
+            births += (int) (bandResult >>> 32);
+            deaths += (int) bandResult;
+        }
+        byte[] swap = cells;
+        cells = nextCells;
+        nextCells = swap;
+        liveCount += births - deaths;
+        ++generation;
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, births + deaths, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    /**
+     * Computes cells [iFirst, iEnd) of the next generation into {@link nextCells}.
+     *
+     * @return The band's births in the high 32 bits, and deaths in the low 32 bits.
+     */
+    private long stepBand(int iFirst, int iEnd) {
+        final int[] neighbors = lattice.getNeighborTable();
+        final int neighborCount = lattice.getNeighborCount();
+        final boolean isTorus = lattice.isTorus();
+        int births = 0;
+        int deaths = 0;
+        for (int iCell = iFirst; iCell < iEnd; ++iCell) {
+            final int iNeighbors = iCell * neighborCount;
+            int count = 0;
+            if (isTorus) {
+                for (int k = 0; k < neighborCount; ++k) {
+                    count += cells[neighbors[iNeighbors + k]];
+                }
+            } else {
+                for (int k = 0; k < neighborCount; ++k) {
+                    final int iNeighbor = neighbors[iNeighbors + k];
+                    if (iNeighbor != RectangularGridGeometry.OFF_GRID_INDEX) count += cells[iNeighbor];
+                }
+            }
+            final byte cur = cells[iCell];
+            final byte next = ((((cur == LIVE) ? survivalMask : birthMask) >>> count) & 1) != 0 ? LIVE : DEAD;
+            nextCells[iCell] = next;
+            if (next != cur) {
+                if (next == LIVE) ++births; else ++deaths;
+            }
+        }
+        return ((long) births << 32) | deaths;
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
@@ -0,0 +1,71 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.jca.ConwayLifeEngine.CellState;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LatticeLifeEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRectangularB3S23AgreesWithConwayLifeEngine() {
+        for (boolean isTorus : new boolean[] { true, false }) {
+            ConwayLifeEngine life = new ConwayLifeEngine(150, 130, isTorus);
+            LatticeLifeEngine lattice = new LatticeLifeEngine(life.getGrid(), "B3/S23");
+            life.reset(29L);
+            for (int iCell = 0; iCell < life.getGrid().getCellCount(); ++iCell) {
+                lattice.setState(iCell, life.getState(iCell));
+            }
+            for (int iStep = 0; iStep < 20; ++iStep) {
+                life.doSimulationStep();
+                lattice.doSimulationStep();
+                assertArrayEquals("torus=" + isTorus + " iStep=" + iStep, life.getCellStates(),
+                        lattice.getCellStates());
+                assertThat("live count", lattice.getLiveCount(), equalTo(life.getLiveCount()));
+            }
+        }
+    }
+
+    @Test
+    public void testHexB2Birth() {
+        // On a bounded hex grid, two cells sharing a neighbor pair are born into both common neighbors, then die.
+        HexGridGeometry hex = new HexGridGeometry(6, 6, false);
+        LatticeLifeEngine engine = new LatticeLifeEngine(hex, "B2/S34");
+        engine.setState(hex.getI(2, 2), CellState.LIVE);
+        engine.setState(hex.getI(3, 2), CellState.LIVE);
+        engine.doSimulationStep();
+        // (2,2) and (3,2) are in an even row; their common neighbors are (2,1) above and (2,3) below.
+        assertThat(engine.getState(hex.getI(2, 1)), equalTo(CellState.LIVE));
+        assertThat(engine.getState(hex.getI(2, 3)), equalTo(CellState.LIVE));
+        assertThat(engine.getState(hex.getI(2, 2)), equalTo(CellState.DEAD));
+        assertThat(engine.getLiveCount(), equalTo(2));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRuleCountBeyondNeighborhood() {
+        new LatticeLifeEngine(new HexGridGeometry(4, 4, true), "B7/S23");
+    }
+}
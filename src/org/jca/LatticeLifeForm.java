@@ -0,0 +1,184 @@
+package org.jca;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+
+
+/**
+ * Provides a cell color palette for {@link LatticeLifeEngine} {@link ConwayLifeEngine.CellState CellState} values,
+ * indexed by state ordinal.
+ *
+ * @author ksdj (coder-hat)
+ */
+final class LatticeLifeColorist implements IGridPaletteProvider
+{
+    private static final int[] cellPalette = new int[ConwayLifeEngine.CellState.values().length];
+    static {
+        cellPalette[ConwayLifeEngine.CellState.DEAD.ordinal()] = Color.white.getRGB();
+        cellPalette[ConwayLifeEngine.CellState.LIVE.ordinal()] = Color.green.getRGB();
+    }
+
+    private LatticeLifeEngine simEngine;
+
+    public LatticeLifeColorist(LatticeLifeEngine simEngine) {
+        this.simEngine = simEngine;
+    }
+
+    @Override
+    public int[] getPalette() {
+        return cellPalette;
+    }
+
+    @Override
+    public byte[] getCellStates() {
+        return simEngine.getCellStates();
+    }
+
+    @Override
+    public Color getBackgroundColor() {
+        return Color.lightGray;
+    }
+}
+
+
+public class LatticeLifeForm extends JFrame
+{
+    /**
+     * Default serialization ID added via Eclipse
+     */
+    private static final long serialVersionUID = 1L;
+
+    private LatticeLifeEngine simEngine;
+
+    private SimulationRunner simEngineRunner;
+
+    private JLabel lblStatus;
+    private String fmtStatus;
+
+    private LatticeGridDisplayPanel pnlGrid;
+
+    private JPanel pnlButtons;
+
+    private JButton btnStep;
+    private JButton btnStart;
+    private JButton btnStop;
+    private JButton btnReset;
+
+
+    public LatticeLifeForm(LatticeLifeEngine simEngine) {
+        this.simEngine = simEngine;
+
+        fmtStatus = "Generation: %1$s  Live Cells Count: %2$s";
+
+        lblStatus = new JLabel();
+        // Create padding around label text.
+        // Credit due to Andre L. S.'s blog entry, "Inserting padding into a JLabel"
+        // at:
+        // http://www.andrels.com/wp-en_US/2009/08/inserting-padding-into-a-jlabel/
+        lblStatus.setBorder(BorderFactory.createEmptyBorder(5, 3, 3, 3));
+        lblStatus.setText(makeStatusText());
+
+        pnlGrid = new LatticeGridDisplayPanel(simEngine.getLattice(), new LatticeLifeColorist(simEngine));
+
+        btnStep = new JButton("STEP");
+        btnStep.addActionListener(new StepSimulatorAction());
+
+        btnStart = new JButton("START");
+        btnStart.addActionListener(new RunSimulatorAction());
+
+        btnStop = new JButton("STOP");
+        btnStop.addActionListener(new StopSimulatorAction());
+
+        btnReset = new JButton("RESET");
+        btnReset.addActionListener(new ResetSimulatorAction());
+
+        pnlButtons = new JPanel();
+        pnlButtons.add(btnStep);
+        pnlButtons.add(btnStart);
+        pnlButtons.add(btnStop);
+        pnlButtons.add(btnReset);
+
+        this.add(lblStatus, BorderLayout.NORTH);
+        this.add(pnlGrid, BorderLayout.CENTER);
+        this.add(pnlButtons, BorderLayout.SOUTH);
+
+        this.setTitle(String.format("Life %1$s on %2$s", simEngine.getRule(),
+                simEngine.getLattice().getClass().getSimpleName()));
+    }
+
+    private String makeStatusText(){
+        return String.format(fmtStatus, simEngine.getGeneration(), simEngine.getLiveCount());
+    }
+
+    private void showRunnerProgress() {
+        pnlGrid.repaint();
+        lblStatus.setText(makeStatusText());
+    }
+
+    private void onRunnerDone() {
+        btnStep.setEnabled(true);
+        btnStart.setEnabled(true);
+        btnStop.setEnabled(false);
+        btnReset.setEnabled(true);
+    }
+
+    //----- Inner classes
+
+    private class StepSimulatorAction implements ActionListener
+    {
+        @Override public void actionPerformed(ActionEvent e) {
+            simEngine.doSimulationStep();
+            lblStatus.setText(makeStatusText());
+            pnlGrid.repaint();
+        }
+    }
+
+    private class RunSimulatorAction implements ActionListener
+    {
+        @Override public void actionPerformed(ActionEvent e) {
+            try {
+                simEngineRunner = new SimulationRunner(simEngine, 15, null, LatticeLifeForm.this::showRunnerProgress,
+                        LatticeLifeForm.this::onRunnerDone);
+                simEngineRunner.execute();
+
+                btnStep.setEnabled(false);
+                btnStart.setEnabled(false);
+                btnStop.setEnabled(true);
+                btnReset.setEnabled(false);
+            }
+            catch (Exception ex) {
+                btnStep.setEnabled(true);
+                btnStart.setEnabled(true);
+                btnStop.setEnabled(false);
+                btnReset.setEnabled(true);
+            }
+        }
+    }
+
+    private class StopSimulatorAction implements ActionListener
+    {
+        @Override public void actionPerformed(ActionEvent e) {
+            if (simEngineRunner != null) {
+                simEngineRunner.cancel(true);
+            }
+        }
+    }
+
+    private class ResetSimulatorAction implements ActionListener
+    {
+        @Override public void actionPerformed(ActionEvent e) {
+            simEngine.reset(System.nanoTime());
+            lblStatus.setText(makeStatusText());
+            pnlGrid.repaint();
+        }
+    }
+
+}
@@ -0,0 +1,30 @@
+package org.jca;
+
+import javax.swing.JFrame;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs a {@link LatticeLifeForm}: with argument "tri", Bays' B4/S456 rule on a {@link TriangularGridGeometry} (12-cell
+ * neighborhood); otherwise B2/S34 on a {@link HexGridGeometry}.
+ */
+public class LatticeLifeSimulator
+{
+    public static void main(String[] args) {
+        final boolean isTriangular = args.length > 0 && args[0].equals("tri");
+        LatticeLifeEngine simEngine = isTriangular
+                ? new LatticeLifeEngine(new TriangularGridGeometry(120, 60, true,
+                        TriangularGridGeometry.Neighborhood.VERTICES), "B4/S456")
+                : new LatticeLifeEngine(new HexGridGeometry(70, 60, true), "B2/S34");
+        simEngine.reset(System.nanoTime(), 0.3);
+        LatticeLifeForm simForm = new LatticeLifeForm(simEngine);
+        simForm.setResizable(false);
+        simForm.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        simForm.pack();
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                simForm.setVisible(true);
+            }
+        });
+    }
+}
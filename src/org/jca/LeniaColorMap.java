@@ -0,0 +1,56 @@
+package org.jca;
+
+import java.awt.Color;
+
+/**
+ * Colors a {@link LeniaEngine}'s quantized field with a continuous color map, from near-black through purple and red
+ * to pale yellow (after matplotlib's "magma"), as an {@link IGridPaletteProvider} for the
+ * {@link RectangularGridDisplayPanel}.
+ *
+ * @author ksdj (coder-hat)
+ */
+public final class LeniaColorMap implements IGridPaletteProvider
+{
+    /**
+     * The color map's stops, evenly spaced from level 0 to the top level, as RGB values; levels between stops are
+     * interpolated linearly.
+     */
+    private static final int[] STOPS = { 0x000004, 0x3b0f70, 0x8c2981, 0xde4968, 0xfe9f6d, 0xfcfdbf };
+
+    private static final int[] levelPalette = new int[LeniaEngine.LEVEL_COUNT];
+    static {
+        for (int level = 0; level < levelPalette.length; ++level) {
+            final double position = (double) level / (levelPalette.length - 1) * (STOPS.length - 1);
+            final int iStop = Math.min((int) position, STOPS.length - 2);
+            final double fraction = position - iStop;
+            int rgb = 0;
+            for (int shift = 16; shift >= 0; shift -= 8) {
+                final int from = (STOPS[iStop] >>> shift) & 0xFF;
+                final int to = (STOPS[iStop + 1] >>> shift) & 0xFF;
+                rgb |= (int) Math.round(from + fraction * (to - from)) << shift;
+            }
+            levelPalette[level] = 0xFF000000 | rgb;
+        }
+    }
+
+    private final LeniaEngine simEngine;
+
+    public LeniaColorMap(LeniaEngine simEngine) {
+        this.simEngine = simEngine;
+    }
+
+    @Override
+    public int[] getPalette() {
+        return levelPalette;
+    }
+
+    @Override
+    public byte[] getCellStates() {
+        return simEngine.getCellStates();
+    }
+
+    @Override
+    public Color getBackgroundColor() {
+        return Color.darkGray;
+    }
+}
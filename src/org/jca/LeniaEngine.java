@@ -0,0 +1,306 @@
+package org.jca;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * A Lenia engine: a continuous cellular automaton whose cells hold values in [0, 1], updated each step by
+ * <pre>A' = clip(A + dt * G(K * A), 0, 1)</pre>
+ * where K * A is the convolution of the field with a smooth, ring-shaped kernel of radius R (normalized to sum to 1),
+ * and G(u) = 2 exp(-(u - mu)^2 / (2 sigma^2)) - 1 is the growth mapping. The defaults (R = 13, mu = 0.15, sigma =
+ * 0.015, dt = 0.1) are those of Bert Chan's Orbium.
+ * <p>
+ * The convolution is computed with {@link Fft2D}: the kernel's transform is computed once, then each step transforms
+ * the field, multiplies the transforms, and transforms back, so a step costs O(N log N) whatever the kernel's radius,
+ * rather than O(N R^2). The complex buffers are reused across steps. On a torus the transforms are the size of the grid,
+ * and the convolution wraps around it; on a bounded grid the field is zero-padded by R cells (to power-of-two
+ * dimensions), so cells off the grid count as 0.
+ * <p>
+ * For display and recording, {@link #getCellStates()} quantizes the field into {@link #LEVEL_COUNT} levels, from 0
+ * (for 0) to {@link #LEVEL_COUNT} - 1 (for 1); {@link LeniaColorMap} colors them. A cell is counted as live when its
+ * level is not 0, and the step metrics count cells becoming live (births) or not live (deaths), and cells whose level
+ * changed.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class LeniaEngine implements ISimulationEngine
+{
+    /**
+     * The number of quantized levels of {@link #getCellStates()}.
+     */
+    public static final int LEVEL_COUNT = 128;
+
+    public static final int DEFAULT_RADIUS = 13;
+    public static final double DEFAULT_MU = 0.15;
+    public static final double DEFAULT_SIGMA = 0.015;
+    public static final double DEFAULT_DT = 0.1;
+
+    /**
+     * The fraction of cells that {@link #reset(long)} fills with random values.
+     */
+    public static final double DEFAULT_FILL_DENSITY = 0.50;
+
+    private final RectangularGridGeometry grid;
+
+    private final int radius;
+    private final double mu;
+    private final double sigma;
+    private final double dt;
+
+    /**
+     * The field, one value per grid cell, indexed by linear cell index.
+     */
+    private final double[] field;
+
+    /**
+     * The quantized field, as returned by {@link #getCellStates()}.
+     */
+    private byte[] levels;
+    private byte[] nextLevels;
+
+    private final Fft2D fft;
+
+    /**
+     * The kernel's transform, and the complex buffers the field is transformed in.
+     */
+    private final double[] kernelRe;
+    private final double[] kernelIm;
+    private final double[] bufferRe;
+    private final double[] bufferIm;
+
+    private int liveCount;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * Constructs an engine with the default (Orbium) parameters, whose field is all 0.
+     */
+    public LeniaEngine(int colCount, int rowCount, boolean isTorus) {
+        this(colCount, rowCount, isTorus, DEFAULT_RADIUS, DEFAULT_MU, DEFAULT_SIGMA, DEFAULT_DT);
+    }
+
+    /**
+     * @param radius
+     *            The kernel radius R, in cells.
+     * @param mu
+     *            The growth mapping's center.
+     * @param sigma
+     *            The growth mapping's width.
+     * @param dt
+     *            The time step.
+     */
+    public LeniaEngine(int colCount, int rowCount, boolean isTorus, int radius, double mu, double sigma, double dt) {
+        if (radius < 1) throw new IllegalArgumentException("radius must be positive");
+        if (!(sigma > 0) || !(dt > 0)) throw new IllegalArgumentException("sigma and dt must be positive");
+        grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        this.radius = radius;
+        this.mu = mu;
+        this.sigma = sigma;
+        this.dt = dt;
+        field = new double[grid.getCellCount()];
+        levels = new byte[grid.getCellCount()];
+        nextLevels = new byte[grid.getCellCount()];
+        fft = isTorus ? new Fft2D(colCount, rowCount)
+                : new Fft2D(Integer.highestOneBit(2 * (colCount + radius) - 1),
+                        Integer.highestOneBit(2 * (rowCount + radius) - 1));
+        final int fftSize = fft.getWidth() * fft.getHeight();
+        kernelRe = new double[fftSize];
+        kernelIm = new double[fftSize];
+        bufferRe = new double[fftSize];
+        bufferIm = new double[fftSize];
+        fillKernel();
+        fft.transform(kernelRe, kernelIm, false);
+    }
+
+    /**
+     * Fills {@link kernelRe} with the kernel, centered on (0, 0) and wrapped around the transform's edges, so the
+     * convolution sums each cell's neighbors at offsets up to R.
+     */
+    private void fillKernel() {
+        final int width = fft.getWidth();
+        final int height = fft.getHeight();
+        double sum = 0;
+        for (int dy = -radius; dy <= radius; ++dy) {
+            for (int dx = -radius; dx <= radius; ++dx) {
+                final double weight = getKernelWeight(Math.sqrt(dx * dx + dy * dy) / radius);
+                kernelRe[Math.floorMod(dy, height) * width + Math.floorMod(dx, width)] += weight;
+                sum += weight;
+            }
+        }
+        for (int i = 0; i < kernelRe.length; ++i) {
+            kernelRe[i] /= sum;
+        }
+    }
+
+    /**
+     * @return The kernel's weight at distance r (in units of R) from its center: a smooth bump, exp(4 - 1 / (r (1 -
+     *         r))), peaking at r = 1/2 and 0 outside (0, 1).
+     */
+    static double getKernelWeight(double r) {
+        return (r > 0 && r < 1) ? Math.exp(4 - 1 / (r * (1 - r))) : 0;
+    }
+
+    /**
+     * @return The growth mapping G(u).
+     */
+    private double getGrowth(double u) {
+        final double d = (u - mu) / sigma;
+        return 2 * Math.exp(-0.5 * d * d) - 1;
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * @return The number of cells whose quantized level is not 0.
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    /**
+     * Gets the engine's field: one value in [0, 1] per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, overwritten by the next step; after writing to it, call
+     * {@link #setField(double[])} (with it) to bring the quantized levels up to date.
+     */
+    public double[] getField() {
+        return field;
+    }
+
+    /**
+     * Resets the field to the specified values, clipped to [0, 1], and the generation to 0.
+     */
+    public void setField(double[] values) {
+        if (values.length != field.length) throw new IllegalArgumentException("Expected " + field.length + " values");
+        for (int iCell = 0; iCell < field.length; ++iCell) {
+            field[iCell] = Math.min(1.0, Math.max(0.0, values[iCell]));
+        }
+        liveCount = 0;
+        for (int iCell = 0; iCell < field.length; ++iCell) {
+            levels[iCell] = toLevel(field[iCell]);
+            if (levels[iCell] != 0) ++liveCount;
+        }
+        generation = 0;
+    }
+
+    /**
+     * Gets the engine's quantized field: one level in [0, {@link #LEVEL_COUNT}) per cell, indexed by linear cell
+     * index.<br>
+     * The returned array is the engine's own storage, replaced by the next step.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return levels;
+    }
+
+    private static byte toLevel(double value) {
+        return (byte) Math.round(value * (LEVEL_COUNT - 1));
+    }
+
+    /**
+     * Resets the field with {@link #DEFAULT_FILL_DENSITY} of the cells given uniformly random values.
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, DEFAULT_FILL_DENSITY);
+    }
+
+    /**
+     * Resets the field, and the generation to 0.
+     *
+     * @param density
+     *            The fraction of cells to give uniformly random values in [0, 1]; the rest are 0.
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        final SplittableRandom random = new SplittableRandom(seed);
+        final double[] values = new double[field.length];
+        for (int iCell = 0; iCell < values.length; ++iCell) {
+            values[iCell] = (random.nextDouble() < density) ? random.nextDouble() : 0.0;
+        }
+        setField(values);
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final int width = fft.getWidth();
+        Arrays.fill(bufferRe, 0.0);
+        Arrays.fill(bufferIm, 0.0);
+        for (int y = 0; y < rowCount; ++y) {
+            System.arraycopy(field, y * colCount, bufferRe, y * width, colCount);
+        }
+        fft.transform(bufferRe, bufferIm, false);
+        IntStream.range(0, fft.getHeight()).parallel().forEach(y -> {
+            for (int i = y * width; i < (y + 1) * width; ++i) {
+                final double re = bufferRe[i] * kernelRe[i] - bufferIm[i] * kernelIm[i];
+                bufferIm[i] = bufferRe[i] * kernelIm[i] + bufferIm[i] * kernelRe[i];
+                bufferRe[i] = re;
+            }
+        });
+        fft.transform(bufferRe, bufferIm, true);
+        final int[] rowResults = new int[3 * rowCount];
+        IntStream.range(0, rowCount).parallel().forEach(y -> {
+            int births = 0;
+            int deaths = 0;
+            int changed = 0;
+            for (int x = 0; x < colCount; ++x) {
+                final int iCell = y * colCount + x;
+                final double value = field[iCell] + dt * getGrowth(bufferRe[y * width + x]);
+                field[iCell] = Math.min(1.0, Math.max(0.0, value));
+                final byte level = toLevel(field[iCell]);
+                nextLevels[iCell] = level;
+                if (level != levels[iCell]) {
+                    ++changed;
+                    if (levels[iCell] == 0) ++births;
+                    else if (level == 0) ++deaths;
+                }
+            }
+            rowResults[3 * y] = births;
+            rowResults[3 * y + 1] = deaths;
+            rowResults[3 * y + 2] = changed;
+        });
+        int births = 0;
+        int deaths = 0;
+        int changed = 0;
+        for (int y = 0; y < rowCount; ++y) {
+            births += rowResults[3 * y];
+            deaths += rowResults[3 * y + 1];
+            changed += rowResults[3 * y + 2];
+        }
+        byte[] swap = levels;
+        levels = nextLevels;
+        nextLevels = swap;
+        liveCount += births - deaths;
+        ++generation;
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, changed, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
@@ -0,0 +1,103 @@
+package org.jca;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LeniaEngineTest
+{
+    private static final double EPSILON = 1e-9;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testFftAgreesWithDft() {
+        // Power-of-two lengths use radix 2; the others Bluestein.
+        for (int n : new int[] { 1, 2, 3, 5, 12, 16, 100 }) {
+            final double[] re = new double[n];
+            final double[] im = new double[n];
+            for (int j = 0; j < n; ++j) {
+                re[j] = Math.sin(j * 0.7) + j % 3;
+                im[j] = Math.cos(j * 1.3);
+            }
+            final double[] fftRe = re.clone();
+            final double[] fftIm = im.clone();
+            new Fft(n).transform(fftRe, fftIm, false);
+            for (int k = 0; k < n; ++k) {
+                double sumRe = 0;
+                double sumIm = 0;
+                for (int j = 0; j < n; ++j) {
+                    final double angle = -2 * Math.PI * ((long) j * k % n) / n;
+                    sumRe += re[j] * Math.cos(angle) - im[j] * Math.sin(angle);
+                    sumIm += re[j] * Math.sin(angle) + im[j] * Math.cos(angle);
+                }
+                assertEquals("n=" + n + " k=" + k + " re", sumRe, fftRe[k], EPSILON * n);
+                assertEquals("n=" + n + " k=" + k + " im", sumIm, fftIm[k], EPSILON * n);
+            }
+            new Fft(n).transform(fftRe, fftIm, true);
+            for (int j = 0; j < n; ++j) {
+                assertEquals("n=" + n + " j=" + j + " inverse", re[j], fftRe[j], EPSILON * n);
+            }
+        }
+    }
+
+    @Test
+    public void testStepAgreesWithDirectConvolution() {
+        // Includes a torus smaller than the kernel, whose offsets wrap more than once.
+        final int[][] sizes = { { 16, 12 }, { 20, 15 }, { 7, 9 } };
+        final int radius = 5;
+        final double mu = 0.2;
+        final double sigma = 0.05;
+        final double dt = 0.2;
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                LeniaEngine engine = new LeniaEngine(size[0], size[1], isTorus, radius, mu, sigma, dt);
+                engine.reset(size[0] * 100L + size[1], 0.6);
+                final RectangularGridGeometry grid = engine.getGrid();
+                double kernelSum = 0;
+                for (int dy = -radius; dy <= radius; ++dy) {
+                    for (int dx = -radius; dx <= radius; ++dx) {
+                        kernelSum += LeniaEngine.getKernelWeight(Math.sqrt(dx * dx + dy * dy) / radius);
+                    }
+                }
+                for (int iStep = 0; iStep < 3; ++iStep) {
+                    final double[] field = engine.getField().clone();
+                    engine.doSimulationStep();
+                    for (int iCell = 0; iCell < field.length; ++iCell) {
+                        double u = 0;
+                        for (int dy = -radius; dy <= radius; ++dy) {
+                            for (int dx = -radius; dx <= radius; ++dx) {
+                                final int iAdj = grid.getI(grid.getX(iCell) + dx, grid.getY(iCell) + dy);
+                                if (iAdj == RectangularGridGeometry.OFF_GRID_INDEX) continue;
+                                u += field[iAdj] * LeniaEngine.getKernelWeight(Math.sqrt(dx * dx + dy * dy) / radius);
+                            }
+                        }
+                        u /= kernelSum;
+                        final double growth = 2 * Math.exp(-0.5 * Math.pow((u - mu) / sigma, 2)) - 1;
+                        final double expected = Math.min(1, Math.max(0, field[iCell] + dt * growth));
+                        assertEquals(grid + " iStep=" + iStep + " iCell=" + iCell, expected, engine.getField()[iCell],
+                                EPSILON);
+                    }
+                }
+            }
+        }
+    }
+}
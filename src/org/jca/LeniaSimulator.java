@@ -0,0 +1,40 @@
+package org.jca;
+
+import java.awt.BorderLayout;
+
+import javax.swing.JFrame;
+import javax.swing.JLabel;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs a {@link LeniaEngine} with the default (Orbium) parameters on a torus, shown with a {@link LeniaColorMap} in a
+ * {@link RectangularGridDisplayPanel}, until the window is closed.
+ */
+public class LeniaSimulator
+{
+    public static void main(String[] args) {
+        LeniaEngine simEngine = new LeniaEngine(96, 72, true);
+        simEngine.reset(System.nanoTime(), 0.3);
+        RectangularGridDisplayPanel pnlGrid = new RectangularGridDisplayPanel(simEngine.getGrid(),
+                new LeniaColorMap(simEngine));
+        JLabel lblStatus = new JLabel(" ");
+        JFrame simForm = new JFrame("Lenia");
+        simForm.add(lblStatus, BorderLayout.NORTH);
+        simForm.add(pnlGrid, BorderLayout.CENTER);
+        simForm.setResizable(false);
+        simForm.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        simForm.pack();
+        SimulationRunner simEngineRunner = new SimulationRunner(simEngine, 15, null, () -> {
+            pnlGrid.repaint();
+            lblStatus.setText(String.format("Generation: %1$s  Live Cells Count: %2$s", simEngine.getGeneration(),
+                    simEngine.getLiveCount()));
+        }, null);
+        SwingUtilities.invokeLater(new Runnable() {
+            @Override
+            public void run() {
+                simForm.setVisible(true);
+                simEngineRunner.execute();
+            }
+        });
+    }
+}
@@ -0,0 +1,521 @@
+package org.jca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import org.jca.ConwayLifeEngine.CellState;
+
+/**
+ * A census of the objects on a Life grid: its connected clusters of live cells (under 8-connectivity, wrapping around
+ * the edges of a torus), counted by shape. Shapes are compared in a canonical orientation, the least of the 8 rotations
+ * and reflections of the object, so for example every orientation of a boat counts as the same shape. Meant to be
+ * taken once a run has stabilized (see {@link ConwayLifeEngine#runUntilCycle(long)}), to classify what a soup settled
+ * into.
+ * <p>
+ * Objects are clusters of touching cells, so an oscillator's phases count as different shapes, and objects that only
+ * make sense together (a pseudo still life, or the parts of a glider gun) count separately if their cells do not touch.
+ * <p>
+ * The census is taken over horizontal runs of live cells rather than cells, which keeps its working storage
+ * proportional to the live population. Runs are found, and joined into clusters with a union-find, in parallel bands of
+ * rows; only the seams between bands (and around the torus) are joined afterwards. Clusters are then canonicalized in
+ * parallel, and counted by the 64-bit hash of their canonical form (with equality checked on the form itself).
+ *
+ * @author ksdj (coder-hat)
+ */
+public class LifeObjectCensus
+{
+    private static final byte LIVE = (byte) CellState.LIVE.ordinal();
+
+    /**
+     * The approximate number of cells in each band of rows that runs are found and joined in, in parallel.
+     */
+    private static final int BAND_CELLS = 1 << 16;
+
+    /**
+     * The shape of one object, in canonical orientation: a width x height bitmap of its cells, with no empty border.
+     * Shapes are immutable, and equal exactly when their canonical forms are.
+     */
+    public static final class Shape
+    {
+        private final int width;
+        private final int height;
+        private final int cellCount;
+
+        /**
+         * The bitmap, bit (y * width + x) being cell (x, y).
+         */
+        private final long[] bits;
+
+        private final long hash;
+
+        private Shape(int width, int height, int cellCount, long[] bits) {
+            this.width = width;
+            this.height = height;
+            this.cellCount = cellCount;
+            this.bits = bits;
+            long h = mix(((long) width << 32) | height);
+            for (long word : bits) {
+                h = mix(h ^ word);
+            }
+            hash = h;
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        public int getHeight() {
+            return height;
+        }
+
+        /**
+         * @return The number of live cells in the object.
+         */
+        public int getCellCount() {
+            return cellCount;
+        }
+
+        public boolean isLive(int x, int y) {
+            final int bit = y * width + x;
+            return (bits[bit >>> 6] & (1L << bit)) != 0;
+        }
+
+        /**
+         * @return The 64-bit hash of the canonical form, which the census counts shapes by.
+         */
+        public long getHash() {
+            return hash;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (!(obj instanceof Shape)) return false;
+            final Shape other = (Shape) obj;
+            return hash == other.hash && width == other.width && height == other.height
+                    && Arrays.equals(bits, other.bits);
+        }
+
+        /**
+         * @return The canonical form as an RLE pattern body, such as "2o$2o!" for a block.
+         */
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder();
+            for (int y = 0; y < height; ++y) {
+                if (y > 0) sb.append('$');
+                int x = 0;
+                while (x < width) {
+                    final boolean isLive = isLive(x, y);
+                    int runEnd = x + 1;
+                    while (runEnd < width && isLive(runEnd, y) == isLive) ++runEnd;
+                    // Dead cells at the end of a row are implied.
+                    if (isLive || runEnd < width) {
+                        if (runEnd - x > 1) sb.append(runEnd - x);
+                        sb.append(isLive ? 'o' : 'b');
+                    }
+                    x = runEnd;
+                }
+            }
+            return sb.append('!').toString();
+        }
+    }
+
+    /**
+     * The runs of live cells found in one band of rows, as (row, first column, last column) triples.
+     */
+    private static final class RunList
+    {
+        int[] runs = new int[3 * 64];
+        int size;
+
+        void add(int y, int xFirst, int xLast) {
+            if (3 * size == runs.length) runs = Arrays.copyOf(runs, 2 * runs.length);
+            runs[3 * size] = y;
+            runs[3 * size + 1] = xFirst;
+            runs[3 * size + 2] = xLast;
+            ++size;
+        }
+    }
+
+    private final Map<Shape, Integer> counts;
+    private final int objectCount;
+
+    private LifeObjectCensus(Map<Shape, Integer> counts, int objectCount) {
+        this.counts = counts;
+        this.objectCount = objectCount;
+    }
+
+    /**
+     * @return The census of the engine's current generation.
+     */
+    public static LifeObjectCensus take(ConwayLifeEngine engine) {
+        return take(engine.getGrid(), engine.getCellStates());
+    }
+
+    /**
+     * @param cells
+     *            One {@link CellState} ordinal per cell of grid, indexed by linear cell index.
+     * @return The census of the live cells of cells.
+     */
+    public static LifeObjectCensus take(RectangularGridGeometry grid, byte[] cells) {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final boolean isTorus = grid.isTorus();
+        if (cells.length != grid.getCellCount()) {
+            throw new IllegalArgumentException("Expected " + grid.getCellCount() + " cells");
+        }
+        final int bandRows = Math.max(1, BAND_CELLS / colCount);
+        final int bandCount = (rowCount + bandRows - 1) / bandRows;
+
+        // Find each band's runs, and each row's run count.
+        final int[] rowFirstRun = new int[rowCount + 1];
+        final RunList[] bandRuns = new RunList[bandCount];
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> {
+            final RunList runList = new RunList();
+            for (int y = iBand * bandRows; y < Math.min((iBand + 1) * bandRows, rowCount); ++y) {
+                final int iRow = y * colCount;
+                final int sizeBefore = runList.size;
+                int x = 0;
+                while (x < colCount) {
+                    if (cells[iRow + x] != LIVE) {
+                        ++x;
+                        continue;
+                    }
+                    final int xFirst = x;
+                    while (x < colCount && cells[iRow + x] == LIVE) ++x;
+                    runList.add(y, xFirst, x - 1);
+                }
+                rowFirstRun[y + 1] = runList.size - sizeBefore;
+            }
+            bandRuns[iBand] = runList;
+        });
+        for (int y = 0; y < rowCount; ++y) {
+            rowFirstRun[y + 1] += rowFirstRun[y];
+        }
+        final int runCount = rowFirstRun[rowCount];
+
+        // Gather the runs in row-major order, and join the runs of each band.
+        final int[] runRow = new int[runCount];
+        final int[] runFirst = new int[runCount];
+        final int[] runLast = new int[runCount];
+        final int[] parent = new int[runCount];
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> {
+            final int yFirst = iBand * bandRows;
+            final int yEnd = Math.min(yFirst + bandRows, rowCount);
+            final int[] runs = bandRuns[iBand].runs;
+            for (int iRun = 0, iGlobal = rowFirstRun[yFirst]; iGlobal < rowFirstRun[yEnd]; ++iRun, ++iGlobal) {
+                runRow[iGlobal] = runs[3 * iRun];
+                runFirst[iGlobal] = runs[3 * iRun + 1];
+                runLast[iGlobal] = runs[3 * iRun + 2];
+                parent[iGlobal] = iGlobal;
+            }
+            bandRuns[iBand] = null;
+            // Joins only touch the band's own runs, so bands can be joined concurrently.
+            for (int y = yFirst; y < yEnd; ++y) {
+                if (isTorus) joinRowEnds(rowFirstRun, runFirst, runLast, parent, colCount, y);
+                if (y + 1 < yEnd) joinRows(rowFirstRun, runFirst, runLast, parent, colCount, isTorus, y, y + 1);
+            }
+        });
+        for (int iBand = 1; iBand < bandCount; ++iBand) {
+            joinRows(rowFirstRun, runFirst, runLast, parent, colCount, isTorus, iBand * bandRows - 1, iBand * bandRows);
+        }
+        if (isTorus && rowCount > 1) joinRows(rowFirstRun, runFirst, runLast, parent, colCount, true, rowCount - 1, 0);
+
+        // Every run's parent precedes it (see union), so one ascending pass numbers the objects by their roots.
+        int objectCount = 0;
+        final int[] runObject = new int[runCount];
+        for (int iRun = 0; iRun < runCount; ++iRun) {
+            runObject[iRun] = (parent[iRun] == iRun) ? objectCount++ : runObject[parent[iRun]];
+        }
+
+        // Group the runs by object, keeping row-major order within each object.
+        final int[] objectFirstRun = new int[objectCount + 1];
+        for (int iRun = 0; iRun < runCount; ++iRun) {
+            ++objectFirstRun[runObject[iRun] + 1];
+        }
+        for (int iObject = 0; iObject < objectCount; ++iObject) {
+            objectFirstRun[iObject + 1] += objectFirstRun[iObject];
+        }
+        final int[] objectRuns = new int[runCount];
+        final int[] fillIndex = Arrays.copyOf(objectFirstRun, objectCount);
+        for (int iRun = 0; iRun < runCount; ++iRun) {
+            objectRuns[fillIndex[runObject[iRun]]++] = iRun;
+        }
+
+        final Shape[] shapes = new Shape[objectCount];
+        IntStream.range(0, objectCount).parallel().forEach(iObject -> shapes[iObject] = getShape(runRow, runFirst,
+                runLast, objectRuns, objectFirstRun[iObject], objectFirstRun[iObject + 1], colCount, rowCount,
+                isTorus));
+        final HashMap<Shape, Integer> counts = new HashMap<>();
+        for (Shape shape : shapes) {
+            counts.merge(shape, 1, Integer::sum);
+        }
+        return new LifeObjectCensus(sortByCount(counts), objectCount);
+    }
+
+    /**
+     * Joins the 8-connected runs of rows yA and yB (yB being below yA, possibly around a torus).
+     */
+    private static void joinRows(int[] rowFirstRun, int[] runFirst, int[] runLast, int[] parent, int colCount,
+            boolean isTorus, int yA, int yB) {
+        final int aEnd = rowFirstRun[yA + 1];
+        final int bEnd = rowFirstRun[yB + 1];
+        int a = rowFirstRun[yA];
+        int b = rowFirstRun[yB];
+        if (a == aEnd || b == bEnd) return;
+        if (isTorus) {
+            // The diagonal neighbors around the column edges.
+            if (runLast[aEnd - 1] == colCount - 1 && runFirst[b] == 0) union(parent, aEnd - 1, b);
+            if (runFirst[a] == 0 && runLast[bEnd - 1] == colCount - 1) union(parent, a, bEnd - 1);
+        }
+        while (a < aEnd && b < bEnd) {
+            if (runFirst[a] <= runLast[b] + 1 && runFirst[b] <= runLast[a] + 1) union(parent, a, b);
+            if (runLast[a] < runLast[b]) ++a;
+            else ++b;
+        }
+    }
+
+    /**
+     * Joins the runs at the two ends of row y of a torus, which are neighbors around the column edges.
+     */
+    private static void joinRowEnds(int[] rowFirstRun, int[] runFirst, int[] runLast, int[] parent, int colCount,
+            int y) {
+        final int first = rowFirstRun[y];
+        final int last = rowFirstRun[y + 1] - 1;
+        if (first < last && runFirst[first] == 0 && runLast[last] == colCount - 1) union(parent, first, last);
+    }
+
+    /**
+     * Joins the sets of runs a and b, making the lesser root the root of both, so every run's parent precedes it.
+     */
+    private static void union(int[] parent, int a, int b) {
+        final int rootA = find(parent, a);
+        final int rootB = find(parent, b);
+        if (rootA < rootB) parent[rootB] = rootA;
+        else if (rootB < rootA) parent[rootA] = rootB;
+    }
+
+    private static int find(int[] parent, int i) {
+        while (parent[i] != i) {
+            parent[i] = parent[parent[i]];
+            i = parent[i];
+        }
+        return i;
+    }
+
+    /**
+     * @return The canonical shape of the object made of runs objectRuns[iFirst, iEnd), which are in row-major order.
+     */
+    private static Shape getShape(int[] runRow, int[] runFirst, int[] runLast, int[] objectRuns, int iFirst, int iEnd,
+            int colCount, int rowCount, boolean isTorus) {
+        int xOrigin = colCount;
+        boolean isAtRight = false;
+        for (int i = iFirst; i < iEnd; ++i) {
+            xOrigin = Math.min(xOrigin, runFirst[objectRuns[i]]);
+            isAtRight |= runLast[objectRuns[i]] == colCount - 1;
+        }
+        int yOrigin = runRow[objectRuns[iFirst]];
+        if (isTorus && xOrigin == 0 && isAtRight) {
+            // The object may wrap around the column edges.
+            final long[] spans = new long[iEnd - iFirst];
+            for (int i = iFirst; i < iEnd; ++i) {
+                spans[i - iFirst] = ((long) runFirst[objectRuns[i]] << 32) | runLast[objectRuns[i]];
+            }
+            Arrays.sort(spans);
+            xOrigin = getOrigin(spans);
+        }
+        if (isTorus && yOrigin == 0 && runRow[objectRuns[iEnd - 1]] == rowCount - 1) {
+            // The object may wrap around the row edges; its runs are already sorted by row.
+            final long[] spans = new long[iEnd - iFirst];
+            for (int i = iFirst; i < iEnd; ++i) {
+                spans[i - iFirst] = ((long) runRow[objectRuns[i]] << 32) | runRow[objectRuns[i]];
+            }
+            yOrigin = getOrigin(spans);
+        }
+
+        int width = 0;
+        int height = 0;
+        for (int i = iFirst; i < iEnd; ++i) {
+            final int iRun = objectRuns[i];
+            final int x = Math.floorMod(runFirst[iRun] - xOrigin, colCount);
+            width = Math.max(width, x + runLast[iRun] - runFirst[iRun] + 1);
+            height = Math.max(height, Math.floorMod(runRow[iRun] - yOrigin, rowCount) + 1);
+        }
+        final long[] bits = new long[(int) (((long) width * height + 63) >>> 6)];
+        int cellCount = 0;
+        for (int i = iFirst; i < iEnd; ++i) {
+            final int iRun = objectRuns[i];
+            final int x = Math.floorMod(runFirst[iRun] - xOrigin, colCount);
+            final int bitFirst = Math.floorMod(runRow[iRun] - yOrigin, rowCount) * width + x;
+            final int length = runLast[iRun] - runFirst[iRun] + 1;
+            for (int bit = bitFirst; bit < bitFirst + length; ++bit) {
+                bits[bit >>> 6] |= 1L << bit;
+            }
+            cellCount += length;
+        }
+        return canonicalize(width, height, cellCount, bits);
+    }
+
+    /**
+     * @param spans
+     *            The spans an object occupies along one axis of a torus, as (first << 32 | last), sorted, the first
+     *            starting at 0.
+     * @return Where the object starts along the axis: 0, or if it wraps around the edge, the coordinate just past the
+     *         gap in its spans.
+     */
+    private static int getOrigin(long[] spans) {
+        // A connected object's spans cover one interval of the circle, so past the edge it has at most one gap.
+        int coveredEnd = (int) spans[0] + 1;
+        for (int i = 1; i < spans.length; ++i) {
+            final int first = (int) (spans[i] >>> 32);
+            if (first > coveredEnd) return first;
+            coveredEnd = Math.max(coveredEnd, (int) spans[i] + 1);
+        }
+        return 0;
+    }
+
+    /**
+     * @return The shape whose bitmap is the least of the 8 rotations and reflections of the width x height bitmap bits:
+     *         by height, then width, then bitmap.
+     */
+    private static Shape canonicalize(int width, int height, int cellCount, long[] bits) {
+        long[] best = bits;
+        int bestWidth = width;
+        int bestHeight = height;
+        long[] candidate = new long[bits.length];
+        // Transform bit 0: swap x and y; bit 1: mirror x; bit 2: mirror y (after any swap).
+        for (int transform = 1; transform < 8; ++transform) {
+            final boolean isSwap = (transform & 1) != 0;
+            final int newWidth = isSwap ? height : width;
+            final int newHeight = isSwap ? width : height;
+            // Equal heights mean equal widths, so only the bitmaps are left to compare.
+            if (newHeight > bestHeight) continue;
+            Arrays.fill(candidate, 0L);
+            for (int iWord = 0; iWord < bits.length; ++iWord) {
+                for (long word = bits[iWord]; word != 0; word &= word - 1) {
+                    final int bit = (iWord << 6) + Long.numberOfTrailingZeros(word);
+                    final int x = bit % width;
+                    final int y = bit / width;
+                    int newX = isSwap ? y : x;
+                    int newY = isSwap ? x : y;
+                    if ((transform & 2) != 0) newX = newWidth - 1 - newX;
+                    if ((transform & 4) != 0) newY = newHeight - 1 - newY;
+                    final int newBit = newY * newWidth + newX;
+                    candidate[newBit >>> 6] |= 1L << newBit;
+                }
+            }
+            if (newHeight < bestHeight || isBefore(candidate, best)) {
+                final long[] swap = (best == bits) ? new long[bits.length] : best;
+                best = candidate;
+                candidate = swap;
+                bestWidth = newWidth;
+                bestHeight = newHeight;
+            }
+        }
+        return new Shape(bestWidth, bestHeight, cellCount, best);
+    }
+
+    private static boolean isBefore(long[] bitsA, long[] bitsB) {
+        for (int iWord = 0; iWord < bitsA.length; ++iWord) {
+            if (bitsA[iWord] != bitsB[iWord]) return Long.compareUnsigned(bitsA[iWord], bitsB[iWord]) < 0;
+        }
+        return false;
+    }
+
+    /**
+     * @return counts, ordered by descending count, then by ascending cell count, then by hash.
+     */
+    private static Map<Shape, Integer> sortByCount(Map<Shape, Integer> counts) {
+        List<Map.Entry<Shape, Integer>> entries = new ArrayList<>(counts.entrySet());
+        entries.sort((a, b) -> {
+            if (!a.getValue().equals(b.getValue())) return Integer.compare(b.getValue(), a.getValue());
+            final int cellCountOrder = Integer.compare(a.getKey().cellCount, b.getKey().cellCount);
+            if (cellCountOrder != 0) return cellCountOrder;
+            return Long.compareUnsigned(a.getKey().hash, b.getKey().hash);
+        });
+        final LinkedHashMap<Shape, Integer> sorted = new LinkedHashMap<>();
+        for (Map.Entry<Shape, Integer> entry : entries) {
+            sorted.put(entry.getKey(), entry.getValue());
+        }
+        return sorted;
+    }
+
+    /**
+     * @return The number of objects of each shape found, most common first.
+     */
+    public Map<Shape, Integer> getCounts() {
+        return Collections.unmodifiableMap(counts);
+    }
+
+    /**
+     * @return The number of objects found, of all shapes.
+     */
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    /**
+     * @return The number of objects found whose canonical form is the RLE pattern body rle (as
+     *         {@link Shape#toString()} gives it).
+     */
+    public int getCount(String rle) {
+        for (Map.Entry<Shape, Integer> entry : counts.entrySet()) {
+            if (entry.getKey().toString().equals(rle)) return entry.getValue();
+        }
+        return 0;
+    }
+
+    /**
+     * SplitMix64's finalizer, as in {@link ConwayLifeEngine#zobristKey(int)}.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Runs a random soup on a torus until it stabilizes (or for at most maxSteps), then prints its census as CSV.
+     * <p>
+     * Usage: LifeObjectCensus cols rows [seed [maxSteps]]
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("Usage: LifeObjectCensus cols rows [seed [maxSteps]]");
+            System.exit(1);
+        }
+        final int colCount = Integer.parseInt(args[0]);
+        final int rowCount = Integer.parseInt(args[1]);
+        final long seed = (args.length > 2) ? Long.parseLong(args[2]) : 1L;
+        final long maxSteps = (args.length > 3) ? Long.parseLong(args[3]) : 100000;
+
+        ConwayLifeEngine engine = new ConwayLifeEngine(colCount, rowCount, true);
+        engine.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+        engine.reset(seed);
+        engine.runUntilCycle(maxSteps);
+        final long startNanos = System.nanoTime();
+        final LifeObjectCensus census = take(engine);
+        final double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.println(String.format("# generation=%1$d period=%2$d objects=%3$d shapes=%4$d census_seconds=%5$.3f",
+                engine.getGeneration(), engine.getCyclePeriod(), census.getObjectCount(), census.counts.size(),
+                seconds));
+        System.out.println("count,cells,hash,rle");
+        for (Map.Entry<Shape, Integer> entry : census.counts.entrySet()) {
+            final Shape shape = entry.getKey();
+            System.out.println(entry.getValue() + "," + shape.getCellCount() + ","
+                    + String.format("%016x", shape.getHash()) + "," + shape);
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.jca.ConwayLifeEngine.CellState;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LifeObjectCensusTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    private static void setLive(ConwayLifeEngine engine, int x, int y) {
+        engine.setState(engine.getGrid().getI(x, y), CellState.LIVE);
+    }
+
+    @Test
+    public void testShapesCountedInAnyOrientation() {
+        ConwayLifeEngine engine = new ConwayLifeEngine(40, 30, true);
+        engine.reset(0L, 0.0);
+        // A block, and a block wrapped around the corner of the torus.
+        setLive(engine, 2, 2); setLive(engine, 3, 2); setLive(engine, 2, 3); setLive(engine, 3, 3);
+        setLive(engine, 39, 29); setLive(engine, 0, 29); setLive(engine, 39, 0); setLive(engine, 0, 0);
+        // Horizontal and vertical blinkers.
+        setLive(engine, 10, 2); setLive(engine, 11, 2); setLive(engine, 12, 2);
+        setLive(engine, 20, 1); setLive(engine, 20, 2); setLive(engine, 20, 3);
+        // Boats in two orientations, one wrapped around the left edge.
+        setLive(engine, 10, 10); setLive(engine, 11, 10); setLive(engine, 10, 11); setLive(engine, 12, 11);
+        setLive(engine, 11, 12);
+        setLive(engine, 0, 20); setLive(engine, 1, 20); setLive(engine, 39, 21); setLive(engine, 1, 21);
+        setLive(engine, 0, 22);
+        // A glider.
+        setLive(engine, 25, 15); setLive(engine, 26, 16); setLive(engine, 24, 17); setLive(engine, 25, 17);
+        setLive(engine, 26, 17);
+
+        LifeObjectCensus census = LifeObjectCensus.take(engine);
+        assertThat(census.getObjectCount(), equalTo(7));
+        assertThat(census.getCounts().size(), equalTo(4));
+        assertThat("blocks", census.getCount("2o$2o!"), equalTo(2));
+        assertThat("blinkers", census.getCount("3o!"), equalTo(2));
+        // The second boat is the first mirrored.
+        ConwayLifeEngine boatEngine = new ConwayLifeEngine(10, 10, false);
+        boatEngine.reset(0L, 0.0);
+        setLive(boatEngine, 1, 1); setLive(boatEngine, 2, 1); setLive(boatEngine, 1, 2); setLive(boatEngine, 3, 2);
+        setLive(boatEngine, 2, 3);
+        final LifeObjectCensus.Shape boat = LifeObjectCensus.take(boatEngine).getCounts().keySet().iterator().next();
+        final int boatCount = census.getCounts().get(boat);
+        assertThat("boats", boatCount, equalTo(2));
+        // The most common shapes come first.
+        assertThat(census.getCounts().values().iterator().next(), equalTo(2));
+    }
+
+    @Test
+    public void testBoundedGridDoesNotWrap() {
+        ConwayLifeEngine engine = new ConwayLifeEngine(40, 30, false);
+        engine.reset(0L, 0.0);
+        setLive(engine, 39, 29); setLive(engine, 0, 29); setLive(engine, 39, 0); setLive(engine, 0, 0);
+        LifeObjectCensus census = LifeObjectCensus.take(engine);
+        assertThat(census.getObjectCount(), equalTo(4));
+        assertThat(census.getCount("o!"), equalTo(4));
+    }
+
+    @Test
+    public void testMatchesFloodFill() {
+        // Wide enough rows that the grid spans several bands, so band seams are joined too.
+        final int[][] sizes = { { 4096, 70 }, { 5000, 41 }, { 37, 23 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                final RectangularGridGeometry grid = new RectangularGridGeometry(size[0], size[1], isTorus);
+                final byte[] cells = new byte[grid.getCellCount()];
+                final SplittableRandom random = new SplittableRandom(size[0] * 31L + size[1]);
+                for (int iCell = 0; iCell < cells.length; ++iCell) {
+                    cells[iCell] = (byte) ((random.nextInt(100) < 35) ? 1 : 0);
+                }
+                final LifeObjectCensus census = LifeObjectCensus.take(grid, cells);
+                long cellCount = 0;
+                for (Map.Entry<LifeObjectCensus.Shape, Integer> entry : census.getCounts().entrySet()) {
+                    cellCount += (long) entry.getKey().getCellCount() * entry.getValue();
+                }
+                final String label = grid.toString();
+                assertThat(label, census.getObjectCount(), equalTo(countObjects(grid, cells)));
+                long liveCount = 0;
+                for (byte cell : cells) liveCount += cell;
+                assertThat(label + " cells", cellCount, equalTo(liveCount));
+            }
+        }
+    }
+
+    /**
+     * @return The number of 8-connected clusters of live cells, found by flood fill.
+     */
+    private static int countObjects(RectangularGridGeometry grid, byte[] cells) {
+        final int[] neighborTable = grid.getNeighborTable();
+        final int neighborCount = grid.getNeighborCount();
+        final boolean[] isSeen = new boolean[cells.length];
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        int objectCount = 0;
+        for (int iStart = 0; iStart < cells.length; ++iStart) {
+            if (cells[iStart] == 0 || isSeen[iStart]) continue;
+            ++objectCount;
+            isSeen[iStart] = true;
+            queue.add(iStart);
+            while (!queue.isEmpty()) {
+                final int iCell = queue.poll();
+                for (int k = iCell * neighborCount; k < (iCell + 1) * neighborCount; ++k) {
+                    final int iNeighbor = neighborTable[k];
+                    if (iNeighbor != RectangularGridGeometry.OFF_GRID_INDEX && cells[iNeighbor] != 0
+                            && !isSeen[iNeighbor]) {
+                        isSeen[iNeighbor] = true;
+                        queue.add(iNeighbor);
+                    }
+                }
+            }
+        }
+        return objectCount;
+    }
+}
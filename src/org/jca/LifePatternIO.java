@@ -0,0 +1,444 @@
+package org.jca;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.jca.ConwayLifeEngine.CellState;
+
+/**
+ * Reads and writes {@link ConwayLifeEngine} grid state in the two common Game of Life pattern file formats:
+ * <ul>
+ * <li><a href="https://conwaylife.com/wiki/Run_Length_Encoded">Run Length Encoded</a> (.rle)</li>
+ * <li><a href="https://conwaylife.com/wiki/Plaintext">Plaintext</a> (.cells)</li>
+ * </ul>
+ * Readers stream the pattern text through a fixed-size character buffer and write live cells directly into the
+ * engine's {@link ConwayLifeEngine#getCellStates() cell buffer}, so no intermediate {@link CellState} arrays or
+ * per-line strings are created, even for multi-megabyte pattern files. Writers likewise stream the grid out through
+ * a fixed-size character buffer.
+ * <p>
+ * Patterns are placed with their upper left-hand corner at the specified grid offset. Cells that land off the grid
+ * wrap when the engine's grid is a torus, and are dropped when it is not.
+ *
+ * @author ksdj (coder-hat)
+ */
+public final class LifePatternIO
+{
+    private static final byte DEAD = (byte) CellState.DEAD.ordinal();
+    private static final byte LIVE = (byte) CellState.LIVE.ordinal();
+
+    /**
+     * The maximum line length written by {@link #writeRle(ConwayLifeEngine, Writer)}, as recommended by the format.
+     */
+    private static final int RLE_MAX_LINE_LENGTH = 70;
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private LifePatternIO() {
+    }
+
+    /**
+     * Loads the pattern in the specified file into the engine, at grid offset (0, 0).<br>
+     * Files with a ".cells" extension are read as Plaintext, all others as RLE.
+     *
+     * @param path
+     *            The pattern file to read.
+     * @param engine
+     *            The engine to load the pattern into. All of its cells are reset to {@link CellState#DEAD} first,
+     *            and its generation counter is reset to 0.
+     * @throws IOException
+     *             if the file cannot be read or is not a well-formed pattern.
+     */
+    public static void load(Path path, ConwayLifeEngine engine) throws IOException {
+        try (Reader in = Files.newBufferedReader(path, StandardCharsets.US_ASCII)) {
+            if (path.toString().toLowerCase().endsWith(".cells")) {
+                readPlaintext(in, engine, 0, 0);
+            } else {
+                readRle(in, engine, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * Saves the engine's grid state to the specified file.<br>
+     * Files with a ".cells" extension are written as Plaintext, all others as RLE.
+     *
+     * @param engine
+     *            The engine whose grid state is saved.
+     * @param path
+     *            The pattern file to (over)write.
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    public static void save(ConwayLifeEngine engine, Path path) throws IOException {
+        try (Writer out = Files.newBufferedWriter(path, StandardCharsets.US_ASCII)) {
+            if (path.toString().toLowerCase().endsWith(".cells")) {
+                writePlaintext(engine, out);
+            } else {
+                writeRle(engine, out);
+            }
+        }
+    }
+
+    /**
+     * Reads an RLE pattern into the engine.
+     * <p>
+     * The optional "rule" entry of the header line must be Conway's rule (B3/S23 or 23/3), since that is the only
+     * rule the engine implements. Any cell state letter other than 'b' is treated as live.
+     *
+     * @param in
+     *            The pattern text source.
+     * @param engine
+     *            The engine to load the pattern into. All of its cells are reset to {@link CellState#DEAD} first,
+     *            and its generation counter is reset to 0.
+     * @param xOffset
+     *            The grid column that the pattern's left-most column is placed at.
+     * @param yOffset
+     *            The grid row that the pattern's top-most row is placed at.
+     * @throws IOException
+     *             if in cannot be read or is not a well-formed RLE pattern.
+     */
+    public static void readRle(Reader in, ConwayLifeEngine engine, int xOffset, int yOffset) throws IOException {
+        final CharSource src = new CharSource(in);
+        final CellPlacer placer = new CellPlacer(engine, xOffset, yOffset);
+
+        // Header: comment lines, then the "x = m, y = n[, rule = abc]" line.
+        int c = src.next();
+        while (c != -1) {
+            if (c == '#') {
+                c = src.skipLine();
+            } else if (Character.isWhitespace(c)) {
+                c = src.next();
+            } else if (c == 'x') {
+                final int headerLineNumber = src.lineNumber();
+                checkRleHeader(src.readLine((char) c), headerLineNumber);
+                c = src.next();
+                break;
+            } else {
+                break;
+            }
+        }
+
+        // Data: <run_count><tag> items, terminated by '!'.
+        int x = 0;
+        int y = 0;
+        int run = 0;
+        for (; c != -1; c = src.next()) {
+            if (c >= '0' && c <= '9') {
+                run = run * 10 + (c - '0');
+                continue;
+            }
+            final int count = (run == 0) ? 1 : run;
+            if (c == 'b' || c == '.') {
+                x += count;
+            } else if (c == '$') {
+                y += count;
+                x = 0;
+            } else if (c == '!') {
+                break;
+            } else if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z')) {
+                placer.setLiveRun(x, y, count);
+                x += count;
+            } else if (Character.isWhitespace(c)) {
+                continue;
+            } else {
+                throw new IOException("Unexpected character '" + (char) c + "' at line " + src.lineNumber());
+            }
+            run = 0;
+        }
+        engine.onCellStatesModified();
+        engine.setGeneration(0L);
+    }
+
+    /**
+     * Writes the engine's entire grid as an RLE pattern, with a header sized to the grid.<br>
+     * Trailing dead cells of each row are omitted, and runs of empty rows are merged, as the format allows.
+     *
+     * @param engine
+     *            The engine whose grid state is written.
+     * @param out
+     *            The destination of the pattern text.
+     * @throws IOException
+     *             if out cannot be written.
+     */
+    public static void writeRle(ConwayLifeEngine engine, Writer out) throws IOException {
+        final RectangularGridGeometry grid = engine.getGrid();
+        final byte[] cells = engine.getCellStates();
+        final int colCount = grid.getColCount();
+        final CharSink sink = new CharSink(out);
+        sink.append("x = ").append(colCount).append(", y = ").append(grid.getRowCount())
+            .append(", rule = B3/S23").newLine();
+
+        int pendingRowEnds = 0;
+        for (int yCell = 0; yCell < grid.getRowCount(); ++yCell) {
+            final int iRowStart = yCell * colCount;
+            int rowLength = colCount;
+            while (rowLength > 0 && cells[iRowStart + rowLength - 1] == DEAD) --rowLength;
+            if (rowLength > 0) {
+                if (pendingRowEnds > 0) {
+                    sink.appendRleItem(pendingRowEnds, '$');
+                    pendingRowEnds = 0;
+                }
+                int xCell = 0;
+                while (xCell < rowLength) {
+                    final byte state = cells[iRowStart + xCell];
+                    int run = 1;
+                    while (xCell + run < rowLength && cells[iRowStart + xCell + run] == state) ++run;
+                    sink.appendRleItem(run, state == LIVE ? 'o' : 'b');
+                    xCell += run;
+                }
+            }
+            ++pendingRowEnds;
+        }
+        sink.appendRleItem(1, '!');
+        sink.newLine();
+        sink.flush();
+    }
+
+    /**
+     * Reads a Plaintext pattern into the engine.<br>
+     * Lines beginning with '!' are comments; in all other lines, 'O' or '*' marks a live cell and any other character
+     * a dead one.
+     *
+     * @param in
+     *            The pattern text source.
+     * @param engine
+     *            The engine to load the pattern into. All of its cells are reset to {@link CellState#DEAD} first,
+     *            and its generation counter is reset to 0.
+     * @param xOffset
+     *            The grid column that the pattern's left-most column is placed at.
+     * @param yOffset
+     *            The grid row that the pattern's top-most row is placed at.
+     * @throws IOException
+     *             if in cannot be read.
+     */
+    public static void readPlaintext(Reader in, ConwayLifeEngine engine, int xOffset, int yOffset) throws IOException {
+        final CharSource src = new CharSource(in);
+        final CellPlacer placer = new CellPlacer(engine, xOffset, yOffset);
+        int x = 0;
+        int y = 0;
+        int c = src.next();
+        while (c != -1) {
+            if (x == 0 && c == '!') {
+                c = src.skipLine();
+                continue;
+            }
+            if (c == '\n') {
+                ++y;
+                x = 0;
+            } else if (c != '\r') {
+                if (c == 'O' || c == '*') placer.setLiveRun(x, y, 1);
+                ++x;
+            }
+            c = src.next();
+        }
+        engine.onCellStatesModified();
+        engine.setGeneration(0L);
+    }
+
+    /**
+     * Writes the engine's entire grid as a Plaintext pattern, omitting the trailing dead cells of each row.
+     *
+     * @param engine
+     *            The engine whose grid state is written.
+     * @param out
+     *            The destination of the pattern text.
+     * @throws IOException
+     *             if out cannot be written.
+     */
+    public static void writePlaintext(ConwayLifeEngine engine, Writer out) throws IOException {
+        final RectangularGridGeometry grid = engine.getGrid();
+        final byte[] cells = engine.getCellStates();
+        final int colCount = grid.getColCount();
+        final CharSink sink = new CharSink(out);
+        sink.append("!Name: ").append(grid.toString()).newLine();
+        for (int yCell = 0; yCell < grid.getRowCount(); ++yCell) {
+            final int iRowStart = yCell * colCount;
+            int rowLength = colCount;
+            while (rowLength > 0 && cells[iRowStart + rowLength - 1] == DEAD) --rowLength;
+            for (int xCell = 0; xCell < rowLength; ++xCell) {
+                sink.append(cells[iRowStart + xCell] == LIVE ? 'O' : '.');
+            }
+            sink.newLine();
+        }
+        sink.flush();
+    }
+
+    /**
+     * Accepts only the rule Conway's Game of Life uses, in either of its common notations.
+     */
+    private static void checkRleHeader(String header, int lineNumber) throws IOException {
+        for (String entry : header.split(",")) {
+            String[] keyValue = entry.split("=", 2);
+            if (keyValue.length != 2) throw new IOException("Malformed RLE header at line " + lineNumber);
+            if (keyValue[0].trim().equalsIgnoreCase("rule")) {
+                String rule = keyValue[1].replaceAll("\\s", "").toUpperCase();
+                if (!rule.equals("B3/S23") && !rule.equals("23/3")) {
+                    throw new IOException("Unsupported rule '" + keyValue[1].trim() + "' at line " + lineNumber);
+                }
+            }
+        }
+    }
+
+    //----- Inner classes
+
+    /**
+     * Clears an engine's cell buffer, then sets runs of pattern cells live at an offset within it.
+     */
+    private static final class CellPlacer
+    {
+        private final RectangularGridGeometry grid;
+        private final byte[] cells;
+        private final int xOffset;
+        private final int yOffset;
+
+        CellPlacer(ConwayLifeEngine engine, int xOffset, int yOffset) {
+            this.grid = engine.getGrid();
+            this.cells = engine.getCellStates();
+            this.xOffset = xOffset;
+            this.yOffset = yOffset;
+            Arrays.fill(cells, DEAD);
+        }
+
+        void setLiveRun(int x, int y, int count) {
+            final int xCell = xOffset + x;
+            final int yCell = yOffset + y;
+            if (yCell >= 0 && yCell < grid.getRowCount() && xCell >= 0 && xCell + count <= grid.getColCount()) {
+                final int iCell = yCell * grid.getColCount() + xCell;
+                Arrays.fill(cells, iCell, iCell + count, LIVE);
+            } else {
+                for (int k = 0; k < count; ++k) {
+                    final int iCell = grid.getI(xCell + k, yCell);
+                    if (iCell != RectangularGridGeometry.OFF_GRID_INDEX) cells[iCell] = LIVE;
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads characters one at a time from a fixed-size buffer refilled from a {@link Reader}, counting lines.
+     */
+    private static final class CharSource
+    {
+        private final Reader in;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int iNext = 0;
+        private int count = 0;
+        private int lineNumber = 1;
+
+        CharSource(Reader in) {
+            this.in = in;
+        }
+
+        int next() throws IOException {
+            if (iNext == count) {
+                count = in.read(buffer, 0, buffer.length);
+                iNext = 0;
+                if (count <= 0) {
+                    count = 0;
+                    return -1;
+                }
+            }
+            final char c = buffer[iNext++];
+            if (c == '\n') ++lineNumber;
+            return c;
+        }
+
+        /**
+         * Skips past the end of the current line.
+         *
+         * @return The first character of the next line, or -1 at end of input.
+         */
+        int skipLine() throws IOException {
+            int c = next();
+            while (c != -1 && c != '\n') c = next();
+            return (c == -1) ? -1 : next();
+        }
+
+        /**
+         * Reads the remainder of the current line (consuming its terminator).
+         *
+         * @param first
+         *            The line's already-consumed first character.
+         * @return The line's text, without its terminator.
+         */
+        String readLine(char first) throws IOException {
+            StringBuilder line = new StringBuilder().append(first);
+            for (int c = next(); c != -1 && c != '\n'; c = next()) {
+                if (c != '\r') line.append((char) c);
+            }
+            return line.toString();
+        }
+
+        int lineNumber() {
+            return lineNumber;
+        }
+    }
+
+    /**
+     * Accumulates output characters in a fixed-size buffer that is written to a {@link Writer} whenever it fills,
+     * tracking the current line length for RLE line wrapping.
+     */
+    private static final class CharSink
+    {
+        private final Writer out;
+        private final char[] buffer = new char[BUFFER_SIZE];
+        private int count = 0;
+        private int lineLength = 0;
+
+        CharSink(Writer out) {
+            this.out = out;
+        }
+
+        CharSink append(char c) throws IOException {
+            if (count == buffer.length) flush();
+            buffer[count++] = c;
+            ++lineLength;
+            return this;
+        }
+
+        CharSink append(String s) throws IOException {
+            for (int i = 0; i < s.length(); ++i) append(s.charAt(i));
+            return this;
+        }
+
+        CharSink append(int n) throws IOException {
+            return append(Integer.toString(n));
+        }
+
+        CharSink newLine() throws IOException {
+            append('\n');
+            lineLength = 0;
+            return this;
+        }
+
+        /**
+         * Appends a single RLE item, starting a new line first if the item would exceed the maximum line length.
+         */
+        void appendRleItem(int run, char tag) throws IOException {
+            final int itemLength = (run > 1 ? stringSize(run) : 0) + 1;
+            if (lineLength + itemLength > RLE_MAX_LINE_LENGTH) newLine();
+            if (run > 1) append(run);
+            append(tag);
+        }
+
+        void flush() throws IOException {
+            out.write(buffer, 0, count);
+            count = 0;
+            out.flush();
+        }
+
+        private static int stringSize(int n) {
+            int digits = 1;
+            while (n >= 10) {
+                n /= 10;
+                ++digits;
+            }
+            return digits;
+        }
+    }
+}
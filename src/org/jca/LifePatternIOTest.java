@@ -0,0 +1,117 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.jca.ConwayLifeEngine.CellState;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class LifePatternIOTest
+{
+    private static final String GLIDER_RLE = "#N Glider\n#C A comment line\nx = 3, y = 3, rule = B3/S23\nbob$2bo$3o!\n";
+
+    private static final String GLIDER_CELLS = "!Name: Glider\n!\n.O\n..O\nOOO\n";
+
+    /**
+     * Linear indices of the glider's live cells in a 6x6 grid, when placed at (1, 2).
+     */
+    private static final int[] GLIDER_AT_1_2 = { 14, 21, 25, 26, 27 };
+
+    private ConwayLifeEngine engine;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        engine = new ConwayLifeEngine(6, 6, true);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testReadRle() throws IOException {
+        LifePatternIO.readRle(new StringReader(GLIDER_RLE), engine, 1, 2);
+        assertLiveCells(engine, GLIDER_AT_1_2);
+    }
+
+    @Test
+    public void testReadPlaintext() throws IOException {
+        LifePatternIO.readPlaintext(new StringReader(GLIDER_CELLS), engine, 1, 2);
+        assertLiveCells(engine, GLIDER_AT_1_2);
+    }
+
+    @Test
+    public void testReadResetsGeneration() throws IOException {
+        engine.doSimulationSteps(3);
+        LifePatternIO.readRle(new StringReader(GLIDER_RLE), engine, 1, 2);
+        assertThat(engine.getGeneration(), equalTo(0L));
+
+        engine.doSimulationSteps(3);
+        LifePatternIO.readPlaintext(new StringReader(GLIDER_CELLS), engine, 1, 2);
+        assertThat(engine.getGeneration(), equalTo(0L));
+    }
+
+    @Test
+    public void testReadRleWrapsOnTorus() throws IOException {
+        LifePatternIO.readRle(new StringReader("x = 3, y = 1\n3o!"), engine, 5, 0);
+        assertLiveCells(engine, new int[] { 0, 1, 5 });
+    }
+
+    @Test
+    public void testReadRleClipsOffGrid() throws IOException {
+        engine = new ConwayLifeEngine(6, 6, false);
+        LifePatternIO.readRle(new StringReader("x = 3, y = 2\n3o$3o!"), engine, 4, 5);
+        assertLiveCells(engine, new int[] { 34, 35 });
+    }
+
+    @Test(expected = IOException.class)
+    public void testReadRleRejectsOtherRules() throws IOException {
+        LifePatternIO.readRle(new StringReader("x = 3, y = 3, rule = B36/S23\nbob$2bo$3o!"), engine, 0, 0);
+    }
+
+    @Test
+    public void testWriteRleRoundTrip() throws IOException {
+        LifePatternIO.readRle(new StringReader(GLIDER_RLE), engine, 1, 2);
+        StringWriter out = new StringWriter();
+        LifePatternIO.writeRle(engine, out);
+        assertThat(out.toString(), equalTo("x = 6, y = 6, rule = B3/S23\n2$2bo$3bo$b3o!\n"));
+
+        ConwayLifeEngine copy = new ConwayLifeEngine(6, 6, true);
+        LifePatternIO.readRle(new StringReader(out.toString()), copy, 0, 0);
+        assertLiveCells(copy, GLIDER_AT_1_2);
+    }
+
+    @Test
+    public void testWritePlaintextRoundTrip() throws IOException {
+        LifePatternIO.readRle(new StringReader(GLIDER_RLE), engine, 1, 2);
+        StringWriter out = new StringWriter();
+        LifePatternIO.writePlaintext(engine, out);
+
+        ConwayLifeEngine copy = new ConwayLifeEngine(6, 6, true);
+        LifePatternIO.readPlaintext(new StringReader(out.toString()), copy, 0, 0);
+        assertLiveCells(copy, GLIDER_AT_1_2);
+    }
+
+    private static void assertLiveCells(ConwayLifeEngine lifeEngine, int[] expectLive) {
+        assertThat("live count", lifeEngine.getLiveCount(), equalTo(expectLive.length));
+        for (int iCell : expectLive) {
+            assertThat("iCell=" + iCell, lifeEngine.getState(iCell), equalTo(CellState.LIVE));
+        }
+    }
+}
@@ -0,0 +1,311 @@
+package org.jca;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.jca.ConwayLifeEngine.CellState;
+
+/**
+ * A Margolus block cellular automaton engine, for reversible rules such as Critters and the billiard-ball model.
+ * <p>
+ * The grid is partitioned into 2x2 blocks, and every block is replaced by a function of itself alone, given by a
+ * 16-entry table over 4-bit block codes: bit 0 is the block's top-left cell, bit 1 top-right, bit 2 bottom-left and
+ * bit 3 bottom-right. The partition alternates: on even generations blocks start at even columns and rows, on odd
+ * generations at odd ones, so information moves between blocks. When the table is a permutation the rule is
+ * reversible, and {@link #doSimulationStepBack()} undoes a step exactly with the inverse table, so runs can be rewound
+ * without storing their history.
+ * <p>
+ * Blocks are disjoint, so each step updates the cells in place, in parallel bands of block rows. On a torus (whose
+ * column and row counts must be even) the odd partition's blocks wrap around the edges; on a bounded grid, cells not in
+ * a whole block of the partition are left unchanged.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class MargolusEngine implements ISimulationEngine
+{
+    private static final byte DEAD = (byte) CellState.DEAD.ordinal();
+    private static final byte LIVE = (byte) CellState.LIVE.ordinal();
+
+    /**
+     * The number of block rows in each band of block rows that a step processes in parallel.
+     */
+    private static final int BAND_BLOCK_ROWS = 32;
+
+    /**
+     * Some well-known reversible block rules.
+     */
+    public static enum Rule {
+        /**
+         * Critters: blocks with exactly 2 live cells are unchanged; the others are complemented, and those that had 3
+         * live cells are also rotated 180 degrees.
+         */
+        CRITTERS(compileCritters()),
+        /**
+         * The billiard-ball model: a lone ball moves to the opposite corner of its block (diagonally through it), two
+         * balls on one diagonal collide and leave along the other, and all other blocks are unchanged.
+         */
+        BILLIARD_BALL(compileBilliardBall()),
+        /**
+         * Tron: blocks that are all live or all dead are complemented, and the others are unchanged.
+         */
+        TRON(compileTron());
+
+        private final byte[] table;
+
+        private Rule(byte[] table) {
+            this.table = table;
+        }
+
+        /**
+         * @return A copy of the rule's table.
+         */
+        public byte[] getTable() {
+            return table.clone();
+        }
+    }
+
+    private final RectangularGridGeometry grid;
+
+    /**
+     * The rule's table and its inverse, by block code.
+     */
+    private final byte[] table;
+    private final byte[] inverseTable;
+
+    /**
+     * The state of each grid cell, indexed by linear cell index.
+     */
+    private final byte[] cells;
+
+    private int liveCount;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    public MargolusEngine(int colCount, int rowCount, boolean isTorus, Rule rule) {
+        this(colCount, rowCount, isTorus, rule.table);
+    }
+
+    /**
+     * @param table
+     *            The rule: the next block code for each block code, a permutation of 0 to 15.
+     * @throws IllegalArgumentException
+     *             If the table is not a permutation (so the rule is not reversible), or the grid is a torus with an
+     *             odd number of columns or rows.
+     */
+    public MargolusEngine(int colCount, int rowCount, boolean isTorus, byte[] table) {
+        if (isTorus && ((colCount | rowCount) & 1) != 0) {
+            throw new IllegalArgumentException(
+                    "A Margolus torus needs even column and row counts, not " + colCount + "x" + rowCount);
+        }
+        if (table.length != 16) throw new IllegalArgumentException("Expected 16 block codes");
+        this.table = table.clone();
+        inverseTable = new byte[16];
+        boolean[] isUsed = new boolean[16];
+        for (int code = 0; code < 16; ++code) {
+            final int next = this.table[code];
+            if (next < 0 || next >= 16 || isUsed[next]) {
+                throw new IllegalArgumentException("The table is not a permutation of the block codes 0 to 15");
+            }
+            isUsed[next] = true;
+            inverseTable[next] = (byte) code;
+        }
+        grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        cells = new byte[grid.getCellCount()];
+    }
+
+    private static byte[] compileCritters() {
+        final byte[] table = new byte[16];
+        for (int code = 0; code < 16; ++code) {
+            final int liveCount = Integer.bitCount(code);
+            int next = (liveCount == 2) ? code : code ^ 0xF;
+            if (liveCount == 3) next = rotate180(next);
+            table[code] = (byte) next;
+        }
+        return table;
+    }
+
+    private static byte[] compileBilliardBall() {
+        final byte[] table = new byte[16];
+        for (int code = 0; code < 16; ++code) {
+            table[code] = (byte) code;
+        }
+        for (int corner = 0; corner < 4; ++corner) {
+            table[1 << corner] = (byte) rotate180(1 << corner);
+        }
+        table[0b1001] = 0b0110;
+        table[0b0110] = 0b1001;
+        return table;
+    }
+
+    private static byte[] compileTron() {
+        final byte[] table = new byte[16];
+        for (int code = 0; code < 16; ++code) {
+            table[code] = (byte) ((code == 0 || code == 0xF) ? code ^ 0xF : code);
+        }
+        return table;
+    }
+
+    /**
+     * @return The block code rotated 180 degrees: top-left swapped with bottom-right, and top-right with bottom-left.
+     */
+    private static int rotate180(int code) {
+        return ((code & 1) << 3) | ((code & 2) << 1) | ((code & 4) >>> 1) | ((code & 8) >>> 3);
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of cells currently in {@link CellState#LIVE}.
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public CellState getState(int iCell) {
+        return (cells[iCell] == LIVE) ? CellState.LIVE : CellState.DEAD;
+    }
+
+    public void setState(int iCell, CellState newState) {
+        final byte state = (byte) newState.ordinal();
+        if (cells[iCell] != state) {
+            cells[iCell] = state;
+            liveCount += (state == LIVE) ? 1 : -1;
+        }
+    }
+
+    /**
+     * Gets the engine's cell buffer: one {@link CellState} ordinal per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, updated in place by each step.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return cells;
+    }
+
+    /**
+     * Resets the grid with a random initial state of {@link ConwayLifeEngine#DEFAULT_LIVE_DENSITY} live cells, and the
+     * generation to 0.
+     */
+    @Override
+    public void reset(long seed) {
+        final int densityBits = ConwayLifeEngine.toDensityBits(ConwayLifeEngine.DEFAULT_LIVE_DENSITY);
+        final SplittableRandom random = new SplittableRandom(seed);
+        liveCount = 0;
+        for (int iWord = 0; iWord < cells.length; iWord += 64) {
+            long word = ConwayLifeEngine.randomWord(random, densityBits);
+            for (int iCell = iWord; iCell < Math.min(iWord + 64, cells.length); ++iCell, word >>>= 1) {
+                cells[iCell] = ((word & 1L) != 0) ? LIVE : DEAD;
+                liveCount += cells[iCell];
+            }
+        }
+        generation = 0;
+    }
+
+    /**
+     * Advances the simulation by one step, with the partition of the current generation's parity.
+     */
+    @Override
+    public void doSimulationStep() {
+        step(table, (int) (generation & 1), 1);
+    }
+
+    /**
+     * Undoes the last step exactly, with the inverse table and that step's partition, returning to the previous
+     * generation.
+     *
+     * @throws IllegalStateException
+     *             If the engine is at generation 0.
+     */
+    public void doSimulationStepBack() {
+        if (generation == 0) throw new IllegalStateException("Already at generation 0");
+        step(inverseTable, (int) ((generation - 1) & 1), -1);
+    }
+
+    /**
+     * Replaces every block of the partition starting at (offset, offset) through blockTable, and moves the generation
+     * by delta.
+     */
+    private void step(byte[] blockTable, int offset, int delta) {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int blockRowCount = getBlockCount(grid.getRowCount(), offset);
+        final int bandCount = (blockRowCount + BAND_BLOCK_ROWS - 1) / BAND_BLOCK_ROWS;
+        final int[] bandResults = new int[2 * bandCount];
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> stepBand(blockTable, offset, iBand * BAND_BLOCK_ROWS,
+                Math.min((iBand + 1) * BAND_BLOCK_ROWS, blockRowCount), bandResults, iBand));
+        int births = 0;
+        int deaths = 0;
+        for (int iBand = 0; iBand < bandCount; ++iBand) {
+            births += bandResults[2 * iBand];
+            deaths += bandResults[2 * iBand + 1];
+        }
+        liveCount += births - deaths;
+        generation += delta;
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, births + deaths, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    /**
+     * @return The number of whole blocks along a grid edge of length count, for a partition starting at offset.
+     */
+    private int getBlockCount(int count, int offset) {
+        return grid.isTorus() ? count / 2 : (count - offset) / 2;
+    }
+
+    /**
+     * Replaces the blocks of block rows [jFirst, jEnd) of the partition.
+     *
+     * @param bandResults
+     *            Receives the band's births at [2 * iBand] and deaths at [2 * iBand + 1].
+     */
+    private void stepBand(byte[] blockTable, int offset, int jFirst, int jEnd, int[] bandResults, int iBand) {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final int blockColCount = getBlockCount(colCount, offset);
+        int births = 0;
+        int deaths = 0;
+        for (int j = jFirst; j < jEnd; ++j) {
+            final int yTop = 2 * j + offset;
+            final int iTop = yTop * colCount;
+            // On a torus, the last block row of the odd partition wraps to row 0.
+            final int iBottom = ((yTop + 1 < rowCount) ? yTop + 1 : 0) * colCount;
+            for (int i = 0; i < blockColCount; ++i) {
+                final int xLeft = 2 * i + offset;
+                final int xRight = (xLeft + 1 < colCount) ? xLeft + 1 : 0;
+                final int code = cells[iTop + xLeft] | (cells[iTop + xRight] << 1) | (cells[iBottom + xLeft] << 2)
+                        | (cells[iBottom + xRight] << 3);
+                final int next = blockTable[code];
+                if (next != code) {
+                    births += Integer.bitCount(next & ~code);
+                    deaths += Integer.bitCount(code & ~next);
+                    cells[iTop + xLeft] = (byte) (next & 1);
+                    cells[iTop + xRight] = (byte) ((next >>> 1) & 1);
+                    cells[iBottom + xLeft] = (byte) ((next >>> 2) & 1);
+                    cells[iBottom + xRight] = (byte) ((next >>> 3) & 1);
+                }
+            }
+        }
+        bandResults[2 * iBand] = births;
+        bandResults[2 * iBand + 1] = deaths;
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
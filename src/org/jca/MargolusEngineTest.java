@@ -0,0 +1,86 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.jca.ConwayLifeEngine.CellState;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class MargolusEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testStepBackRewindsExactly() {
+        // Includes odd sizes on a bounded grid, and more block rows than one step band.
+        final int[][] sizes = { { 2, 2 }, { 16, 12 }, { 70, 150 } };
+        final int[][] boundedSizes = { { 1, 1 }, { 7, 5 }, { 71, 149 } };
+        for (MargolusEngine.Rule rule : MargolusEngine.Rule.values()) {
+            for (boolean isTorus : new boolean[] { true, false }) {
+                for (int[] size : isTorus ? sizes : boundedSizes) {
+                    MargolusEngine engine = new MargolusEngine(size[0], size[1], isTorus, rule);
+                    engine.reset(size[0] * 1000L + size[1]);
+                    final byte[] initial = engine.copyCellStates();
+                    final int initialLiveCount = engine.getLiveCount();
+                    engine.doSimulationSteps(25);
+                    for (int iStep = 0; iStep < 25; ++iStep) {
+                        engine.doSimulationStepBack();
+                    }
+                    final String label = rule + " " + engine.getGrid();
+                    assertArrayEquals(label, initial, engine.getCellStates());
+                    assertThat(label + " live count", engine.getLiveCount(), equalTo(initialLiveCount));
+                    assertThat(label + " generation", engine.getGeneration(), equalTo(0L));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testBilliardBallMovesDiagonally() {
+        MargolusEngine engine = new MargolusEngine(8, 8, true, MargolusEngine.Rule.BILLIARD_BALL);
+        final RectangularGridGeometry grid = engine.getGrid();
+        // A ball at the top left of its even block crosses to the bottom right, then (in the odd block now starting
+        // there) on to the next even block, moving one cell down and right each step.
+        engine.setState(grid.getI(2, 2), CellState.LIVE);
+        for (int iStep = 1; iStep <= 10; ++iStep) {
+            engine.doSimulationStep();
+            assertThat("step " + iStep, engine.getState(grid.getI(2 + iStep, 2 + iStep)), equalTo(CellState.LIVE));
+            assertThat("step " + iStep + " live count", engine.getLiveCount(), equalTo(1));
+        }
+    }
+
+    @Test
+    public void testCrittersTable() {
+        final byte[] table = MargolusEngine.Rule.CRITTERS.getTable();
+        assertThat("empty block is complemented", (int) table[0], equalTo(0xF));
+        assertThat("two live cells are unchanged", (int) table[0b0101], equalTo(0b0101));
+        // Three live cells (all but the bottom right) complement to the bottom right, then rotate to the top left.
+        assertThat("three live cells", (int) table[0b0111], equalTo(0b0001));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testIrreversibleTableRejected() {
+        final byte[] table = new byte[16];
+        new MargolusEngine(4, 4, true, table);
+    }
+}
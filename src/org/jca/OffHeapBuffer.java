@@ -0,0 +1,134 @@
+package org.jca;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A fixed-size, zero-filled buffer of bytes outside the Java heap, addressed with long indices, so it may be larger
+ * than any Java array, and is never scanned or copied by the garbage collector.<br>
+ * The buffer is held as a sequence of direct {@link ByteBuffer} segments (each at most
+ * {@link #DEFAULT_SEGMENT_BYTES}); its contents may be accessed as bytes or, for bulk work, as native-order longs
+ * (8-byte words, indexed by word). Segment sizes are multiples of 8, so no word spans two segments.
+ * <p>
+ * The memory is released when the buffer is garbage collected. Direct memory is limited separately from the heap, by
+ * the JVM's -XX:MaxDirectMemorySize option (which defaults to the maximum heap size).<br>
+ * Distinct bytes (or words) may be written concurrently by different threads; as with an array, anything more needs
+ * external synchronization.
+ *
+ * @author ksdj (coder-hat)
+ */
+public final class OffHeapBuffer
+{
+    /**
+     * The size of each segment but the last: 1GB.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 1 << 30;
+
+    private final long byteCount;
+    private final int segmentShift;
+    private final int segmentMask;
+    private final ByteBuffer[] segments;
+    private final LongBuffer[] longSegments;
+
+    /**
+     * @param byteCount
+     *            The size of the buffer, in bytes.
+     */
+    public OffHeapBuffer(long byteCount) {
+        this(byteCount, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param segmentBytes
+     *            The size of each segment: a power of 2, at least 8. Small segments are for testing segment boundaries.
+     */
+    OffHeapBuffer(long byteCount, int segmentBytes) {
+        if (byteCount < 0) throw new IllegalArgumentException("byteCount must not be negative");
+        if (segmentBytes < 8 || Integer.bitCount(segmentBytes) != 1) {
+            throw new IllegalArgumentException("segmentBytes must be a power of 2, at least 8");
+        }
+        this.byteCount = byteCount;
+        segmentShift = Integer.numberOfTrailingZeros(segmentBytes);
+        segmentMask = segmentBytes - 1;
+        final int segmentCount = (int) ((byteCount + segmentMask) >>> segmentShift);
+        segments = new ByteBuffer[segmentCount];
+        longSegments = new LongBuffer[segmentCount];
+        for (int iSegment = 0; iSegment < segmentCount; ++iSegment) {
+            final long segmentStart = (long) iSegment << segmentShift;
+            final int size = (int) Math.min(segmentBytes, byteCount - segmentStart);
+            segments[iSegment] = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+            longSegments[iSegment] = segments[iSegment].asLongBuffer();
+        }
+    }
+
+    /**
+     * @return The size of the buffer, in bytes.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    public byte getByte(long iByte) {
+        return segments[(int) (iByte >>> segmentShift)].get((int) (iByte & segmentMask));
+    }
+
+    public void putByte(long iByte, byte value) {
+        segments[(int) (iByte >>> segmentShift)].put((int) (iByte & segmentMask), value);
+    }
+
+    /**
+     * @param iWord
+     *            The index of the word: the word occupies bytes [8 * iWord, 8 * iWord + 8).
+     * @return The word, in native byte order.
+     */
+    public long getLong(long iWord) {
+        final long iByte = iWord << 3;
+        return longSegments[(int) (iByte >>> segmentShift)].get((int) ((iByte & segmentMask) >>> 3));
+    }
+
+    /**
+     * @param iWord
+     *            The index of the word: the word occupies bytes [8 * iWord, 8 * iWord + 8).
+     */
+    public void putLong(long iWord, long value) {
+        final long iByte = iWord << 3;
+        longSegments[(int) (iByte >>> segmentShift)].put((int) ((iByte & segmentMask) >>> 3), value);
+    }
+
+    /**
+     * Copies the words [iWord, iWord + count) into dst, starting at dstOffset.
+     */
+    public void getLongs(long iWord, long[] dst, int dstOffset, int count) {
+        for (int i = 0; i < count; ++i) {
+            dst[dstOffset + i] = getLong(iWord + i);
+        }
+    }
+
+    /**
+     * Copies count words from src, starting at srcOffset, into the words [iWord, iWord + count).
+     */
+    public void putLongs(long iWord, long[] src, int srcOffset, int count) {
+        for (int i = 0; i < count; ++i) {
+            putLong(iWord + i, src[srcOffset + i]);
+        }
+    }
+
+    /**
+     * Sets every byte of the buffer to the specified value.
+     */
+    public void fill(byte value) {
+        final long word = (value & 0xFFL) * 0x0101010101010101L;
+        for (int iSegment = 0; iSegment < segments.length; ++iSegment) {
+            final ByteBuffer segment = segments[iSegment];
+            final LongBuffer longSegment = longSegments[iSegment];
+            final int wordCount = longSegment.capacity();
+            for (int i = 0; i < wordCount; ++i) {
+                longSegment.put(i, word);
+            }
+            for (int i = wordCount << 3; i < segment.capacity(); ++i) {
+                segment.put(i, value);
+            }
+        }
+    }
+}
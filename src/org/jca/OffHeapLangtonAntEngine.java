@@ -0,0 +1,151 @@
+package org.jca;
+
+import org.jca.LangtonAntEngine.CellState;
+
+/**
+ * A Langton's ant engine (with the same rules as {@link LangtonAntEngine}) whose grid is stored off the Java heap, one
+ * {@link CellState} ordinal byte per cell in an {@link OffHeapBuffer}, for grids of more than 2^31 cells.<br>
+ * Cells and the ant's location are addressed by long linear index.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class OffHeapLangtonAntEngine implements ISimulationEngine
+{
+    private static final byte WHITE = (byte) CellState.WHITE.ordinal();
+    private static final byte BLACK = (byte) CellState.BLACK.ordinal();
+
+    private final RectangularGridGeometry grid;
+
+    /**
+     * The {@link CellState} ordinal of each grid cell, indexed by long linear cell index.
+     */
+    private final OffHeapBuffer cells;
+
+    /**
+     * Long linear index of the ant's current grid location.
+     */
+    private long iAnt;
+
+    private RectangularGridGeometry.Direction antFacing;
+
+    private final RectangularGridGeometry.Direction initialFacing;
+
+    private long generation;
+
+    /**
+     * The number of cells currently in {@link CellState#BLACK}.
+     */
+    private long blackCount;
+
+    private IStepMetricsListener metricsListener;
+
+    public OffHeapLangtonAntEngine(int gridWidth, int gridHeight, boolean isTorus,
+            RectangularGridGeometry.Direction initialFacing) {
+        this(gridWidth, gridHeight, isTorus, initialFacing, OffHeapBuffer.DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param segmentBytes
+     *            The {@link OffHeapBuffer} segment size, for testing segment boundaries.
+     */
+    OffHeapLangtonAntEngine(int gridWidth, int gridHeight, boolean isTorus,
+            RectangularGridGeometry.Direction initialFacing, int segmentBytes) {
+        grid = new RectangularGridGeometry(gridWidth, gridHeight, isTorus);
+        cells = new OffHeapBuffer(grid.getCellCountLong(), segmentBytes);
+        this.initialFacing = initialFacing;
+        reset();
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final boolean wasWhite = cells.getByte(iAnt) == WHITE;
+        antFacing = wasWhite ? antFacing.rotateRight90() : antFacing.rotateLeft90();
+        cells.putByte(iAnt, wasWhite ? BLACK : WHITE);
+        blackCount += wasWhite ? 1 : -1;
+        iAnt = grid.getAdjacentI(iAnt, antFacing);
+        ++generation;
+        if (listener != null) {
+            listener.onStep(generation, wasWhite ? 1 : 0, wasWhite ? 0 : 1, blackCount, 1, System.nanoTime() - startNanos,
+                    0L);
+        }
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of cells currently in {@link CellState#BLACK}.
+     */
+    public long getBlackCount() {
+        return blackCount;
+    }
+
+    public CellState getState(long iCell) {
+        return (cells.getByte(iCell) == BLACK) ? CellState.BLACK : CellState.WHITE;
+    }
+
+    /**
+     * @return The long linear index of the ant's current grid location.
+     */
+    public long getAntLocation() {
+        return iAnt;
+    }
+
+    public RectangularGridGeometry.Direction getAntFacing() {
+        return antFacing;
+    }
+
+    /**
+     * Gets a copy of the current {@link CellState} ordinals, one per cell by linear cell index. Only grids of up to
+     * {@link Integer#MAX_VALUE} cells can be copied out this way.
+     *
+     * @throws ArithmeticException
+     *             If the grid has too many cells.
+     */
+    @Override
+    public byte[] getCellStates() {
+        final byte[] states = new byte[grid.getCellCount()];
+        for (int iCell = 0; iCell < states.length; ++iCell) {
+            states[iCell] = cells.getByte(iCell);
+        }
+        return states;
+    }
+
+    /**
+     * As {@link #getCellStates()}: the engine has no on-heap cell buffer, so every copy is a fresh snapshot.
+     */
+    @Override
+    public byte[] copyCellStates() {
+        return getCellStates();
+    }
+
+    /**
+     * Resets the engine as {@link #reset()} does. The ant's initial state is not random, so the seed is ignored.
+     */
+    @Override
+    public void reset(long seed) {
+        reset();
+    }
+
+    public void reset() {
+        cells.fill(WHITE);
+        iAnt = grid.getCenterLongI();
+        antFacing = initialFacing;
+        generation = 0;
+        blackCount = 0;
+    }
+}
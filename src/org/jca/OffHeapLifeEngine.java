@@ -0,0 +1,314 @@
+package org.jca;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.jca.ConwayLifeEngine.CellState;
+
+/**
+ * A Game of Life engine (with the same rules as {@link ConwayLifeEngine}) whose grid is stored off the Java heap, for
+ * grids too large for Java arrays (more than 2^31 cells) or for the garbage collector to scan cheaply, such as 100k x
+ * 100k.
+ * <p>
+ * The grid is held 1 bit per cell, in the {@link BitPackedLifeKernel} packed layout, in a pair of
+ * {@link OffHeapBuffer}s (the current and next generations); a 100k x 100k grid takes 2 x 1.25GB of direct memory.
+ * Each step is computed in parallel bands of rows: a band's rows are read into a small on-heap window of three packed
+ * rows at a time, stepped by the kernel, and the result written to the next-generation buffer.
+ * <p>
+ * Unlike {@link ConwayLifeEngine}, cells are addressed by coordinates (or long linear index), there is no per-cell
+ * state buffer, and there is no grid hash or cycle detection.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class OffHeapLifeEngine implements ISimulationEngine
+{
+    /**
+     * The number of rows in each band of rows that a step or {@link #reset(long, double)} processes in parallel.
+     */
+    private static final int BAND_ROWS = 64;
+
+    private final RectangularGridGeometry grid;
+
+    /**
+     * The number of longs per packed row.
+     */
+    private final int rowWords;
+
+    /**
+     * The packed current generation, and the scratch buffer that receives the next generation during
+     * {@link #doSimulationStep()}, then is swapped with it.
+     */
+    private OffHeapBuffer packed;
+    private OffHeapBuffer nextPacked;
+
+    private long liveCount;
+
+    private long generation;
+
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * Each stepping thread's window of three packed rows, and its output row.
+     */
+    private final ThreadLocal<long[][]> rowBuffers;
+
+    /**
+     * Per-band results of a step: births at [2 * iBand] and deaths at [2 * iBand + 1].
+     */
+    private final long[] bandResults;
+
+    /**
+     * Constructs an engine whose grid is all {@link CellState#DEAD}.
+     */
+    public OffHeapLifeEngine(int colCount, int rowCount, boolean isTorus) {
+        this(colCount, rowCount, isTorus, OffHeapBuffer.DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * @param segmentBytes
+     *            The {@link OffHeapBuffer} segment size, for testing segment boundaries.
+     */
+    OffHeapLifeEngine(int colCount, int rowCount, boolean isTorus, int segmentBytes) {
+        grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        rowWords = BitPackedLifeKernel.getRowWords(colCount);
+        final long byteCount = 8L * rowWords * rowCount;
+        packed = new OffHeapBuffer(byteCount, segmentBytes);
+        nextPacked = new OffHeapBuffer(byteCount, segmentBytes);
+        rowBuffers = ThreadLocal.withInitial(() -> new long[][] { new long[3 * rowWords], new long[rowWords] });
+        bandResults = new long[2 * ((rowCount + BAND_ROWS - 1) / BAND_ROWS)];
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of cells currently in {@link CellState#LIVE}.
+     */
+    public long getLiveCount() {
+        return liveCount;
+    }
+
+    public CellState getState(int xCell, int yCell) {
+        final long word = packed.getLong((long) yCell * rowWords + (xCell >>> 6));
+        return ((word >>> (xCell & 63)) & 1L) != 0 ? CellState.LIVE : CellState.DEAD;
+    }
+
+    public CellState getState(long iCell) {
+        return getState(grid.getX(iCell), grid.getY(iCell));
+    }
+
+    public void setState(int xCell, int yCell, CellState newState) {
+        final long iWord = (long) yCell * rowWords + (xCell >>> 6);
+        final long bit = 1L << (xCell & 63);
+        final long word = packed.getLong(iWord);
+        final boolean isLive = (word & bit) != 0;
+        if (isLive != (newState == CellState.LIVE)) {
+            packed.putLong(iWord, word ^ bit);
+            liveCount += isLive ? -1 : 1;
+        }
+    }
+
+    /**
+     * Resets the grid to the specified {@link CellState} ordinals, one per cell by linear cell index, and the
+     * generation to 0.
+     */
+    public void setCellStates(byte[] states) {
+        if (states.length != grid.getCellCountLong()) {
+            throw new IllegalArgumentException("Expected " + grid.getCellCountLong() + " cell states");
+        }
+        final int colCount = grid.getColCount();
+        liveCount = 0;
+        int iCell = 0;
+        for (int y = 0; y < grid.getRowCount(); ++y) {
+            for (int x = 0; x < colCount; x += 64) {
+                long word = 0L;
+                for (int b = 0; b < Math.min(64, colCount - x); ++b) {
+                    word |= (long) states[iCell++] << b;
+                }
+                packed.putLong((long) y * rowWords + (x >>> 6), word);
+                liveCount += Long.bitCount(word);
+            }
+        }
+        generation = 0;
+    }
+
+    /**
+     * Gets a copy of the current generation's {@link CellState} ordinals, one per cell by linear cell index. Only
+     * grids of up to {@link Integer#MAX_VALUE} cells can be copied out this way.
+     *
+     * @throws ArithmeticException
+     *             If the grid has too many cells.
+     */
+    @Override
+    public byte[] getCellStates() {
+        final int colCount = grid.getColCount();
+        final byte[] states = new byte[grid.getCellCount()];
+        int iCell = 0;
+        for (int y = 0; y < grid.getRowCount(); ++y) {
+            for (int x = 0; x < colCount; x += 64) {
+                long word = packed.getLong((long) y * rowWords + (x >>> 6));
+                for (int b = 0; b < Math.min(64, colCount - x); ++b, word >>>= 1) {
+                    states[iCell++] = (byte) (word & 1L);
+                }
+            }
+        }
+        return states;
+    }
+
+    /**
+     * As {@link #getCellStates()}: the engine has no on-heap cell buffer, so every copy is a fresh snapshot.
+     */
+    @Override
+    public byte[] copyCellStates() {
+        return getCellStates();
+    }
+
+    /**
+     * Resets the grid with a random initial state of {@link ConwayLifeEngine#DEFAULT_LIVE_DENSITY} live cells.
+     */
+    @Override
+    public void reset(long seed) {
+        reset(seed, ConwayLifeEngine.DEFAULT_LIVE_DENSITY);
+    }
+
+    /**
+     * Resets the grid with a random initial state, filling bands of rows in parallel, each from its own generator
+     * split from the seed, so the result depends only on the seed, density and geometry.
+     *
+     * @param density
+     *            The fraction of cells to make live, in [0, 1].
+     */
+    public void reset(long seed, double density) {
+        if (!(density >= 0.0 && density <= 1.0)) throw new IllegalArgumentException("density must be in [0, 1]");
+        final int densityBits = ConwayLifeEngine.toDensityBits(density);
+        final int rowCount = grid.getRowCount();
+        final long lastWordMask = getLastWordMask();
+        final int bandCount = (rowCount + BAND_ROWS - 1) / BAND_ROWS;
+        final SplittableRandom seedRandom = new SplittableRandom(seed);
+        final SplittableRandom[] bandRandoms = new SplittableRandom[bandCount];
+        for (int iBand = 0; iBand < bandCount; ++iBand) {
+            bandRandoms[iBand] = seedRandom.split();
+        }
+        liveCount = IntStream.range(0, bandCount).parallel().mapToLong(iBand -> {
+            final SplittableRandom random = bandRandoms[iBand];
+            final int yEnd = Math.min((iBand + 1) * BAND_ROWS, rowCount);
+            long bandLiveCount = 0;
+            for (long iWord = (long) iBand * BAND_ROWS * rowWords; iWord < (long) yEnd * rowWords; ++iWord) {
+                long word = ConwayLifeEngine.randomWord(random, densityBits);
+                if ((iWord + 1) % rowWords == 0) word &= lastWordMask;
+                packed.putLong(iWord, word);
+                bandLiveCount += Long.bitCount(word);
+            }
+            return bandLiveCount;
+        }).sum();
+        generation = 0;
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int bandCount = bandResults.length / 2;
+        final long[] bandResults = this.bandResults;
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> stepBand(iBand, bandResults));
+        long births = 0;
+        long deaths = 0;
+        for (int iBand = 0; iBand < bandCount; ++iBand) {
+            births += bandResults[2 * iBand];
+            deaths += bandResults[2 * iBand + 1];
+        }
+        OffHeapBuffer swap = packed;
+        packed = nextPacked;
+        nextPacked = swap;
+        liveCount += births - deaths;
+        ++generation;
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, births + deaths, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    /**
+     * Computes band iBand of the next generation into {@link nextPacked}, sliding the current thread's window of three
+     * packed rows down the band one row at a time.
+     *
+     * @param bandResults
+     *            Receives the band's births at [2 * iBand] and deaths at [2 * iBand + 1].
+     */
+    private void stepBand(int iBand, long[] bandResults) {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final boolean isTorus = grid.isTorus();
+        final long[][] buffers = rowBuffers.get();
+        final long[] window = buffers[0];
+        final long[] out = buffers[1];
+        final int yFirst = iBand * BAND_ROWS;
+        final int yEnd = Math.min(yFirst + BAND_ROWS, rowCount);
+        // Window slots hold the rows above, at and below the row being stepped.
+        int upSlot = 0;
+        int midSlot = 1;
+        int downSlot = 2;
+        loadRow(yFirst - 1, window, upSlot);
+        loadRow(yFirst, window, midSlot);
+        loadRow(yFirst + 1, window, downSlot);
+        long births = 0;
+        long deaths = 0;
+        for (int y = yFirst; y < yEnd; ++y) {
+            if (y > yFirst) {
+                final int freeSlot = upSlot;
+                upSlot = midSlot;
+                midSlot = downSlot;
+                downSlot = freeSlot;
+                loadRow(y + 1, window, downSlot);
+            }
+            final int up = (isTorus || y > 0) ? upSlot * rowWords : -1;
+            final int mid = midSlot * rowWords;
+            final int down = (isTorus || y < rowCount - 1) ? downSlot * rowWords : -1;
+            BitPackedLifeKernel.stepRow(window, up, mid, down, out, 0, colCount, isTorus, 0, rowWords);
+            for (int w = 0; w < rowWords; ++w) {
+                final long cur = window[mid + w];
+                births += Long.bitCount(out[w] & ~cur);
+                deaths += Long.bitCount(cur & ~out[w]);
+            }
+            nextPacked.putLongs((long) y * rowWords, out, 0, rowWords);
+        }
+        bandResults[2 * iBand] = births;
+        bandResults[2 * iBand + 1] = deaths;
+    }
+
+    /**
+     * Reads packed row y (wrapped on a torus) into window slot; a row off a bounded grid is not read, as the kernel is
+     * told it is dead.
+     */
+    private void loadRow(int y, long[] window, int slot) {
+        final int rowCount = grid.getRowCount();
+        if (y < 0 || y >= rowCount) {
+            if (!grid.isTorus()) return;
+            y = Math.floorMod(y, rowCount);
+        }
+        packed.getLongs((long) y * rowWords, window, slot * rowWords, rowWords);
+    }
+
+    /**
+     * @return The mask of the bits of a row's last packed word that hold cells.
+     */
+    private long getLastWordMask() {
+        final int lastBit = (grid.getColCount() - 1) & 63;
+        return (lastBit == 63) ? -1L : (1L << (lastBit + 1)) - 1;
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
@@ -0,0 +1,69 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import org.jca.ConwayLifeEngine.CellState;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class OffHeapLifeEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testAgreesWithConwayLifeEngine() {
+        // Small (64-byte) segments, so packed rows span segment boundaries; more rows than one step band.
+        final int[][] sizes = { { 3, 3 }, { 65, 12 }, { 130, 150 } };
+        for (boolean isTorus : new boolean[] { true, false }) {
+            for (int[] size : sizes) {
+                ConwayLifeEngine onHeap = new ConwayLifeEngine(size[0], size[1], isTorus);
+                OffHeapLifeEngine offHeap = new OffHeapLifeEngine(size[0], size[1], isTorus, 64);
+                onHeap.reset(size[0] * 1000L + size[1], 0.35);
+                offHeap.setCellStates(onHeap.getCellStates());
+                final String grid = onHeap.getGrid().toString();
+                for (int iStep = 0; iStep < 30; ++iStep) {
+                    onHeap.doSimulationStep();
+                    offHeap.doSimulationStep();
+                    assertArrayEquals(grid + " iStep=" + iStep, onHeap.getCellStates(), offHeap.getCellStates());
+                    assertThat(grid + " live count", offHeap.getLiveCount(), equalTo((long) onHeap.getLiveCount()));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSetState() {
+        OffHeapLifeEngine engine = new OffHeapLifeEngine(100, 10, false);
+        // A blinker across the 64-column word boundary.
+        engine.setState(63, 5, CellState.LIVE);
+        engine.setState(64, 5, CellState.LIVE);
+        engine.setState(65, 5, CellState.LIVE);
+        assertThat("live count", engine.getLiveCount(), equalTo(3L));
+        engine.doSimulationStep();
+        assertThat("x64y4", engine.getState(64, 4), equalTo(CellState.LIVE));
+        assertThat("x64y6", engine.getState(64, 6), equalTo(CellState.LIVE));
+        assertThat("x63y5", engine.getState(63, 5), equalTo(CellState.DEAD));
+        assertThat("x64y5 by long index", engine.getState(engine.getGrid().getLongI(64, 5)), equalTo(CellState.LIVE));
+        assertThat("live count", engine.getLiveCount(), equalTo(3L));
+    }
+}
@@ -0,0 +1,51 @@
+package org.jca;
+
+import java.awt.Color;
+
+/**
+ * Adapts an {@link IGridPaletteProvider} to the older, per-cell {@link IGridColorProvider} interface.
+ * <p>
+ * One {@link Color} object is created per palette entry (and rebuilt only if the provider hands back a different
+ * palette array), so {@link #getCellColor(int)} does not allocate.
+ * 
+ * @author ksdj (coder-hat)
+ */
+public class PaletteColorProvider implements IGridColorProvider
+{
+    private final IGridPaletteProvider paletteProvider;
+    
+    private int[] palette;
+    private Color[] paletteColors;
+    private Color markerColor;
+    
+    public PaletteColorProvider(IGridPaletteProvider paletteProvider) {
+        this.paletteProvider = paletteProvider;
+        this.markerColor = new Color(paletteProvider.getMarkerArgb(), true);
+    }
+
+    @Override
+    public Color getCellColor(int iCell) {
+        for (int iMarker : paletteProvider.getMarkerCells()) {
+            if (iMarker == iCell) return markerColor;
+        }
+        return getPaletteColors()[paletteProvider.getCellStates()[iCell]];
+    }
+
+    @Override
+    public Color getBackgroundColor() {
+        return paletteProvider.getBackgroundColor();
+    }
+    
+    private Color[] getPaletteColors() {
+        final int[] current = paletteProvider.getPalette();
+        if (current != palette) {
+            Color[] colors = new Color[current.length];
+            for (int i = 0; i < current.length; ++i) {
+                colors[i] = new Color(current[i], true);
+            }
+            paletteColors = colors;
+            palette = current;
+        }
+        return paletteColors;
+    }
+}
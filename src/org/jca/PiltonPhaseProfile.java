@@ -0,0 +1,121 @@
+package org.jca;
+
+import java.io.PrintStream;
+
+/**
+ * Collects per-phase timings and particle counts from a {@link PiltonWorldEngine}, once attached to it with
+ * {@link PiltonWorldEngine#setPhaseProfile(PiltonPhaseProfile)}.
+ * <p>
+ * Each simulation step runs four phases in turn (see {@link Phase}). For each phase the profile keeps a
+ * {@link LatencyHistogram} of the phase's duration in nanoseconds, and running totals of the number of particles going
+ * into and coming out of the phase, so it is possible to tell which phase dominates a step, and whether that is because
+ * of the number of particles it is handed.
+ * <p>
+ * Like the engine itself, a profile is not thread-safe: read it from the thread that steps the engine, or after
+ * stepping has stopped.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class PiltonPhaseProfile
+{
+    /**
+     * The phases of {@link PiltonWorldEngine#doSimulationStep()}, in the order they run.
+     */
+    public static enum Phase { MOVE, COALESCE, DECAY, RECOALESCE }
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final long[] totalParticlesIn = new long[Phase.values().length];
+    private final long[] totalParticlesOut = new long[Phase.values().length];
+    private final int[] lastParticlesIn = new int[Phase.values().length];
+    private final int[] lastParticlesOut = new int[Phase.values().length];
+    private long stepCount;
+
+    public PiltonPhaseProfile() {
+        for (int iPhase = 0; iPhase < histograms.length; ++iPhase) {
+            histograms[iPhase] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Records one run of the specified phase. Called by the engine.
+     */
+    void record(Phase phase, long nanos, int particlesIn, int particlesOut) {
+        final int iPhase = phase.ordinal();
+        histograms[iPhase].record(nanos);
+        totalParticlesIn[iPhase] += particlesIn;
+        totalParticlesOut[iPhase] += particlesOut;
+        lastParticlesIn[iPhase] = particlesIn;
+        lastParticlesOut[iPhase] = particlesOut;
+        if (phase == Phase.RECOALESCE) ++stepCount;
+    }
+
+    /**
+     * Discards everything recorded so far, e.g. at the end of a warm-up run.
+     */
+    public void reset() {
+        for (int iPhase = 0; iPhase < histograms.length; ++iPhase) {
+            histograms[iPhase].reset();
+            totalParticlesIn[iPhase] = 0;
+            totalParticlesOut[iPhase] = 0;
+            lastParticlesIn[iPhase] = 0;
+            lastParticlesOut[iPhase] = 0;
+        }
+        stepCount = 0;
+    }
+
+    /**
+     * @return The number of complete steps recorded.
+     */
+    public long getStepCount() {
+        return stepCount;
+    }
+
+    /**
+     * @return The histogram of the specified phase's durations, in nanoseconds.
+     */
+    public LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    public long getTotalParticlesIn(Phase phase) {
+        return totalParticlesIn[phase.ordinal()];
+    }
+
+    public long getTotalParticlesOut(Phase phase) {
+        return totalParticlesOut[phase.ordinal()];
+    }
+
+    /**
+     * @return The number of particles handed to the specified phase in the most recent step.
+     */
+    public int getLastParticlesIn(Phase phase) {
+        return lastParticlesIn[phase.ordinal()];
+    }
+
+    /**
+     * @return The number of particles produced by the specified phase in the most recent step.
+     */
+    public int getLastParticlesOut(Phase phase) {
+        return lastParticlesOut[phase.ordinal()];
+    }
+
+    /**
+     * Prints a table of the recorded timings (in microseconds) and mean particle counts, one row per phase.
+     *
+     * @param out
+     *            The stream to print to.
+     */
+    public void print(PrintStream out) {
+        out.println(String.format("steps=%1$d", stepCount));
+        out.println(String.format("%1$-10s %2$10s %3$10s %4$10s %5$10s %6$10s %7$10s %8$8s %9$8s", "phase",
+                "mean(us)", "p50(us)", "p90(us)", "p99(us)", "max(us)", "total(ms)", "in", "out"));
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram h = getHistogram(phase);
+            final double runs = Math.max(1L, h.getCount());
+            out.println(String.format("%1$-10s %2$10.2f %3$10.2f %4$10.2f %5$10.2f %6$10.2f %7$10.2f %8$8.2f %9$8.2f",
+                    phase, h.getMean() / 1e3, h.getValueAtPercentile(50.0) / 1e3, h.getValueAtPercentile(90.0) / 1e3,
+                    h.getValueAtPercentile(99.0) / 1e3, h.getMax() / 1e3, h.getTotal() / 1e6,
+                    getTotalParticlesIn(phase) / runs, getTotalParticlesOut(phase) / runs));
+        }
+    }
+}
@@ -4,12 +4,14 @@ import static java.util.stream.Collectors.toList;
 import static org.jca.RectangularGridGeometry.wrappedModulo;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.SplittableRandom;
 import java.util.TreeMap;
 import java.util.stream.IntStream;
 
@@ -30,11 +32,16 @@ import java.util.stream.IntStream;
  * 
  * @author ksdj (coder-hat)
  */
-public class PiltonWorldEngine
+public class PiltonWorldEngine implements ISimulationEngine
 {
     public static final int CELL_COLS = 7;
     public static final int CELL_ROWS = 7;
 
+    /**
+     * The geometry of Pilton's world: a 7x7 torus.
+     */
+    private static final RectangularGridGeometry GRID = new RectangularGridGeometry(CELL_COLS, CELL_ROWS, true);
+
     /**
      * The current time step of this {@link PiltonWorldEngine} object.
      */
@@ -46,6 +53,21 @@ public class PiltonWorldEngine
      */
     private List<PiltonParticle> nowParticles;
 
+    /**
+     * The buffer {@link #getCellStates()} refills on each call.
+     */
+    private final byte[] cellStates = new byte[CELL_COLS * CELL_ROWS];
+
+    /**
+     * Receives per-step metrics, or null if metrics are not being collected.
+     */
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * Receives per-phase timings and particle counts, or null if the step's phases are not being profiled.
+     */
+    private PiltonPhaseProfile phaseProfile;
+
     public PiltonWorldEngine() {
         reset();
     }
@@ -71,10 +93,51 @@ public class PiltonWorldEngine
         nowParticles = new ArrayList<>();
     }
 
+    /**
+     * Resets this object's world state to time zero, with a single particle of mass 1 at a location chosen by the
+     * specified seed.
+     * 
+     * @param seed
+     *            The random number generator seed.
+     */
+    @Override
+    public void reset(long seed) {
+        reset();
+        final int iCell = new SplittableRandom(seed).nextInt(GRID.getCellCount());
+        nowParticles.add(new PiltonParticle(GRID.getX(iCell), GRID.getY(iCell), 1));
+    }
+
     public int getTimestep() {
         return timestep;
     }
 
+    @Override
+    public long getGeneration() {
+        return timestep;
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return GRID;
+    }
+
+    /**
+     * Gets the total particle mass at each cell of the world, capped at {@link Byte#MAX_VALUE}. Pilton's world has
+     * no cell buffer of its own, so the masses are summed from the particles into a buffer that is reused, and
+     * refilled, on every call.
+     * 
+     * @return The per-cell masses, indexed by linear cell index.
+     */
+    @Override
+    public byte[] getCellStates() {
+        Arrays.fill(cellStates, (byte) 0);
+        for (PiltonParticle p : nowParticles) {
+            final int iCell = p.y() * CELL_COLS + p.x();
+            cellStates[iCell] = (byte) Math.min(cellStates[iCell] + p.mass(), Byte.MAX_VALUE);
+        }
+        return cellStates;
+    }
+
     public List<PiltonParticle> getParticles() {
         return new ArrayList<>(nowParticles);
     }
@@ -83,9 +146,101 @@ public class PiltonWorldEngine
         nowParticles = new ArrayList<>(particles);
     }
 
+    @Override
     public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final int[] massesBefore = (listener != null) ? getCellMasses(nowParticles) : null;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
         timestep += 1; // time must increment before particle processing
-        nowParticles = coalesceParticles(decayParticles(coalesceParticles(moveParticles(nowParticles))));
+        final PiltonPhaseProfile profile = phaseProfile;
+        if (profile == null) {
+            nowParticles = coalesceParticles(decayParticles(coalesceParticles(moveParticles(nowParticles))));
+        } else {
+            nowParticles = doProfiledPhases(profile, nowParticles);
+        }
+        if (listener != null) {
+            final long stepNanos = System.nanoTime() - startNanos;
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            final int[] massesAfter = getCellMasses(nowParticles);
+            int births = 0;
+            int deaths = 0;
+            int changed = 0;
+            for (int iCell = 0; iCell < massesAfter.length; ++iCell) {
+                if (massesBefore[iCell] != massesAfter[iCell]) {
+                    ++changed;
+                    if (massesBefore[iCell] == 0) ++births;
+                    if (massesAfter[iCell] == 0) ++deaths;
+                }
+            }
+            listener.onStep(timestep, births, deaths, nowParticles.size(), changed, stepNanos, allocated);
+        }
+    }
+
+    /**
+     * Sets (or with null, clears) the listener that receives metrics for each subsequent simulation step.<br>
+     * The Pilton engine reports cells occupied by a particle as live, and counts a cell as changed when the total
+     * mass at that cell changes.
+     *
+     * @param metricsListener
+     *            The listener, e.g. a {@link StepMetricsRecorder}, or null.
+     */
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
+    /**
+     * Sets (or with null, clears) the profile that receives the timing and particle counts of each phase of each
+     * subsequent simulation step. With no profile set, the phases run exactly as before, without timing.
+     *
+     * @param phaseProfile
+     *            The profile, or null.
+     */
+    public void setPhaseProfile(PiltonPhaseProfile phaseProfile) {
+        this.phaseProfile = phaseProfile;
+    }
+
+    public PiltonPhaseProfile getPhaseProfile() {
+        return phaseProfile;
+    }
+
+    /**
+     * Runs the same phases as {@link #doSimulationStep()}, timing each one into the specified profile.
+     */
+    private List<PiltonParticle> doProfiledPhases(PiltonPhaseProfile profile, List<PiltonParticle> particles) {
+        long startNanos = System.nanoTime();
+        final List<PiltonParticle> moved = moveParticles(particles);
+        long endNanos = System.nanoTime();
+        profile.record(PiltonPhaseProfile.Phase.MOVE, endNanos - startNanos, particles.size(), moved.size());
+
+        startNanos = endNanos;
+        final List<PiltonParticle> coalesced = coalesceParticles(moved);
+        endNanos = System.nanoTime();
+        profile.record(PiltonPhaseProfile.Phase.COALESCE, endNanos - startNanos, moved.size(), coalesced.size());
+
+        startNanos = endNanos;
+        final List<PiltonParticle> decayed = decayParticles(coalesced);
+        endNanos = System.nanoTime();
+        profile.record(PiltonPhaseProfile.Phase.DECAY, endNanos - startNanos, coalesced.size(), decayed.size());
+
+        startNanos = endNanos;
+        final List<PiltonParticle> recoalesced = coalesceParticles(decayed);
+        endNanos = System.nanoTime();
+        profile.record(PiltonPhaseProfile.Phase.RECOALESCE, endNanos - startNanos, decayed.size(), recoalesced.size());
+        return recoalesced;
+    }
+
+    /**
+     * @return The total particle mass at each cell of the world, indexed by linear cell index.
+     */
+    private static int[] getCellMasses(List<PiltonParticle> particles) {
+        int[] masses = new int[CELL_COLS * CELL_ROWS];
+        for (PiltonParticle p : particles) {
+            masses[p.y() * CELL_COLS + p.x()] += p.mass();
+        }
+        return masses;
     }
 
     protected Set<PiltonParticle> findMolecule(PiltonParticle p, List<PiltonParticle> particles) {
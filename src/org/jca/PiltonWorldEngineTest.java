@@ -106,6 +106,28 @@ public class PiltonWorldEngineTest
         }
     }
     
+    @Test
+    public void testGetCellStatesReusesBuffer() {
+        PiltonWorldEngine pwEngine = new PiltonWorldEngine();
+        List<PiltonParticle> particles = new ArrayList<>();
+        particles.add(new PiltonParticle(1, 0, 2));
+        particles.add(new PiltonParticle(1, 0, 3));
+        particles.add(new PiltonParticle(0, 0, 200));
+        pwEngine.setParticles(particles);
+        byte[] states = pwEngine.getCellStates();
+        byte[] copy = pwEngine.copyCellStates();
+        assertThat("summed mass", states[1], equalTo((byte) 5));
+        assertThat("capped mass", states[0], equalTo(Byte.MAX_VALUE));
+
+        particles.clear();
+        particles.add(new PiltonParticle(2, 0, 1));
+        pwEngine.setParticles(particles);
+        assertTrue("same buffer", pwEngine.getCellStates() == states);
+        assertThat("refilled", states[1], equalTo((byte) 0));
+        assertThat("refilled", states[2], equalTo((byte) 1));
+        assertThat("copy unaffected", copy[1], equalTo((byte) 5));
+    }
+    
     @Test
     public void testDoSimulationStep() {
         PiltonWorldEngine pwEngine = new PiltonWorldEngine();
@@ -126,6 +148,30 @@ public class PiltonWorldEngineTest
         }
     }
 
+    @Test
+    public void testPhaseProfile() {
+        PiltonWorldEngine plainEngine = new PiltonWorldEngine();
+        plainEngine.setParticles(EXPECT_WORLD_SEQUENCE.get(0));
+        PiltonWorldEngine profiledEngine = new PiltonWorldEngine();
+        profiledEngine.setParticles(EXPECT_WORLD_SEQUENCE.get(0));
+        PiltonPhaseProfile profile = new PiltonPhaseProfile();
+        profiledEngine.setPhaseProfile(profile);
+
+        for (int i = 0; i < 5; ++i) {
+            plainEngine.doSimulationStep();
+            profiledEngine.doSimulationStep();
+        }
+        assertThat("profiled particles", profiledEngine.getParticles(), equalTo(plainEngine.getParticles()));
+        assertThat("steps", profile.getStepCount(), equalTo(5L));
+        for (PiltonPhaseProfile.Phase phase : PiltonPhaseProfile.Phase.values()) {
+            assertThat(phase + " runs", profile.getHistogram(phase).getCount(), equalTo(5L));
+        }
+        // t=4 -> t=5 (see EXPECT_WORLD_SEQUENCE): 9 particles in, 7 out.
+        assertThat("move in", profile.getLastParticlesIn(PiltonPhaseProfile.Phase.MOVE), equalTo(9));
+        assertThat("recoalesce out", profile.getLastParticlesOut(PiltonPhaseProfile.Phase.RECOALESCE), equalTo(7));
+        assertThat("first step in", profile.getTotalParticlesIn(PiltonPhaseProfile.Phase.MOVE), equalTo(1L + 4 + 4 + 4 + 9));
+    }
+
 // Not a "real" test, but convenient for "I wonder what the state is at ..." questions.
 //    @Test
 //    public void testRunTo700() {
@@ -9,7 +9,6 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.List;
 
 import javax.swing.BorderFactory;
 import javax.swing.JButton;
@@ -17,7 +16,6 @@ import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JTextArea;
-import javax.swing.SwingWorker;
 
 
 public class PiltonWorldForm extends JFrame
@@ -28,7 +26,6 @@ public class PiltonWorldForm extends JFrame
     private static final long serialVersionUID = 1L;
     
     private PiltonWorldEngine simEngine;
-    private RectangularGridGeometry grid = new RectangularGridGeometry(PiltonWorldEngine.CELL_COLS, PiltonWorldEngine.CELL_ROWS, true);
     
     private SimulationRunner simEngineRunner;
     
@@ -69,7 +66,7 @@ public class PiltonWorldForm extends JFrame
         txtParticles.setLineWrap(true);  // turn on line wrap
         txtParticles.setWrapStyleWord(true);  // wrap at word boundaries
 
-        pnlGrid = new PiltonWorldDisplayPanel(grid, simEngine);
+        pnlGrid = new PiltonWorldDisplayPanel(simEngine.getGrid(), simEngine);
         
         btnStep = new JButton("STEP");
         btnStep.addActionListener(new StepSimulatorAction());
@@ -105,6 +102,19 @@ public class PiltonWorldForm extends JFrame
         return simEngine.getParticles().toString();
     }
     
+    private void showRunnerProgress() {
+        pnlGrid.repaint();
+        lblStatus.setText(makeStatusText());
+        txtParticles.setText(makeParticlesText());
+    }
+    
+    private void onRunnerDone() {
+        btnStep.setEnabled(true);
+        btnStart.setEnabled(true);
+        btnStop.setEnabled(false);
+        btnReset.setEnabled(true);
+    }
+    
     //----- Inner classes
     
     private class StepSimulatorAction implements ActionListener
@@ -121,7 +131,8 @@ public class PiltonWorldForm extends JFrame
     {
         @Override public void actionPerformed(ActionEvent e) {
             try {
-                simEngineRunner = new SimulationRunner();
+                simEngineRunner = new SimulationRunner(simEngine, 15, null, PiltonWorldForm.this::showRunnerProgress,
+                        PiltonWorldForm.this::onRunnerDone);
                 simEngineRunner.execute();
                 
                 btnStep.setEnabled(false);
@@ -157,45 +168,5 @@ public class PiltonWorldForm extends JFrame
             pnlGrid.repaint();
         }
     }
-    
-    private class SimulationRunner extends SwingWorker<Void, PiltonWorldEngine>
-    {
-        public SimulationRunner() {
-        }
-
-        @Override protected Void doInBackground() throws Exception {
-            if (simEngine != null) {
-                while (!isCancelled()) {
-                    simEngine.doSimulationStep();
-                    publish(simEngine);
-                    try {
-                        Thread.sleep(15); // milliseconds
-                    }
-                    catch (InterruptedException e) {
-                        // TODO Auto-generated catch block
-                        // e.printStackTrace();
-                    }
-                }
-            }
-            return null;
-        }
-        
-        @Override protected void process(List<PiltonWorldEngine> engineRefs) {
-            for (PiltonWorldEngine ae : engineRefs) {
-                synchronized (ae) {
-                    pnlGrid.repaint();
-                    lblStatus.setText(makeStatusText());
-                    txtParticles.setText(makeParticlesText());
-                }
-            }
-        }
-        
-        @Override protected void done() {
-            btnStep.setEnabled(true);
-            btnStart.setEnabled(true);
-            btnStop.setEnabled(false);
-            btnReset.setEnabled(true);
-        }
-    }
 
 }
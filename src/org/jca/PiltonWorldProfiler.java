@@ -0,0 +1,41 @@
+package org.jca;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Runs a {@link PiltonWorldEngine} headless, from the same initial state as {@link PiltonWorldSimulator}, with a
+ * {@link PiltonPhaseProfile} attached, and prints where each step's time goes.
+ * <p>
+ * Usage: PiltonWorldProfiler [steps [warmupSteps]]<br>
+ * The warm-up steps run first, and are profiled but then discarded, so the printed figures are not dominated by class
+ * loading and JIT compilation.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class PiltonWorldProfiler
+{
+    private static final int DEFAULT_STEPS = 20000;
+    private static final int DEFAULT_WARMUP_STEPS = 5000;
+
+    public static void main(String[] args) {
+        final int steps = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_STEPS;
+        final int warmupSteps = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_WARMUP_STEPS;
+
+        PiltonWorldEngine simEngine = new PiltonWorldEngine();
+        simEngine.setParticles(new ArrayList<PiltonParticle>(Arrays.asList(new PiltonParticle(3, 2, 1))));
+        PiltonPhaseProfile profile = new PiltonPhaseProfile();
+        simEngine.setPhaseProfile(profile);
+
+        for (int iStep = 0; iStep < warmupSteps; ++iStep) {
+            simEngine.doSimulationStep();
+        }
+        profile.reset();
+        for (int iStep = 0; iStep < steps; ++iStep) {
+            simEngine.doSimulationStep();
+        }
+        System.out.println(String.format("t=%1$d particles=%2$d", simEngine.getTimestep(),
+                simEngine.getParticles().size()));
+        profile.print(System.out);
+    }
+}
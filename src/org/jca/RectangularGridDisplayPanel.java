@@ -1,7 +1,11 @@
 package org.jca;
 
+import java.awt.Color;
 import java.awt.Dimension;
 import java.awt.Graphics;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
 
 import javax.swing.JPanel;
 
@@ -18,7 +22,16 @@ public class RectangularGridDisplayPanel extends JPanel
     private final int pyShim = pxShim;
 
     private RectangularGridGeometry grid;
+
+    /**
+     * Per-cell colorist used when this panel is constructed with an {@link IGridColorProvider}; otherwise null.
+     */
     private IGridColorProvider colorist;
+
+    /**
+     * Bulk colorist used when this panel is constructed with an {@link IGridPaletteProvider}; otherwise null.
+     */
+    private IGridPaletteProvider paletteColorist;
     
     /**
      * The total width (in pixels) of the grid display.
@@ -29,16 +42,45 @@ public class RectangularGridDisplayPanel extends JPanel
      */
     private int pxTotalHigh;
 
+    /**
+     * Off-screen image that palette-based painting renders into, with its backing pixel array.<br>
+     * The cell separator pixels are filled with the background color once, when the image is created, and only the
+     * cell pixels are rewritten on each repaint.
+     */
+    private BufferedImage gridImage;
+    private int[] gridPixels;
+
+    /**
+     * Scratch row of ARGB values, one per grid column.
+     */
+    private int[] rowArgb;
+
 
     public RectangularGridDisplayPanel(RectangularGridGeometry grid, IGridColorProvider colorist) {
         this.grid = grid;
         this.colorist = colorist;
 
+        initPanel(this.colorist.getBackgroundColor());
+    }
+
+    public RectangularGridDisplayPanel(RectangularGridGeometry grid, IGridPaletteProvider paletteColorist) {
+        this.grid = grid;
+        this.paletteColorist = paletteColorist;
+
+        initPanel(this.paletteColorist.getBackgroundColor());
+
+        gridImage = new BufferedImage(pxTotalWide, pxTotalHigh, BufferedImage.TYPE_INT_RGB);
+        gridPixels = ((DataBufferInt) gridImage.getRaster().getDataBuffer()).getData();
+        Arrays.fill(gridPixels, this.paletteColorist.getBackgroundColor().getRGB());
+        rowArgb = new int[this.grid.getColCount()];
+    }
+
+    private void initPanel(Color background) {
         pxTotalWide = pxShim * this.grid.getColCount() + pxCellSepSize;
         pxTotalHigh = pxShim * this.grid.getRowCount() + pxCellSepSize;
         setPreferredSize(new Dimension(pxTotalWide, pxTotalHigh));
         
-        setBackground(this.colorist.getBackgroundColor());
+        setBackground(background);
         
         //setDoubleBuffered(true);  // 2018-3-04 Runtime testing indicates no flicker with this commented-out.
     }
@@ -47,17 +89,64 @@ public class RectangularGridDisplayPanel extends JPanel
     @Override
     protected void paintComponent(Graphics g) {
         super.paintComponent(g);
-        for (int iCell = 0; iCell < grid.getCellCount(); ++iCell) {
-            g.setColor(colorist.getCellColor(iCell));
-            g.fillRect(getXpx(iCell), getYpx(iCell), pxCellSize, pxCellSize);
+        if (paletteColorist != null) {
+            paintPaletteImage();
+            g.drawImage(gridImage, 0, 0, null);
+        } else {
+            for (int iCell = 0; iCell < grid.getCellCount(); ++iCell) {
+                g.setColor(colorist.getCellColor(iCell));
+                g.fillRect(getXpx(iCell), getYpx(iCell), pxCellSize, pxCellSize);
+            }
+        }
+    }
+
+    /**
+     * Renders the current cell states into {@link gridImage}: each grid row is mapped through the palette into
+     * {@link rowArgb}, expanded into one line of pixels, and that line is copied down the height of the cell row.
+     */
+    private void paintPaletteImage() {
+        final byte[] states = paletteColorist.getCellStates();
+        final int[] palette = paletteColorist.getPalette();
+        final int colCount = grid.getColCount();
+        for (int yCell = 0; yCell < grid.getRowCount(); ++yCell) {
+            final int iRowStart = yCell * colCount;
+            for (int xCell = 0; xCell < colCount; ++xCell) {
+                rowArgb[xCell] = palette[states[iRowStart + xCell]];
+            }
+            final int pyLine = getYpxForRow(yCell);
+            final int iLine = pyLine * pxTotalWide;
+            for (int xCell = 0; xCell < colCount; ++xCell) {
+                final int iPixel = iLine + getXpxForCol(xCell);
+                Arrays.fill(gridPixels, iPixel, iPixel + pxCellSize, rowArgb[xCell]);
+            }
+            for (int py = 1; py < pxCellSize; ++py) {
+                System.arraycopy(gridPixels, iLine, gridPixels, iLine + py * pxTotalWide, pxTotalWide);
+            }
+        }
+        final int markerArgb = paletteColorist.getMarkerArgb();
+        for (int iMarker : paletteColorist.getMarkerCells()) {
+            final int pxMarker = getXpx(iMarker);
+            final int pyMarker = getYpx(iMarker);
+            for (int py = 0; py < pxCellSize; ++py) {
+                final int iPixel = (pyMarker + py) * pxTotalWide + pxMarker;
+                Arrays.fill(gridPixels, iPixel, iPixel + pxCellSize, markerArgb);
+            }
         }
     }
     
     private int getXpx(int iCell) {
-        return pxCellSepSize + (pxShim * grid.getX(iCell));
+        return getXpxForCol(grid.getX(iCell));
     }
     
     private int getYpx(int iCell) {
-        return pxCellSepSize + (pyShim * grid.getY(iCell));
+        return getYpxForRow(grid.getY(iCell));
+    }
+
+    private int getXpxForCol(int xCell) {
+        return pxCellSepSize + (pxShim * xCell);
+    }
+
+    private int getYpxForRow(int yCell) {
+        return pxCellSepSize + (pyShim * yCell);
     }
 }
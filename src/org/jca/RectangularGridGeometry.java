@@ -5,7 +5,8 @@ import java.util.List;
 
 /**
  * A RectangularGridGeometry object contains the dimensions of a rectangular grid of locations.<br>
- * No actual data is stored: only the dimensions and whether or not the grid is a torus.
+ * No actual data is stored: only the dimensions and whether or not the grid is a torus (and, once requested, the
+ * {@link #getNeighborTable() neighbor table}).
  * <p>
  * In addition to dimensions and torus status, RectangularGridGeometry provides:
  * <ul>
@@ -29,10 +30,16 @@ import java.util.List;
  * <p>
  * A cell's linear index is its sequential index from the upper left-hand corner of the grid, traversing left-to-right
  * across the columns of a row, down the rows of the grid.
+ * <p>
+ * Grids of more than {@link Integer#MAX_VALUE} cells (such as those of the off-heap engines) have linear indices that
+ * do not fit in an int; they are addressed with the long-indexed variants ({@link #getCellCountLong()},
+ * {@link #getLongI(int, int)}, {@link #getX(long)}, {@link #getY(long)}, {@link #getAdjacentI(long, Direction)}).
+ * <p>
+ * As an {@link IGridGeometry}, a cell's neighbors are its 8 adjacent cells, in {@link Direction} ordinal order.
  * 
  * @author coder-hat
  */
-public class RectangularGridGeometry
+public class RectangularGridGeometry implements IGridGeometry
 {
     /**
      * RectangularGridGeometry get-methods return this value when the grid object is not a torus,
@@ -112,8 +119,14 @@ public class RectangularGridGeometry
     private int rowCount = 1;
     private int colCount = 1;
     private int cellCount = 1;
+    private long cellCountLong = 1;
     private boolean isTorus = false;
     
+    /**
+     * The {@link #getNeighborTable() neighbor table}, or null until it is first requested.
+     */
+    private volatile int[] neighborTable;
+    
     /**
      * Constructs a {@link RectangularGridGeometry} object with the specified number of columns, rows, and torus flag.
      * @param colCount The number of columns in the grid.
@@ -123,7 +136,9 @@ public class RectangularGridGeometry
     public RectangularGridGeometry(int colCount, int rowCount, boolean isTorus) {
         this.colCount = colCount;
         this.rowCount = rowCount;
-        this.cellCount = colCount * rowCount;  // store product once, to avoid multiple multiplies in getCellCount()
+        this.cellCountLong = (long) colCount * rowCount;
+        // store product once, to avoid multiple multiplies in getCellCount()
+        this.cellCount = (cellCountLong <= Integer.MAX_VALUE) ? (int) cellCountLong : OFF_GRID_INDEX;
         this.isTorus = isTorus;
     }
     
@@ -141,6 +156,13 @@ public class RectangularGridGeometry
         return rowCount;
     }
     
+    /**
+     * @return Whether or not the grid is a torus.
+     */
+    public boolean isTorus() {
+        return isTorus;
+    }
+    
     /**
      * Get the total number of cells in the grid.<br>
      * The same result is available via ({@link RectangularGridGeometry#getColCount() getColCount} *
@@ -148,11 +170,23 @@ public class RectangularGridGeometry
      * multiplication op.
      * 
      * @return The total number of cells in the grid.
+     * @throws ArithmeticException
+     *             If the grid has more than {@link Integer#MAX_VALUE} cells; use {@link #getCellCountLong()}.
      */
     public int getCellCount() {
+        if (cellCount == OFF_GRID_INDEX) {
+            throw new ArithmeticException("Grid has " + cellCountLong + " cells; use getCellCountLong()");
+        }
         return cellCount;
     }
     
+    /**
+     * @return The total number of cells in the grid, which may exceed {@link Integer#MAX_VALUE}.
+     */
+    public long getCellCountLong() {
+        return cellCountLong;
+    }
+    
     /**
      * Gets the linear index of the cell nearest the center of the 2d grid.
      * <p>
@@ -171,6 +205,17 @@ public class RectangularGridGeometry
         return getI(xCell, yCell);
     }
     
+    /**
+     * As {@link #getCenterI()}, for grids of any size.
+     * 
+     * @return The long linear index of the cell nearest the center of the 2d grid.
+     */
+    public long getCenterLongI() {
+        final int xCell = colCount / 2 - (colCount % 2 == 0 ? 1 : 0);
+        final int yCell = rowCount / 2 - (rowCount % 2 == 0 ? 1 : 0);
+        return getLongI(xCell, yCell);
+    }
+    
     /**
      * Gets the linear index of the cell at the specified 2d grid location.
      * <p>
@@ -206,6 +251,30 @@ public class RectangularGridGeometry
         return colCount * yCell + xCell;
     }
     
+    /**
+     * As {@link #getI(int, int)}, for grids of any size.
+     * 
+     * @return The long linear index of the cell at the specified 2d grid location, or
+     *         {@link RectangularGridGeometry#OFF_GRID_INDEX OFF_GRID_INDEX}.
+     */
+    public long getLongI(int xCell, int yCell) {
+        if (xCell < 0 || xCell >= colCount) {
+            if (isTorus) {
+                xCell = wrappedModulo(xCell, colCount);
+            } else {
+                return OFF_GRID_INDEX;
+            }
+        }
+        if (yCell < 0 || yCell >= rowCount) {
+            if (isTorus) {
+                yCell = wrappedModulo(yCell, rowCount);
+            } else {
+                return OFF_GRID_INDEX;
+            }
+        }
+        return (long) colCount * yCell + xCell;
+    }
+    
     /**
      * Computes the x-coordinate (column index) corresponding to the specified iCell.<br>
      * When the grid object is a torus and the specified iCell value is less than zero or greater than
@@ -229,6 +298,24 @@ public class RectangularGridGeometry
         return iCell % colCount;
     }
     
+    /**
+     * As {@link #getX(int)}, for grids of any size.
+     * 
+     * @param iCell
+     *            The long linear index of the cell location to get the x-coordinate of.
+     * @return the x-coordinate (column index) of iCell, or OFF_GRID_INDEX.
+     */
+    public int getX(long iCell) {
+        if (iCell < 0 || iCell >= cellCountLong) {
+            if (isTorus) {
+                iCell = wrappedModulo(iCell, cellCountLong);
+            } else {
+                return OFF_GRID_INDEX;
+            }
+        }
+        return (int) (iCell % colCount);
+    }
+    
     /**
      * Computes the y-coordinate (row index) corresponding to the specified iCell.<br>
      * When the grid object is a torus and the specified iCell value is less than zero or greater than
@@ -253,6 +340,24 @@ public class RectangularGridGeometry
         return iCell / colCount;
     }
     
+    /**
+     * As {@link #getY(int)}, for grids of any size.
+     * 
+     * @param iCell
+     *            The long linear index of the cell location to get the y-coordinate of.
+     * @return the y-coordinate (row index) of iCell, or OFF_GRID_INDEX.
+     */
+    public int getY(long iCell) {
+        if (iCell < 0 || iCell >= cellCountLong) {
+            if (isTorus) {
+                iCell = wrappedModulo(iCell, cellCountLong);
+            } else {
+                return OFF_GRID_INDEX;
+            }
+        }
+        return (int) (iCell / colCount);
+    }
+    
     /**
      * Gets the linear index of the cell adjacent to iCell in the specified Direction.
      * 
@@ -273,6 +378,18 @@ public class RectangularGridGeometry
         int yCell = getY(iCell);
         return getI(xCell + facing.getDx(), yCell + facing.getDy());
     }
+    
+    /**
+     * As {@link #getAdjacentI(int, Direction)}, for grids of any size.
+     * 
+     * @return The long linear index of the adjacent cell in the specified Direction, or
+     *         {@link RectangularGridGeometry#OFF_GRID_INDEX OFF_GRID_INDEX}.
+     */
+    public long getAdjacentI(long iCell, Direction facing) {
+        int xCell = getX(iCell);
+        int yCell = getY(iCell);
+        return getLongI(xCell + facing.getDx(), yCell + facing.getDy());
+    }
         
     /**
      * Get the linear indices of the cells adjacent to iCell in each direction specified by the facings argument.
@@ -296,6 +413,57 @@ public class RectangularGridGeometry
         return adjCells;
     }
     
+    @Override
+    public int getNeighborCount() {
+        return Direction.values().length;
+    }
+    
+    /**
+     * Gets the indices of each cell's 8 adjacent cells, in {@link Direction} ordinal order, as described by
+     * {@link IGridGeometry#getNeighborTable()}.
+     */
+    @Override
+    public int[] getNeighborTable() {
+        int[] table = neighborTable;
+        if (table == null) {
+            synchronized (this) {
+                table = neighborTable;
+                if (table == null) {
+                    final Direction[] directions = Direction.values();
+                    if (cellCountLong > Integer.MAX_VALUE / directions.length) {
+                        throw new IllegalStateException("Too many cells for a neighbor table: " + this);
+                    }
+                    table = new int[cellCount * directions.length];
+                    for (int iCell = 0; iCell < cellCount; ++iCell) {
+                        final int xCell = iCell % colCount;
+                        final int yCell = iCell / colCount;
+                        for (Direction d : directions) {
+                            table[iCell * directions.length + d.ordinal()] = getI(xCell + d.getDx(),
+                                    yCell + d.getDy());
+                        }
+                    }
+                    neighborTable = table;
+                }
+            }
+        }
+        return table;
+    }
+    
+    @Override
+    public int getCellVertexCount() {
+        return 4;
+    }
+    
+    @Override
+    public void getCellOutline(int iCell, double[] xs, double[] ys) {
+        final int xCell = getX(iCell);
+        final int yCell = getY(iCell);
+        xs[0] = xCell;      ys[0] = yCell;
+        xs[1] = xCell + 1;  ys[1] = yCell;
+        xs[2] = xCell + 1;  ys[2] = yCell + 1;
+        xs[3] = xCell;      ys[3] = yCell + 1;
+    }
+    
     /**
      * Returns a brief description of this object's state.<br>
      * The following gives and example of the current format:
@@ -331,4 +499,12 @@ public class RectangularGridGeometry
         dividend = dividend % divisor;
         return dividend < 0 ? dividend + divisor : dividend;
     }
+    
+    /**
+     * As {@link #wrappedModulo(int, int)}, for long values.
+     */
+    public static long wrappedModulo(long dividend, long divisor) {
+        dividend = dividend % divisor;
+        return dividend < 0 ? dividend + divisor : dividend;
+    }
 }
@@ -298,4 +298,39 @@ public class RectangularGridGeometryTest
     //  4 % 3 = 1
     //  5 % 3 = 2
     // >>>
+
+    @Test
+    public void testLongIndices() {
+        // 100k x 100k: 10^10 cells, beyond the range of int linear indices.
+        RectangularGridGeometry grid = new RectangularGridGeometry(100000, 100000, true);
+        assertThat("cell count", grid.getCellCountLong(), equalTo(10000000000L));
+        final long iCell = grid.getLongI(99999, 50000);
+        assertThat("iCell", iCell, equalTo(5000099999L));
+        assertThat("x", grid.getX(iCell), equalTo(99999));
+        assertThat("y", grid.getY(iCell), equalTo(50000));
+        assertThat("right wraps", grid.getAdjacentI(iCell, Direction.RIGHT), equalTo(5000000000L));
+        assertThat("above left of 0 wraps", grid.getAdjacentI(0L, Direction.ABOVE_LEFT), equalTo(9999999999L));
+        assertThat("center", grid.getCenterLongI(), equalTo(grid.getLongI(49999, 49999)));
+
+        RectangularGridGeometry bounded = new RectangularGridGeometry(100000, 100000, false);
+        assertThat("off grid", bounded.getAdjacentI(0L, Direction.LEFT),
+                equalTo((long) RectangularGridGeometry.OFF_GRID_INDEX));
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void testIntCellCountOverflow() {
+        new RectangularGridGeometry(100000, 100000, true).getCellCount();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNeighborTableOverflow() {
+        // 400M cells fit in an int, but 8 neighbors each do not.
+        new RectangularGridGeometry(20000, 20000, true).getNeighborTable();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNeighborTableOverflowLongCellCount() {
+        // 4.9G cells do not fit in an int at all.
+        new RectangularGridGeometry(70000, 70000, true).getNeighborTable();
+    }
 }
@@ -0,0 +1,462 @@
+package org.jca;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Sweeps the space of Life-like rules: runs every one of the {@link #RULE_COUNT} B/S rules (on a small torus, from the
+ * same random soup) and classifies what each rule does to it, as an {@link Outcome}.
+ * <p>
+ * A rule is numbered by its birth counts in bits 0 to 8 and its survival counts in bits 9 to 17, so bit n is set for
+ * birth on n neighbors, and bit 9 + n for survival with n (see {@link #toRule(String)} and
+ * {@link #toRuleString(int)}). Each rule's run stops as soon as its outcome is known:
+ * <ul>
+ * <li>{@link Outcome#DYING}: every cell died.</li>
+ * <li>{@link Outcome#STABLE} or {@link Outcome#OSCILLATING}: the grid repeated one of its preceding
+ * {@link #CYCLE_HISTORY_LENGTH} generations (exactly, not just by hash), with period 1 or more.</li>
+ * <li>{@link Outcome#CHAOTIC}: the population exceeded the explosion density, or the run reached its maximum steps
+ * without repeating. So rules with birth on 0 neighbors, which fill the grid at once, count as chaotic unless the
+ * explosion density is 1.</li>
+ * </ul>
+ * <p>
+ * The torus is {@link #COL_COUNT} columns wide, so each row is a single long, and rows are stepped 64 cells at a time
+ * with bit-sliced adders (as in {@link BitPackedLifeKernel}) followed by the rule's counts. Rules run independently, in
+ * parallel, each thread reusing its own grid and history buffers, so the sweep scales with the number of cores.
+ * <p>
+ * Results are saved with {@link #write(Path)} as a binary table (all values little-endian):
+ * <pre>
+ * offset size field
+ *      0    4 magic ("JCAR")
+ *      4    2 format version
+ *      6    2 record size (12)
+ *      8    4 column count
+ *     12    4 row count
+ *     16    8 seed
+ *     24    8 soup density
+ *     32    8 explosion density
+ *     40    4 max steps
+ *     44    4 rule count
+ *     48  ... one record per rule, in rule order:
+ *             1 outcome ({@link Outcome} ordinal), 1 reserved (zero), 2 period (0 if dying or chaotic),
+ *             4 steps run, 4 final population
+ * </pre>
+ *
+ * @author ksdj (coder-hat)
+ */
+public class RuleSpaceSweep
+{
+    /**
+     * The number of Life-like rules: 9 birth counts and 9 survival counts, each on or off.
+     */
+    public static final int RULE_COUNT = 1 << 18;
+
+    /**
+     * The number of columns in the torus each rule runs on.
+     */
+    public static final int COL_COUNT = 64;
+
+    public static final int DEFAULT_ROW_COUNT = 64;
+    public static final int DEFAULT_MAX_STEPS = 1000;
+
+    /**
+     * The density of the soup, which fills the middle half of the torus (in both directions).
+     */
+    public static final double DEFAULT_SOUP_DENSITY = 0.5;
+
+    /**
+     * The fraction of the torus whose population ends a run as {@link Outcome#CHAOTIC}.
+     */
+    public static final double DEFAULT_EXPLOSION_DENSITY = 0.5;
+
+    /**
+     * The number of preceding generations a run's grid is compared with, which is also the longest detectable period:
+     * long enough for a glider to cross the torus and return.
+     */
+    public static final int CYCLE_HISTORY_LENGTH = 4 * COL_COUNT;
+
+    private static final int MAGIC = 0x5241434A; // "JCAR" when read as little-endian bytes
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 48;
+    private static final int RECORD_SIZE = 12;
+
+    /**
+     * How a rule's run ended.
+     */
+    public static enum Outcome { DYING, STABLE, OSCILLATING, CHAOTIC }
+
+    private static final Outcome[] OUTCOMES = Outcome.values();
+
+    private final int rowCount;
+    private final int maxSteps;
+    private final long seed;
+    private final double soupDensity;
+    private final double explosionDensity;
+
+    /**
+     * The soup every rule starts from, one long per row.
+     */
+    private final long[] soup;
+
+    /**
+     * The results of each rule's run.
+     */
+    private final byte[] outcomes = new byte[RULE_COUNT];
+    private final short[] periods = new short[RULE_COUNT];
+    private final int[] steps = new int[RULE_COUNT];
+    private final int[] finalPopulations = new int[RULE_COUNT];
+
+    /**
+     * Each thread's grid history: generation g is in grids[g % grids.length], and its hash in hashes likewise.
+     */
+    private final ThreadLocal<long[][]> histories;
+    private final ThreadLocal<long[]> historyHashes;
+
+    public RuleSpaceSweep(long seed) {
+        this(DEFAULT_ROW_COUNT, DEFAULT_MAX_STEPS, seed, DEFAULT_SOUP_DENSITY, DEFAULT_EXPLOSION_DENSITY);
+    }
+
+    /**
+     * @param rowCount
+     *            The number of rows in the torus.
+     * @param maxSteps
+     *            The number of steps after which a run that has not died or repeated is chaotic.
+     * @param seed
+     *            The seed of the soup.
+     * @param soupDensity
+     *            The fraction of live cells in the soup.
+     * @param explosionDensity
+     *            The fraction of the torus whose population makes a run chaotic; 1 to never stop runs early for
+     *            population.
+     */
+    public RuleSpaceSweep(int rowCount, int maxSteps, long seed, double soupDensity, double explosionDensity) {
+        if (rowCount < 1) throw new IllegalArgumentException("rowCount must be positive");
+        if (maxSteps < 1) throw new IllegalArgumentException("maxSteps must be positive");
+        if (!(soupDensity >= 0.0 && soupDensity <= 1.0)) {
+            throw new IllegalArgumentException("soupDensity must be in [0, 1]");
+        }
+        if (!(explosionDensity > 0.0 && explosionDensity <= 1.0)) {
+            throw new IllegalArgumentException("explosionDensity must be in (0, 1]");
+        }
+        this.rowCount = rowCount;
+        this.maxSteps = maxSteps;
+        this.seed = seed;
+        this.soupDensity = soupDensity;
+        this.explosionDensity = explosionDensity;
+        soup = new long[rowCount];
+        final int densityBits = ConwayLifeEngine.toDensityBits(soupDensity);
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long soupMask = -1L >>> (COL_COUNT / 2) << (COL_COUNT / 4);
+        for (int y = rowCount / 4; y < rowCount / 4 + (rowCount + 1) / 2; ++y) {
+            soup[y] = ConwayLifeEngine.randomWord(random, densityBits) & soupMask;
+        }
+        final int historySize = CYCLE_HISTORY_LENGTH + 1;
+        histories = ThreadLocal.withInitial(() -> new long[historySize][rowCount]);
+        historyHashes = ThreadLocal.withInitial(() -> new long[historySize]);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getMaxSteps() {
+        return maxSteps;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return The number B/S notation gives the rule, such as B3/S23 (case-insensitive).
+     * @throws IllegalArgumentException
+     *             If the rule is malformed, or has counts greater than 8.
+     */
+    public static int toRule(String rule) {
+        final String[] parts = rule.trim().toUpperCase().split("/", -1);
+        if (parts.length != 2 || !parts[0].startsWith("B") || !parts[1].startsWith("S")) {
+            throw new IllegalArgumentException("Expected a rule like B3/S23: " + rule);
+        }
+        return LatticeLifeEngine.parseCounts(parts[0].substring(1), rule, 8)
+                | (LatticeLifeEngine.parseCounts(parts[1].substring(1), rule, 8) << 9);
+    }
+
+    /**
+     * @return The rule in B/S notation, such as B3/S23.
+     */
+    public static String toRuleString(int rule) {
+        StringBuilder sb = new StringBuilder("B");
+        for (int count = 0; count <= 8; ++count) {
+            if ((rule & (1 << count)) != 0) sb.append(count);
+        }
+        sb.append("/S");
+        for (int count = 0; count <= 8; ++count) {
+            if ((rule & (1 << (9 + count))) != 0) sb.append(count);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Runs every rule, in parallel, replacing any earlier results.
+     */
+    public void run() {
+        IntStream.range(0, RULE_COUNT).parallel().forEach(this::runRule);
+    }
+
+    /**
+     * Runs the specified rule, recording its results.
+     *
+     * @return The rule's outcome.
+     */
+    public Outcome runRule(int rule) {
+        if (rule < 0 || rule >= RULE_COUNT) throw new IllegalArgumentException("No such rule: " + rule);
+        final int birthMask = rule & 0x1FF;
+        final int survivalMask = rule >>> 9;
+        final long[][] grids = histories.get();
+        final long[] hashes = historyHashes.get();
+        final long explosionPopulation = (long) Math.floor(explosionDensity * COL_COUNT * rowCount);
+        System.arraycopy(soup, 0, grids[0], 0, rowCount);
+        hashes[0] = hash(soup);
+        Outcome outcome = Outcome.CHAOTIC;
+        int period = 0;
+        int population = 0;
+        int step = 1;
+        for (; step <= maxSteps; ++step) {
+            final int iNext = step % grids.length;
+            final long[] next = grids[iNext];
+            population = step(grids[(step - 1) % grids.length], next, birthMask, survivalMask);
+            if (population == 0) {
+                outcome = Outcome.DYING;
+                break;
+            }
+            hashes[iNext] = hash(next);
+            for (int p = 1; p <= Math.min(step, CYCLE_HISTORY_LENGTH); ++p) {
+                final int iPast = (step - p) % grids.length;
+                if (hashes[iPast] == hashes[iNext] && Arrays.equals(grids[iPast], next)) {
+                    period = p;
+                    break;
+                }
+            }
+            if (period > 0) {
+                outcome = (period == 1) ? Outcome.STABLE : Outcome.OSCILLATING;
+                break;
+            }
+            if (population > explosionPopulation) break;
+        }
+        outcomes[rule] = (byte) outcome.ordinal();
+        periods[rule] = (short) period;
+        steps[rule] = Math.min(step, maxSteps);
+        finalPopulations[rule] = population;
+        return outcome;
+    }
+
+    /**
+     * Computes the next generation of the torus cur into next, under the rule with the specified birth and survival
+     * counts.
+     *
+     * @return The next generation's population.
+     */
+    static int step(long[] cur, long[] next, int birthMask, int survivalMask) {
+        final int rowCount = cur.length;
+        final int countMask = birthMask | survivalMask;
+        int population = 0;
+        for (int y = 0; y < rowCount; ++y) {
+            final long u = cur[(y == 0) ? rowCount - 1 : y - 1];
+            final long c = cur[y];
+            final long d = cur[(y == rowCount - 1) ? 0 : y + 1];
+            // Bit x of a rotated left word holds column x - 1, and of a rotated right one column x + 1.
+            final long uw = Long.rotateLeft(u, 1);
+            final long ue = Long.rotateRight(u, 1);
+            final long cw = Long.rotateLeft(c, 1);
+            final long ce = Long.rotateRight(c, 1);
+            final long dw = Long.rotateLeft(d, 1);
+            final long de = Long.rotateRight(d, 1);
+
+            // Full adders over the rows above and below, half adder over the row's own west and east neighbors.
+            final long uxor = uw ^ u;
+            final long uSum = uxor ^ ue;
+            final long uCarry = (uw & u) | (ue & uxor);
+            final long dxor = dw ^ d;
+            final long dSum = dxor ^ de;
+            final long dCarry = (dw & d) | (de & dxor);
+            final long cSum = cw ^ ce;
+            final long cCarry = cw & ce;
+            final long sxor = uSum ^ dSum;
+            final long ones = sxor ^ cSum;
+            final long onesCarry = (uSum & dSum) | (cSum & sxor);
+
+            // Sum the four twos bits into the count's twos, fours and eights bits (the count being at most 8).
+            final long twosA = uCarry ^ dCarry;
+            final long foursA = uCarry & dCarry;
+            final long twosB = cCarry ^ onesCarry;
+            final long foursB = cCarry & onesCarry;
+            final long twos = twosA ^ twosB;
+            final long fours = foursA ^ foursB ^ (twosA & twosB);
+            final long eights = foursA & foursB;
+
+            long result = 0L;
+            for (int count = 0; count <= 8; ++count) {
+                if ((countMask & (1 << count)) == 0) continue;
+                final long isCount = (((count & 1) != 0) ? ones : ~ones) & (((count & 2) != 0) ? twos : ~twos)
+                        & (((count & 4) != 0) ? fours : ~fours) & (((count & 8) != 0) ? eights : ~eights);
+                final long born = ((birthMask & (1 << count)) != 0) ? ~c : 0L;
+                final long survives = ((survivalMask & (1 << count)) != 0) ? c : 0L;
+                result |= isCount & (born | survives);
+            }
+            next[y] = result;
+            population += Long.bitCount(result);
+        }
+        return population;
+    }
+
+    /**
+     * @return A hash of the rows, to rule out most grids before comparing them exactly.
+     */
+    private static long hash(long[] rows) {
+        long hash = 0L;
+        for (long row : rows) {
+            hash = (hash ^ row) * 0x9E3779B97F4A7C15L;
+        }
+        return hash ^ (hash >>> 32);
+    }
+
+    public Outcome getOutcome(int rule) {
+        return OUTCOMES[outcomes[rule]];
+    }
+
+    /**
+     * @return The period the rule's run repeated with (1 for stable), or 0 if it died or was chaotic.
+     */
+    public int getPeriod(int rule) {
+        return periods[rule];
+    }
+
+    /**
+     * @return The number of steps the rule's run took before its outcome was known.
+     */
+    public int getSteps(int rule) {
+        return steps[rule];
+    }
+
+    public int getFinalPopulation(int rule) {
+        return finalPopulations[rule];
+    }
+
+    /**
+     * @return The number of rules with the specified outcome.
+     */
+    public int getOutcomeCount(Outcome outcome) {
+        int count = 0;
+        for (byte ordinal : outcomes) {
+            if (ordinal == outcome.ordinal()) ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Writes the sweep's parameters and results to the specified file, as the binary table described above,
+     * replacing any existing file.
+     *
+     * @throws IOException
+     *             if the file cannot be written.
+     */
+    public void write(Path path) throws IOException {
+        final long fileSize = HEADER_SIZE + (long) RECORD_SIZE * RULE_COUNT;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer mapped = channel.map(MapMode.READ_WRITE, 0, fileSize);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            mapped.putInt(0, MAGIC);
+            mapped.putShort(4, VERSION);
+            mapped.putShort(6, (short) RECORD_SIZE);
+            mapped.putInt(8, COL_COUNT);
+            mapped.putInt(12, rowCount);
+            mapped.putLong(16, seed);
+            mapped.putDouble(24, soupDensity);
+            mapped.putDouble(32, explosionDensity);
+            mapped.putInt(40, maxSteps);
+            mapped.putInt(44, RULE_COUNT);
+            for (int rule = 0; rule < RULE_COUNT; ++rule) {
+                final int offset = HEADER_SIZE + RECORD_SIZE * rule;
+                mapped.put(offset, outcomes[rule]);
+                mapped.put(offset + 1, (byte) 0);
+                mapped.putShort(offset + 2, periods[rule]);
+                mapped.putInt(offset + 4, steps[rule]);
+                mapped.putInt(offset + 8, finalPopulations[rule]);
+            }
+            mapped.force();
+        }
+    }
+
+    /**
+     * Reads a sweep's parameters and results from a file written by {@link #write(Path)}.
+     *
+     * @throws IOException
+     *             if the file cannot be read, or is not a rule sweep table.
+     */
+    public static RuleSpaceSweep read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) throw new IOException("Not a rule sweep table: file too short");
+            MappedByteBuffer mapped = channel.map(MapMode.READ_ONLY, 0, channel.size());
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC) throw new IOException("Not a rule sweep table: bad magic number");
+            if (mapped.getShort(4) != VERSION) throw new IOException("Unsupported table version " + mapped.getShort(4));
+            if (mapped.getShort(6) != RECORD_SIZE || mapped.getInt(8) != COL_COUNT
+                    || mapped.getInt(44) != RULE_COUNT) {
+                throw new IOException("Unsupported table layout");
+            }
+            if (channel.size() < HEADER_SIZE + (long) RECORD_SIZE * RULE_COUNT) {
+                throw new IOException("Rule sweep table is truncated");
+            }
+            RuleSpaceSweep sweep = new RuleSpaceSweep(mapped.getInt(12), mapped.getInt(40), mapped.getLong(16),
+                    mapped.getDouble(24), mapped.getDouble(32));
+            for (int rule = 0; rule < RULE_COUNT; ++rule) {
+                final int offset = HEADER_SIZE + RECORD_SIZE * rule;
+                if (mapped.get(offset) < 0 || mapped.get(offset) >= OUTCOMES.length) {
+                    throw new IOException("Bad outcome for rule " + rule + ": " + mapped.get(offset));
+                }
+                sweep.outcomes[rule] = mapped.get(offset);
+                sweep.periods[rule] = mapped.getShort(offset + 2);
+                sweep.steps[rule] = mapped.getInt(offset + 4);
+                sweep.finalPopulations[rule] = mapped.getInt(offset + 8);
+            }
+            return sweep;
+        }
+    }
+
+    /**
+     * Sweeps every rule, writes the results table, and prints how many rules had each outcome.
+     * <p>
+     * Usage: RuleSpaceSweep results.bin [rows [maxSteps [seed]]]
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: RuleSpaceSweep results.bin [rows [maxSteps [seed]]]");
+            System.exit(1);
+        }
+        final int rowCount = (args.length > 1) ? Integer.parseInt(args[1]) : DEFAULT_ROW_COUNT;
+        final int maxSteps = (args.length > 2) ? Integer.parseInt(args[2]) : DEFAULT_MAX_STEPS;
+        final long seed = (args.length > 3) ? Long.parseLong(args[3]) : 1L;
+
+        RuleSpaceSweep sweep = new RuleSpaceSweep(rowCount, maxSteps, seed, DEFAULT_SOUP_DENSITY,
+                DEFAULT_EXPLOSION_DENSITY);
+        final long startNanos = System.nanoTime();
+        sweep.run();
+        final double seconds = (System.nanoTime() - startNanos) / 1e9;
+        sweep.write(Paths.get(args[0]));
+        StringBuilder sb = new StringBuilder(String.format("rules=%1$d grid=%2$dx%3$d seconds=%4$.3f rules/s=%5$.1f",
+                RULE_COUNT, COL_COUNT, rowCount, seconds, RULE_COUNT / seconds));
+        for (Outcome outcome : OUTCOMES) {
+            sb.append(' ').append(outcome.name().toLowerCase()).append('=').append(sweep.getOutcomeCount(outcome));
+        }
+        System.out.println(sb);
+    }
+}
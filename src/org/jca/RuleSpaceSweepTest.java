@@ -0,0 +1,131 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+import org.jca.RuleSpaceSweep.Outcome;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class RuleSpaceSweepTest
+{
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testRuleNotation() {
+        assertThat(RuleSpaceSweep.toRule("B3/S23"), equalTo((1 << 3) | (((1 << 2) | (1 << 3)) << 9)));
+        assertThat(RuleSpaceSweep.toRule("b/s"), equalTo(0));
+        for (String rule : new String[] { "B3/S23", "B36/S23", "B/S012345678", "B012345678/S" }) {
+            assertThat(RuleSpaceSweep.toRuleString(RuleSpaceSweep.toRule(rule)), equalTo(rule));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRuleCountOutOfRange() {
+        RuleSpaceSweep.toRule("B9/S23");
+    }
+
+    @Test
+    public void testStepMatchesConwayLifeEngine() {
+        final int rowCount = 48;
+        ConwayLifeEngine engine = new ConwayLifeEngine(RuleSpaceSweep.COL_COUNT, rowCount, true);
+        engine.reset(7L);
+        long[] cur = pack(engine);
+        long[] next = new long[rowCount];
+        final int rule = RuleSpaceSweep.toRule("B3/S23");
+        for (int iStep = 0; iStep < 50; ++iStep) {
+            final int population = RuleSpaceSweep.step(cur, next, rule & 0x1FF, rule >>> 9);
+            engine.doSimulationStep();
+            assertArrayEquals("step " + iStep, pack(engine), next);
+            assertThat("step " + iStep + " population", population, equalTo(engine.getLiveCount()));
+            long[] swap = cur;
+            cur = next;
+            next = swap;
+        }
+    }
+
+    private static long[] pack(ConwayLifeEngine engine) {
+        final RectangularGridGeometry grid = engine.getGrid();
+        final long[] rows = new long[grid.getRowCount()];
+        for (int y = 0; y < grid.getRowCount(); ++y) {
+            for (int x = 0; x < grid.getColCount(); ++x) {
+                if (engine.getState(grid.getI(x, y)) == ConwayLifeEngine.CellState.LIVE) rows[y] |= 1L << x;
+            }
+        }
+        return rows;
+    }
+
+    @Test
+    public void testOutcomes() {
+        RuleSpaceSweep sweep = new RuleSpaceSweep(3L);
+        final int empty = RuleSpaceSweep.toRule("B/S");
+        assertThat(sweep.runRule(empty), equalTo(Outcome.DYING));
+        assertThat(sweep.getSteps(empty), equalTo(1));
+        final int frozen = RuleSpaceSweep.toRule("B/S012345678");
+        assertThat(sweep.runRule(frozen), equalTo(Outcome.STABLE));
+        assertThat(sweep.getPeriod(frozen), equalTo(1));
+        // Every cell flips each step, which fills more than half the torus at once.
+        final int flipping = RuleSpaceSweep.toRule("B012345678/S");
+        assertThat(sweep.runRule(flipping), equalTo(Outcome.CHAOTIC));
+        assertThat(sweep.getSteps(flipping), equalTo(1));
+
+        RuleSpaceSweep noExplosions = new RuleSpaceSweep(RuleSpaceSweep.DEFAULT_ROW_COUNT, 1, 3L,
+                RuleSpaceSweep.DEFAULT_SOUP_DENSITY, 1.0);
+        noExplosions.runRule(flipping);
+        assertThat("chaotic after maxSteps", noExplosions.getOutcome(flipping), equalTo(Outcome.CHAOTIC));
+        noExplosions = new RuleSpaceSweep(RuleSpaceSweep.DEFAULT_ROW_COUNT, 10, 3L, RuleSpaceSweep.DEFAULT_SOUP_DENSITY,
+                1.0);
+        assertThat(noExplosions.runRule(flipping), equalTo(Outcome.OSCILLATING));
+        assertThat(noExplosions.getPeriod(flipping), equalTo(2));
+        assertThat(noExplosions.getSteps(flipping), equalTo(2));
+    }
+
+    @Test
+    public void testWriteAndRead() throws IOException {
+        RuleSpaceSweep sweep = new RuleSpaceSweep(4, 6, 11L, 0.5, 0.75);
+        sweep.run();
+        int outcomeTotal = 0;
+        for (Outcome outcome : Outcome.values()) {
+            outcomeTotal += sweep.getOutcomeCount(outcome);
+        }
+        assertThat(outcomeTotal, equalTo(RuleSpaceSweep.RULE_COUNT));
+        final Path path = tempFolder.newFile("sweep.bin").toPath();
+        sweep.write(path);
+        RuleSpaceSweep read = RuleSpaceSweep.read(path);
+        assertThat(read.getRowCount(), equalTo(4));
+        assertThat(read.getMaxSteps(), equalTo(6));
+        assertThat(read.getSeed(), equalTo(11L));
+        for (int rule = 0; rule < RuleSpaceSweep.RULE_COUNT; ++rule) {
+            assertThat(read.getOutcome(rule), equalTo(sweep.getOutcome(rule)));
+            assertThat(read.getPeriod(rule), equalTo(sweep.getPeriod(rule)));
+            assertThat(read.getSteps(rule), equalTo(sweep.getSteps(rule)));
+            assertThat(read.getFinalPopulation(rule), equalTo(sweep.getFinalPopulation(rule)));
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package org.jca;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jca.RectangularGridGeometry.Direction;
+
+/**
+ * The registry of available {@link ISimulationEngine} implementations, by name, so that runners and benchmarks can be
+ * pointed at an engine (or a faster backend for the same rules) by configuration rather than by code.
+ * <p>
+ * Built-in names:
+ * <ul>
+ * <li>{@value #LIFE}: {@link ConwayLifeEngine}, with its default (bit-parallel) step kernel</li>
+ * <li>{@value #LIFE_SCALAR}: {@link ConwayLifeEngine} with the one-cell-at-a-time reference step kernel</li>
+ * <li>{@value #LIFE_TILED}: {@link ConwayLifeEngine} with the cache-blocked, parallel tiled step kernel</li>
+ * <li>{@value #LIFE_PADDED}: {@link ConwayLifeEngine} with the ghost-bordered, one-cell-at-a-time step kernel</li>
+ * <li>{@value #LIFE_BLOCKED}: {@link ConwayLifeEngine} advancing 8 generations per pass over the grid (temporal
+ * blocking) when stepped several steps at a time</li>
+ * <li>{@value #LIFE_OFF_HEAP}: {@link OffHeapLifeEngine}, for grids of more than 2^31 cells</li>
+ * <li>{@value #LARGER_THAN_LIFE}: {@link LargerThanLifeEngine} with {@link LargerThanLifeRule#BOSCO Bosco's Rule}</li>
+ * <li>{@value #HEX_LIFE}: {@link LatticeLifeEngine} running B2/S34 on a {@link HexGridGeometry}</li>
+ * <li>{@value #TRIANGULAR_LIFE}: {@link LatticeLifeEngine} running B4/S456 on a {@link TriangularGridGeometry} with
+ * the 12-cell neighborhood</li>
+ * <li>{@value #BRIANS_BRAIN}: {@link GenerationsEngine} running Brian's Brain (B2/S/C3)</li>
+ * <li>{@value #WIREWORLD}: {@link WireWorldEngine}, reset to a clock loop</li>
+ * <li>{@value #LENIA}: {@link LeniaEngine} with the default (Orbium) parameters</li>
+ * <li>{@value #RULE_30}, {@value #RULE_110}: {@link ElementaryCaEngine} running that Wolfram rule, with the rows
+ * of the grid showing the most recent generations</li>
+ * <li>{@value #CRITTERS}: {@link MargolusEngine} running the reversible Critters block rule</li>
+ * <li>{@value #LANGTON_ANT}: {@link LangtonAntEngine}, with the ant initially facing left</li>
+ * <li>{@value #LANGTON_ANT_OFF_HEAP}: {@link OffHeapLangtonAntEngine}, with the ant initially facing left</li>
+ * <li>{@value #PILTON}: {@link PiltonWorldEngine} (always 7x7 torus)</li>
+ * </ul>
+ *
+ * @author ksdj (coder-hat)
+ */
+public final class SimulationEngines
+{
+    public static final String LIFE = "life";
+    public static final String LIFE_SCALAR = "life-scalar";
+    public static final String LIFE_TILED = "life-tiled";
+    public static final String LIFE_PADDED = "life-padded";
+    public static final String LIFE_BLOCKED = "life-blocked";
+    public static final String LIFE_OFF_HEAP = "life-offheap";
+    public static final String LARGER_THAN_LIFE = "ltl";
+    public static final String HEX_LIFE = "hex-life";
+    public static final String TRIANGULAR_LIFE = "tri-life";
+    public static final String BRIANS_BRAIN = "brians-brain";
+    public static final String WIREWORLD = "wireworld";
+    public static final String LENIA = "lenia";
+    public static final String RULE_30 = "rule30";
+    public static final String RULE_110 = "rule110";
+    public static final String CRITTERS = "critters";
+    public static final String LANGTON_ANT = "ant";
+    public static final String LANGTON_ANT_OFF_HEAP = "ant-offheap";
+    public static final String PILTON = "pilton";
+
+    private static final Map<String, ISimulationEngineFactory> factories = new LinkedHashMap<>();
+    static {
+        register(LIFE, (colCount, rowCount, isTorus) -> {
+            ConwayLifeEngine engine = new ConwayLifeEngine(colCount, rowCount, isTorus);
+            engine.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+            return engine;
+        });
+        register(LIFE_SCALAR, (colCount, rowCount, isTorus) -> {
+            ConwayLifeEngine engine = new ConwayLifeEngine(colCount, rowCount, isTorus);
+            engine.setStepKernel(ConwayLifeEngine.StepKernel.SCALAR);
+            return engine;
+        });
+        register(LIFE_TILED, (colCount, rowCount, isTorus) -> {
+            ConwayLifeEngine engine = new ConwayLifeEngine(colCount, rowCount, isTorus);
+            engine.setStepKernel(ConwayLifeEngine.StepKernel.TILED);
+            return engine;
+        });
+        register(LIFE_PADDED, (colCount, rowCount, isTorus) -> {
+            ConwayLifeEngine engine = new ConwayLifeEngine(colCount, rowCount, isTorus);
+            engine.setStepKernel(ConwayLifeEngine.StepKernel.PADDED);
+            return engine;
+        });
+        register(LIFE_BLOCKED, (colCount, rowCount, isTorus) -> {
+            ConwayLifeEngine engine = new ConwayLifeEngine(colCount, rowCount, isTorus);
+            engine.setStepKernel(ConwayLifeEngine.StepKernel.BIT_PARALLEL);
+            engine.setTemporalBlockDepth(8);
+            return engine;
+        });
+        register(LIFE_OFF_HEAP, OffHeapLifeEngine::new);
+        register(LARGER_THAN_LIFE, (colCount, rowCount, isTorus) -> new LargerThanLifeEngine(colCount, rowCount,
+                isTorus, LargerThanLifeRule.BOSCO));
+        register(HEX_LIFE, (colCount, rowCount, isTorus) -> new LatticeLifeEngine(new HexGridGeometry(colCount,
+                rowCount, isTorus), "B2/S34"));
+        register(TRIANGULAR_LIFE, (colCount, rowCount, isTorus) -> new LatticeLifeEngine(new TriangularGridGeometry(
+                colCount, rowCount, isTorus, TriangularGridGeometry.Neighborhood.VERTICES), "B4/S456"));
+        register(BRIANS_BRAIN, (colCount, rowCount, isTorus) -> new GenerationsEngine(colCount, rowCount, isTorus,
+                GenerationsEngine.BRIANS_BRAIN));
+        register(WIREWORLD, WireWorldEngine::new);
+        register(LENIA, LeniaEngine::new);
+        register(RULE_30, (colCount, rowCount, isTorus) -> new ElementaryCaEngine(colCount, rowCount, isTorus, 30));
+        register(RULE_110, (colCount, rowCount, isTorus) -> new ElementaryCaEngine(colCount, rowCount, isTorus, 110));
+        register(CRITTERS, (colCount, rowCount, isTorus) -> new MargolusEngine(colCount, rowCount, isTorus,
+                MargolusEngine.Rule.CRITTERS));
+        register(LANGTON_ANT, (colCount, rowCount, isTorus) -> new LangtonAntEngine(colCount, rowCount, isTorus,
+                Direction.LEFT));
+        register(LANGTON_ANT_OFF_HEAP, (colCount, rowCount, isTorus) -> new OffHeapLangtonAntEngine(colCount, rowCount,
+                isTorus, Direction.LEFT));
+        register(PILTON, (colCount, rowCount, isTorus) -> new PiltonWorldEngine());
+    }
+
+    private SimulationEngines() {
+    }
+
+    /**
+     * Registers (or replaces) the factory for the specified engine name.
+     *
+     * @param name
+     *            The engine name.
+     * @param factory
+     *            Creates engines of that name.
+     */
+    public static synchronized void register(String name, ISimulationEngineFactory factory) {
+        factories.put(name, factory);
+    }
+
+    /**
+     * @return The registered engine names, in registration order.
+     */
+    public static synchronized List<String> getNames() {
+        return new ArrayList<>(factories.keySet());
+    }
+
+    /**
+     * Creates an engine of the named kind.
+     *
+     * @param name
+     *            A registered engine name.
+     * @param colCount
+     *            The number of columns in the grid.
+     * @param rowCount
+     *            The number of rows in the grid.
+     * @param isTorus
+     *            Whether or not the grid is a torus.
+     * @return A new engine.
+     * @throws IllegalArgumentException
+     *             if no engine of that name is registered.
+     */
+    public static ISimulationEngine create(String name, int colCount, int rowCount, boolean isTorus) {
+        final ISimulationEngineFactory factory;
+        synchronized (SimulationEngines.class) {
+            factory = factories.get(name);
+        }
+        if (factory == null) {
+            throw new IllegalArgumentException("Unknown engine \"" + name + "\"; expected one of " + getNames());
+        }
+        return factory.create(colCount, rowCount, isTorus);
+    }
+}
@@ -0,0 +1,79 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class SimulationEnginesTest
+{
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testEachEngineStepsAndResetsReproducibly() {
+        for (String name : SimulationEngines.getNames()) {
+            ISimulationEngine engine = SimulationEngines.create(name, 16, 12, true);
+            engine.reset(42L);
+            byte[] initial = engine.copyCellStates();
+            assertThat(name + " cell count", initial.length, equalTo(engine.getGrid().getCellCount()));
+
+            StepMetricsRecorder recorder = new StepMetricsRecorder();
+            engine.setMetricsListener(recorder);
+            engine.doSimulationSteps(7);
+            assertThat(name + " generation", engine.getGeneration(), equalTo(7L));
+            assertThat(name + " metrics steps", recorder.getStepCount(), equalTo(7L));
+
+            engine.reset(42L);
+            assertThat(name + " generation after reset", engine.getGeneration(), equalTo(0L));
+            assertArrayEquals(name + " reset is reproducible", initial, engine.getCellStates());
+        }
+    }
+
+    @Test
+    public void testPiltonCellStatesAreMasses() {
+        PiltonWorldEngine engine = (PiltonWorldEngine) SimulationEngines.create(SimulationEngines.PILTON, 0, 0, false);
+        engine.setParticles(Arrays.asList(new PiltonParticle(3, 2, 5)));
+        byte[] cells = engine.getCellStates();
+        assertThat("grid", engine.getGrid().toString(), equalTo("{RectangularGridGeometry ColCount=7 RowCount=7 IsTorus=true}"));
+        assertThat("mass at x3y2", cells[2 * PiltonWorldEngine.CELL_COLS + 3], equalTo((byte) 5));
+    }
+
+    @Test
+    public void testLifeKernels() {
+        assertThat("default", new ConwayLifeEngine(8, 8, true).getStepKernel(),
+                equalTo(ConwayLifeEngine.StepKernel.SCALAR));
+        final String[] names = { SimulationEngines.LIFE, SimulationEngines.LIFE_SCALAR,
+                SimulationEngines.LIFE_BLOCKED };
+        final ConwayLifeEngine.StepKernel[] kernels = { ConwayLifeEngine.StepKernel.BIT_PARALLEL,
+                ConwayLifeEngine.StepKernel.SCALAR, ConwayLifeEngine.StepKernel.BIT_PARALLEL };
+        for (int iName = 0; iName < names.length; ++iName) {
+            ConwayLifeEngine engine = (ConwayLifeEngine) SimulationEngines.create(names[iName], 8, 8, true);
+            assertThat(names[iName], engine.getStepKernel(), equalTo(kernels[iName]));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownEngine() {
+        SimulationEngines.create("no-such-engine", 8, 8, true);
+    }
+}
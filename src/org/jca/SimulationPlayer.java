@@ -0,0 +1,238 @@
+package org.jca;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a recording written by a {@link SimulationRecorder}, and reconstructs the cell states of any recorded
+ * generation by decompressing the nearest preceding keyframe and applying the deltas that follow it.
+ * <p>
+ * The player remembers the frame it last reconstructed, so seeking forward within the same keyframe span (e.g. while a
+ * timeline slider is dragged to the right) only applies the intervening deltas.
+ * <p>
+ * A recording may be played while it is still being written: {@link #refresh()} indexes any frames appended since the
+ * player was opened or last refreshed.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class SimulationPlayer implements Closeable
+{
+    private final FileChannel channel;
+    private final RectangularGridGeometry grid;
+
+    /**
+     * Index of the recording's complete frames: generation, file offset of the frame header, and frame type.
+     */
+    private long[] frameGenerations = new long[256];
+    private long[] frameOffsets = new long[256];
+    private byte[] frameTypes = new byte[256];
+    private int frameCount;
+
+    /**
+     * The file offset just past the last indexed frame.
+     */
+    private long scanOffset = SimulationRecorder.HEADER_SIZE;
+
+    /**
+     * The cell states of frame {@link iCurrentFrame}, or undefined when iCurrentFrame is -1.
+     */
+    private final byte[] current;
+    private int iCurrentFrame = -1;
+
+    private final Inflater inflater = new Inflater();
+    private final ByteBuffer frameHeader = ByteBuffer.allocate(SimulationRecorder.FRAME_HEADER_SIZE)
+        .order(ByteOrder.LITTLE_ENDIAN);
+    private byte[] compressed = new byte[4096];
+    private byte[] changes = new byte[4096];
+
+    /**
+     * Opens a recording and indexes its frames.
+     *
+     * @param path
+     *            The recording file.
+     * @throws IOException
+     *             if the file cannot be read, or is not a recording.
+     */
+    public SimulationPlayer(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(SimulationRecorder.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        readFully(header, 0);
+        if (header.getInt(0) != SimulationRecorder.MAGIC) {
+            channel.close();
+            throw new IOException("Not a simulation recording: bad magic number");
+        }
+        if (header.getShort(4) != SimulationRecorder.VERSION) {
+            channel.close();
+            throw new IOException("Unsupported recording version " + header.getShort(4));
+        }
+        grid = new RectangularGridGeometry(header.getInt(8), header.getInt(12), header.get(6) != 0);
+        current = new byte[grid.getCellCount()];
+        refresh();
+    }
+
+    /**
+     * @return The geometry of the recorded grid.
+     */
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return The number of complete frames indexed so far.
+     */
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * @return The generation number of the first recorded frame.
+     * @throws IllegalStateException
+     *             if the recording has no frames.
+     */
+    public long getFirstGeneration() {
+        if (frameCount == 0) throw new IllegalStateException("recording has no frames");
+        return frameGenerations[0];
+    }
+
+    /**
+     * @return The generation number of the last indexed frame.
+     * @throws IllegalStateException
+     *             if the recording has no frames.
+     */
+    public long getLastGeneration() {
+        if (frameCount == 0) throw new IllegalStateException("recording has no frames");
+        return frameGenerations[frameCount - 1];
+    }
+
+    /**
+     * Indexes any complete frames appended to the recording since it was opened or last refreshed.
+     *
+     * @throws IOException
+     *             if the recording cannot be read.
+     */
+    public void refresh() throws IOException {
+        final long size = channel.size();
+        while (scanOffset + SimulationRecorder.FRAME_HEADER_SIZE <= size) {
+            frameHeader.clear();
+            readFully(frameHeader, scanOffset);
+            final long frameEnd = scanOffset + SimulationRecorder.FRAME_HEADER_SIZE + frameHeader.getInt(13);
+            if (frameEnd > size) break; // frame still being written
+            if (frameCount == frameGenerations.length) {
+                frameGenerations = Arrays.copyOf(frameGenerations, frameCount * 2);
+                frameOffsets = Arrays.copyOf(frameOffsets, frameCount * 2);
+                frameTypes = Arrays.copyOf(frameTypes, frameCount * 2);
+            }
+            frameTypes[frameCount] = frameHeader.get(0);
+            frameGenerations[frameCount] = frameHeader.getLong(1);
+            frameOffsets[frameCount] = scanOffset;
+            ++frameCount;
+            scanOffset = frameEnd;
+        }
+    }
+
+    /**
+     * Reconstructs the cell states of the last recorded generation at or before the specified generation.
+     *
+     * @param generation
+     *            The generation to seek to.
+     * @param cells
+     *            Receives the reconstructed cell state ordinals, one per grid cell.
+     * @return The generation number of the reconstructed cell states.
+     * @throws IllegalArgumentException
+     *             if generation precedes the first recorded generation.
+     * @throws IOException
+     *             if the recording cannot be read, or is corrupt.
+     */
+    public long seek(long generation, byte[] cells) throws IOException {
+        int iTarget = Arrays.binarySearch(frameGenerations, 0, frameCount, generation);
+        if (iTarget < 0) iTarget = -iTarget - 2; // last frame before the insertion point
+        if (iTarget < 0) {
+            throw new IllegalArgumentException("generation " + generation + " precedes the recording");
+        }
+        int iKey = iTarget;
+        while (frameTypes[iKey] != SimulationRecorder.FRAME_KEY) --iKey;
+
+        int iFrame = (iCurrentFrame >= iKey && iCurrentFrame <= iTarget) ? iCurrentFrame + 1 : iKey;
+        iCurrentFrame = -1; // current is inconsistent until all frames up to iTarget are loaded
+        for (; iFrame <= iTarget; ++iFrame) {
+            loadFrame(iFrame);
+        }
+        iCurrentFrame = iTarget;
+        System.arraycopy(current, 0, cells, 0, current.length);
+        return frameGenerations[iTarget];
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * Decompresses the specified frame, and either replaces {@link current} with it (keyframe) or applies it to
+     * current (delta).
+     */
+    private void loadFrame(int iFrame) throws IOException {
+        frameHeader.clear();
+        readFully(frameHeader, frameOffsets[iFrame]);
+        final int rawLength = frameHeader.getInt(9);
+        final int compressedLength = frameHeader.getInt(13);
+        if (compressed.length < compressedLength) compressed = new byte[compressedLength];
+        readFully(ByteBuffer.wrap(compressed, 0, compressedLength),
+                frameOffsets[iFrame] + SimulationRecorder.FRAME_HEADER_SIZE);
+
+        if (frameTypes[iFrame] == SimulationRecorder.FRAME_KEY) {
+            if (rawLength != current.length) throw new IOException("Keyframe size does not match the grid");
+            inflate(compressedLength, current, rawLength);
+        } else {
+            if (changes.length < rawLength) changes = new byte[rawLength];
+            inflate(compressedLength, changes, rawLength);
+            int iCell = -1;
+            int iChange = 0;
+            while (iChange < rawLength) {
+                int gap = 0;
+                int shift = 0;
+                byte b;
+                do {
+                    b = changes[iChange++];
+                    gap |= (b & 0x7F) << shift;
+                    shift += 7;
+                } while ((b & 0x80) != 0);
+                iCell += gap;
+                current[iCell] = changes[iChange++];
+            }
+        }
+    }
+
+    private void inflate(int compressedLength, byte[] raw, int rawLength) throws IOException {
+        inflater.reset();
+        inflater.setInput(compressed, 0, compressedLength);
+        try {
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                final int inflated = inflater.inflate(raw, length, rawLength - length);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                length += inflated;
+            }
+            if (length != rawLength) throw new IOException("Frame payload is truncated");
+        } catch (DataFormatException ex) {
+            throw new IOException("Frame payload is corrupt", ex);
+        }
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of recording");
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package org.jca;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+
+/**
+ * Records successive generations of a grid's cell states to an append-only file, so a run can later be scrubbed
+ * backwards and forwards with a {@link SimulationPlayer}.
+ * <p>
+ * Rather than storing every generation in full, the recorder writes a compressed keyframe (the complete cell state
+ * buffer) every {@code keyframeInterval} frames, and in between writes compressed change lists: the index and new state
+ * of only those cells that differ from the previously recorded generation. Recording a generation is therefore one
+ * sequential compare-and-copy pass over the cell buffer, plus compression of the (usually small) change list.
+ * <p>
+ * The recorder works on any engine that exposes its cells as a buffer of state ordinals, such as
+ * {@link ConwayLifeEngine#getCellStates()}. Call {@link #record(long, byte[])} from the step loop after each step.
+ * <p>
+ * File layout (all values little-endian):
+ * <pre>
+ * header (24 bytes):
+ *   magic ("JCAR", 4) | version (2) | torus flag (1) | reserved (1) | column count (4) | row count (4)
+ *   | keyframe interval (4) | reserved (4)
+ * frames, each:
+ *   type (1: 0 = keyframe, 1 = delta) | generation (8) | raw payload length (4) | compressed payload length (4)
+ *   | compressed payload (deflate)
+ * </pre>
+ * A keyframe's raw payload is the cell state buffer. A delta's raw payload is a sequence of (gap, state) pairs, where
+ * gap is the unsigned varint distance from the previous changed cell's index (starting from -1), and state is the
+ * changed cell's new state ordinal.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class SimulationRecorder implements Closeable
+{
+    static final int MAGIC = 0x5241434A; // "JCAR" when read as little-endian bytes
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int FRAME_HEADER_SIZE = 17;
+    static final byte FRAME_KEY = 0;
+    static final byte FRAME_DELTA = 1;
+
+    private final FileChannel channel;
+    private final int keyframeInterval;
+
+    /**
+     * The cell states of the most recently recorded generation.
+     */
+    private final byte[] previous;
+    private long previousGeneration = Long.MIN_VALUE;
+    private int framesSinceKeyframe;
+    private long byteCount;
+
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    private final ByteBuffer frameHeader = ByteBuffer.allocate(FRAME_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+    /**
+     * Scratch buffer for delta change lists, grown as needed.
+     */
+    private byte[] changes = new byte[4096];
+
+    /**
+     * Scratch buffer for compressed payloads, grown as needed.
+     */
+    private byte[] compressed = new byte[4096];
+
+    /**
+     * Creates a new recording file (replacing any existing one) for grids of the specified geometry.
+     *
+     * @param path
+     *            The recording file.
+     * @param grid
+     *            The geometry of the grid being recorded.
+     * @param keyframeInterval
+     *            The number of frames between keyframes. Larger values make the file smaller, but seeking slower.
+     * @throws IOException
+     *             if the file cannot be created.
+     */
+    public SimulationRecorder(Path path, RectangularGridGeometry grid, int keyframeInterval) throws IOException {
+        if (keyframeInterval < 1) throw new IllegalArgumentException("keyframeInterval must be positive");
+        this.keyframeInterval = keyframeInterval;
+        this.previous = new byte[grid.getCellCount()];
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC).putShort(VERSION).put((byte) (grid.isTorus() ? 1 : 0)).put((byte) 0)
+            .putInt(grid.getColCount()).putInt(grid.getRowCount()).putInt(keyframeInterval).putInt(0);
+        header.flip();
+        writeFully(header);
+    }
+
+    /**
+     * Appends the specified generation's cell states to the recording.
+     *
+     * @param generation
+     *            The generation number of cells. Must be greater than that of the previously recorded generation.
+     * @param cells
+     *            The cell state ordinals, one per grid cell.
+     * @throws IOException
+     *             if the recording cannot be written.
+     */
+    public void record(long generation, byte[] cells) throws IOException {
+        if (generation <= previousGeneration) {
+            throw new IllegalArgumentException(String.format(
+                    "generation %1$s is not after previously recorded generation %2$s", generation, previousGeneration));
+        }
+        if (previousGeneration == Long.MIN_VALUE || framesSinceKeyframe + 1 >= keyframeInterval) {
+            writeFrame(FRAME_KEY, generation, cells, cells.length);
+            framesSinceKeyframe = 0;
+        } else {
+            writeFrame(FRAME_DELTA, generation, changes, encodeChanges(cells));
+            ++framesSinceKeyframe;
+        }
+        System.arraycopy(cells, 0, previous, 0, previous.length);
+        previousGeneration = generation;
+    }
+
+    /**
+     * Appends the specified engine's current generation to the recording.
+     *
+     * @param engine
+     *            The engine being recorded, whose grid must have the geometry the recording was created for.
+     * @throws IOException
+     *             if the recording cannot be written.
+     */
+    public void record(ISimulationEngine engine) throws IOException {
+        record(engine.getGeneration(), engine.getCellStates());
+    }
+
+    /**
+     * @return The generation number most recently passed to {@link #record(long, byte[])}, or Long.MIN_VALUE if none.
+     */
+    public long getLastGeneration() {
+        return previousGeneration;
+    }
+
+    /**
+     * @return The number of bytes written to the recording file so far, including its header.
+     */
+    public long getByteCount() {
+        return byteCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        channel.close();
+    }
+
+    /**
+     * Encodes the cells that differ from {@link previous} into the {@link changes} buffer.
+     *
+     * @return The length of the encoded change list.
+     */
+    private int encodeChanges(byte[] cells) {
+        int length = 0;
+        int iPrevChange = -1;
+        for (int iCell = 0; iCell < cells.length; ++iCell) {
+            if (cells[iCell] != previous[iCell]) {
+                if (length + 6 > changes.length) changes = Arrays.copyOf(changes, changes.length * 2);
+                int gap = iCell - iPrevChange;
+                while ((gap & ~0x7F) != 0) {
+                    changes[length++] = (byte) ((gap & 0x7F) | 0x80);
+                    gap >>>= 7;
+                }
+                changes[length++] = (byte) gap;
+                changes[length++] = cells[iCell];
+                iPrevChange = iCell;
+            }
+        }
+        return length;
+    }
+
+    private void writeFrame(byte type, long generation, byte[] raw, int rawLength) throws IOException {
+        deflater.reset();
+        deflater.setInput(raw, 0, rawLength);
+        deflater.finish();
+        int compressedLength = 0;
+        while (!deflater.finished()) {
+            if (compressedLength == compressed.length) compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            compressedLength += deflater.deflate(compressed, compressedLength, compressed.length - compressedLength);
+        }
+        frameHeader.clear();
+        frameHeader.put(type).putLong(generation).putInt(rawLength).putInt(compressedLength);
+        frameHeader.flip();
+        writeFully(frameHeader);
+        writeFully(ByteBuffer.wrap(compressed, 0, compressedLength));
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            byteCount += channel.write(buffer);
+        }
+    }
+}
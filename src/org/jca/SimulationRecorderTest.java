@@ -0,0 +1,105 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class SimulationRecorderTest
+{
+    private static final int GENERATIONS = 25;
+    private static final int KEYFRAME_INTERVAL = 10;
+
+    @Rule
+    public TemporaryFolder tempFolder = new TemporaryFolder();
+
+    private Path path;
+
+    /**
+     * The cell states of each recorded generation, indexed by generation.
+     */
+    private List<byte[]> expectCells;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        path = tempFolder.newFile("life.rec").toPath();
+        expectCells = new ArrayList<>();
+        ConwayLifeEngine engine = new ConwayLifeEngine(17, 13, true);
+        try (SimulationRecorder recorder = new SimulationRecorder(path, engine.getGrid(), KEYFRAME_INTERVAL)) {
+            recorder.record(engine.getGeneration(), engine.getCellStates());
+            expectCells.add(engine.getCellStates().clone());
+            for (int iStep = 0; iStep < GENERATIONS; ++iStep) {
+                engine.doSimulationStep();
+                recorder.record(engine.getGeneration(), engine.getCellStates());
+                expectCells.add(engine.getCellStates().clone());
+            }
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testPlayerIndex() throws IOException {
+        try (SimulationPlayer player = new SimulationPlayer(path)) {
+            assertThat("frames", player.getFrameCount(), equalTo(GENERATIONS + 1));
+            assertThat("first", player.getFirstGeneration(), equalTo(0L));
+            assertThat("last", player.getLastGeneration(), equalTo((long) GENERATIONS));
+            assertThat("grid", player.getGrid().toString(), equalTo("{RectangularGridGeometry ColCount=17 RowCount=13 IsTorus=true}"));
+        }
+    }
+
+    @Test
+    public void testSeekForwardsAndBackwards() throws IOException {
+        final int[] seekOrder = { 0, 3, 4, 12, 25, 9, 10, 11, 2, 19, 18, 25 };
+        try (SimulationPlayer player = new SimulationPlayer(path)) {
+            byte[] cells = new byte[player.getGrid().getCellCount()];
+            for (int generation : seekOrder) {
+                assertThat("shown generation", player.seek(generation, cells), equalTo((long) generation));
+                assertArrayEquals("generation " + generation, expectCells.get(generation), cells);
+            }
+        }
+    }
+
+    @Test
+    public void testByteCountMatchesFileSize() throws IOException {
+        try (SimulationRecorder recorder = new SimulationRecorder(path, new RectangularGridGeometry(3, 3, true), 5)) {
+            assertThat("header only", recorder.getByteCount(), equalTo((long) SimulationRecorder.HEADER_SIZE));
+            byte[] cells = new byte[9];
+            recorder.record(0, cells);
+            cells[4] = 1;
+            recorder.record(1, cells);
+            assertThat("after frames", recorder.getByteCount(), equalTo(Files.size(path)));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRecordRejectsOutOfOrderGeneration() throws IOException {
+        try (SimulationRecorder recorder = new SimulationRecorder(path, new RectangularGridGeometry(3, 3, true), 5)) {
+            byte[] cells = new byte[9];
+            recorder.record(4, cells);
+            recorder.record(4, cells);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package org.jca;
+
+import java.util.List;
+
+import javax.swing.SwingWorker;
+
+/**
+ * Steps an {@link ISimulationEngine} continuously on a background thread, until cancelled, pausing between steps so
+ * the display can keep up, and notifying the form (on the event dispatch thread) as the simulation progresses.<br>
+ * This is the START/STOP loop shared by the simulator forms: START executes a new runner, STOP cancels it.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class SimulationRunner extends SwingWorker<Void, Long>
+{
+    private final ISimulationEngine engine;
+    private final long stepDelayMillis;
+    private final Runnable afterStep;
+    private final Runnable onProgress;
+    private final Runnable onDone;
+
+    /**
+     * @param engine
+     *            The engine to step.
+     * @param stepDelayMillis
+     *            The pause after each step, in milliseconds.
+     * @param afterStep
+     *            Run on the background thread after each step (e.g. to record the new generation), or null.
+     * @param onProgress
+     *            Run on the event dispatch thread after one or more steps (e.g. to repaint the grid and status). When
+     *            the event dispatch thread falls behind, several steps are reported with a single call.
+     * @param onDone
+     *            Run on the event dispatch thread once the runner has stopped (e.g. to re-enable the buttons), or
+     *            null.
+     */
+    public SimulationRunner(ISimulationEngine engine, long stepDelayMillis, Runnable afterStep, Runnable onProgress,
+            Runnable onDone) {
+        this.engine = engine;
+        this.stepDelayMillis = stepDelayMillis;
+        this.afterStep = afterStep;
+        this.onProgress = onProgress;
+        this.onDone = onDone;
+    }
+
+    public ISimulationEngine getEngine() {
+        return engine;
+    }
+
+    @Override
+    protected Void doInBackground() throws Exception {
+        while (!isCancelled()) {
+            engine.doSimulationStep();
+            if (afterStep != null) afterStep.run();
+            publish(engine.getGeneration());
+            try {
+                Thread.sleep(stepDelayMillis);
+            }
+            catch (InterruptedException e) {
+                break; // cancel(true) interrupts the sleep
+            }
+        }
+        return null;
+    }
+
+    @Override
+    protected void process(List<Long> generations) {
+        if (onProgress != null) onProgress.run();
+    }
+
+    @Override
+    protected void done() {
+        if (onDone != null) onDone.run();
+    }
+}
@@ -0,0 +1,105 @@
+package org.jca;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes the step metrics collected by a {@link StepMetricsRecorder} as CSV, one row per step, for graphing
+ * throughput and dynamics offline.
+ * <p>
+ * The sink reads the recorder's ring buffer through its own {@link StepMetricsRecorder.Cursor}, so it runs on a
+ * separate thread from the engine (e.g. a periodic timer calling {@link #drain()}), and formatting and I/O costs never
+ * land in the step loop. Rows are formatted into a reused character buffer, so draining does not allocate per row.
+ * 
+ * @author ksdj (coder-hat)
+ */
+public class StepMetricsCsvSink implements Closeable
+{
+    private static final int DRAIN_BATCH_STEPS = 1024;
+    
+    private final StepMetricsRecorder recorder;
+    private final StepMetricsRecorder.Cursor cursor;
+    private final Writer out;
+    
+    private final long[] batch = new long[DRAIN_BATCH_STEPS * StepMetricsRecorder.METRIC_COUNT];
+    private final StringBuilder line = new StringBuilder(160);
+    private char[] lineChars = new char[160];
+    
+    /**
+     * Creates a sink, and writes the CSV header row.
+     * 
+     * @param recorder
+     *            The recorder to read step metrics from, starting with the oldest step it still holds.
+     * @param out
+     *            The CSV destination. The sink closes it when the sink is closed.
+     * @throws IOException
+     *             if the header cannot be written.
+     */
+    public StepMetricsCsvSink(StepMetricsRecorder recorder, Writer out) throws IOException {
+        this.recorder = recorder;
+        this.cursor = recorder.newCursor();
+        this.out = out;
+        for (StepMetricsRecorder.Metric metric : StepMetricsRecorder.Metric.values()) {
+            if (metric.ordinal() > 0) line.append(',');
+            line.append(metric.name().toLowerCase());
+        }
+        writeLine();
+    }
+    
+    /**
+     * Writes a row for every step recorded since the previous drain.
+     * 
+     * @return The number of rows written.
+     * @throws IOException
+     *             if the rows cannot be written.
+     */
+    public long drain() throws IOException {
+        long rows = 0;
+        int count;
+        while ((count = cursor.read(batch, DRAIN_BATCH_STEPS)) > 0) {
+            for (int iStep = 0; iStep < count; ++iStep) {
+                final int iFirst = iStep * StepMetricsRecorder.METRIC_COUNT;
+                for (int iMetric = 0; iMetric < StepMetricsRecorder.METRIC_COUNT; ++iMetric) {
+                    if (iMetric > 0) line.append(',');
+                    line.append(batch[iFirst + iMetric]);
+                }
+                writeLine();
+            }
+            rows += count;
+        }
+        out.flush();
+        return rows;
+    }
+    
+    /**
+     * @return The number of steps the sink missed because the recorder's ring buffer wrapped before they were drained.
+     */
+    public long getSkippedSteps() {
+        return cursor.getSkippedSteps();
+    }
+    
+    public StepMetricsRecorder getRecorder() {
+        return recorder;
+    }
+    
+    /**
+     * Drains any remaining steps, then closes the destination.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            out.close();
+        }
+    }
+    
+    private void writeLine() throws IOException {
+        line.append('\n');
+        if (lineChars.length < line.length()) lineChars = new char[line.length()];
+        line.getChars(0, line.length(), lineChars, 0);
+        out.write(lineChars, 0, line.length());
+        line.setLength(0);
+    }
+}
@@ -0,0 +1,231 @@
+package org.jca;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Collects the per-step metrics an engine reports through {@link IStepMetricsListener} into a lock-free ring buffer,
+ * and keeps running totals, for consumption by other threads: the JMX {@link IStepMetricsMXBean} view (see
+ * {@link #registerMBean(String)}) and {@link StepMetricsCsvSink}.
+ * <p>
+ * The recorder supports a single writer (the engine's stepping thread) and any number of readers, each with its own
+ * {@link Cursor}. The writer fills the ring slot for step n and then publishes n with an ordered store; readers copy up
+ * to the published step, then discard any slots the writer may have overwritten in the meantime. Neither side ever
+ * blocks or allocates.
+ * 
+ * @author ksdj (coder-hat)
+ */
+public class StepMetricsRecorder implements IStepMetricsListener, IStepMetricsMXBean
+{
+    /**
+     * The metrics recorded for each step, in {@link IStepMetricsListener#onStep onStep} argument order.
+     */
+    public static enum Metric { GENERATION, BIRTHS, DEATHS, LIVE_COUNT, CHANGED_COUNT, STEP_NANOS, ALLOCATED_BYTES }
+    
+    /**
+     * The number of values recorded per step.
+     */
+    public static final int METRIC_COUNT = Metric.values().length;
+    
+    public static final int DEFAULT_CAPACITY = 1 << 14;
+    
+    private final int capacity;
+    private final int mask;
+    
+    /**
+     * Ring buffer of step metrics: the values of step n are at [METRIC_COUNT * (n &amp; mask) + metric ordinal].
+     */
+    private final long[] ring;
+    
+    /**
+     * The number of steps recorded (and published to readers) so far.
+     */
+    private final AtomicLong published = new AtomicLong();
+    
+    // Running totals, written only by the stepping thread.
+    private volatile long totalBirths;
+    private volatile long totalDeaths;
+    private volatile long totalChangedCount;
+    private volatile long totalStepNanos;
+    private volatile long totalAllocatedBytes;
+    
+    public StepMetricsRecorder() {
+        this(DEFAULT_CAPACITY);
+    }
+    
+    /**
+     * @param capacity
+     *            The number of most recent steps kept in the ring buffer. Rounded up to a power of two.
+     */
+    public StepMetricsRecorder(int capacity) {
+        if (capacity < 1 || capacity > (1 << 24)) throw new IllegalArgumentException("capacity out of range");
+        int powerOfTwo = 1;
+        while (powerOfTwo < capacity) powerOfTwo <<= 1;
+        this.capacity = powerOfTwo;
+        this.mask = powerOfTwo - 1;
+        this.ring = new long[METRIC_COUNT * powerOfTwo];
+    }
+    
+    @Override
+    public void onStep(long generation, long births, long deaths, long liveCount, long changedCount, long stepNanos,
+            long allocatedBytes) {
+        final long step = published.get();
+        final int iSlot = METRIC_COUNT * (int) (step & mask);
+        ring[iSlot] = generation;
+        ring[iSlot + 1] = births;
+        ring[iSlot + 2] = deaths;
+        ring[iSlot + 3] = liveCount;
+        ring[iSlot + 4] = changedCount;
+        ring[iSlot + 5] = stepNanos;
+        ring[iSlot + 6] = allocatedBytes;
+        totalBirths += births;
+        totalDeaths += deaths;
+        totalChangedCount += changedCount;
+        totalStepNanos += stepNanos;
+        totalAllocatedBytes = (allocatedBytes < 0 || totalAllocatedBytes < 0) ? -1L
+                : totalAllocatedBytes + allocatedBytes;
+        published.lazySet(step + 1);
+    }
+    
+    /**
+     * @return The number of steps kept in the ring buffer.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    /**
+     * Creates a reader positioned at the oldest step still readable from the ring buffer: the last capacity - 1 steps,
+     * since the writer may be overwriting the slot of the step before them.
+     * 
+     * @return A new cursor.
+     */
+    public Cursor newCursor() {
+        return new Cursor(Math.max(0L, published.get() - capacity + 1));
+    }
+    
+    /**
+     * Gets the specified metric's value for the most recent step.
+     * 
+     * @param metric
+     *            The metric to get.
+     * @return The metric's latest value, or 0 if no steps have been recorded.
+     */
+    public long getLatest(Metric metric) {
+        final long step = published.get() - 1;
+        return (step < 0) ? 0L : ring[METRIC_COUNT * (int) (step & mask) + metric.ordinal()];
+    }
+    
+    /**
+     * Registers this recorder with the platform MBean server as "org.jca:type=StepMetrics,name=<i>name</i>".
+     * 
+     * @param name
+     *            The value of the object name's "name" key, e.g. a description of the engine being measured.
+     * @return The registered object name.
+     * @throws JMException
+     *             if the name is already registered.
+     */
+    public ObjectName registerMBean(String name) throws JMException {
+        ObjectName objectName = new ObjectName("org.jca:type=StepMetrics,name=" + ObjectName.quote(name));
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName);
+        return objectName;
+    }
+    
+    //----- IStepMetricsMXBean
+    
+    @Override public long getStepCount() { return published.get(); }
+    
+    @Override public long getGeneration() { return getLatest(Metric.GENERATION); }
+    
+    @Override public long getLiveCount() { return getLatest(Metric.LIVE_COUNT); }
+    
+    @Override public long getLastBirths() { return getLatest(Metric.BIRTHS); }
+    
+    @Override public long getLastDeaths() { return getLatest(Metric.DEATHS); }
+    
+    @Override public long getLastChangedCount() { return getLatest(Metric.CHANGED_COUNT); }
+    
+    @Override public long getLastStepNanos() { return getLatest(Metric.STEP_NANOS); }
+    
+    @Override public long getTotalBirths() { return totalBirths; }
+    
+    @Override public long getTotalDeaths() { return totalDeaths; }
+    
+    @Override public long getTotalChangedCount() { return totalChangedCount; }
+    
+    @Override public long getTotalStepNanos() { return totalStepNanos; }
+    
+    @Override public long getTotalAllocatedBytes() { return totalAllocatedBytes; }
+    
+    @Override public double getStepsPerSecond() {
+        final long nanos = totalStepNanos;
+        return (nanos == 0) ? 0.0 : getStepCount() * 1e9 / nanos;
+    }
+    
+    //----- Inner classes
+    
+    /**
+     * A reader's position in the recorder's ring buffer. Each reading thread needs its own cursor.
+     */
+    public final class Cursor
+    {
+        private long nextStep;
+        private long skippedSteps;
+        
+        private Cursor(long nextStep) {
+            this.nextStep = nextStep;
+        }
+        
+        /**
+         * @return The step number (0-based count of reported steps) that the next {@link #read} starts from.
+         */
+        public long getNextStep() {
+            return nextStep;
+        }
+        
+        /**
+         * @return The number of steps this cursor has missed because the writer overwrote them before they were read.
+         */
+        public long getSkippedSteps() {
+            return skippedSteps;
+        }
+        
+        /**
+         * Copies the metrics of the steps recorded since the previous read into dst, and advances past them.
+         * 
+         * @param dst
+         *            Receives {@link StepMetricsRecorder#METRIC_COUNT} values per step, in {@link Metric} order.
+         * @param maxSteps
+         *            The maximum number of steps to copy; dst must hold at least this many steps' values.
+         * @return The number of steps copied.
+         */
+        public int read(long[] dst, int maxSteps) {
+            final long end = published.get();
+            // The slot of step end (being written now) is also the slot of step end - capacity.
+            final long oldest = end - capacity + 1;
+            long from = nextStep;
+            if (from < oldest) {
+                skippedSteps += oldest - from;
+                from = oldest;
+            }
+            final long to = Math.min(end, from + maxSteps);
+            for (long step = from; step < to; ++step) {
+                System.arraycopy(ring, METRIC_COUNT * (int) (step & mask), dst, (int) (step - from) * METRIC_COUNT,
+                        METRIC_COUNT);
+            }
+            // Slots the writer has reached since "end" was read may have been overwritten during the copy.
+            final long overwrittenBefore = published.get() - capacity + 1;
+            int dropped = 0;
+            if (overwrittenBefore > from) {
+                dropped = (int) (Math.min(overwrittenBefore, to) - from);
+                System.arraycopy(dst, dropped * METRIC_COUNT, dst, 0, (int) (to - from - dropped) * METRIC_COUNT);
+                skippedSteps += dropped;
+            }
+            nextStep = to;
+            return (int) (to - from) - dropped;
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.jca.ConwayLifeEngine.CellState;
+import org.jca.RectangularGridGeometry.Direction;
+import org.jca.StepMetricsRecorder.Metric;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class StepMetricsRecorderTest
+{
+    private ConwayLifeEngine blinkerEngine;
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        blinkerEngine = new ConwayLifeEngine(5, 5, true);
+        CellState[] blinker = new CellState[25];
+        for (int iCell = 0; iCell < blinker.length; ++iCell) {
+            blinker[iCell] = (iCell == 7 || iCell == 12 || iCell == 17) ? CellState.LIVE : CellState.DEAD;
+        }
+        blinkerEngine.setGridState(blinker);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testLifeEngineReportsEachStep() {
+        StepMetricsRecorder recorder = new StepMetricsRecorder();
+        blinkerEngine.setMetricsListener(recorder);
+        for (int iStep = 0; iStep < 3; ++iStep) {
+            blinkerEngine.doSimulationStep();
+        }
+        assertThat("steps", recorder.getStepCount(), equalTo(3L));
+        assertThat("generation", recorder.getGeneration(), equalTo(3L));
+        assertThat("births", recorder.getLastBirths(), equalTo(2L));
+        assertThat("deaths", recorder.getLastDeaths(), equalTo(2L));
+        assertThat("live", recorder.getLiveCount(), equalTo(3L));
+        assertThat("changed", recorder.getLastChangedCount(), equalTo(4L));
+        assertThat("total changed", recorder.getTotalChangedCount(), equalTo(12L));
+        assertTrue("step nanos", recorder.getLatest(Metric.STEP_NANOS) > 0);
+
+        blinkerEngine.setMetricsListener(null);
+        blinkerEngine.doSimulationStep();
+        assertThat("steps after clearing listener", recorder.getStepCount(), equalTo(3L));
+    }
+
+    @Test
+    public void testAntEngineReportsEachStep() {
+        StepMetricsRecorder recorder = new StepMetricsRecorder();
+        LangtonAntEngine antEngine = new LangtonAntEngine(5, 5, true, Direction.LEFT);
+        antEngine.setMetricsListener(recorder);
+        antEngine.doSimulationStep();
+        assertThat("births", recorder.getLastBirths(), equalTo(1L));
+        assertThat("live", recorder.getLiveCount(), equalTo(1L));
+        assertThat("black count", antEngine.getBlackCount(), equalTo(1));
+    }
+
+    @Test
+    public void testCursorSkipsOverwrittenSteps() {
+        StepMetricsRecorder recorder = new StepMetricsRecorder(4);
+        StepMetricsRecorder.Cursor cursor = recorder.newCursor();
+        for (long step = 1; step <= 10; ++step) {
+            recorder.onStep(step, 0, 0, 0, 0, 1, -1);
+        }
+        long[] dst = new long[8 * StepMetricsRecorder.METRIC_COUNT];
+        // The slot of the oldest step is the one the writer fills next, so it is not readable.
+        assertThat("steps read", cursor.read(dst, 8), equalTo(3));
+        assertThat("skipped", cursor.getSkippedSteps(), equalTo(7L));
+        assertThat("first generation read", dst[Metric.GENERATION.ordinal()], equalTo(8L));
+        assertThat("total allocated", recorder.getTotalAllocatedBytes(), equalTo(-1L));
+        assertThat("nothing new", cursor.read(dst, 8), equalTo(0));
+    }
+
+    @Test
+    public void testCursorNeverReadsTornSteps() throws InterruptedException {
+        final StepMetricsRecorder recorder = new StepMetricsRecorder(8);
+        final long stepCount = 2000000;
+        // Every metric of step n is n, so a step copied while being overwritten shows up as mixed values.
+        Thread writer = new Thread(() -> {
+            for (long step = 0; step < stepCount; ++step) {
+                recorder.onStep(step, step, step, step, step, step, step);
+            }
+        });
+        StepMetricsRecorder.Cursor cursor = recorder.newCursor();
+        long[] dst = new long[8 * StepMetricsRecorder.METRIC_COUNT];
+        long lastGeneration = -1;
+        long readCount = 0;
+        writer.start();
+        while (writer.isAlive() || cursor.getNextStep() < recorder.getStepCount()) {
+            final int readSteps = cursor.read(dst, 8);
+            for (int iStep = 0; iStep < readSteps; ++iStep) {
+                final long generation = dst[iStep * StepMetricsRecorder.METRIC_COUNT];
+                for (int iMetric = 1; iMetric < StepMetricsRecorder.METRIC_COUNT; ++iMetric) {
+                    assertThat("step " + generation, dst[iStep * StepMetricsRecorder.METRIC_COUNT + iMetric],
+                            equalTo(generation));
+                }
+                assertTrue("steps in order", generation > lastGeneration);
+                lastGeneration = generation;
+            }
+            readCount += readSteps;
+        }
+        writer.join();
+        assertThat("all steps read or skipped", readCount + cursor.getSkippedSteps(), equalTo(stepCount));
+    }
+
+    @Test
+    public void testCsvSinkDrainsRows() throws IOException {
+        StepMetricsRecorder recorder = new StepMetricsRecorder();
+        StringWriter out = new StringWriter();
+        try (StepMetricsCsvSink sink = new StepMetricsCsvSink(recorder, out)) {
+            recorder.onStep(1, 2, 3, 4, 5, 6, 7);
+            assertThat("rows", sink.drain(), equalTo(1L));
+            recorder.onStep(2, 0, 0, 4, 0, 9, 0);
+        }
+        String[] lines = out.toString().split("\n");
+        assertThat("line count", lines.length, equalTo(3));
+        assertThat(lines[0], equalTo("generation,births,deaths,live_count,changed_count,step_nanos,allocated_bytes"));
+        assertThat(lines[1], equalTo("1,2,3,4,5,6,7"));
+        assertThat(lines[2], equalTo("2,0,0,4,0,9,0"));
+    }
+}
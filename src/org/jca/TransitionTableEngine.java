@@ -0,0 +1,231 @@
+package org.jca;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * The basis of multi-state engines, such as {@link GenerationsEngine} and {@link WireWorldEngine}, whose rule is a
+ * function of a cell's state and the number of its 8 adjacent cells in state 1 (the "firing" state: live, or an
+ * electron head).
+ * <p>
+ * A subclass compiles its rule into a transition table of {@code stateCount * 9} entries, where entry
+ * {@code state * 9 + count} is the next state of a cell in that state with that many firing neighbors. Cells are
+ * stored one state per byte, double-buffered, and each step is computed in parallel bands of rows. Within a row, the
+ * firing counts of each column of three cells (above, at and below the row) are summed once, into a scratch row with
+ * a ghost column at each end (wrapped on a torus, zero otherwise), so each cell's count is three additions.
+ * <p>
+ * Metrics are reported in terms of the firing state: births are cells entering state 1, deaths cells leaving it, and
+ * the live count is the number of cells in state 1.
+ *
+ * @author ksdj (coder-hat)
+ */
+public abstract class TransitionTableEngine implements ISimulationEngine
+{
+    /**
+     * The number of rows in each band of rows that a step processes in parallel.
+     */
+    private static final int BAND_ROWS = 64;
+
+    /**
+     * The state whose cells are counted as neighbors.
+     */
+    protected static final byte FIRING = 1;
+
+    private final RectangularGridGeometry grid;
+
+    private final int stateCount;
+
+    /**
+     * The compiled rule: the next state of a cell in state s with n firing neighbors is at [s * 9 + n].
+     */
+    private final byte[] transitions;
+
+    /**
+     * The state of each grid cell, indexed by linear cell index.
+     */
+    protected byte[] cells;
+
+    /**
+     * Scratch buffer that receives the next generation during {@link #doSimulationStep()}, then is swapped with
+     * {@link cells}.
+     */
+    private byte[] nextCells;
+
+    private long generation;
+
+    private int liveCount;
+
+    private IStepMetricsListener metricsListener;
+
+    /**
+     * Each stepping thread's row of column firing counts, with a ghost column at each end.
+     */
+    private final ThreadLocal<byte[]> columnCounts;
+
+    /**
+     * @param transitions
+     *            The compiled rule, as described {@link TransitionTableEngine above}; not copied.
+     */
+    protected TransitionTableEngine(int colCount, int rowCount, boolean isTorus, int stateCount, byte[] transitions) {
+        if (transitions.length != stateCount * 9) {
+            throw new IllegalArgumentException("Expected " + (stateCount * 9) + " transitions");
+        }
+        grid = new RectangularGridGeometry(colCount, rowCount, isTorus);
+        this.stateCount = stateCount;
+        this.transitions = transitions;
+        cells = new byte[grid.getCellCount()];
+        nextCells = new byte[grid.getCellCount()];
+        columnCounts = ThreadLocal.withInitial(() -> new byte[colCount + 2]);
+    }
+
+    @Override
+    public RectangularGridGeometry getGrid() {
+        return grid;
+    }
+
+    @Override
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * @return The number of states a cell can be in.
+     */
+    public int getStateCount() {
+        return stateCount;
+    }
+
+    /**
+     * @return The number of cells currently in the firing state (1).
+     */
+    public int getLiveCount() {
+        return liveCount;
+    }
+
+    public int getState(int iCell) {
+        return cells[iCell];
+    }
+
+    public void setState(int iCell, int state) {
+        if (state < 0 || state >= stateCount) throw new IllegalArgumentException("state must be in [0, " + stateCount + ")");
+        if (cells[iCell] == FIRING) --liveCount;
+        cells[iCell] = (byte) state;
+        if (state == FIRING) ++liveCount;
+    }
+
+    /**
+     * Resets every cell to state 0, and the generation to 0.
+     */
+    public void clear() {
+        Arrays.fill(cells, (byte) 0);
+        liveCount = 0;
+        generation = 0;
+    }
+
+    /**
+     * Gets the engine's cell buffer: one state per cell, indexed by linear cell index.<br>
+     * The returned array is the engine's own storage, replaced by the next step.
+     */
+    @Override
+    public byte[] getCellStates() {
+        return cells;
+    }
+
+    /**
+     * Resets the grid to the specified states, one per cell by linear cell index, and the generation to 0.
+     */
+    public void setCellStates(byte[] states) {
+        if (states.length != cells.length) throw new IllegalArgumentException("Expected " + cells.length + " cell states");
+        liveCount = 0;
+        for (int iCell = 0; iCell < cells.length; ++iCell) {
+            if (states[iCell] < 0 || states[iCell] >= stateCount) {
+                throw new IllegalArgumentException("Cell " + iCell + " has state " + states[iCell]);
+            }
+            cells[iCell] = states[iCell];
+            if (states[iCell] == FIRING) ++liveCount;
+        }
+        generation = 0;
+    }
+
+    @Override
+    public void doSimulationStep() {
+        final IStepMetricsListener listener = metricsListener;
+        final long startNanos = (listener != null) ? System.nanoTime() : 0L;
+        final long startAllocated = (listener != null) ? AllocationMeter.currentThreadAllocatedBytes() : 0L;
+        final int rowCount = grid.getRowCount();
+        final int bandCount = (rowCount + BAND_ROWS - 1) / BAND_ROWS;
+        final int[] bandResults = new int[3 * bandCount];
+        IntStream.range(0, bandCount).parallel().forEach(iBand -> stepBand(iBand, bandResults));
+        int births = 0;
+        int deaths = 0;
+        int changed = 0;
+        for (int iBand = 0; iBand < bandCount; ++iBand) {
+            births += bandResults[3 * iBand];
+            deaths += bandResults[3 * iBand + 1];
+            changed += bandResults[3 * iBand + 2];
+        }
+        byte[] swap = cells;
+        cells = nextCells;
+        nextCells = swap;
+        liveCount += births - deaths;
+        ++generation;
+        if (listener != null) {
+            final long allocated = (startAllocated < 0) ? -1L
+                    : AllocationMeter.currentThreadAllocatedBytes() - startAllocated;
+            listener.onStep(generation, births, deaths, liveCount, changed, System.nanoTime() - startNanos,
+                    allocated);
+        }
+    }
+
+    /**
+     * Computes band iBand of the next generation into {@link nextCells}.
+     *
+     * @param bandResults
+     *            Receives the band's births at [3 * iBand], deaths at [3 * iBand + 1] and changed cells at
+     *            [3 * iBand + 2].
+     */
+    private void stepBand(int iBand, int[] bandResults) {
+        final int colCount = grid.getColCount();
+        final int rowCount = grid.getRowCount();
+        final boolean isTorus = grid.isTorus();
+        final byte[] counts = columnCounts.get();
+        final int yFirst = iBand * BAND_ROWS;
+        final int yEnd = Math.min(yFirst + BAND_ROWS, rowCount);
+        int births = 0;
+        int deaths = 0;
+        int changed = 0;
+        for (int y = yFirst; y < yEnd; ++y) {
+            final int iMid = y * colCount;
+            final int iUp = (y > 0) ? iMid - colCount : (isTorus ? (rowCount - 1) * colCount : -1);
+            final int iDown = (y < rowCount - 1) ? iMid + colCount : (isTorus ? 0 : -1);
+            // counts[x + 1] is the number of firing cells in column x of rows y - 1, y and y + 1.
+            for (int x = 0; x < colCount; ++x) {
+                int count = (cells[iMid + x] == FIRING) ? 1 : 0;
+                if (iUp >= 0 && cells[iUp + x] == FIRING) ++count;
+                if (iDown >= 0 && cells[iDown + x] == FIRING) ++count;
+                counts[x + 1] = (byte) count;
+            }
+            counts[0] = isTorus ? counts[colCount] : 0;
+            counts[colCount + 1] = isTorus ? counts[1] : 0;
+            for (int x = 0; x < colCount; ++x) {
+                final byte cur = cells[iMid + x];
+                final int count = counts[x] + counts[x + 1] + counts[x + 2] - ((cur == FIRING) ? 1 : 0);
+                final byte next = transitions[cur * 9 + count];
+                nextCells[iMid + x] = next;
+                if (next != cur) {
+                    ++changed;
+                    if (next == FIRING) ++births;
+                    else if (cur == FIRING) ++deaths;
+                }
+            }
+        }
+        bandResults[3 * iBand] = births;
+        bandResults[3 * iBand + 1] = deaths;
+        bandResults[3 * iBand + 2] = changed;
+    }
+
+    @Override
+    public void setMetricsListener(IStepMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+}
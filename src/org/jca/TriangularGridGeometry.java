@@ -0,0 +1,107 @@
+package org.jca;
+
+/**
+ * A grid of triangular cells, laid out in columns and rows of alternately upward- and downward-pointing triangles: the
+ * cell at column x, row y points up when x + y is even. Each triangle shares its left and right edges with its
+ * neighbors in the row, and its base with the cell below (if it points up) or above (if it points down).
+ * <p>
+ * Cells have either the 3 neighbors they share an edge with ({@link Neighborhood#EDGES}), or the 12 they share an edge
+ * or a vertex with ({@link Neighborhood#VERTICES}), the usual neighborhood for Life-like rules on this lattice.<br>
+ * The up/down pattern must continue across the wrapped edges of a torus, so a triangular torus must have even column
+ * and row counts.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class TriangularGridGeometry extends LatticeGridGeometry
+{
+    /**
+     * The neighbors a triangular cell has.
+     */
+    public static enum Neighborhood {
+        /**
+         * The 3 cells sharing an edge: left, right, then the one sharing the base.
+         */
+        EDGES(new int[] { -1, 0, 1, 0, 0, 1 }, new int[] { -1, 0, 1, 0, 0, -1 }),
+        /**
+         * The 12 cells sharing an edge or a vertex, row by row, left to right.
+         */
+        VERTICES(new int[] { -1, -1, 0, -1, 1, -1, -2, 0, -1, 0, 1, 0, 2, 0, -2, 1, -1, 1, 0, 1, 1, 1, 2, 1 },
+                new int[] { -2, -1, -1, -1, 0, -1, 1, -1, 2, -1, -2, 0, -1, 0, 1, 0, 2, 0, -1, 1, 0, 1, 1, 1 });
+
+        /**
+         * The (dx, dy) offsets of the neighbors of an upward-pointing cell, and of a downward-pointing cell.
+         */
+        private final int[] upOffsets;
+        private final int[] downOffsets;
+
+        private Neighborhood(int[] upOffsets, int[] downOffsets) {
+            this.upOffsets = upOffsets;
+            this.downOffsets = downOffsets;
+        }
+
+        public int getNeighborCount() {
+            return upOffsets.length / 2;
+        }
+    }
+
+    /**
+     * The height of a cell whose base is 1 unit wide. Adjacent cells in a row overlap by half a unit.
+     */
+    private static final double CELL_HEIGHT = Math.sqrt(3.0) / 2.0;
+
+    private final Neighborhood neighborhood;
+
+    /**
+     * @throws IllegalArgumentException
+     *             If the grid is a torus with an odd number of columns or rows.
+     */
+    public TriangularGridGeometry(int colCount, int rowCount, boolean isTorus, Neighborhood neighborhood) {
+        super(colCount, rowCount, isTorus);
+        if (isTorus && ((colCount | rowCount) & 1) != 0) {
+            throw new IllegalArgumentException(
+                    "A triangular torus needs even column and row counts, not " + colCount + "x" + rowCount);
+        }
+        this.neighborhood = neighborhood;
+    }
+
+    public Neighborhood getNeighborhood() {
+        return neighborhood;
+    }
+
+    /**
+     * @return Whether the cell at column xCell, row yCell points up.
+     */
+    public static boolean isUpward(int xCell, int yCell) {
+        return ((xCell + yCell) & 1) == 0;
+    }
+
+    @Override
+    public int getNeighborCount() {
+        return neighborhood.getNeighborCount();
+    }
+
+    @Override
+    protected int[] getNeighborOffsets(int xCell, int yCell) {
+        return isUpward(xCell, yCell) ? neighborhood.upOffsets : neighborhood.downOffsets;
+    }
+
+    @Override
+    public int getCellVertexCount() {
+        return 3;
+    }
+
+    /**
+     * Gets the triangle's vertices: the left and right ends of its base, then its apex.
+     */
+    @Override
+    public void getCellOutline(int iCell, double[] xs, double[] ys) {
+        final int xCell = getX(iCell);
+        final int yCell = getY(iCell);
+        final boolean isUp = isUpward(xCell, yCell);
+        final double yBase = (isUp ? yCell + 1 : yCell) * CELL_HEIGHT;
+        final double yApex = (isUp ? yCell : yCell + 1) * CELL_HEIGHT;
+        xs[0] = 0.5 * xCell;        ys[0] = yBase;
+        xs[1] = 0.5 * xCell + 1.0;  ys[1] = yBase;
+        xs[2] = 0.5 * xCell + 0.5;  ys[2] = yApex;
+    }
+}
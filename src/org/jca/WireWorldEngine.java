@@ -0,0 +1,87 @@
+package org.jca;
+
+/**
+ * A WireWorld engine: electrons flowing along wires of conductor cells.
+ * <ul>
+ * <li>{@link CellState#EMPTY} cells stay empty.</li>
+ * <li>An {@link CellState#ELECTRON_HEAD} becomes an {@link CellState#ELECTRON_TAIL}.</li>
+ * <li>An {@link CellState#ELECTRON_TAIL} becomes a {@link CellState#CONDUCTOR}.</li>
+ * <li>A {@link CellState#CONDUCTOR} becomes an {@link CellState#ELECTRON_HEAD} if 1 or 2 of its 8 adjacent cells are
+ * electron heads, and otherwise stays a conductor.</li>
+ * </ul>
+ * Electron heads are the {@link TransitionTableEngine} firing state, so the engine's births, deaths and live count are
+ * of electron heads.
+ *
+ * @author ksdj (coder-hat)
+ */
+public class WireWorldEngine extends TransitionTableEngine
+{
+    /**
+     * The states a WireWorld cell can have. The ordinals are the states stored in the cell buffer.
+     */
+    public static enum CellState {
+        EMPTY,
+        ELECTRON_HEAD,
+        ELECTRON_TAIL,
+        CONDUCTOR;
+    }
+
+    private static final byte EMPTY = (byte) CellState.EMPTY.ordinal();
+    private static final byte HEAD = (byte) CellState.ELECTRON_HEAD.ordinal();
+    private static final byte TAIL = (byte) CellState.ELECTRON_TAIL.ordinal();
+    private static final byte CONDUCTOR = (byte) CellState.CONDUCTOR.ordinal();
+
+    public WireWorldEngine(int colCount, int rowCount, boolean isTorus) {
+        super(colCount, rowCount, isTorus, CellState.values().length, compile());
+    }
+
+    /**
+     * @return The transition table of WireWorld's rule, as {@link TransitionTableEngine} describes.
+     */
+    private static byte[] compile() {
+        final byte[] transitions = new byte[CellState.values().length * 9];
+        for (int count = 0; count <= 8; ++count) {
+            transitions[EMPTY * 9 + count] = EMPTY;
+            transitions[HEAD * 9 + count] = TAIL;
+            transitions[TAIL * 9 + count] = CONDUCTOR;
+            transitions[CONDUCTOR * 9 + count] = (count == 1 || count == 2) ? HEAD : CONDUCTOR;
+        }
+        return transitions;
+    }
+
+    public CellState getCellState(int iCell) {
+        return CellState.values()[getState(iCell)];
+    }
+
+    public void setCellState(int iCell, CellState newState) {
+        setState(iCell, newState.ordinal());
+    }
+
+    /**
+     * Resets the grid to a clock: a rectangular loop of conductor one cell in from the grid's edges (or as large as
+     * fits), carrying a single electron clockwise (if the loop is at least 4 cells wide), and the generation to 0.<br>
+     * A WireWorld circuit is designed rather than random, so the seed is ignored.
+     */
+    @Override
+    public void reset(long seed) {
+        clear();
+        final RectangularGridGeometry grid = getGrid();
+        final int xFirst = Math.min(1, grid.getColCount() - 1);
+        final int yFirst = Math.min(1, grid.getRowCount() - 1);
+        final int xLast = Math.max(xFirst, grid.getColCount() - 2);
+        final int yLast = Math.max(yFirst, grid.getRowCount() - 2);
+        for (int x = xFirst; x <= xLast; ++x) {
+            setCellState(grid.getI(x, yFirst), CellState.CONDUCTOR);
+            setCellState(grid.getI(x, yLast), CellState.CONDUCTOR);
+        }
+        for (int y = yFirst; y <= yLast; ++y) {
+            setCellState(grid.getI(xFirst, y), CellState.CONDUCTOR);
+            setCellState(grid.getI(xLast, y), CellState.CONDUCTOR);
+        }
+        // The electron starts clear of the corner, which would otherwise fire back around it.
+        if (xLast - xFirst >= 3) {
+            setCellState(grid.getI(xFirst + 2, yFirst), CellState.ELECTRON_HEAD);
+            setCellState(grid.getI(xFirst + 1, yFirst), CellState.ELECTRON_TAIL);
+        }
+    }
+}
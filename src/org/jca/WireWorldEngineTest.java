@@ -0,0 +1,67 @@
+package org.jca;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+
+import org.jca.WireWorldEngine.CellState;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class WireWorldEngineTest
+{
+
+    @BeforeClass
+    public static void setUpBeforeClass() throws Exception {
+    }
+
+    @AfterClass
+    public static void tearDownAfterClass() throws Exception {
+    }
+
+    @Before
+    public void setUp() throws Exception {
+    }
+
+    @After
+    public void tearDown() throws Exception {
+    }
+
+    @Test
+    public void testElectronCirclesClockLoop() {
+        WireWorldEngine engine = new WireWorldEngine(8, 6, false);
+        engine.reset(0L);
+        final RectangularGridGeometry grid = engine.getGrid();
+        assertThat(engine.getCellState(grid.getI(3, 1)), equalTo(CellState.ELECTRON_HEAD));
+        engine.doSimulationStep();
+        assertThat(engine.getCellState(grid.getI(4, 1)), equalTo(CellState.ELECTRON_HEAD));
+        assertThat(engine.getCellState(grid.getI(3, 1)), equalTo(CellState.ELECTRON_TAIL));
+        assertThat(engine.getCellState(grid.getI(2, 1)), equalTo(CellState.CONDUCTOR));
+        // The loop runs around columns 1..6 and rows 1..4, 16 cells, but the electron cuts each of the 4 corners (both
+        // cells after a corner fire at once), so it comes round every 12 generations.
+        final byte[] expected = engine.copyCellStates();
+        engine.doSimulationSteps(12);
+        assertThat(engine.copyCellStates(), equalTo(expected));
+        assertThat(engine.getLiveCount(), equalTo(1));
+    }
+
+    @Test
+    public void testHeadNeedsOneOrTwoNeighbors() {
+        WireWorldEngine engine = new WireWorldEngine(5, 5, true);
+        final RectangularGridGeometry grid = engine.getGrid();
+        // A conductor with 3 electron heads around it stays a conductor; one with 2 fires.
+        engine.setCellState(grid.getI(1, 1), CellState.CONDUCTOR);
+        engine.setCellState(grid.getI(0, 0), CellState.ELECTRON_HEAD);
+        engine.setCellState(grid.getI(1, 0), CellState.ELECTRON_HEAD);
+        engine.setCellState(grid.getI(2, 0), CellState.ELECTRON_HEAD);
+        engine.setCellState(grid.getI(3, 3), CellState.CONDUCTOR);
+        engine.setCellState(grid.getI(4, 4), CellState.ELECTRON_HEAD);
+        engine.setCellState(grid.getI(3, 4), CellState.ELECTRON_HEAD);
+        engine.doSimulationStep();
+        assertThat(engine.getCellState(grid.getI(1, 1)), equalTo(CellState.CONDUCTOR));
+        assertThat(engine.getCellState(grid.getI(3, 3)), equalTo(CellState.ELECTRON_HEAD));
+        assertThat(engine.getCellState(grid.getI(0, 0)), equalTo(CellState.ELECTRON_TAIL));
+    }
+}